@@ -0,0 +1,108 @@
+package com.database.tttdb.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.database.tttdb.core.index.Index;
+import com.database.tttdb.core.index.btree.BPlusTree;
+
+/**
+ * Compares the array-based {@link BPlusTree} with the list-based {@link LegacyBPlusTree}
+ * it replaced, for integer and prefix-sharing String keys, unique and duplicate.
+ *
+ * <p>Run with {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=BPlusTreeBenchmark}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BPlusTreeBenchmark {
+
+    @Param({"ARRAY", "LEGACY"})
+    public String tree;
+    @Param({"INT", "STRING"})
+    public String keyType;
+    @Param({"true", "false"})
+    public boolean unique;
+    @Param({"200000"})
+    public int size;
+
+    private Object[] keys;
+    private Object[] sorted;
+    private int[] probes;
+    private Index<Comparable<Object>, Integer> loaded;
+
+    @Setup(Level.Trial)
+    public void generateKeys() {
+        Random random = new Random(42);
+        int distinct = this.unique ? Integer.MAX_VALUE : this.size / 20;
+        this.keys = new Object[this.size];
+        for (int i = 0; i < this.size; i++) {
+            int key = random.nextInt(distinct);
+            this.keys[i] = this.keyType.equals("INT") ? (Object) key : String.format("customer-%010d", key);
+        }
+        this.sorted = this.keys.clone();
+        Arrays.sort(this.sorted);
+        this.probes = new int[10_000];
+        for (int i = 0; i < this.probes.length; i++) this.probes[i] = random.nextInt(this.size);
+    }
+
+    @Setup(Level.Iteration)
+    public void load() {
+        this.loaded = this.fill();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Index<Comparable<Object>, Integer> fill() {
+        Index<Comparable<Object>, Integer> index = this.tree.equals("ARRAY") ? new BPlusTree<>(32) : new LegacyBPlusTree<>(32);
+        index.setUnique(this.unique);
+        for (int i = 0; i < this.keys.length; i++) index.insert((Comparable<Object>) this.keys[i], i);
+        return index;
+    }
+
+    @Benchmark
+    public Index<Comparable<Object>, Integer> insert() {
+        return this.fill();
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void search(Blackhole blackhole) {
+        for (int probe : this.probes) blackhole.consume(this.loaded.search((Comparable<Object>) this.keys[probe]));
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void rangeSearch(Blackhole blackhole) {
+        // Ranges of about 100 entries
+        for (int i = 0; i < 1_000; i++) {
+            int from = Math.min(this.probes[i], this.size - 101);
+            blackhole.consume(this.loaded.rangeSearch((Comparable<Object>) this.sorted[from], (Comparable<Object>) this.sorted[from + 100]));
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Index<Comparable<Object>, Integer> removeAll() {
+        Index<Comparable<Object>, Integer> index = this.fill();
+        for (int i = 0; i < this.keys.length; i++) index.remove((Comparable<Object>) this.keys[i], i);
+        return index;
+    }
+}
@@ -0,0 +1,668 @@
+package com.database.tttdb.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import java.util.LinkedList;
+import java.util.Queue;
+
+import com.database.tttdb.core.index.Index;
+import com.database.tttdb.core.index.Pair;
+
+/**
+ * The list-based B+ Tree as it was before nodes moved to sorted arrays, kept unchanged
+ * as the baseline of {@link BPlusTreeBenchmark}.
+ *
+ * @param <K> Key type (must implement Comparable)
+ * @param <V> Value type associated with keys
+ */
+public class LegacyBPlusTree<K extends Comparable<? super K>, V> implements Index<K, V> {
+
+    private LegacyNode<K, V> root;
+    private LegacyNode<K, V> start;// Points to the first leaf node
+    private final int order;
+    private long size = 0;
+    private boolean isUnique = true;
+    private boolean isNullable = false;
+    private Pair<K,V> nullPair;
+    private final int minKeys;
+    private final Comparator<Pair<K, V>> keyComparator = (pair1, pair2) -> pair1.key.compareTo(pair2.key);
+
+    /**
+     * Constructs a B+ Tree with specified order.
+     *
+     * @param order Tree order (minimum 3). Determines max keys per node (order-1).
+     * @throws IllegalArgumentException if order < 3
+     */
+    public LegacyBPlusTree(int order) {
+        if (order < 3)
+            throw new IllegalArgumentException("B+Tree Order must be at least 3.");
+        this.root = new LegacyNode<>(true);// Start with an empty leaf root
+        this.start = root;
+        this.order = order;
+        this.size = 0;
+        this.minKeys = (int) Math.ceil((double) this.order / 2.0) - 1;
+    }
+
+    // ========! INSERTION !==========
+    // Core Operation (see interface docs for details)
+    public void insert(K key, V value) {
+        if(this.nullInsert(key, value)) return;
+        Pair<K, V> newPair = new Pair<>(key, value);
+        // Split root if it's full
+        if (this.root.pairs.size() == order - 1) {
+            splitRoot();
+        }
+        insertNonFull(this.root, newPair);
+    }
+
+    private boolean nullInsert(K key, V value){
+        if(!this.isNullable) return false;
+        if(key == null){
+            if(this.nullPair == null) this.nullPair = new Pair<>(null,null);
+            if(this.nullPair.value == null) this.nullPair.value = value;
+            else this.nullPair.addDup(value);
+            this.size++;
+            return true;
+        }
+        return false;
+    }
+
+    private void splitRoot() {
+        LegacyNode<K, V> newRoot = new LegacyNode<>(false);
+        LegacyNode<K, V> oldRoot = root;
+        root = newRoot;
+        newRoot.children.add(oldRoot);
+        oldRoot.parent = newRoot;
+        splitChild(newRoot, 0);
+    }
+
+    private void splitChild(LegacyNode<K, V> parentNode, int childIndex) {
+        LegacyNode<K, V> leftChild = parentNode.children.get(childIndex);
+        LegacyNode<K, V> newRightChild = new LegacyNode<>(leftChild.isLeaf);
+        newRightChild.parent = parentNode;
+        if (leftChild.isLeaf) {
+            splitLeaf(leftChild, newRightChild, childIndex);
+        } else {
+            splitInternal(leftChild, newRightChild, childIndex);
+        }
+        // Recursive parent splitting added here
+        if (parentNode.pairs.size() >= order) {
+            if (parentNode == root) {
+                splitRoot();
+            } else {
+                int indexInGrandparent = parentNode.parent.children.indexOf(parentNode);
+                splitChild(parentNode.parent, indexInGrandparent);
+            }
+        }
+    }
+
+    private void splitLeaf(LegacyNode<K, V> leftChild, LegacyNode<K, V> rightChild, int childIndex) {
+        int splitPoint = leftChild.pairs.size() / 2;
+        // Move pairs to new node
+        rightChild.pairs.addAll(leftChild.pairs.subList(splitPoint, leftChild.pairs.size()));
+        leftChild.pairs.subList(splitPoint, leftChild.pairs.size()).clear();
+        // Update leaf links
+        rightChild.next = leftChild.next;
+        leftChild.next = rightChild;
+        // Promote first key of right child
+        K promotedKey = rightChild.pairs.getFirst().key;
+        LegacyNode<K, V> parent = leftChild.parent;
+        // Insert in parent at correct position
+        parent.pairs.add(childIndex, new Pair<>(promotedKey, null));
+        parent.children.add(childIndex + 1, rightChild);
+    }
+
+    private void splitInternal(LegacyNode<K, V> leftChild, LegacyNode<K, V> rightChild, int childIndex) {
+        int midIndex = leftChild.pairs.size() / 2;
+        Pair<K, V> promotedPair = leftChild.pairs.get(midIndex);
+        leftChild.pairs.remove(midIndex);
+        // Move keys and children to the new node
+        rightChild.pairs.addAll(leftChild.pairs.subList(midIndex, leftChild.pairs.size()));
+        rightChild.children.addAll(leftChild.children.subList(midIndex + 1, leftChild.children.size()));
+        // Clean up the child node
+        leftChild.pairs.subList(midIndex, leftChild.pairs.size()).clear();
+        leftChild.children.subList(midIndex + 1, leftChild.children.size()).clear();
+        // Update parent pointers for the new node's children
+        for (LegacyNode<K, V> child : rightChild.children) {
+            child.parent = rightChild;
+        }
+        // Insert promoted key and new child into the parent (immediate parent)
+        rightChild.parent.pairs.add(childIndex, promotedPair);
+        rightChild.parent.children.add(childIndex + 1, rightChild);
+    }
+
+    private void insertNonFull(LegacyNode<K, V> node, Pair<K, V> pair) {
+        if (node.isLeaf) {
+            insertIntoLeaf(node, pair);
+        } else {
+            insertIntoInternal(node, pair);
+        }
+    }
+
+    private void insertIntoLeaf(LegacyNode<K, V> leaf, Pair<K, V> pair) {
+        int pos = Collections.binarySearch(leaf.pairs, pair, keyComparator);
+        if (pos >= 0 && isUnique) {
+            return; // Key exists and tree is unique
+        } else if (pos >= 0) {
+            // Handle duplicates by adding to the existing pair's duplicates
+            if (!leaf.pairs.get(pos).value.equals(pair.value)) {
+                leaf.pairs.get(pos).addDup(pair.value);
+                this.size++;
+            }
+        } else {
+            pos = -(pos + 1);
+            leaf.pairs.add(pos, pair);
+            this.size++;
+            if (leaf.pairs.size() >= order) {
+                if (leaf == root) {
+                    splitRoot(); // Special handling for root leaf
+                } else {
+                    splitChild(leaf.parent, parentChildIndex(leaf));
+                }
+            }
+        }
+    }
+
+    private int parentChildIndex(LegacyNode<K, V> child) {
+        return child.parent.children.indexOf(child);
+    }
+
+    private void insertIntoInternal(LegacyNode<K, V> node, Pair<K, V> pair) {
+        int index = findChildIndex(node, pair.key);
+        LegacyNode<K, V> child = node.children.get(index);
+        if (child.pairs.size() >= order) {
+            splitChild(node, index);
+            // Adjust index after split
+            if (pair.key.compareTo(node.pairs.get(index).key) > 0) {
+                index++;
+            }
+        }
+        insertNonFull(node.children.get(index), pair);
+    }
+
+    private static <K extends Comparable<? super K>, V> int findChildIndex(LegacyNode<K, V> node, K key) {
+        return upperBoundIndex(node, key);
+    }
+
+    // ===========! REMOVING !=============
+    // Core Operation (see interface docs for details)
+    public void remove(K key, V value) {
+        if(nullRemoval(key, value)) return;
+        if (key == null || root == null) return;
+        // 1. Find the leaf node where the key should exist.
+        LegacyNode<K, V> leaf = findLeafNode(key);
+        if (leaf == null) return; // Key is not in the tree.
+        // 2. Remove the entry from the leaf node.
+        boolean wasRemoved = removeFromLeaf(leaf, key, value);
+        // If the specified key-value pair was not found and removed, we are done.
+        if (!wasRemoved) return;
+        // 3. If the root is a leaf with no more entries, the tree is now empty.
+        if (root.isLeaf && root.pairs.isEmpty()) {
+            this.start = root; // 'start' points to the now-empty root/leaf.
+            return;
+        }
+        // 4. Handle underflow. If the leaf has too few keys, we must rebalance.
+        // We use a bottom-up approach, starting from the modified leaf.
+        LegacyNode<K, V> currentNode = leaf;
+        while (currentNode != root && currentNode.pairs.size() < minKeys) {
+            LegacyNode<K, V> parent = currentNode.parent;
+            int childIndex = parent.children.indexOf(currentNode);
+            handleUnderflow(parent, currentNode, childIndex);
+            currentNode = parent; // Move up to the parent to check for cascading underflow.
+        }
+        // 5. If the root is an internal node that has lost all its keys,
+        // its only remaining child becomes the new root, shrinking the tree's height.
+        if (!root.isLeaf && root.pairs.isEmpty()) {
+            root = root.children.getFirst();
+            root.parent = null;
+        }
+        if (!root.isLeaf) {
+            for (int i = 0; i < root.pairs.size(); i++) {
+                LegacyNode<K, V> child = root.children.get(i + 1);
+                K firstKey = child.getFirstLeafKey();
+                if (firstKey != null) {
+                    root.pairs.get(i).key = firstKey;
+                }
+            }
+        }
+    }
+
+    private boolean nullRemoval(K key, V value) {
+        if (!this.isNullable) return false;
+        if (key == null) {
+            if (this.nullPair.value.equals(value)) {
+                if (this.nullPair.getDuplicates() != null) {
+                    V dupValue = this.nullPair.getDuplicates().iterator().next();
+                    this.nullPair.value = dupValue;
+                    this.nullPair.removeDup(dupValue);
+                    this.size--;
+                } else {
+                    this.nullPair = null;
+                    this.size--;
+                }
+            } else if (this.nullPair.getDuplicates() != null) {
+                this.nullPair.removeDup(value);
+                this.size--;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private LegacyNode<K, V> findLeafNode(K key) {
+        LegacyNode<K, V> current = this.root;
+        while (!current.isLeaf) {
+            current = current.children.get(findChildIndex(current, key));
+        }
+        return current;
+    }
+
+    private boolean removeFromLeaf(LegacyNode<K, V> node, K key, V value) {
+        Pair<K, V> temp = new Pair<>(key, value);
+        int index = Collections.binarySearch(node.pairs, temp, keyComparator);
+        if (index < 0) return false; // Key does not exist.
+        boolean keyWasFirst = (index == 0);
+        // Handle unique vs. non-unique cases
+        if (isUnique) {
+            if(node.pairs.get(index).value.equals(value)) {
+                node.pairs.remove(index);
+                this.size--;
+            }
+        } else {
+            Pair<K, V> pair = node.pairs.get(index);
+            if (pair.value.equals(value)) {
+                // The primary value matches. Promote a duplicate if one exists.
+                if (pair.getDuplicates() != null && !pair.getDuplicates().isEmpty()) {
+                    V dupValue = pair.getDuplicates().iterator().next();
+                    pair.value = dupValue;
+                    pair.removeDup(dupValue);
+                } else {
+                    // This was the last value for this key. Remove the pair.
+                    node.pairs.remove(index);
+                }
+                this.size--;
+            } else if (pair.getDuplicates() != null && pair.getDuplicates().contains(value)) {
+                // The value to remove is in the duplicate set.
+                pair.removeDup(value);
+                this.size--;
+            } else {
+                return false; // The specific value was not found for this key.
+            }
+        }
+
+        // CRITICAL STEP: If we removed the first key in the leaf, the separator key
+        // in one of the parent nodes might now be incorrect. We must update it.
+        if (keyWasFirst && node.parent != null && !node.pairs.isEmpty()) {
+            int childIndex = parentChildIndex(node);
+            if (childIndex > 0) {
+                K newFirstKey = node.pairs.getFirst().key;
+                if (newFirstKey != null) {
+                    node.parent.pairs.get(childIndex - 1).key = newFirstKey;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void handleUnderflow(LegacyNode<K, V> parent, LegacyNode<K, V> child, int childIndex) {
+        // Try borrowing from the left sibling first.
+        if (childIndex > 0) {
+            LegacyNode<K, V> leftSibling = parent.children.get(childIndex - 1);
+            if (leftSibling.pairs.size() > minKeys) {
+                borrowFromLeft(parent, child, leftSibling, childIndex);
+                return;
+            }
+        }
+        // Try borrowing from the right sibling.
+        if (childIndex < parent.children.size() - 1) {
+            LegacyNode<K, V> rightSibling = parent.children.get(childIndex + 1);
+            if (rightSibling.pairs.size() > minKeys) {
+                borrowFromRight(parent, child, rightSibling, childIndex);
+                return;
+            }
+        }
+        // If borrowing is not possible, we must merge.
+        // Merge with the right sibling if it exists, otherwise with the left.
+        if (childIndex < parent.children.size() - 1) {
+            mergeNodes(parent, childIndex, childIndex + 1);
+        } else if (childIndex > 0) {
+            mergeNodes(parent, childIndex - 1, childIndex);
+        }
+    }
+
+    private void borrowFromLeft(LegacyNode<K, V> parent, LegacyNode<K, V> child, LegacyNode<K, V> leftSibling, int childIndex) {
+        if (leftSibling.pairs.isEmpty())
+            return;
+        if (child.isLeaf) {
+            // Leaf node rotation (right rotation)
+            Pair<K, V> borrowedPair = leftSibling.pairs.removeLast();
+            child.pairs.addFirst(borrowedPair);
+            parent.pairs.set(childIndex - 1, new Pair<>(borrowedPair.key, null));
+        } else {
+            // Internal node rotation
+            Pair<K, V> borrowedPair = leftSibling.pairs.removeLast();
+            LegacyNode<K, V> borrowedChild = leftSibling.children.removeLast();
+            borrowedChild.parent = child;
+            Pair<K, V> separator = parent.pairs.get(childIndex - 1);
+            child.pairs.addFirst(separator);
+            child.children.addFirst(borrowedChild);
+            parent.pairs.set(childIndex - 1, borrowedPair);
+        }
+    }
+
+    private void borrowFromRight(LegacyNode<K, V> parent, LegacyNode<K, V> child, LegacyNode<K, V> rightSibling, int childIndex) {
+        if (rightSibling.pairs.isEmpty())
+            return;
+        if (child.isLeaf) {
+            // Leaf node rotation (left rotation)
+            Pair<K, V> borrowedPair = rightSibling.pairs.removeFirst();
+            child.pairs.addLast(borrowedPair);
+            parent.pairs.set(childIndex, new Pair<>(rightSibling.pairs.getFirst().key, null));
+        } else {
+            // Internal node rotation
+            Pair<K, V> borrowedPair = rightSibling.pairs.removeFirst();
+            LegacyNode<K, V> borrowedChild = rightSibling.children.removeFirst();
+            borrowedChild.parent = child;
+            Pair<K, V> separator = parent.pairs.get(childIndex);
+            child.pairs.addLast(separator);
+            child.children.addLast(borrowedChild);
+            parent.pairs.set(childIndex, borrowedPair);
+        }
+    }
+
+    private void mergeNodes(LegacyNode<K, V> parent, int leftIndex, int rightIndex) {
+        LegacyNode<K, V> leftChild = parent.children.get(leftIndex);
+        LegacyNode<K, V> rightChild = parent.children.get(rightIndex);
+        // If the nodes are internal, we must also pull down the separator key from the
+        // parent.
+        if (!leftChild.isLeaf) {
+            Pair<K, V> separator = parent.pairs.get(leftIndex);
+            leftChild.pairs.add(separator);
+        }
+        // Move all pairs and children from the right node to the left node.
+        leftChild.pairs.addAll(rightChild.pairs);
+        if (!leftChild.isLeaf) {
+            for (LegacyNode<K, V> node : rightChild.children) {
+                node.parent = leftChild;
+            }
+            leftChild.children.addAll(rightChild.children);
+        }
+        // If they are leaves, update the linked list pointer.
+        if (leftChild.isLeaf) {
+            leftChild.next = rightChild.next;
+            if (!leftChild.pairs.isEmpty()) {
+                int newLeftIndex = parent.children.indexOf(leftChild);
+                if (newLeftIndex > 0) {
+                    parent.pairs.get(newLeftIndex - 1).key = leftChild.pairs.getFirst().key;
+                }
+            }
+        }
+        // Remove the separator and the pointer to the right child from the parent,
+        // as the right child is now empty and obsolete.
+        parent.pairs.remove(leftIndex);
+        parent.children.remove(rightIndex);
+    }
+
+    // ==========! SEARCHING !===========
+    // Core Operation (see interface docs for details)
+    public List<Pair<K, V>> search(K key) {
+        if(key == null && this.isNullable && this.nullPair != null) return this.nullPair.getAllPairs();
+        if(key == null && this.isNullable && this.nullPair == null) return new ArrayList<>();
+        LegacyNode<K, V> node = this.findNode(key);
+        if (node == null)
+            return null;
+        int idx = Collections.binarySearch(node.pairs, new Pair<>(key, null), keyComparator);
+        if (idx >= 0) {
+            return node.pairs.get(idx).getAllPairs();
+        }
+        return new ArrayList<>();
+    }
+    // Core Operation (see interface docs for details)
+    public boolean isKey(K key) {
+        if (this.root == null)
+            return false;
+        return !this.search(key).isEmpty();
+    }
+
+    public K getMax(){
+        if (this.root.pairs.isEmpty()) return null;
+        LegacyNode<K, V> current = this.root;
+        while (!current.isLeaf) {
+            current = current.children.getLast();
+        }
+        return current.pairs.getLast().key;
+    }
+
+    private LegacyNode<K,V> findNode(K key) {
+        LegacyNode<K,V> cur = this.root;
+        while (cur != null && !cur.isLeaf) {
+            int i = upperBoundIndex(cur, key);
+            cur = cur.children.get(i);                  // children.size() == pairs.size() + 1
+        }
+        return cur;
+    }
+
+    private static <K extends Comparable<? super K>, V> int upperBoundIndex(LegacyNode<K,V> node, K key) {
+        List<Pair<K,V>> ps = node.pairs;
+        int lo = 0, hi = ps.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (key.compareTo(ps.get(mid).key) >= 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;                                      // first index with pair.key > key
+    }
+    // Core Operation (see interface docs for details)
+    public List<Pair<K,V>> rangeSearch(K start, K end) {
+        LegacyNode<K, V> current;
+        int idx = 0;
+        if (start != null) {
+            current = findNode(start);
+            if (current == null)
+                return new ArrayList<>();
+            for (idx = 0; idx < current.pairs.size(); idx++) {
+                if (current.pairs.get(idx).key.compareTo(start) >= 0) {
+                    break;
+                }
+            }
+        } else {
+            current = this.start;
+        }
+        List<Pair<K,V>> result = new ArrayList<>();
+        while (current != null) {
+            int i = idx;
+            while (i < current.pairs.size() && (end == null || current.pairs.get(i).key.compareTo(end) <= 0)) {
+                result.addAll(current.pairs.get(i).getAllPairs());
+                i++;
+            }
+            if (i == current.pairs.size() && (end == null || (!current.pairs.isEmpty() && current.pairs.getLast().key.compareTo(end) <= 0))) {
+                current = current.next;
+                idx = 0;
+            } else {
+                break;
+            }
+        }
+        if(start == null && this.isNullable && this.nullPair != null && this.nullPair.value != null) result.addAll(0,this.nullPair.getAllPairs());
+        return result;
+    }
+
+    // ===============UPDATE=============
+    /**
+     * Updates a value (assumes unique keys).
+     *
+     * @param key Key to update
+     * @param newValue New value to set
+     */
+    public void update(K key, V newValue) throws IllegalStateException{
+        if (!this.isUnique) throw new IllegalStateException("Must specify oldValue in non-unique trees.");
+        this.update(key, newValue, null);
+    }
+
+    /**
+     * Updates a value associated with a key. For non-unique trees,
+     * specifies old value to update.
+     *
+     * @param key Key to update
+     * @param newValue New value to set
+     * @param oldValue Old value to replace (required for non-unique trees)
+     */
+    public void update(K key, V newValue, V oldValue) throws IllegalStateException {
+        if(updateNull(key, newValue, oldValue)) return;
+        if (this.isUnique && oldValue != null) throw new IllegalStateException("Cannot specify oldValue in unique trees.");
+        if (key == null || newValue == null) return;
+        LegacyNode<K, V> node = this.findNode(key);
+        int idx = Collections.binarySearch(node.pairs, new Pair<>(key, null), keyComparator);
+        if (idx < 0) return;
+        Pair<K,V> pair = node.pairs.get(idx);
+        if (isUnique) {
+            pair.value = newValue;
+        } else {
+            // For non-unique trees, update in place
+            if (pair.value.equals(oldValue)) pair.value = newValue;
+            else if (pair.getDuplicates()!=null && pair.getDuplicates().contains(oldValue)) {
+                pair.removeDup(oldValue);
+                pair.addDup(newValue);
+            }
+        }
+    }
+
+    private boolean updateNull(K key, V newValue, V oldValue){
+        if(!this.isNullable) return false;
+        if(this.nullPair == null) return false;
+        if(key == null){
+            if (this.nullPair.value.equals(oldValue)) {
+                this.nullPair.value = newValue;
+            } else if (this.nullPair.getDuplicates().contains(oldValue)) {
+                this.nullPair.removeDup(oldValue);
+                this.nullPair.addDup(newValue);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public void clear(){
+        root = new LegacyNode<>(true);
+        start = root;
+        nullPair = null;
+        size = 0;
+    }
+
+    // =======! PRINTING !======
+    /**
+     * @return String representation of tree levels and leaf sequence
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        if (root == null || root.pairs.isEmpty()) {
+            return "Tree is empty.";
+        }
+        Queue<LegacyNode<K, V>> queue = new LinkedList<>();
+        queue.add(root);
+        int level = 0;
+        while (!queue.isEmpty()) {
+            int levelSize = queue.size();
+            sb.append("!=========! Level ").append(level).append(" (").append(levelSize)
+                    .append(" Nodes) !=========!\n");
+            for (int i = 0; i < levelSize; i++) {
+                LegacyNode<K, V> current = queue.poll();
+                assert current != null;
+                sb.append(current.toString());
+                if (i < levelSize - 1)
+                    sb.append("  --  "); // Separator
+                if (!current.isLeaf) {
+                    queue.addAll(current.children);
+                }
+            }
+            sb.append("\n\n");
+            level++;
+        }
+        sb.append("!=========! Leaf Chain !=========!\n");
+        LegacyNode<K, V> leaf = this.start;
+        while (leaf != null) {
+            sb.append(leaf);
+            if (leaf.next != null)
+                sb.append(" -> ");
+            leaf = leaf.next;
+        }
+        sb.append("\n");
+        return sb.toString();
+    }
+
+    // Configuration & Accessors
+    /**
+     * Enables/disables key uniqueness.
+     *
+     * @param unique true to enforce unique keys, false to allow duplicates
+     */
+    public void setUnique(boolean unique) {this.isUnique = unique;}
+    public boolean isUnique(){return this.isUnique;}
+    public void setNullable(boolean nullable) {this.isNullable = nullable;}
+    public boolean isNullable(){return this.isNullable;}
+    public Pair<K,V> getNullPair(){return this.nullPair;}
+    /** @return Root node of tree */
+    public LegacyNode<K, V> getRoot() {return this.root;}
+    /** @return First leaf node in sequence */
+    public LegacyNode<K, V> getFirst() {return this.start;}
+    /** @return Number of keys(if unique) or values(if not unique) in the tree */
+    public long size(){return this.size;}
+    /** @return Order of the tree */
+    public int getOrder() {return this.order;}
+
+    static final class LegacyNode<K,V> {
+        public boolean isLeaf;        // Node type identifier
+        public List<Pair<K,V>> pairs; // Keys + values (leaf) or separator keys (internal)
+        public List<LegacyNode<K,V>> children;  // Child nodes (internal nodes only)
+        public LegacyNode<K,V> parent;      // Parent node reference
+        public LegacyNode<K,V> next;        // Next leaf node pointer (leaf nodes only)
+
+        /**
+         * Creates a new node of specified type.
+         *
+         * @param isLeaf true for leaf node, false for internal node
+         */
+        LegacyNode(Boolean isLeaf){
+            this.isLeaf = isLeaf;
+            this.pairs = new ArrayList<>();
+            this.children = isLeaf ? null : new ArrayList<>();
+            this.parent = null;
+            this.next = null;
+        }
+
+        /**
+         * Traverses to the leftmost leaf in the subtree and retrieves its first key.
+         * Used for updating parent separator keys during deletions.
+         *
+         * @return First key in the leftmost leaf, or null if no keys exist
+         */
+        public K getFirstLeafKey() {
+            LegacyNode<K, V> n = this;
+            while (!n.isLeaf) {
+                n = n.children.getFirst();
+            }
+            return n.pairs.isEmpty() ? null : n.pairs.getFirst().key;
+        }
+
+        /**
+         * Generates a structural summary:
+         * - Lists all keys with their values
+         * - Indicates node type (leaf/internal)
+         * - Shows child count (internal nodes)
+         *
+         * @return Formatted node information
+         */
+        @Override
+        public String toString() {
+            StringBuilder keys = new StringBuilder("{Keys:[");
+            for(Pair<K,V> pair : this.pairs){
+                keys.append(pair.toString()).append(", ");
+            }
+            String stats = "], Leaf:"+ (isLeaf ? "Yes":"No") + ", ChildrenNum:" + (this.children == null ? "NULL":this.children.size());
+            return "\n"+keys+stats+"}\n";
+        }
+    }
+}
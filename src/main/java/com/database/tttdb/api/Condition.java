@@ -1,9 +1,13 @@
 package com.database.tttdb.api;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import com.database.tttdb.api.Functions.InnerFunctions;
 import com.database.tttdb.api.Functions.operationData;
 import com.database.tttdb.api.Query.Delete;
 import com.database.tttdb.api.Query.Select;
@@ -34,6 +38,7 @@ import com.database.tttdb.core.table.TableSchema;
 public class Condition<T extends ConditionGroup<T>> {
     private String columnName;
     private operationData expression;
+    private InnerFunctions function;
     private final EnumMap<Conditions, Object> conditionElementsList = new EnumMap<>(Conditions.class);
     private final T group;
 
@@ -75,6 +80,22 @@ public class Condition<T extends ConditionGroup<T>> {
         return this;
     }
 
+    /**
+     * Compares the result of {@code function} applied to the column value instead of the value
+     * itself, e.g. {@code column("username").apply(new Functions.lowerCase()).isEqual("bob")}.
+     * Such a condition is answered by an index built on the same expression, see
+     * {@link Schema#index(String)}. Rows whose column value is {@code null} are not passed to
+     * the function and compare as {@code null}.
+     *
+     * @param function function of the row computed for the column
+     * @return the current {@code Condition} instance for fluent chaining
+     */
+    public Condition<T> apply(InnerFunctions function) {
+        if (this.columnName == null) throw new IllegalArgumentException("Can't apply a function without a column");
+        this.function = function;
+        return this;
+    }
+
     // comparison builders
     /** Checks if column value is null. */
     public Condition<T> isNull(){ conditionElementsList.put(Conditions.IS_EQUAL, null); return this; }
@@ -92,6 +113,8 @@ public class Condition<T extends ConditionGroup<T>> {
     public Condition<T> isBiggerOrEqual(Object v){ conditionElementsList.put(Conditions.IS_BIGGER_OR_EQUAL, v); return this; }
     /** Checks if column value is smaller than or equal to the given value. */
     public Condition<T> isSmallerOrEqual(Object v){ conditionElementsList.put(Conditions.IS_SMALLER_OR_EQUAL, v); return this; }
+    /** Checks if column value equals one of the given values, {@code null} matching null values. */
+    public Condition<T> isIn(Object... values){ conditionElementsList.put(Conditions.IS_IN, Collections.unmodifiableList(Arrays.asList(values.clone()))); return this; }
 
     /**
      * Ends the condition definition and returns the parent condition group.
@@ -123,6 +146,7 @@ public class Condition<T extends ConditionGroup<T>> {
                 case IS_SMALLER          -> cmp(value, rhs) < 0;
                 case IS_BIGGER_OR_EQUAL  -> cmp(value, rhs) >= 0;
                 case IS_SMALLER_OR_EQUAL -> cmp(value, rhs) <= 0;
+                case IS_IN               -> ((List<?>) rhs).stream().anyMatch(v -> numEq(value, v));
             };
             if (!passed) return false;
         }
@@ -173,7 +197,7 @@ public class Condition<T extends ConditionGroup<T>> {
      * @throws IllegalArgumentException if either operand is {@code null} or the pair is incomparable
      */
     @SuppressWarnings("unchecked")
-    private static int cmp(Object a, Object b) {
+    static int cmp(Object a, Object b) {
         if (a == null || b == null) throw new IllegalArgumentException("null compare");
         if (a instanceof Number na && b instanceof Number nb) {
             return new java.math.BigDecimal(na.toString())
@@ -197,8 +221,7 @@ public class Condition<T extends ConditionGroup<T>> {
     public boolean isTrue(Object[] entryValues, TableSchema schema) {
         Object value;
         if (columnName != null) {
-            int idx = schema.getColumnIndex(columnName);
-            value = entryValues[idx];
+            value = valueOf(entryValues, schema);
         } else if (expression != null) {
             value = this.expression.apply(schema, entryValues, -1);
         } else {
@@ -229,7 +252,20 @@ public class Condition<T extends ConditionGroup<T>> {
         return false;
     }
 
+    /**
+     * @param entryValues the values of a row
+     * @param schema the schema defining column indices
+     * @return the column value this condition compares, after its function if any
+     */
+    public Object valueOf(Object[] entryValues, TableSchema schema) {
+        int idx = schema.getColumnIndex(columnName);
+        Object value = entryValues[idx];
+        if (value == null || function == null) return value;
+        return function.apply(schema, entryValues, idx);
+    }
+
     public String getColumnName() { return this.columnName; }
+    public InnerFunctions getFunction() { return this.function; }
     public EnumMap<Conditions, Object> getConditions() { return this.conditionElementsList; }
     /**
      * Defines how conditions are logically connected in a clause.
@@ -255,6 +291,7 @@ public class Condition<T extends ConditionGroup<T>> {
         IS_NOT_EQUAL,
         IS_SMALLER_OR_EQUAL,
         IS_BIGGER_OR_EQUAL,
+        IS_IN,
     }
     /**
      * Represents a root-level WHERE clause for filtering rows.
@@ -1,32 +1,164 @@
 package com.database.tttdb.api;
 
+import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 
 import com.database.tttdb.api.Condition.Conditions;
 
 public final class ConditionUtils {
 
-    public static RangeBounds extractRange(EnumMap<Conditions, Object> conditionList) {
-        Object start = null;
-        Object end = null;
-
-        if (conditionList.containsKey(Conditions.IS_BIGGER))
-            start = conditionList.get(Conditions.IS_BIGGER);
-        if (conditionList.containsKey(Conditions.IS_SMALLER))
-            end = conditionList.get(Conditions.IS_SMALLER);
-        if (conditionList.containsKey(Conditions.IS_BIGGER_OR_EQUAL))
-            start = conditionList.get(Conditions.IS_BIGGER_OR_EQUAL);
-        if (conditionList.containsKey(Conditions.IS_SMALLER_OR_EQUAL))
-            end = conditionList.get(Conditions.IS_SMALLER_OR_EQUAL);
-
-        if (start == null && end == null && conditionList.containsKey(Conditions.IS_EQUAL)) {
-            Object equal = conditionList.get(Conditions.IS_EQUAL);
-            start = equal;
-            end = equal;
+    private ConditionUtils() {} // prevent instantiation
+
+    /**
+     * Computes the keys matched by the comparisons of one condition, the way
+     * {@link Condition#isApplicable(Object)} matches values: each comparison narrows the set, so
+     * {@code isBigger(3)} together with {@code isNotEqual(7)} gives {@code (3, 7) ∪ (7, +∞)}.
+     * {@code null} keys are matched like a sequential scan matches null values: only by
+     * conditions made of {@code isNull()}, {@code notNull()}, {@link Condition#isNotEqual} and
+     * {@link Condition#isIn} comparisons that accept {@code null}. An ordering comparison with a
+     * {@code null} operand matches no key.
+     *
+     * @param conditions comparisons of a condition, see {@link Condition#getConditions()}
+     * @return the disjoint ranges of non-null keys in ascending order and whether null keys match
+     */
+    public static RangeSet rangeSet(EnumMap<Conditions, Object> conditions) {
+        List<Range> ranges = List.of(Range.ALL);
+        boolean nulls = true;
+        for (Map.Entry<Conditions, Object> condition : conditions.entrySet()) {
+            Object value = condition.getValue();
+            List<Range> allowed = switch (condition.getKey()) {
+                case IS_EQUAL            -> value == null ? List.of() : List.of(Range.point(value));
+                case IS_NOT_EQUAL        -> value == null ? List.of(Range.ALL) : List.of(new Range(null, false, value, false), new Range(value, false, null, false));
+                case IS_IN               -> points((List<?>) value);
+                case IS_BIGGER           -> value == null ? List.of() : List.of(new Range(value, false, null, false));
+                case IS_BIGGER_OR_EQUAL  -> value == null ? List.of() : List.of(new Range(value, true, null, false));
+                case IS_SMALLER          -> value == null ? List.of() : List.of(new Range(null, false, value, false));
+                case IS_SMALLER_OR_EQUAL -> value == null ? List.of() : List.of(new Range(null, false, value, true));
+            };
+            nulls &= switch (condition.getKey()) {
+                case IS_EQUAL     -> value == null;
+                case IS_NOT_EQUAL -> value != null;
+                case IS_IN        -> ((List<?>) value).contains(null);
+                default           -> false;
+            };
+            ranges = intersect(ranges, allowed);
+        }
+        return new RangeSet(ranges, nulls);
+    }
+
+    /**
+     * Range of non-null keys. A {@code null} bound leaves the range unbounded on its side, its
+     * inclusive flag is then ignored.
+     *
+     * @param from lowest key, {@code null} for unbounded
+     * @param fromInclusive whether {@code from} is in the range
+     * @param to highest key, {@code null} for unbounded
+     * @param toInclusive whether {@code to} is in the range
+     */
+    public record Range(Object from, boolean fromInclusive, Object to, boolean toInclusive) {
+        static final Range ALL = new Range(null, false, null, false);
+
+        static Range point(Object key) { return new Range(key, true, key, true); }
+
+        /** @return whether the range holds a single key, searched for with one index lookup */
+        public boolean isPoint() {
+            return from != null && to != null && fromInclusive && toInclusive && Condition.cmp(from, to) == 0;
         }
 
-        return new RangeBounds(start, end);
+        /**
+         * @param key non-null key
+         * @return whether the key is in the range
+         */
+        public boolean contains(Object key) {
+            if (from != null) {
+                int cmp = Condition.cmp(key, from);
+                if (cmp < 0 || cmp == 0 && !fromInclusive) return false;
+            }
+            if (to == null) return true;
+            int cmp = Condition.cmp(key, to);
+            return cmp < 0 || cmp == 0 && toInclusive;
+        }
     }
 
-    public record RangeBounds(Object start, Object end) {}
+    /**
+     * Keys matched by a condition, see {@link #rangeSet(EnumMap)}.
+     *
+     * @param ranges disjoint ranges of non-null keys in ascending order
+     * @param nulls whether {@code null} keys match
+     */
+    public record RangeSet(List<Range> ranges, boolean nulls) {
+        /** @return whether no key matches */
+        public boolean isEmpty() { return ranges.isEmpty() && !nulls; }
+
+        /** @return whether every range holds a single key, as for an equality or an IN-list */
+        public boolean isPoints() { return ranges.stream().allMatch(Range::isPoint); }
+
+        /**
+         * @param key key to test, {@code null} included
+         * @return whether the key matches
+         */
+        public boolean contains(Object key) {
+            if (key == null) return nulls;
+            for (Range range : ranges)
+                if (range.contains(key)) return true;
+            return false;
+        }
+
+        /** @return smallest range holding every non-null key of the set, {@code null} if there is none */
+        public Range span() {
+            if (ranges.isEmpty()) return null;
+            Range first = ranges.getFirst(), last = ranges.getLast();
+            return new Range(first.from(), first.fromInclusive(), last.to(), last.toInclusive());
+        }
+    }
+
+    // Single-key ranges of the non-null values, in ascending order without duplicates
+    private static List<Range> points(List<?> values) {
+        List<Object> keys = new ArrayList<>();
+        for (Object value : values) if (value != null) keys.add(value);
+        keys.sort(Condition::cmp);
+        List<Range> points = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++)
+            if (i == 0 || Condition.cmp(keys.get(i - 1), keys.get(i)) != 0) points.add(Range.point(keys.get(i)));
+        return points;
+    }
+
+    // Intersection of two sets of disjoint ranges in ascending order
+    private static List<Range> intersect(List<Range> a, List<Range> b) {
+        List<Range> result = new ArrayList<>();
+        int i = 0, j = 0;
+        while (i < a.size() && j < b.size()) {
+            Range x = a.get(i), y = b.get(j);
+            boolean xFrom = compareFrom(x, y) >= 0;
+            boolean xTo = compareTo(x, y) <= 0;
+            Range overlap = new Range(
+                xFrom ? x.from() : y.from(), xFrom ? x.fromInclusive() : y.fromInclusive(),
+                xTo ? x.to() : y.to(), xTo ? x.toInclusive() : y.toInclusive());
+            if (!isEmpty(overlap)) result.add(overlap);
+            if (xTo) i++;
+            else j++;
+        }
+        return result;
+    }
+    // Order of the lower bounds of two ranges, an unbounded one being the lowest
+    private static int compareFrom(Range x, Range y) {
+        if (x.from() == null || y.from() == null) return x.from() == null ? (y.from() == null ? 0 : -1) : 1;
+        int cmp = Condition.cmp(x.from(), y.from());
+        if (cmp != 0 || x.fromInclusive() == y.fromInclusive()) return cmp;
+        return x.fromInclusive() ? -1 : 1;
+    }
+    // Order of the upper bounds of two ranges, an unbounded one being the highest
+    private static int compareTo(Range x, Range y) {
+        if (x.to() == null || y.to() == null) return x.to() == null ? (y.to() == null ? 0 : 1) : -1;
+        int cmp = Condition.cmp(x.to(), y.to());
+        if (cmp != 0 || x.toInclusive() == y.toInclusive()) return cmp;
+        return x.toInclusive() ? 1 : -1;
+    }
+    private static boolean isEmpty(Range range) {
+        if (range.from() == null || range.to() == null) return false;
+        int cmp = Condition.cmp(range.from(), range.to());
+        return cmp > 0 || cmp == 0 && !(range.fromInclusive() && range.toInclusive());
+    }
 }
@@ -9,16 +9,21 @@ import java.util.logging.Level;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
 import java.util.logging.SimpleFormatter;
+import java.util.stream.Stream;
 
 import com.database.tttdb.api.Condition.WhereClause;
+import com.database.tttdb.api.Query.Aggregate;
 import com.database.tttdb.api.Query.Delete;
 import com.database.tttdb.api.Query.Select;
 import com.database.tttdb.api.Query.SelectType;
 import com.database.tttdb.api.Query.Update;
+import com.database.tttdb.core.Compactor;
 import com.database.tttdb.core.Database;
+import com.database.tttdb.core.execution.Operator;
 import com.database.tttdb.core.index.IndexInit.IndexType;
 import com.database.tttdb.core.manager.EntryManager;
 import com.database.tttdb.core.manager.ForeignKeyManager;
+import com.database.tttdb.core.manager.LockManager;
 import com.database.tttdb.core.page.Entry;
 import com.database.tttdb.core.table.Table;
 /**
@@ -31,12 +36,18 @@ import com.database.tttdb.core.table.Table;
  *
  * <h3>Threading model</h3>
  * <p>
- * All API methods are expected to be invoked from a single application thread.
- * Each {@link Database} maintains its own internal file I/O thread for persistence.
- * The DBMS itself performs no synchronization or concurrency control.
+ * The methods of this class, including {@link #startTransaction(String)}, are expected to be
+ * invoked from a single application thread. Applications that need several threads open one
+ * {@link Session} per thread with {@link #openSession()}; sessions run snapshot-isolated
+ * transactions concurrently, with first-committer-wins conflict detection. Writers of different
+ * threads also take row, table and key-range locks (see {@link #setLockTimeout(long)}), so a
+ * write waits for a concurrent transaction writing the same rows instead of failing at commit.
+ * Each {@link Database} maintains its own internal file I/O thread for persistence and a
+ * read/write lock: selections share it, writes and commits take it exclusively, and the optional
+ * background compactor (see {@link #enableCompaction(long, int)}) only runs while it is free.
  * </p>
  */
-public class DBMS {
+public class DBMS implements Query.Executor {
     private final Map<String,Database> databases;
     private Database selected;
     private String path = "";
@@ -56,6 +67,10 @@ public class DBMS {
             return resultColumns.split("\\s*,\\s*");
         }
     }
+    /**
+     * Represents an aggregate SELECT query, see {@link Select#count()}.
+     */
+    public record AggregateQuery(String tableName, String resultColumns, WhereClause whereClause, String[] groupBy, List<Aggregate> aggregates, int begin, int limit, SelectType type){}
     /**
      * Represents a DELETE query.
      */
@@ -119,6 +134,70 @@ public class DBMS {
         this.selected.setIndexType(indexType);
         return this;
     }
+    /**
+     * Enables background compaction for the currently selected {@link Database}.
+     * <p>
+     * Must be called before {@link #start()}. Once the database has been idle for
+     * {@code idleMillis}, a background thread moves entries out of the tail pages of its
+     * table and index files into slots freed by deletions and truncates the files.
+     * </p>
+     *
+     * @param idleMillis time without API calls before compaction starts
+     * @param pagesPerSecond I/O budget of the compactor, in page accesses per second
+     * @return this {@code DBMS} instance for method chaining
+     * @throws DatabaseException if the DBMS has already been started
+     * @throws IllegalArgumentException if no database is selected or the budget is not positive
+     */
+    public DBMS enableCompaction(long idleMillis, int pagesPerSecond){
+        if(isStarted) throw new DatabaseException("can not enable compaction on already started DBMS.");
+        if(this.selected == null) throw new IllegalArgumentException("Trying to enable compaction but not Database selected.");
+        Compactor compactor = this.selected.getCompactor();
+        compactor.setIdleMillis(idleMillis);
+        compactor.setPagesPerSecond(pagesPerSecond);
+        compactor.setEnabled(true);
+        return this;
+    }
+    /**
+     * Pauses background compaction of the selected database until {@link #resumeCompaction()}.
+     */
+    public void pauseCompaction(){
+        if(this.selected == null) throw new IllegalArgumentException("Can not pause compaction when no Database selected.");
+        this.selected.getCompactor().pause();
+    }
+    /**
+     * Resumes background compaction of the selected database.
+     */
+    public void resumeCompaction(){
+        if(this.selected == null) throw new IllegalArgumentException("Can not resume compaction when no Database selected.");
+        this.selected.getCompactor().resume();
+    }
+    /**
+     * @return progress counters of the selected database's compactor
+     */
+    public Compactor.Metrics getCompactionMetrics(){
+        if(this.selected == null) throw new IllegalArgumentException("Can not read compaction metrics when no Database selected.");
+        return this.selected.getCompactor().getMetrics();
+    }
+    /**
+     * Sets how long a write of the selected database waits for a row, table or key-range lock
+     * held by another transaction before failing with a {@link DatabaseException.LockTimeoutException}.
+     *
+     * @param timeoutMillis the lock wait timeout in milliseconds
+     * @return this {@code DBMS} instance for method chaining
+     * @throws IllegalArgumentException if no database is selected or the timeout is not positive
+     */
+    public DBMS setLockTimeout(long timeoutMillis){
+        if(this.selected == null) throw new IllegalArgumentException("Trying to set lock timeout but not Database selected.");
+        this.selected.getLockManager().setTimeoutMillis(timeoutMillis);
+        return this;
+    }
+    /**
+     * @return lock wait counters of the selected database
+     */
+    public LockManager.Metrics getLockMetrics(){
+        if(this.selected == null) throw new IllegalArgumentException("Can not read lock metrics when no Database selected.");
+        return this.selected.getLockManager().getMetrics();
+    }
     /**
      * Creates all databases or Loads them if they exist in this DBMS
      * @return the current DBMS instance
@@ -240,12 +319,29 @@ public class DBMS {
     public Select select(String selectColumns){
         return new Select(this, selectColumns);
     }
+    @Override
     public List<Row> select(SelectQuery query){
         if(this.selected == null) throw new IllegalArgumentException("Can not perform select statement when no Database selected.");
         Table table = selected.getTable(query.tableName);
-        List<Entry> result = table.select(query.whereClause, query.begin, query.limit, query.type);
+        List<Entry> result = table.select(query.whereClause, query.begin, query.limit, query.type, query.getColumns(table));
         return Row.prepareSelectResult(table, query, result);
     }
+    /**
+     * Runs a select lazily, see {@link Select#stream()}.
+     */
+    @Override
+    public Stream<Row> stream(SelectQuery query){
+        if(this.selected == null) throw new IllegalArgumentException("Can not perform select statement when no Database selected.");
+        Table table = selected.getTable(query.tableName);
+        Operator operator = table.open(query.whereClause, query.begin, query.limit, query.type);
+        return operator.stream().onClose(operator::close).map(Row.projection(table, query));
+    }
+    @Override
+    public List<Row> aggregate(AggregateQuery query){
+        if(this.selected == null) throw new IllegalArgumentException("Can not perform select statement when no Database selected.");
+        Table table = selected.getTable(query.tableName);
+        return Row.prepareAggregateResult(query, table.aggregate(query.whereClause, query.groupBy, query.aggregates));
+    }
     /**
      * Inserts a single row into the specified table.
      *
@@ -331,6 +427,7 @@ public class DBMS {
     public Delete delete(){
         return new Delete(this);
     }
+    @Override
     public int delete(DeleteQuery query){
         if(this.selected == null) throw new IllegalArgumentException("Can not perform delete statement when no Database selected.");
         Table table = selected.getTable(query.tableName);
@@ -359,11 +456,23 @@ public class DBMS {
     public Update update(String tableName){
         return new Update(this, tableName);
     }
+    @Override
     public int update(UpdateQuery query){
         if(this.selected == null) throw new IllegalArgumentException("Can not perform update statement when no Database selected.");
         Table table = selected.getTable(query.tableName);
         return table.update(query.whereClause, query.limit, query.updateFields);
     }
+    /**
+     * Opens a {@link Session} on the selected database, for use by a single thread.
+     * Sessions of different threads may run at the same time.
+     *
+     * @return a new session with no open transaction
+     * @throws IllegalArgumentException if no database is selected
+     */
+    public Session openSession(){
+        if(this.selected == null) throw new IllegalArgumentException("Can not open a session when no Database selected.");
+        return new Session(this.selected);
+    }
     /**
      * Starts a transaction in the selected database.
      * @param name the transaction name
@@ -32,4 +32,30 @@ public class DatabaseException extends RuntimeException {
         public ForeignKeyException(String name, String msg, Throwable cause) { super(msg, cause); this.foreignKeyName = name; }
         public String getForeignKeyName() { return foreignKeyName; }
     }
-}
\ No newline at end of file
+    /**
+     * Thrown when a snapshot transaction commits a change to a row that another transaction
+     * changed after the snapshot began. The losing transaction is rolled back.
+     */
+    public static class TransactionConflictException extends DatabaseException {
+        public TransactionConflictException(String msg) { super(msg); }
+    }
+    public static class DeadlockException extends TransactionConflictException {
+        public DeadlockException(String msg) { super(msg); }
+    }
+    public static class LockTimeoutException extends DatabaseException {
+        public LockTimeoutException(String msg) { super(msg); }
+    }
+    /**
+     * Thrown by a session whose transaction a failed statement rolled back, until the session
+     * is rolled back explicitly, so the statements before the failure are not silently lost.
+     */
+    public static class TransactionAbortedException extends DatabaseException {
+        public TransactionAbortedException(String msg) { super(msg); }
+    }
+    /**
+     * Thrown when a table or index file was written in a page format this version cannot read.
+     */
+    public static class StorageFormatException extends DatabaseException {
+        public StorageFormatException(String msg) { super(msg); }
+    }
+}
@@ -0,0 +1,53 @@
+package com.database.tttdb.api;
+
+import java.util.List;
+
+import com.database.tttdb.api.Condition.WhereClause;
+import com.database.tttdb.api.Functions.InnerFunctions;
+import com.database.tttdb.api.Schema.IndexInner;
+
+/**
+ * Builder of a named index declared on a {@link Schema}.
+ *
+ * <p>Besides plain multi-column and covering indexes, an index over a single column may be
+ * built on an expression of the column, or hold only the rows matching a filter:</p>
+ * <pre>
+ * schema.index("lower_username").column("username").expression(new Functions.lowerCase()).endIndex();
+ * schema.index("active_username").column("username")
+ *       .where(new WhereClause().column("active").isEqual(true).end())
+ *       .endIndex();
+ * </pre>
+ */
+public class Index {
+    private final String name;
+    private final Schema schema;
+    private List<String> columns = List.of();
+    private List<String> included = List.of();
+    private InnerFunctions expression;
+    private WhereClause filter;
+
+    public Index(String name, Schema schema) {
+        this.name = name;
+        this.schema = schema;
+    }
+    /** Indexes a single column. */
+    public Index column(String column) { this.columns = List.of(column); return this; }
+    /** Indexes several columns, most significant first. */
+    public Index columns(String... columns) { this.columns = List.of(columns); return this; }
+    /** Carries the values of additional columns, see {@link Schema#index(String, String[], String[])}. */
+    public Index include(String... columns) { this.included = List.of(columns); return this; }
+    /**
+     * Keys the index by {@code expression} applied to the indexed column. Queries use the index
+     * through conditions applying an equal function, see {@link Condition#apply(InnerFunctions)}.
+     */
+    public Index expression(InnerFunctions expression) { this.expression = expression; return this; }
+    /**
+     * Only indexes rows matching {@code filter}, a conjunction of column conditions. Queries use
+     * the index when their WHERE clause requires every condition of the filter.
+     */
+    public Index where(WhereClause filter) { this.filter = filter; return this; }
+    public Schema endIndex() {
+        this.schema.add(new IndexInner(name, columns, included, expression, filter));
+        return this.schema;
+    }
+}
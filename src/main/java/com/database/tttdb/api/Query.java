@@ -1,8 +1,12 @@
 package com.database.tttdb.api;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 import com.database.tttdb.api.Condition.WhereClause;
+import com.database.tttdb.api.DBMS.AggregateQuery;
 import com.database.tttdb.api.DBMS.DeleteQuery;
 import com.database.tttdb.api.DBMS.SelectQuery;
 import com.database.tttdb.api.DBMS.UpdateQuery;
@@ -38,6 +42,24 @@ public interface Query {
      * @param whereClause a completed where clause, may be {@code null}
      */
     void set(WhereClause whereClause);
+    /**
+     * Runs built queries. Implemented by {@link DBMS}, which runs each query as its own
+     * transaction, and by {@link Session}, which runs it inside the session's snapshot transaction.
+     */
+    interface Executor {
+        List<Row> select(SelectQuery query);
+        /**
+         * Runs a select whose rows are produced as the stream is consumed. Executors that
+         * cannot produce rows lazily return the rows of {@link #select(SelectQuery)}.
+         */
+        default Stream<Row> stream(SelectQuery query) { return select(query).stream(); }
+        /**
+         * Runs an aggregate select, see {@link Select#count()} and {@link Select#groupBy(String...)}.
+         */
+        List<Row> aggregate(AggregateQuery query);
+        int delete(DeleteQuery query);
+        int update(UpdateQuery query);
+    }
     /**
      * Indicates how the result set should be ordered when executing a SELECT query.
      * <ul>
@@ -54,6 +76,36 @@ public interface Query {
         DESCENDING,
     }
     record  SelectType(SelectionType type, String column) {}
+    /**
+     * Functions computed over the rows of a group by an aggregate select.
+     * <ul>
+     *   <li>{@link #COUNT} – number of rows, or of non-null values of a column, as a {@link Long}.</li>
+     *   <li>{@link #SUM} – sum of the non-null values, a {@link Long} for integral columns and a
+     *       {@link Double} for floating-point ones.</li>
+     *   <li>{@link #MIN}, {@link #MAX} – smallest and greatest non-null value, of the column type.</li>
+     *   <li>{@link #AVG} – mean of the non-null values as a {@link Double}.</li>
+     * </ul>
+     * Functions other than {@code COUNT} give {@code null} for a group without non-null values.
+     */
+    enum AggregateFunction{
+        COUNT,
+        SUM,
+        MIN,
+        MAX,
+        AVG,
+    }
+    /**
+     * One aggregate of an aggregate select.
+     *
+     * @param function function to compute
+     * @param column column the function reads, {@code null} for {@code COUNT(*)}
+     */
+    record Aggregate(AggregateFunction function, String column) {
+        /** @return name of the aggregate in the result rows, e.g. {@code count(*)} or {@code sum(amount)} */
+        public String name() {
+            return function.name().toLowerCase() + "(" + (column == null ? "*" : column) + ")";
+        }
+    }
     // ---------------------------------------------------------------------
     // SELECT
     // ---------------------------------------------------------------------
@@ -68,17 +120,19 @@ public interface Query {
      * Call {@link #fetch()} to produce an immutable {@link SelectQuery}.
      */
     class Select implements Query{
-        private final DBMS dbms;
+        private final Executor dbms;
         private final String selectColumns;
         private String tableName;
         private WhereClause whereClause;
         private int begin = 0;
         private int limit = -1;
         private SelectType type = new SelectType(SelectionType.NORMAL, null);
+        private final List<Aggregate> aggregates = new ArrayList<>();
+        private String[] groupBy = new String[0];
         /**
          * @param selectColumns comma-separated list of columns to select
          */
-        public Select(DBMS dbms, String selectColumns){
+        public Select(Executor dbms, String selectColumns){
             this.dbms = dbms;
             this.selectColumns = selectColumns;
         }
@@ -133,19 +187,138 @@ public interface Query {
             this.type = new SelectType(SelectionType.DESCENDING, column);
             return this;
         }
+        /**
+         * Adds {@code COUNT(*)}, the number of rows of each group, to the result.
+         * <p>
+         * A select with aggregates or {@link #groupBy(String...)} columns returns one row per
+         * group instead of the table rows: the selected columns, which must be grouped ones
+         * ({@code "*"} selects every grouped column), followed by the aggregates in the order they
+         * were added, named as by {@link Aggregate#name()}. Without grouped columns all matching
+         * rows form one group, so the result is a single row even when no row matches.
+         * {@link #ASC(String)} and {@link #DEC(String)} order the groups by one of their
+         * columns, aggregates included, before {@link #begin(int)} and {@link #limit(int)} apply.
+         * </p>
+         * <p>
+         * Aggregates are computed inside the engine by hash aggregation over the matching rows.
+         * Without grouped columns, {@code COUNT(*)} is answered from the row count of the table,
+         * or from the index records of a WHERE clause answered by indexes, and {@code COUNT},
+         * {@code MIN} and {@code MAX} of an indexed column from its index, without reading rows.
+         * </p>
+         *
+         * @return this builder
+         */
+        public Select count(){
+            this.aggregates.add(new Aggregate(AggregateFunction.COUNT, null));
+            return this;
+        }
+        /**
+         * Adds the number of non-null values of a column, see {@link #count()}.
+         * @return this builder
+         */
+        public Select count(String column){
+            this.aggregates.add(new Aggregate(AggregateFunction.COUNT, column));
+            return this;
+        }
+        /**
+         * Adds the sum of a numeric column, see {@link #count()}.
+         * @return this builder
+         */
+        public Select sum(String column){
+            this.aggregates.add(new Aggregate(AggregateFunction.SUM, column));
+            return this;
+        }
+        /**
+         * Adds the smallest value of a column, see {@link #count()}.
+         * @return this builder
+         */
+        public Select min(String column){
+            this.aggregates.add(new Aggregate(AggregateFunction.MIN, column));
+            return this;
+        }
+        /**
+         * Adds the greatest value of a column, see {@link #count()}.
+         * @return this builder
+         */
+        public Select max(String column){
+            this.aggregates.add(new Aggregate(AggregateFunction.MAX, column));
+            return this;
+        }
+        /**
+         * Adds the mean of a numeric column, see {@link #count()}.
+         * @return this builder
+         */
+        public Select avg(String column){
+            this.aggregates.add(new Aggregate(AggregateFunction.AVG, column));
+            return this;
+        }
+        /**
+         * Groups the matching rows by the values of columns, {@code null} values forming a group
+         * of their own, see {@link #count()}.
+         * @param columns grouped columns
+         * @return this builder
+         */
+        public Select groupBy(String... columns){
+            this.groupBy = columns.clone();
+            return this;
+        }
         /**
          * Executes the configured SELECT query and returns the resulting rows.
          * <p>
          * Builds a final immutable {@link SelectQuery} and passes it to
-         * {@link DBMS#select(SelectQuery)} for execution.
+         * {@link Executor#select(SelectQuery)} for execution.
          * </p>
          *
          * @return a list of {@link Row} objects matching the query
          * @throws IllegalArgumentException if no database is currently selected
          */
         public List<Row> fetch(){
+            if (this.isAggregate()) return dbms.aggregate(this.aggregateQuery());
             return dbms.select(new SelectQuery(tableName,selectColumns,whereClause,begin,limit,type));
         }
+        /**
+         * Executes the configured SELECT query lazily.
+         * <p>
+         * Rows are read from the table as the stream is consumed, so {@link #limit(int)} or a
+         * short-circuiting operation such as {@code findFirst()} stop reading pages once enough
+         * rows were produced, and rows already consumed are not retained. A select ordered by
+         * {@link #ASC(String)} or {@link #DEC(String)} reads every matching row before producing
+         * the first one. Without ordering, rows answered by a scan of the table come in storage
+         * order rather than index order. An aggregate select computes every group before
+         * producing the first one. A stream that is not consumed to the end should be closed,
+         * e.g. with try-with-resources, to delete the temporary files of a large ordered select
+         * and let background compaction run again.
+         * </p>
+         * <p>
+         * The stream is weakly consistent: rows are read a page or a batch at a time and the
+         * database lock is released in between, so rows inserted, updated or deleted by other
+         * callers while the stream is open may or may not be reflected. A row updated after it
+         * was matched through an index is produced as it is when read, and an ordered select
+         * walking an index produces a row again when its key is updated past the walk. Rows not
+         * written while the stream is open are produced exactly once. Read through a
+         * {@link Session} for a consistent snapshot.
+         * </p>
+         *
+         * @return a sequential stream of the matching rows
+         * @throws IllegalArgumentException if no database is currently selected
+         */
+        public Stream<Row> stream(){
+            if (this.isAggregate()) return dbms.aggregate(this.aggregateQuery()).stream();
+            return dbms.stream(new SelectQuery(tableName,selectColumns,whereClause,begin,limit,type));
+        }
+        /**
+         * Executes the configured SELECT query lazily, see {@link #stream()}.
+         *
+         * @return an iterator over the matching rows
+         */
+        public Iterator<Row> iterator(){
+            return stream().iterator();
+        }
+        private boolean isAggregate(){
+            return !this.aggregates.isEmpty() || this.groupBy.length > 0;
+        }
+        private AggregateQuery aggregateQuery(){
+            return new AggregateQuery(tableName, selectColumns, whereClause, groupBy.clone(), List.copyOf(aggregates), begin, limit, type);
+        }
     }
     // ---------------------------------------------------------------------
     // DELETE
@@ -165,11 +338,11 @@ public interface Query {
      * }</pre>
      */
     class Delete implements Query{
-        private final DBMS dbms;
+        private final Executor dbms;
         private String tableName;
         private WhereClause whereClause;
         private int limit = -1;
-        public Delete(DBMS dbms){
+        public Delete(Executor dbms){
             this.dbms = dbms;
         }
         /**
@@ -201,7 +374,7 @@ public interface Query {
          * Executes the configured DELETE query and returns the number of deleted rows.
          * <p>
          * Builds an immutable {@link DeleteQuery} and passes it to
-         * {@link DBMS#delete(DeleteQuery)} for execution.
+         * {@link Executor#delete(DeleteQuery)} for execution.
          * </p>
          *
          * @return the number of deleted entries affected by the query
@@ -229,7 +402,7 @@ public interface Query {
      * }</pre>
      */
     class Update implements Query{
-        private final DBMS dbms;
+        private final Executor dbms;
         private final String tableName;
         private WhereClause whereClause;
         private UpdateFields updateFields;
@@ -237,7 +410,7 @@ public interface Query {
         /**
          * @param tableName table to update
          */
-        public Update(DBMS dbms, String tableName){
+        public Update(Executor dbms, String tableName){
             this.dbms = dbms;
             this.tableName = tableName;
         }
@@ -276,7 +449,7 @@ public interface Query {
          * Executes the configured UPDATE query and returns the number of affected rows.
          * <p>
          * Builds an immutable {@link UpdateQuery} and passes it to
-         * {@link DBMS#update(UpdateQuery)} for execution.
+         * {@link Executor#update(UpdateQuery)} for execution.
          * </p>
          *
          * @return the number of updated entries
@@ -2,10 +2,16 @@ package com.database.tttdb.api;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Function;
 
+import com.database.tttdb.api.DBMS.AggregateQuery;
 import com.database.tttdb.api.DBMS.SelectQuery;
+import com.database.tttdb.api.Query.Aggregate;
+import com.database.tttdb.api.Query.SelectType;
+import com.database.tttdb.api.Query.SelectionType;
 import com.database.tttdb.core.page.Entry;
 import com.database.tttdb.core.table.Table;
 import com.database.tttdb.core.table.TableSchema;
@@ -156,19 +162,73 @@ public class Row {
      * @return list of records
      */
     public static List<Row> prepareSelectResult(Table table, SelectQuery query,List<Entry> selectResult){
-        List<Row> result = new ArrayList<>();
+        Function<Entry, Row> projection = projection(table, query);
+        List<Row> result = new ArrayList<>(selectResult.size());
+        for (Entry entry : selectResult) result.add(projection.apply(entry));
+        return result;
+    }
+    /**
+     * Builds the rows of a SELECT query one entry at a time.
+     * @param query the columns to include in the result
+     * @return function copying the selected columns of an entry into a new {@link Row}
+     */
+    public static Function<Entry, Row> projection(Table table, SelectQuery query){
         String[] resultColumns = query.getColumns(table);
         TableSchema schema = table.getSchema();
-        for (Entry entry : selectResult) {
-            Object[] values = new Object[resultColumns.length];
-            for(int i = 0;i<resultColumns.length;i++){
-                String name = resultColumns[i];
-                int index = schema.getColumnIndex(name);
-                if(index == -1) throw new IllegalArgumentException("Invalid result column");
-                values[i] = entry.get(index);
-            }
+        int[] indexes = new int[resultColumns.length];
+        for(int i = 0;i<resultColumns.length;i++){
+            indexes[i] = schema.getColumnIndex(resultColumns[i]);
+            if(indexes[i] == -1) throw new IllegalArgumentException("Invalid result column");
+        }
+        return entry -> {
+            Object[] values = new Object[indexes.length];
+            for (int i = 0; i < indexes.length; i++) values[i] = entry.get(indexes[i]);
+            return new Row(resultColumns, values);
+        };
+    }
+    /**
+     * Prepares the result of an aggregate SELECT query as a list of {@link Row}: orders the
+     * groups, applies the offset and limit and keeps the selected grouped columns followed by
+     * the aggregates, see {@link Query.Select#count()}.
+     * @param query the aggregate query
+     * @param groups one row per group: the grouped values, then the result of each aggregate
+     * @return list of records
+     * @throws IllegalArgumentException if a selected or ordering column is neither grouped nor an aggregate
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static List<Row> prepareAggregateResult(AggregateQuery query, List<Object[]> groups){
+        List<String> names = new ArrayList<>(Arrays.asList(query.groupBy()));
+        for (Aggregate aggregate : query.aggregates()) names.add(aggregate.name());
+        String columns = query.resultColumns();
+        String[] selected = columns == null || columns.isBlank() || columns.equals("*") ? query.groupBy() : columns.split("\\s*,\\s*");
+        String[] resultColumns = new String[selected.length + query.aggregates().size()];
+        int[] indexes = new int[resultColumns.length];
+        for (int i = 0; i < selected.length; i++) {
+            indexes[i] = Arrays.asList(query.groupBy()).indexOf(selected[i]);
+            if (indexes[i] == -1) throw new IllegalArgumentException("Column " + selected[i] + " is not grouped");
+            resultColumns[i] = selected[i];
+        }
+        for (int i = selected.length; i < resultColumns.length; i++) {
+            indexes[i] = query.groupBy().length + i - selected.length;
+            resultColumns[i] = names.get(indexes[i]);
+        }
+
+        List<Object[]> ordered = new ArrayList<>(groups);
+        SelectType type = query.type();
+        if (type != null && type.type() != SelectionType.NORMAL) {
+            int column = names.indexOf(type.column());
+            if (column == -1) throw new IllegalArgumentException("Column " + type.column() + " is neither grouped nor an aggregate");
+            Comparator<Object[]> comparator = Comparator.comparing(group -> (Comparable) group[column], Comparator.nullsFirst(Comparator.naturalOrder()));
+            ordered.sort(type.type() == SelectionType.DESCENDING ? comparator.reversed() : comparator);
+        }
+        int from = Math.min(Math.max(query.begin(), 0), ordered.size());
+        int to = query.limit() < 0 ? ordered.size() : (int) Math.min(ordered.size(), (long) from + query.limit());
+        List<Row> result = new ArrayList<>(to - from);
+        for (Object[] group : ordered.subList(from, to)) {
+            Object[] values = new Object[indexes.length];
+            for (int i = 0; i < indexes.length; i++) values[i] = group[indexes[i]];
             result.add(new Row(resultColumns, values));
         }
         return result;
     }
-}
\ No newline at end of file
+}
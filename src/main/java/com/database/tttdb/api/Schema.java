@@ -3,12 +3,17 @@ package com.database.tttdb.api;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 
+import com.database.tttdb.api.Condition.Clause;
+import com.database.tttdb.api.Condition.WhereClause;
 import com.database.tttdb.api.DatabaseException.CheckConstraintException;
 import com.database.tttdb.api.DatabaseException.EntryValidationException;
 import com.database.tttdb.api.DatabaseException.SchemaException;
+import com.database.tttdb.api.Functions.InnerFunctions;
 import com.database.tttdb.core.Database;
+import com.database.tttdb.core.index.BinaryKeyCodec;
 import com.database.tttdb.core.page.Entry;
 import com.database.tttdb.core.table.Constraint;
 import com.database.tttdb.core.table.DataType;
@@ -41,6 +46,7 @@ public class Schema {
     private final List<ColumnInner> columns;
     private final List<Check> checkList;
     private final List<ForeignKey> foreignKeyList;
+    private final List<IndexInner> indexList;
     /**
      * Represents a single column in a table schema.
      *
@@ -51,6 +57,18 @@ public class Schema {
      * @param defaultValue the default value for the column
      */
     public record ColumnInner(String name, DataType type, int size, List<Constraint> constraints, Object defaultValue) {}
+    /**
+     * Represents a named index of a table schema.
+     *
+     * @param name the index name
+     * @param columns the indexed columns, most significant first
+     * @param included columns whose values the index carries without ordering by them
+     * @param expression function of the single indexed column the index is keyed by, or {@code null}
+     * @param filter conjunction rows must match to be indexed, or {@code null}
+     */
+    public record IndexInner(String name, List<String> columns, List<String> included, InnerFunctions expression, WhereClause filter) {
+        public boolean isDerived() { return expression != null || filter != null; }
+    }
     /**
      * Creates a new empty schema.
      */
@@ -58,6 +76,7 @@ public class Schema {
         this.columns = new ArrayList<>();
         this.checkList = new ArrayList<>();
         this.foreignKeyList = new ArrayList<>();
+        this.indexList = new ArrayList<>();
     }
     /**
      * Starts defining a new column in this schema.
@@ -122,6 +141,61 @@ public class Schema {
     public ForeignKey foreignKey(String name){
         return new ForeignKey(name, this);
     }
+    /**
+     * Declares an index over several columns of this schema.
+     *
+     * <p>Keys compare by the first column, then by the second and so on, so the index serves
+     * a WHERE clause with equality conditions on a leading run of its columns, optionally
+     * followed by a range condition on the next one.</p>
+     *
+     * <p>Fluent API example:</p>
+     * <pre>
+     * schema.index("tenant_created", "tenant_id", "created_at");
+     * </pre>
+     *
+     * @param name the index name
+     * @param columns the indexed columns, most significant first
+     * @return this schema
+     */
+    public Schema index(String name, String... columns){
+        return this.index(name).columns(columns).endIndex();
+    }
+    /**
+     * Declares a covering index over one or more columns of this schema that also carries the
+     * values of the {@code included} columns.
+     *
+     * <p>A select whose WHERE clause and result columns only use columns of the index is
+     * answered from the index alone, without reading table pages.</p>
+     *
+     * <p>Fluent API example:</p>
+     * <pre>
+     * schema.index("id_username", new String[]{"id"}, new String[]{"username"});
+     * </pre>
+     *
+     * @param name the index name
+     * @param columns the indexed columns, most significant first
+     * @param included the additional columns carried by the index
+     * @return this schema
+     */
+    public Schema index(String name, String[] columns, String[] included){
+        return this.index(name).columns(columns).include(included).endIndex();
+    }
+    /**
+     * Starts defining a named index in this schema, see {@link Index}.
+     *
+     * <p>Fluent API example:</p>
+     * <pre>
+     * schema.index("active_username").column("username")
+     *       .where(new WhereClause().column("active").isEqual(true).end())
+     *       .endIndex();
+     * </pre>
+     *
+     * @param name the index name
+     * @return an {@link Index} builder object to configure the index
+     */
+    public Index index(String name){
+        return new Index(name, this);
+    }
     /**
     * This method is used internally 
     */
@@ -131,6 +205,12 @@ public class Schema {
     /**
     * This method is used internally 
     */
+    public void add(IndexInner index){
+        this.indexList.add(index);
+    }
+    /**
+    * This method is used internally 
+    */
     public void add(Check check){
         this.checkList.add(check);
     }
@@ -180,6 +260,10 @@ public class Schema {
     /**
     * This method is used internally 
     */
+    public List<IndexInner> getIndexes() { return this.indexList; }
+    /**
+    * This method is used internally 
+    */
     private boolean isValidSchema(Database database){
         Set<String> columnNames = new HashSet<>();
         boolean hasPrimaryKey = false;
@@ -248,9 +332,76 @@ public class Schema {
             foreignKey.isValid(database);
         }
 
+        // Multi-column indexes must reference distinct columns with an ordered key encoding
+        Set<String> indexNames = new HashSet<>();
+        for (IndexInner index : indexList) {
+            if (!indexNames.add(index.name())) {
+                throw new SchemaException("Duplicate index: " + index.name());
+            }
+            if (index.isDerived()) {
+                isValidDerivedIndex(index);
+                continue;
+            }
+            if (index.columns().isEmpty() || index.columns().size() < 2 && index.included().isEmpty()) {
+                throw new SchemaException("Index " + index.name() + " must cover at least two columns.");
+            }
+            List<String> indexColumns = new ArrayList<>(index.columns());
+            indexColumns.addAll(index.included());
+            if (new HashSet<>(indexColumns).size() != indexColumns.size()) {
+                throw new SchemaException("Index " + index.name() + " repeats a column.");
+            }
+            for (String column : indexColumns) {
+                int columnIndex = getColumnIndex(column);
+                if (columnIndex == -1) {
+                    throw new SchemaException("Index " + index.name() + " references unknown column " + column);
+                }
+                DataType type = columns.get(columnIndex).type();
+                if (BinaryKeyCodec.forType(type) == null) {
+                    throw new SchemaException("Column " + column + " of type " + type + " cannot be part of index " + index.name());
+                }
+            }
+        }
+
         return true;
     }
+    /**
+     * Expression and partial indexes cover one column; filters are conjunctions of column conditions.
+     */
+    private void isValidDerivedIndex(IndexInner index){
+        if (index.columns().size() != 1 || !index.included().isEmpty()) {
+            throw new SchemaException("Index " + index.name() + " with an expression or filter must cover exactly one column.");
+        }
+        String column = index.columns().getFirst();
+        int columnIndex = getColumnIndex(column);
+        if (columnIndex == -1) {
+            throw new SchemaException("Index " + index.name() + " references unknown column " + column);
+        }
+        DataType type = columns.get(columnIndex).type();
+        if (index.expression() == null && !Comparable.class.isAssignableFrom(type.getJavaClass())) {
+            throw new SchemaException("Column " + column + " of type " + type + " cannot be part of index " + index.name());
+        }
+        if (index.filter() == null) return;
+        for (var entry : index.filter().getConditions()) {
+            if (entry.getKey() != Clause.FIRST && entry.getKey() != Clause.AND) {
+                throw new SchemaException("Filter of index " + index.name() + " must only combine conditions with AND.");
+            }
+            if (!entry.getValue().isValid(this)) {
+                throw new SchemaException("Filter of index " + index.name() + " references unknown column " + entry.getValue().getColumnName());
+            }
+        }
+    }
     public void isValidEntry(Entry entry, Table table) {
+        this.isValidEntry(entry, table, null);
+    }
+    /**
+     * Validates an entry that replaces {@code replaced} in place. Unique keys the update
+     * leaves unchanged belong to the replaced row itself and are not reported as duplicates.
+     *
+     * @param entry new entry values
+     * @param table owning table
+     * @param replaced entry being updated, {@code null} for an insert
+     */
+    public void isValidEntry(Entry entry, Table table, Entry replaced) {
         ColumnInner[] cols = columns.toArray(new ColumnInner[0]);
         Object[] values = entry.getValues();
 
@@ -294,7 +445,8 @@ public class Schema {
             // UNIQUE check (needs table lookup)
             if ((column.constraints().contains(Constraint.PRIMARY_KEY) || column.constraints().contains(Constraint.UNIQUE))  && value != null) {
                 int idx = getColumnIndex(column.name());
-                if (table.containsKey(value, idx)) {
+                boolean unchanged = replaced != null && Objects.equals(value, replaced.get(idx));
+                if (!unchanged && table.containsKey(value, idx)) {
                     throw new EntryValidationException(
                         "Duplicate value for UNIQUE column " + column.name()
                     );
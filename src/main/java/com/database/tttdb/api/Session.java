@@ -0,0 +1,166 @@
+package com.database.tttdb.api;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.database.tttdb.api.DBMS.AggregateQuery;
+import com.database.tttdb.api.DBMS.DeleteQuery;
+import com.database.tttdb.api.DBMS.SelectQuery;
+import com.database.tttdb.api.DBMS.UpdateQuery;
+import com.database.tttdb.api.DatabaseException.TransactionAbortedException;
+import com.database.tttdb.api.DatabaseException.TransactionConflictException;
+import com.database.tttdb.api.Query.Delete;
+import com.database.tttdb.api.Query.Select;
+import com.database.tttdb.api.Query.SelectType;
+import com.database.tttdb.api.Query.SelectionType;
+import com.database.tttdb.api.Query.Update;
+import com.database.tttdb.core.Database;
+import com.database.tttdb.core.SnapshotTransaction;
+import com.database.tttdb.core.execution.HashAggregate;
+import com.database.tttdb.core.page.Entry;
+import com.database.tttdb.core.table.Table;
+
+/**
+ * A connection to one database for a single application thread, running its statements
+ * in snapshot-isolated transactions.
+ * <p>
+ * Statements run in the session's current transaction, which begins with the first statement
+ * after the session opens or the previous transaction ended with {@link #commit()} or
+ * {@link #rollBack()}. Each thread of a multi-threaded application opens its own session with
+ * {@link DBMS#openSession()}; sessions of different threads run concurrently.
+ * </p>
+ * <p>
+ * An update or delete of a row that another session is changing waits for that session's
+ * transaction to end. If the row changed meanwhile, or waiting would deadlock or time out, the
+ * statement throws and the transaction is rolled back. The session is then aborted: further
+ * statements and {@link #commit()} throw a {@link TransactionAbortedException} until
+ * {@link #rollBack()} ends the aborted transaction.
+ * </p>
+ *
+ * <p><b>Example:</b></p>
+ * <pre>{@code
+ * try (Session session = db.openSession()) {
+ *     session.update("accounts")
+ *            .set().selectColumn("balance").operation("balance - 10").endUpdate()
+ *            .where().column("id").isEqual(1).end().endUpdateClause()
+ *            .execute();
+ *     session.commit(); // may throw TransactionConflictException
+ * }
+ * }</pre>
+ *
+ * @see SnapshotTransaction
+ */
+public class Session implements Query.Executor, AutoCloseable {
+    private final Database database;
+    private SnapshotTransaction transaction;
+
+    Session(Database database){
+        this.database = database;
+    }
+
+    /**
+     * Starts a fluent SELECT query in this session's transaction, see {@link DBMS#select(String)}.
+     */
+    public Select select(String selectColumns){
+        return new Select(this, selectColumns);
+    }
+    @Override
+    public List<Row> select(SelectQuery query){
+        Table table = this.table(query.tableName());
+        List<Entry> result = this.transaction().select(table, query.whereClause(), query.begin(), query.limit(), query.type());
+        return Row.prepareSelectResult(table, query, result);
+    }
+    /**
+     * Computes the aggregates over the rows this session's transaction sees, its own writes
+     * included, see {@link Select#count()}. The rows are always read, as the indexes only hold
+     * committed rows.
+     */
+    @Override
+    public List<Row> aggregate(AggregateQuery query){
+        Table table = this.table(query.tableName());
+        HashAggregate aggregate = new HashAggregate(table.getSchema(), query.groupBy(), query.aggregates());
+        for (Entry entry : this.transaction().select(table, query.whereClause(), 0, -1, new SelectType(SelectionType.NORMAL, null)))
+            aggregate.add(entry.getValues());
+        return Row.prepareAggregateResult(query, aggregate.rows());
+    }
+    public void insert(String tableName, Row newRow){
+        this.insert(tableName, List.of(newRow));
+    }
+    /**
+     * Buffers rows for insertion; they are validated when the transaction commits.
+     * @return the number of buffered rows
+     */
+    public int insert(String tableName, List<Row> rows){
+        Table table = this.table(tableName);
+        List<Entry> entries = new ArrayList<>();
+        for (Row row : rows) {
+            entries.add(Entry.prepareEntry(row.getColumns(), row.getValues(), table));
+        }
+        this.transaction().insert(table, entries);
+        return entries.size();
+    }
+    /**
+     * Starts a fluent DELETE query in this session's transaction, see {@link DBMS#delete()}.
+     */
+    public Delete delete(){
+        return new Delete(this);
+    }
+    @Override
+    public int delete(DeleteQuery query){
+        return this.transaction().delete(this.table(query.tableName()), query.whereClause(), query.limit());
+    }
+    /**
+     * Starts a fluent UPDATE query in this session's transaction, see {@link DBMS#update(String)}.
+     */
+    public Update update(String tableName){
+        return new Update(this, tableName);
+    }
+    @Override
+    public int update(UpdateQuery query){
+        return this.transaction().update(this.table(query.tableName()), query.whereClause(), query.limit(), query.updateFields());
+    }
+
+    /**
+     * Commits the current transaction; the next statement begins a new one.
+     * @throws TransactionConflictException if another transaction committed a change to a row this
+     *         transaction also changed, after this one began; the transaction is rolled back
+     * @throws TransactionAbortedException if a statement rolled the transaction back
+     */
+    public void commit(){
+        if (this.transaction == null) return;
+        this.checkAborted();
+        SnapshotTransaction ending = this.transaction;
+        this.transaction = null;
+        ending.commit();
+    }
+    /**
+     * Discards the current transaction, or ends an aborted one; the next statement begins a new one.
+     */
+    public void rollBack(){
+        if (this.transaction != null) this.transaction.rollback();
+        this.transaction = null;
+    }
+    /**
+     * Rolls back the open transaction.
+     */
+    @Override
+    public void close(){
+        this.rollBack();
+    }
+
+    private SnapshotTransaction transaction(){
+        if (this.transaction == null) this.transaction = new SnapshotTransaction(database);
+        this.checkAborted();
+        return this.transaction;
+    }
+    // A failed statement ends the transaction but keeps it as the current one until rollBack()
+    private void checkAborted(){
+        if (!this.transaction.isActive())
+            throw new TransactionAbortedException("The transaction was rolled back by a failed statement; roll back the session to begin a new one.");
+    }
+    private Table table(String tableName){
+        Table table = database.getTable(tableName);
+        if (table == null) throw new IllegalArgumentException("Table '"+tableName+"' does not exist in database '"+database.getName()+"'.");
+        return table;
+    }
+}
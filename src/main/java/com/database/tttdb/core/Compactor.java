@@ -0,0 +1,183 @@
+package com.database.tttdb.core;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.database.tttdb.core.manager.CompactionManager;
+import com.database.tttdb.core.manager.CompactionManager.Progress;
+import com.database.tttdb.core.table.Table;
+
+/**
+ * Background vacuum of a {@link Database}'s table and index files.
+ * <p>
+ * Deletes leave tombstoned slots behind, so after mass deletions files keep their
+ * high-water size. While the database is idle the compactor moves entries from the
+ * tail pages into those holes, releases the emptied tail pages and truncates the files.
+ *
+ * <h3>Scheduling</h3>
+ * <ul>
+ *   <li>Runs on its own daemon thread, one tick every {@link #TICK_MILLIS} ms, once {@link #start()} is called.</li>
+ *   <li>A tick only works when no call touched the database for {@code idleMillis}, no transaction or
+ *       lazy table scan is open and the database lock is free; it never waits for the lock, so writers
+ *       are not blocked. A scan paused by its consumer would otherwise skip rows moved into pages it
+ *       already read, or produce them twice. Scans are released once exhausted or closed; the age of the
+ *       oldest open one is in the {@link Metrics} and logged past {@link #SCAN_WARNING_MILLIS}.</li>
+ *   <li>Each tick may spend {@code pagesPerSecond * TICK_MILLIS / 1000} page accesses, which bounds how
+ *       long a writer arriving mid-tick waits.</li>
+ *   <li>The moves of a tick run in one transaction, so a failure rolls them back.</li>
+ * </ul>
+ */
+public class Compactor {
+    private static final Logger logger = Logger.getLogger(Compactor.class.getName());
+
+    public static final long TICK_MILLIS = 100;
+    /** Age after which an open scan that keeps the compactor from running is logged. */
+    public static final long SCAN_WARNING_MILLIS = 60_000;
+
+    /**
+     * Cumulative counters since the compactor was created. {@code skippedScans} counts the skipped
+     * passes an open table scan held back and {@code oldestScanMillis} is the age of the oldest scan
+     * open now, so a scan that is never closed shows up as a growing age.
+     */
+    public record Metrics(long passes, long rowsMoved, long indexEntriesMoved, long pagesReleased, long skippedBusy,
+                          long skippedScans, long oldestScanMillis, boolean paused, boolean dense) {}
+
+    private final Database database;
+    private volatile boolean enabled = false;
+    private volatile boolean paused = false;
+    private volatile boolean dense = false;
+    private volatile long idleMillis = 1000;
+    private volatile int pagesPerSecond = 2000;
+    private ScheduledExecutorService executor;
+
+    private final AtomicLong passes = new AtomicLong();
+    private final AtomicLong rowsMoved = new AtomicLong();
+    private final AtomicLong indexEntriesMoved = new AtomicLong();
+    private final AtomicLong pagesReleased = new AtomicLong();
+    private final AtomicLong skippedBusy = new AtomicLong();
+    private final AtomicLong skippedScans = new AtomicLong();
+    private boolean scanWarned = false;
+
+    public Compactor(Database database){
+        this.database = database;
+    }
+
+    public synchronized void start(){
+        if (!enabled || executor != null) return;
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Compactor-" + database.getName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+    public synchronized void shutdown(){
+        if (executor == null) return;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) executor.shutdownNow();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+        executor = null;
+    }
+
+    private void tick(){
+        if (paused) return;
+        if (System.nanoTime() - database.getLastActivity() < TimeUnit.MILLISECONDS.toNanos(idleMillis)) {
+            dense = false;
+            return;
+        }
+        if (dense) return;
+        int budget = (int) Math.max(1, pagesPerSecond * TICK_MILLIS / 1000);
+        try {
+            runPass(budget);
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "Compaction pass failed for database '" + database.getName() + "'.", e);
+        }
+    }
+
+    /**
+     * Runs one compaction pass over every table and index of the database, unless a
+     * transaction or a lazy table scan is open or another thread holds the database lock.
+     *
+     * @param budget maximum number of page accesses of the pass
+     * @return {@code true} if every file is dense after the pass
+     */
+    public boolean runPass(int budget){
+        Lock lock = database.getLock().writeLock();
+        if (!lock.tryLock()) {
+            skippedBusy.incrementAndGet();
+            return false;
+        }
+        try {
+            if (database.hasOpenScans()) {
+                skippedBusy.incrementAndGet();
+                skippedScans.incrementAndGet();
+                warnAboutScans();
+                return false;
+            }
+            scanWarned = false;
+            if (database.inTransaction()) {
+                skippedBusy.incrementAndGet();
+                return false;
+            }
+            Progress progress = new Progress(budget);
+            boolean done = true;
+            database.startTransaction("Compaction");
+            try {
+                for (Table table : database.getAllTablesList()) {
+                    done &= CompactionManager.compactTable(table, progress);
+                    for (int i = 0; i < table.getSchema().getNumOfColumns(); i++) {
+                        if (table.getIndexManager().isIndexed(i)) done &= CompactionManager.compactIndex(table, i, progress);
+                    }
+                }
+            } catch (RuntimeException e) {
+                database.rollBack("Compaction pass failed.");
+                throw e;
+            }
+            database.commit();
+            database.getCache().truncateFiles();
+
+            passes.incrementAndGet();
+            rowsMoved.addAndGet(progress.getRowsMoved());
+            indexEntriesMoved.addAndGet(progress.getIndexEntriesMoved());
+            pagesReleased.addAndGet(progress.getPagesReleased());
+            dense = done;
+            return done;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Logs once per stretch of skipped passes, a scan dropped without closing it is released by the garbage collector
+    private void warnAboutScans(){
+        long age = database.getOldestScanMillis();
+        if (scanWarned || age < SCAN_WARNING_MILLIS) return;
+        scanWarned = true;
+        logger.warning("Compaction of database '" + database.getName() + "' has been held back by a table scan open for "
+            + age + " ms; close the streams and iterators of finished queries.");
+    }
+
+    public Metrics getMetrics(){
+        return new Metrics(passes.get(), rowsMoved.get(), indexEntriesMoved.get(), pagesReleased.get(), skippedBusy.get(),
+            skippedScans.get(), database.getOldestScanMillis(), paused, dense);
+    }
+
+    public void pause() { this.paused = true; }
+    public void resume() { this.paused = false; }
+    public boolean isPaused() { return this.paused; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public boolean isEnabled() { return this.enabled; }
+    public void setIdleMillis(long idleMillis) { this.idleMillis = idleMillis; }
+    public void setPagesPerSecond(int pagesPerSecond) {
+        if (pagesPerSecond <= 0) throw new IllegalArgumentException("Compaction I/O budget must be positive.");
+        this.pagesPerSecond = pagesPerSecond;
+    }
+}
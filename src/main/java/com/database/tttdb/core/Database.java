@@ -6,6 +6,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -14,7 +18,9 @@ import com.database.tttdb.api.DatabaseException;
 import com.database.tttdb.api.ForeignKey.ForeignKeyAction;
 import com.database.tttdb.core.cache.Cache;
 import com.database.tttdb.core.cache.TransactionCache;
+import com.database.tttdb.core.cache.VersionStore;
 import com.database.tttdb.core.index.IndexInit.IndexType;
+import com.database.tttdb.core.manager.LockManager;
 import com.database.tttdb.core.manager.SchemaManager;
 import com.database.tttdb.core.table.Table;
 import com.database.tttdb.api.ForeignKey;
@@ -34,6 +40,15 @@ public class Database {
     private final Cache mainCache;
     private TransactionCache currentCache;
     private FileIOThread fileIOThread;
+    private final Compactor compactor;
+
+    // Writers and the background compactor take the write lock, selections the read lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final VersionStore versionStore = new VersionStore();
+    private final LockManager lockManager = new LockManager();
+    private volatile long lastActivity = System.nanoTime();
+    // Table scans reading pages lazily, the compactor does not move rows while any is open
+    private final Map<Object, Long> openScans = new ConcurrentHashMap<>(); // scan token -> System.nanoTime() at open
 
     public Database(String name, DBMS dbms, int cacheCapacity){
         this.name = name;
@@ -42,6 +57,7 @@ public class Database {
         this.schema = new HashMap<>();
         this.fileIOThread = new FileIOThread(name);
         this.mainCache = new Cache(this, cacheCapacity);
+        this.compactor = new Compactor(this);
     }
 
     public void start() {
@@ -54,9 +70,11 @@ public class Database {
             SchemaManager.createTable(table.getSchema(), path, name, t);
             table.start();
         }
+        compactor.start();
     }
 
     public void close(){
+        compactor.shutdown();
         try {
             this.fileIOThread.shutdown();
         } catch (InterruptedException e) {
@@ -128,45 +146,119 @@ public class Database {
             logger.warning(String.format("Warning: Tried to remove non-existent table '%s' from database '%s'.", tableName, this.name));
             return;
         }
+        lock.writeLock().lock();
         try {
             SchemaManager.dropTable(table);
             this.tables.remove(tableName);
+            this.versionStore.dropTable(tableName);
         } catch (Exception e) {
             String message = String.format("Error removing table '%s' from database '%s'.",tableName, name); 
             logger.log(Level.SEVERE, message,e);
             throw new DatabaseException(message,e);
+        } finally {
+            lock.writeLock().unlock();
         }
         logger.info(String.format("Table '%s' removed from database '%s'.", tableName, this.name));
     }
 
     public void startTransaction(String name){
-        if(this.currentCache == null) this.currentCache = new TransactionCache(this, this.mainCache, name);
-        else this.currentCache = new TransactionCache(this, this.currentCache, name);
-        for(Table table : tables.values()){
-            table.beginTransaction();
+        lock.writeLock().lock();
+        try {
+            if(this.currentCache == null) this.currentCache = new TransactionCache(this, this.mainCache, name);
+            else this.currentCache = new TransactionCache(this, this.currentCache, name);
+            for(Table table : tables.values()){
+                table.beginTransaction();
+            }
+            versionStore.beginTransaction();
+        } finally {
+            lock.writeLock().unlock();
         }
     }
     public void rollBack(String reason){
-        if(this.currentCache == null){
-            this.mainCache.rollback(reason);
-            return;
+        lock.writeLock().lock();
+        try {
+            if(this.currentCache == null){
+                this.mainCache.rollback(reason);
+                return;
+            }
+            this.currentCache.rollback(reason);
+            versionStore.rollback();
+            Cache parent = this.currentCache.getParent();
+            if(parent instanceof TransactionCache) this.currentCache = (TransactionCache)parent;
+            else this.currentCache = null;
+        } finally {
+            lock.writeLock().unlock();
         }
-        this.currentCache.rollback(reason);
-        Cache parent = this.currentCache.getParent();
-        if(parent instanceof TransactionCache) this.currentCache = (TransactionCache)parent;
-        else this.currentCache = null;
     }
     public Database commit(){
-        if(this.currentCache == null) {
-            this.mainCache.commit();
+        lock.writeLock().lock();
+        try {
+            if(this.currentCache == null) {
+                this.mainCache.commit();
+                return this;
+            }
+            this.currentCache.commit();
+            versionStore.commit();
+            Cache parent = this.currentCache.getParent();
+            if(parent instanceof TransactionCache) this.currentCache = (TransactionCache)parent;
+            else this.currentCache = null;
             return this;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Runs a table operation under the database write lock and records it as activity,
+     * which keeps the background {@link Compactor} away until the database is idle again.
+     */
+    public <T> T locked(Supplier<T> operation){
+        lock.writeLock().lock();
+        try {
+            return operation.get();
+        } finally {
+            lastActivity = System.nanoTime();
+            lock.writeLock().unlock();
         }
-        this.currentCache.commit();
-        Cache parent = this.currentCache.getParent();
-        if(parent instanceof TransactionCache) this.currentCache = (TransactionCache)parent;
-        else this.currentCache = null;
-        return this;
     }
+    /**
+     * Runs a read-only table operation under the shared read lock, so selections of
+     * different threads run concurrently and only wait for writers applying changes.
+     */
+    public <T> T readLocked(Supplier<T> operation){
+        lock.readLock().lock();
+        try {
+            return operation.get();
+        } finally {
+            lastActivity = System.nanoTime();
+            lock.readLock().unlock();
+        }
+    }
+    public boolean inTransaction() { return this.currentCache != null; }
+    /**
+     * Registers a scan that reads the table pages in storage order across several calls,
+     * which keeps the {@link Compactor} from moving rows behind it until {@link #closeScan(Object)}.
+     *
+     * @return the token to close the scan with
+     */
+    public Object openScan() {
+        Object token = new Object();
+        this.openScans.put(token, System.nanoTime());
+        return token;
+    }
+    public void closeScan(Object token) { this.openScans.remove(token); }
+    public boolean hasOpenScans() { return !this.openScans.isEmpty(); }
+    /** @return how long the oldest open scan has been open, in milliseconds, or 0 without open scans */
+    public long getOldestScanMillis() {
+        long now = System.nanoTime();
+        long oldest = this.openScans.values().stream().mapToLong(Long::longValue).min().orElse(now);
+        return TimeUnit.NANOSECONDS.toMillis(now - oldest);
+    }
+    public ReentrantReadWriteLock getLock() { return this.lock; }
+    public long getLastActivity() { return this.lastActivity; }
+    public Compactor getCompactor() { return this.compactor; }
+    public VersionStore getVersionStore() { return this.versionStore; }
+    public LockManager getLockManager() { return this.lockManager; }
 
     public Cache getCache(){
         if(this.currentCache == null) return this.mainCache;
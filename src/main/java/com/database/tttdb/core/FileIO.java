@@ -5,9 +5,11 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -35,6 +37,100 @@ public class FileIO {
         return (int) ((fileSize + pageSize - 1) / pageSize);
     }
 
+    /**
+     * Reads the number of live entries stored in every page of a file, straight from
+     * the page headers. Used on startup to rebuild free-space maps.
+     *
+     * @param path table or index file
+     * @param sizeOfEntry entry size of the file's pages
+     * @return entry count per page id, empty if the file does not exist
+     */
+    public static short[] readEntryCounts(String path, int sizeOfEntry){
+        int pageSize = Page.pageSizeInBytes(sizeOfEntry);
+        int numOfPages = getNumOfPages(path, sizeOfEntry);
+        short[] counts = new short[numOfPages];
+        if (numOfPages == 0) return counts;
+        ByteBuffer header = ByteBuffer.allocate(Page.SIZE_OF_HEADER);
+        try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            for (int i = 0; i < numOfPages; i++) {
+                header.clear();
+                channel.read(header, (long) i * pageSize);
+                if (header.position() < Page.SIZE_OF_HEADER) continue;
+                Page.checkFormat(header.flip(), path, i);
+                counts[i] = header.getShort(Short.BYTES + Integer.BYTES);
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error reading page headers from file: " + path, e);
+            throw new RuntimeException("Failed to read page headers from file: " + path, e);
+        }
+        return counts;
+    }
+
+    public interface RowIdConsumer { void accept(long rowId, int pageID, int rowOffset); }
+    /**
+     * Reads the hidden row id of every live row of a table file, straight from the page
+     * bytes. Used on startup to rebuild the table's row id map.
+     * Each page is the header, the slot bitmap, then the occupied slots densely in slot order,
+     * every entry starting with its row id.
+     *
+     * @param path table file
+     * @param sizeOfEntry entry size of the table's pages
+     * @param consumer receives (row id, page id, slot) of every live row
+     */
+    public static void readRowIds(String path, int sizeOfEntry, RowIdConsumer consumer){
+        int pageSize = Page.pageSizeInBytes(sizeOfEntry);
+        int numOfPages = getNumOfPages(path, sizeOfEntry);
+        if (numOfPages == 0) return;
+        int bitmapBytes = Page.slotBitmapBytes(Page.getPageCapacity(sizeOfEntry));
+        ByteBuffer page = ByteBuffer.allocate(pageSize);
+        try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            for (int pageID = 0; pageID < numOfPages; pageID++) {
+                page.clear();
+                while (page.hasRemaining() && channel.read(page, (long) pageID * pageSize + page.position()) > 0) { }
+                if (page.position() < Page.SIZE_OF_HEADER + bitmapBytes) continue;
+                byte[] bitmap = new byte[bitmapBytes];
+                page.get(Page.SIZE_OF_HEADER, bitmap);
+                BitSet occupied = BitSet.valueOf(bitmap);
+                int offset = Page.SIZE_OF_HEADER + bitmapBytes;
+                for (int slot = occupied.nextSetBit(0); slot >= 0; slot = occupied.nextSetBit(slot + 1)) {
+                    consumer.accept(page.getLong(offset), pageID, slot);
+                    offset += sizeOfEntry;
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error reading row ids from file: " + path, e);
+            throw new RuntimeException("Failed to read row ids from file: " + path, e);
+        }
+    }
+
+    /**
+     * Reads the next row id of a table, written beside the table file by
+     * {@link #writeNextRowId(String, long)}.
+     *
+     * @param path row id file of the table
+     * @return the next row id, 0 if the file does not exist
+     */
+    public static long readNextRowId(String path){
+        Path file = Path.of(path);
+        if (!Files.exists(file)) return 0;
+        try {
+            byte[] bytes = Files.readAllBytes(file);
+            return bytes.length < Long.BYTES ? 0 : ByteBuffer.wrap(bytes).getLong();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error reading next row id from file: " + path, e);
+            throw new RuntimeException("Failed to read next row id from file: " + path, e);
+        }
+    }
+    public void writeNextRowId(String path, long nextRowId) {
+        fileIOThread.submit(() -> {
+            try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, nextRowId));
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Error writing next row id to file: " + path, e);
+            }
+        });
+    }
+
     public void writePage(String path, byte[] pageBuffer, int pagePosition) {
         if (pageBuffer == null || pageBuffer.length == 0)
             throw new IllegalArgumentException("Page buffer cannot be null or empty.");
@@ -131,4 +227,22 @@ public class FileIO {
             }
         });
     }
-}
\ No newline at end of file
+
+    /**
+     * Truncates a file to at most {@code size} bytes. Unlike {@link #truncateFile(String, int)} the
+     * result does not depend on how much of the file has been written so far.
+     */
+    public void truncateFileTo(String path, long size) {
+        if (size < 0 || size % Page.BLOCK_SIZE != 0)
+            throw new IllegalArgumentException("Size must be a non-negative multiple of 4096");
+        fileIOThread.submit(() -> {
+            try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.WRITE)) {
+                if (channel.size() <= size) return;
+                logger.fine("Truncating " + path + " from " + channel.size() + " to " + size + " bytes");
+                channel.truncate(size);
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Failed to truncate file: " + path, e);
+            }
+        });
+    }
+}
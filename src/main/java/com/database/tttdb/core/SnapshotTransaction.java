@@ -0,0 +1,319 @@
+package com.database.tttdb.core;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.database.tttdb.api.Condition;
+import com.database.tttdb.api.Condition.Clause;
+import com.database.tttdb.api.Condition.WhereClause;
+import com.database.tttdb.api.ConditionUtils;
+import com.database.tttdb.api.DatabaseException;
+import com.database.tttdb.api.DatabaseException.TransactionConflictException;
+import com.database.tttdb.api.Query.SelectType;
+import com.database.tttdb.api.Query.SelectionType;
+import com.database.tttdb.api.UpdateFields;
+import com.database.tttdb.core.cache.VersionStore;
+import com.database.tttdb.core.manager.EntryManager;
+import com.database.tttdb.core.manager.LockManager;
+import com.database.tttdb.core.manager.LockManager.KeyRange;
+import com.database.tttdb.core.manager.LockManager.LockMode;
+import com.database.tttdb.core.manager.LockManager.RowLock;
+import com.database.tttdb.core.manager.LockManager.TableLock;
+import com.database.tttdb.core.page.Entry;
+import com.database.tttdb.core.table.Table;
+
+/**
+ * A transaction running under snapshot isolation, owned by a single thread.
+ * <p>
+ * Reads see the database as it was committed when the transaction began, plus the
+ * transaction's own changes. Writes are buffered in a per-table write set and touch no
+ * page until {@link #commit()}, which checks for conflicts and applies the write set as one
+ * internal transaction under the database write lock. Any number of snapshot transactions
+ * may run on different threads at once; reads only share the database read lock, so they
+ * never wait for other transactions' buffered writes, only for a commit being applied.
+ *
+ * <p>Conflicts are resolved first-committer-wins: a commit fails with a
+ * {@link TransactionConflictException} if a row it updates or deletes was changed by
+ * another transaction committed after this one began.</p>
+ *
+ * <p>Writers also take locks from the database's {@link LockManager}, held until the
+ * transaction ends: an exclusive lock on every row they update or delete, a shared lock on the
+ * key range of an indexed column their where clause scans (the whole table when the clause has
+ * no such range), and insert-intention ({@link LockMode#IX}) point locks on the indexed keys they
+ * insert, which only conflict with such scans. A second writer of
+ * the same row therefore waits for the first to end, then fails at once instead of at commit,
+ * and no transaction can insert a row into a range another one is updating or deleting.
+ * A statement that fails to get a lock ends the transaction.</p>
+ *
+ * <p>Notes:</p>
+ * <ul>
+ *   <li>Rows inserted by this transaction get temporary negative row ids until commit.</li>
+ *   <li>Unique keys, checks and foreign keys are validated at commit, against the newest state.</li>
+ *   <li>Changes made through the single-threaded {@link Database#startTransaction} API are only
+ *       seen by snapshots opened after their outermost commit; a rollback discards them unseen.</li>
+ * </ul>
+ */
+public class SnapshotTransaction {
+    private static final class WriteSet {
+        private final Map<Long, Entry> updated = new LinkedHashMap<>();
+        private final Set<Long> deleted = new LinkedHashSet<>();
+        private final Map<Long, Entry> inserted = new LinkedHashMap<>();
+    }
+
+    private final Database database;
+    private final VersionStore versionStore;
+    private final long snapshot;
+    private final Map<String, WriteSet> writes = new LinkedHashMap<>();
+    private final LockManager.Handle locks;
+    private long nextTemporaryId = -2;
+    private boolean active = true;
+
+    public SnapshotTransaction(Database database){
+        this.database = database;
+        this.versionStore = database.getVersionStore();
+        this.snapshot = database.readLocked(versionStore::openSnapshot);
+        this.locks = database.getLockManager().begin("snapshot " + this.snapshot);
+    }
+
+    // == Reading ==
+    /**
+     * Selects the rows visible to this transaction.
+     *
+     * @param table the table to select from
+     * @param whereClause row filter, {@code null} selects every row
+     * @param begin number of matching rows to skip
+     * @param limit maximum number of rows, negative for all
+     * @param type ordering of the result
+     * @return the visible rows, which must not be modified
+     */
+    public List<Entry> select(Table table, WhereClause whereClause, int begin, int limit, SelectType type){
+        this.checkActive();
+        Map<Long, Entry> rows = database.readLocked(() -> this.committedRows(table, whereClause));
+        WriteSet writeSet = this.writes.get(table.getName());
+        if (writeSet != null) {
+            writeSet.deleted.forEach(rows::remove);
+            writeSet.updated.forEach((rowId, entry) -> {
+                if (matches(table, whereClause, entry)) rows.put(rowId, entry);
+                else rows.remove(rowId);
+            });
+            writeSet.inserted.forEach((rowId, entry) -> {
+                if (matches(table, whereClause, entry)) rows.put(rowId, entry);
+            });
+        }
+        List<Entry> result = new ArrayList<>(rows.values());
+        EntryManager.sortEntries(table, result, type);
+        int from = Math.min(begin, result.size());
+        int to = limit < 0 ? result.size() : Math.min(result.size(), from + limit);
+        return new ArrayList<>(result.subList(from, to));
+    }
+    // Rows matching the clause in the newest state, with rows changed after the snapshot
+    // replaced by the version the snapshot sees
+    private Map<Long, Entry> committedRows(Table table, WhereClause whereClause){
+        Map<Long, Entry> changed = versionStore.changedSince(table.getName(), snapshot);
+        Map<Long, Entry> rows = new LinkedHashMap<>();
+        for (Entry entry : EntryManager.selectEntries(table, whereClause, 0, -1, new SelectType(SelectionType.NORMAL, null))) {
+            if (!changed.containsKey(entry.getRowId())) rows.put(entry.getRowId(), entry);
+        }
+        changed.forEach((rowId, version) -> {
+            if (version != null && matches(table, whereClause, version)) rows.put(rowId, version);
+        });
+        return rows;
+    }
+    private static boolean matches(Table table, WhereClause whereClause, Entry entry){
+        return whereClause == null || whereClause.isTrue(entry.getValues(), table.getSchema());
+    }
+
+    // == Writing ==
+    /**
+     * Buffers new rows. They are validated and stored on commit.
+     */
+    public void insert(Table table, List<Entry> entries){
+        this.checkActive();
+        this.locking(() -> {
+            locks.lock(new TableLock(table.getName()), LockMode.IX);
+            for (Entry entry : entries) this.lockKeys(table, entry);
+        });
+        WriteSet writeSet = this.writeSet(table);
+        for (Entry entry : entries) {
+            long rowId = this.nextTemporaryId--;
+            writeSet.inserted.put(rowId, entry.setRowId(rowId));
+        }
+    }
+    /**
+     * Buffers updates of the visible rows matching the clause.
+     * @return number of rows updated
+     */
+    public int update(Table table, WhereClause whereClause, int limit, UpdateFields updates){
+        List<Entry> rows = this.lockedSelect(table, whereClause, limit);
+        WriteSet writeSet = this.writeSet(table);
+        for (Entry row : rows) {
+            long rowId = row.getRowId();
+            Entry updated = EntryManager.updatedEntry(table, row, updates.getFunctionsList()).setRowId(rowId);
+            this.locking(() -> this.lockKeys(table, updated));
+            if (rowId < 0) writeSet.inserted.put(rowId, updated);
+            else writeSet.updated.put(rowId, updated);
+        }
+        return rows.size();
+    }
+    /**
+     * Buffers deletion of the visible rows matching the clause.
+     * @return number of rows deleted
+     */
+    public int delete(Table table, WhereClause whereClause, int limit){
+        List<Entry> rows = this.lockedSelect(table, whereClause, limit);
+        WriteSet writeSet = this.writeSet(table);
+        for (Entry row : rows) {
+            long rowId = row.getRowId();
+            if (rowId < 0) {
+                writeSet.inserted.remove(rowId);
+                continue;
+            }
+            writeSet.updated.remove(rowId);
+            writeSet.deleted.add(rowId);
+        }
+        return rows.size();
+    }
+    private WriteSet writeSet(Table table){
+        return this.writes.computeIfAbsent(table.getName(), name -> new WriteSet());
+    }
+
+    // == Locking ==
+    // Selects the rows a write statement changes, holding the scanned range and each committed row
+    private List<Entry> lockedSelect(Table table, WhereClause whereClause, int limit){
+        this.checkActive();
+        this.locking(() -> {
+            KeyRange range = scanRange(table, whereClause);
+            if (range == null) locks.lock(new TableLock(table.getName()), LockMode.S);
+            else locks.lockRange(range, LockMode.S);
+        });
+        List<Entry> rows = this.select(table, whereClause, 0, limit, new SelectType(SelectionType.NORMAL, null));
+        this.locking(() -> {
+            for (Entry row : rows) {
+                if (row.getRowId() < 0) continue;
+                locks.lock(new RowLock(table.getName(), row.getRowId()), LockMode.X);
+                // The row may have changed while this transaction waited for its lock
+                this.checkConflict(table.getName(), row.getRowId());
+            }
+        });
+        return rows;
+    }
+    // Every row matching an AND-only clause lies in the key range of each of its conditions,
+    // so the range of one condition on an indexed column covers the clause
+    private static KeyRange scanRange(Table table, WhereClause whereClause){
+        if (whereClause == null) return null;
+        KeyRange range = null;
+        for (Map.Entry<Clause, Condition<WhereClause>> clause : whereClause.getConditions()) {
+            if (clause.getKey() != Clause.FIRST && clause.getKey() != Clause.AND) return null;
+            Condition<WhereClause> condition = clause.getValue();
+            if (range != null || condition == null || condition.getColumnName() == null) continue;
+            int columnIndex = table.getSchema().getColumnIndex(condition.getColumnName());
+            if (columnIndex < 0 || !table.getIndexManager().isIndexed(columnIndex)) continue;
+            ConditionUtils.Range span = ConditionUtils.rangeSet(condition.getConditions()).span();
+            range = span == null
+                ? new KeyRange(table.getName(), columnIndex, null, null)
+                : new KeyRange(table.getName(), columnIndex, span.from(), span.to());
+        }
+        return range;
+    }
+    private void lockKeys(Table table, Entry entry){
+        Object[] values = entry.getValues();
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null && table.getIndexManager().isIndexed(i))
+                locks.lockRange(KeyRange.point(table.getName(), i, values[i]), LockMode.IX);
+        }
+    }
+    // Ends the transaction when a lock can not be granted or the locked row changed
+    private void locking(Runnable acquire){
+        try {
+            acquire.run();
+        } catch (RuntimeException e) {
+            this.end();
+            throw e;
+        }
+    }
+
+    // == Ending ==
+    /**
+     * Applies the write set atomically, unless another transaction committed a change to
+     * one of the written rows after this transaction began. The transaction ends either way.
+     *
+     * @throws TransactionConflictException if a written row was changed concurrently
+     * @throws DatabaseException if a transaction of the single-threaded API is open
+     */
+    public void commit(){
+        this.checkActive();
+        try {
+            if (this.writes.isEmpty()) return;
+            database.locked(() -> {
+                if (database.inTransaction())
+                    throw new DatabaseException("Can not commit a snapshot transaction while a database transaction is open.");
+                this.checkConflicts();
+                database.startTransaction("Snapshot Transaction Commit");
+                try {
+                    this.apply();
+                } catch (RuntimeException e) {
+                    database.rollBack("Snapshot transaction commit failed.");
+                    throw e;
+                }
+                database.commit();
+                return null;
+            });
+        } finally {
+            this.end();
+        }
+    }
+    /**
+     * Discards the write set and ends the transaction.
+     */
+    public void rollback(){
+        if (!this.active) return;
+        this.end();
+    }
+    private void end(){
+        this.active = false;
+        this.writes.clear();
+        this.locks.close();
+        versionStore.closeSnapshot(snapshot);
+    }
+    private void checkConflicts(){
+        for (Map.Entry<String, WriteSet> tableWrites : this.writes.entrySet()) {
+            String tableName = tableWrites.getKey();
+            WriteSet writeSet = tableWrites.getValue();
+            for (long rowId : writeSet.deleted) this.checkConflict(tableName, rowId);
+            for (long rowId : writeSet.updated.keySet()) this.checkConflict(tableName, rowId);
+        }
+    }
+    private void checkConflict(String tableName, long rowId){
+        if (versionStore.isChangedSince(tableName, rowId, snapshot))
+            throw new TransactionConflictException("Row "+rowId+" of table '"+tableName+"' was changed by a concurrent transaction.");
+    }
+    private void apply(){
+        for (Map.Entry<String, WriteSet> tableWrites : this.writes.entrySet()) {
+            Table table = database.getTable(tableWrites.getKey());
+            WriteSet writeSet = tableWrites.getValue();
+            for (long rowId : writeSet.deleted) {
+                if (!EntryManager.deleteRow(table, rowId)) throw this.vanished(table, rowId);
+            }
+            for (Map.Entry<Long, Entry> update : writeSet.updated.entrySet()) {
+                if (!EntryManager.updateRow(table, update.getKey(), update.getValue())) throw this.vanished(table, update.getKey());
+            }
+            for (Entry entry : writeSet.inserted.values()) {
+                EntryManager.insertRow(table, entry);
+            }
+        }
+    }
+    // A row can also disappear through a cascading delete applied earlier in the same commit
+    private TransactionConflictException vanished(Table table, long rowId){
+        return new TransactionConflictException("Row "+rowId+" of table '"+table.getName()+"' no longer exists.");
+    }
+    private void checkActive(){
+        if (!this.active) throw new DatabaseException("Snapshot transaction already ended.");
+    }
+
+    public boolean isActive() { return this.active; }
+    public long getSnapshot() { return this.snapshot; }
+}
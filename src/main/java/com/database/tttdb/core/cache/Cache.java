@@ -52,6 +52,8 @@ public class Cache {
 
     public void commit(){
         logger.info(name + ":\n == COMMIT START ==");
+        // Written first, so no row id in the pages below is allocated again after a restart
+        for (Table table : database.getAllTablesList()) table.persistNextRowId(fileIO);
         cache.entrySet().stream()
             .sorted(Map.Entry.comparingByKey())
             .forEach(entry -> {
@@ -89,9 +91,14 @@ public class Cache {
     }
 
     //== Writing Pages ==
+    /**
+     * Writes the page back to its file unless it is unchanged since it was read.
+     */
     protected void writePage(Map.Entry<PageKey, Page> eldest){
         Page page = eldest.getValue();
+        if (!page.isDirty()) return;
         fileIO.writePage(page.getFilePath(), page.toBytes(), page.getPagePos());
+        page.setDirty(false);
     }
 
     //== Loading Pages ==
@@ -101,6 +108,7 @@ public class Cache {
         TablePage newPage = new TablePage(pageID, table);
         if(table.getDeletedPagesSet().contains(pageKey)){
             table.getDeletedPagesSet().remove(pageKey);
+            newPage.setDirty(true);
             cache.put(pageKey, newPage);
             if(table.getDeletedPages() > 0)table.removeDeletedPage(pageKey);
             return newPage;
@@ -108,6 +116,7 @@ public class Cache {
         try {
             byte[] pageBuffer = fileIO.readPage(newPage.getFilePath(), newPage.getPagePos(),newPage.sizeInBytes());
             if(pageBuffer != null) newPage.fromBytes(pageBuffer);
+            else newPage.setDirty(true); // past the end of the file, must be written to extend it
             cache.put(pageKey, newPage);
             return newPage;
         } catch (InterruptedException e) {
@@ -126,6 +135,7 @@ public class Cache {
         IndexManager indexManager = table.getIndexManager();
         if(indexManager.getDeletedPagesSet(columnIndex).contains(pageKey)){
             indexManager.getDeletedPagesSet(columnIndex).remove(pageKey);
+            newPage.setDirty(true);
             cache.put(pageKey, newPage);
             if(indexManager.getDeletedPages(columnIndex) > 0)indexManager.removeOneDeleted(pageKey, columnIndex);
             return newPage;
@@ -133,6 +143,7 @@ public class Cache {
         try {
             byte[] pageBuffer = fileIO.readPage(newPage.getFilePath(), newPage.getPagePos(),newPage.sizeInBytes());
             if(pageBuffer != null) newPage.fromBytes(pageBuffer);
+            else newPage.setDirty(true); // past the end of the file, must be written to extend it
             cache.put(pageKey, newPage);
             return newPage;
         } catch (InterruptedException e) {
@@ -164,6 +175,21 @@ public class Cache {
         }
     }
 
+    //== Reading Pages ==
+    /**
+     * Returns the page for reading only. Unlike {@link #getTablePage(PageKey)} this never
+     * copies a page into a transaction cache, so the caller must not modify the page or its entries.
+     */
+    public synchronized TablePage readTablePage(PageKey pageKey) {
+        return this.getTablePage(pageKey);
+    }
+    /**
+     * Index counterpart of {@link #readTablePage(PageKey)}.
+     */
+    public synchronized IndexPage readIndexPage(PageKey pageKey) {
+        return this.getIndexPage(pageKey);
+    }
+
     //== Getting Lasts Pages ==
     public synchronized TablePage getLastTablePage(Table table){
         int lastPageId = table.getPages() - 1;
@@ -194,16 +220,9 @@ public class Cache {
     }
     private void truncateTable(Table table){
         if (table.getDeletedPages() == 0) return;
-        try {
-            fileIO.truncateFile(table.getPath(), table.getDeletedPages()*Page.pageSizeInBytes(TablePage.sizeOfEntry(table)));
-            table.clearDeletedPages();
-            table.getDeletedPagesSet().clear();
-        } catch (ExecutionException e) {
-            logger.log(Level.SEVERE, name+": ExecutionException while truncating file for removing "+table.getDeletedPages()+" last table pages.", e);
-        } catch (InterruptedException e) {
-            logger.log(Level.SEVERE, name+": InterruptedException while truncating file for removing "+table.getDeletedPages()+" last table pages.", e);
-            Thread.currentThread().interrupt();
-        }
+        fileIO.truncateFileTo(table.getPath(), (long)table.getPages()*Page.pageSizeInBytes(TablePage.sizeOfEntry(table)));
+        table.clearDeletedPages();
+        table.getDeletedPagesSet().clear();
     }
     public void deleteLastIndexPage(PageKey pageKey, Table table, IndexPage page) {
         this.cache.remove(pageKey);
@@ -218,15 +237,20 @@ public class Cache {
     private void truncateIndex(Table table, int columnIndex){
         IndexManager indexManager = table.getIndexManager();
         if (indexManager.getDeletedPages(columnIndex) == 0) return;
-        try {
-            fileIO.truncateFile(table.getIndexPath(columnIndex), indexManager.getDeletedPages(columnIndex)*Page.pageSizeInBytes(IndexPage.sizeOfEntry(table, columnIndex)));
-            indexManager.clearDeletedPages(columnIndex);
-            indexManager.getDeletedPagesSet(columnIndex).clear();
-        } catch (ExecutionException e) {
-            logger.log(Level.SEVERE, name+": ExecutionException while truncating file for removing "+indexManager.getDeletedPages(columnIndex)+" last index pages.", e);
-        } catch (InterruptedException e) {
-            logger.log(Level.SEVERE, name+": InterruptedException while truncating file for removing "+indexManager.getDeletedPages(columnIndex)+" last index page.", e);
-            Thread.currentThread().interrupt();
+        fileIO.truncateFileTo(table.getIndexPath(columnIndex), (long)indexManager.getPages(columnIndex)*Page.pageSizeInBytes(IndexPage.sizeOfEntry(table, columnIndex)));
+        indexManager.clearDeletedPages(columnIndex);
+        indexManager.getDeletedPagesSet(columnIndex).clear();
+    }
+    /**
+     * Truncates every table and index file to its current page count, dropping pages
+     * released since the last truncation. Only valid on the main cache, outside transactions.
+     */
+    public synchronized void truncateFiles(){
+        for (Table table : database.getAllTablesList()) {
+            truncateTable(table);
+            for (int i = 0; i < table.getSchema().getNumOfColumns(); i++) {
+                if (table.getIndexManager().isIndexed(i)) truncateIndex(table, i);
+            }
         }
     }
 
@@ -0,0 +1,50 @@
+package com.database.tttdb.core.cache;
+
+import java.util.BitSet;
+
+/**
+ * Tracks which pages of a table or index file have at least one empty slot.
+ * <p>
+ * Deletes leave tombstoned slots behind instead of compacting the file, so inserts
+ * consult the map to fill the lowest page with room before growing the file.
+ * One map is kept per {@link TableSnapshot} level and copied on
+ * {@code beginTransaction}, so a rollback restores it together with the page count.
+ */
+public class FreeSpaceMap {
+    private final BitSet pages;
+
+    public FreeSpaceMap() {
+        this.pages = new BitSet();
+    }
+    private FreeSpaceMap(BitSet pages) {
+        this.pages = pages;
+    }
+
+    /**
+     * Rebuilds the map from the entry count of every page, as read from the page headers.
+     */
+    public void load(short[] entryCounts, int capacity) {
+        this.pages.clear();
+        for (int i = 0; i < entryCounts.length; i++) {
+            if (entryCounts[i] < capacity) this.pages.set(i);
+        }
+    }
+
+    public void markFree(int pageID) { this.pages.set(pageID); }
+    public void markFull(int pageID) { this.pages.clear(pageID); }
+    public boolean isFree(int pageID) { return this.pages.get(pageID); }
+    /** Forgets every page from {@code pageID} on, used when the file tail is dropped. */
+    public void truncate(int pageID) { this.pages.clear(pageID, Math.max(pageID, this.pages.length())); }
+    public int freePages() { return this.pages.cardinality(); }
+
+    /**
+     * @param numOfPages current number of pages in the file
+     * @return the lowest page with an empty slot, or {@code -1} if every page is full
+     */
+    public int firstFree(int numOfPages) {
+        int pageID = this.pages.nextSetBit(0);
+        return (pageID >= 0 && pageID < numOfPages) ? pageID : -1;
+    }
+
+    public FreeSpaceMap copy() { return new FreeSpaceMap((BitSet) this.pages.clone()); }
+}
@@ -35,7 +35,10 @@ public class IndexSnapshot {
             this.snapshots.add(new Snapshot(new ArrayList<>()));
             return;
         }
-        this.snapshots.getLast().operations = new ArrayList<>(committed.operations);
+        // Nested commit: the enclosing transaction must be able to undo these operations too.
+        // Outermost commit: the operations are final and nothing can roll them back.
+        if(this.snapshots.size() == 1) this.snapshots.getLast().operations = new ArrayList<>();
+        else this.snapshots.getLast().operations.addAll(committed.operations);
     }
     @SuppressWarnings("unchecked")
     public <K extends Comparable<? super K>> void rollback(IndexInit<?>[] indexes){
@@ -48,6 +51,7 @@ public class IndexSnapshot {
                 IndexInit<K> index = (IndexInit<K>)indexes[j];
                 K key = (K)operation.keys[j];
                 PointerPair value = operation.values[j];
+                if(value == null) continue; // operation does not touch this index
                 switch (operation.operation) {
                     case INSERT -> {
                         index.remove(key, value);
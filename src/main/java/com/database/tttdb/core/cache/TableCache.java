@@ -21,6 +21,18 @@ public class TableCache {
         PageKey pageKey = PageKey.index(table.getName(), columnName, pageID);
         return database.getCache().getIndexPage(pageKey);
     }
+    /**
+     * Read-only access to a table page, see {@link Cache#readTablePage(PageKey)}.
+     */
+    public TablePage readTablePage(int pageID){
+        PageKey pageKey = PageKey.table(table.getName(), pageID);
+        return database.getCache().readTablePage(pageKey);
+    }
+    public IndexPage readIndexPage(int pageID, int columnIndex){
+        String columnName = table.getSchema().getNames()[columnIndex];
+        PageKey pageKey = PageKey.index(table.getName(), columnName, pageID);
+        return database.getCache().readIndexPage(pageKey);
+    }
 
     public void putTablePage(TablePage page){
         PageKey pageKey = PageKey.table(table.getName(), page.getPageID());
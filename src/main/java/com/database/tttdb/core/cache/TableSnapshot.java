@@ -9,14 +9,16 @@ public class TableSnapshot {
     private static class Snapshot {
         private Set<PageKey> deletedPageID;
         private int numOfPages;
-        private Snapshot(Set<PageKey> deletedPageID, int numOfPages){
+        private FreeSpaceMap freeSpace;
+        private Snapshot(Set<PageKey> deletedPageID, int numOfPages, FreeSpaceMap freeSpace){
             this.deletedPageID = deletedPageID;
             this.numOfPages = numOfPages;
+            this.freeSpace = freeSpace;
         }
     }
     private final List<Snapshot> snapshots = new ArrayList<>();
     public TableSnapshot(){
-        this.snapshots.add(new Snapshot(new HashSet<>(), 0));
+        this.snapshots.add(new Snapshot(new HashSet<>(), 0, new FreeSpaceMap()));
     }
     public void setNumOfPages(int numOfPages){
         this.snapshots.getLast().numOfPages = numOfPages;
@@ -25,12 +27,19 @@ public class TableSnapshot {
         return this.snapshots.getLast().numOfPages;
     }
     public void addOnePage(){
-        this.snapshots.getLast().numOfPages++;
+        Snapshot last = this.snapshots.getLast();
+        last.freeSpace.markFree(last.numOfPages);
+        last.numOfPages++;
     }
     public void removeOnePage(){
-        if(this.snapshots.getLast().numOfPages == 0)
+        Snapshot last = this.snapshots.getLast();
+        if(last.numOfPages == 0)
             throw new IllegalArgumentException("Can not remove one page. NumOfPages is already 0");
-        this.snapshots.getLast().numOfPages--;
+        last.numOfPages--;
+        last.freeSpace.truncate(last.numOfPages);
+    }
+    public FreeSpaceMap getFreeSpaceMap(){
+        return this.snapshots.getLast().freeSpace;
     }
     public Set<PageKey> getDeletedPageIDSet() { 
         return this.snapshots.getLast().deletedPageID;
@@ -49,19 +58,20 @@ public class TableSnapshot {
     }
     public void beginTransaction(){
         Snapshot last = this.snapshots.getLast();
-        this.snapshots.add(new Snapshot(new HashSet<>(last.deletedPageID), last.numOfPages));
+        this.snapshots.add(new Snapshot(new HashSet<>(last.deletedPageID), last.numOfPages, last.freeSpace.copy()));
     }
     public void commit(){
         Snapshot committed = this.snapshots.removeLast();
         if(this.snapshots.isEmpty()){
-            this.snapshots.add(new Snapshot(new HashSet<>(), 0));
+            this.snapshots.add(new Snapshot(new HashSet<>(), 0, new FreeSpaceMap()));
             return;
         } 
         this.snapshots.getLast().deletedPageID = committed.deletedPageID;
         this.snapshots.getLast().numOfPages = committed.numOfPages;
+        this.snapshots.getLast().freeSpace = committed.freeSpace;
     }
     public void rollback(){
         this.snapshots.removeLast();
-        if(this.snapshots.isEmpty()) this.snapshots.add(new Snapshot(new HashSet<>(),0));
+        if(this.snapshots.isEmpty()) this.snapshots.add(new Snapshot(new HashSet<>(), 0, new FreeSpaceMap()));
     }
 }
\ No newline at end of file
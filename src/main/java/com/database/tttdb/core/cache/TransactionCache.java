@@ -33,18 +33,20 @@ public class TransactionCache extends Cache{
                 parent.put(entry.getKey(), entry.getValue());
             });
 
+        // Pages released in this transaction may still have a stale copy in the parent cache
+        for (Table table : database.getAllTablesList()) {
+            table.getDeletedPagesSet().forEach(parent::remove);
+            for (int i = 0; i < table.getSchema().getNumOfColumns(); i++) {
+                if (table.getIndexManager().isIndexed(i)) table.getIndexManager().getDeletedPagesSet(i).forEach(parent::remove);
+            }
+        }
+
         // Clear this transaction's cache
         cache.clear();
         logger.info(name + ": Transaction cache cleared.");
 
-        // If the parent is another transaction cache, do not commit tables yet
-        if (parent instanceof TransactionCache) {
-            logger.info(name + ": Parent cache is not Main Cache, skipping table/index commit.\n"+
-                                " == TRANSACTION COMMIT END ==");
-            return;
-        }
-
-        // Commit all tables and their indexes to the database
+        // Merge this transaction's table/index state into the enclosing level,
+        // which is the parent transaction or, for the outermost one, the database
         for (Table table : database.getAllTablesList()) {
             logger.info(name + ": Committing table: " + table.getName());
             table.commit();
@@ -58,30 +60,36 @@ public class TransactionCache extends Cache{
     protected void writePage(Map.Entry<PageKey, Page> eldest){
         throw new UnsupportedOperationException("Can not use writeCache in transaction cache: Transaction "+name);
     }
+    /**
+     * Pages are shared with the parent cache through copy-on-write copies, so a transaction
+     * only copies the slot array of pages it modifies and never copies entries. Rolling back
+     * drops the copies and leaves the parent's pages untouched.
+     */
     @Override
     protected TablePage loadTablePage(PageKey pageKey){
-        TablePage result = parent.getTablePage(pageKey);
-        if(result.isDirty()) {
-            result = result.deepCopy();
-            this.cache.put(pageKey, result);
-            return result;
-        }
-        parent.remove(pageKey);
+        TablePage result = parent.getTablePage(pageKey).copy();
         this.cache.put(pageKey, result);
         return result;
     }
     @Override
     protected IndexPage loadIndexPage(PageKey pageKey){
-        IndexPage result = parent.getIndexPage(pageKey);
-        if(result.isDirty()) {
-            result = result.deepCopy();
-            this.cache.put(pageKey, result);
-            return result;
-        }
-        parent.remove(pageKey);
+        IndexPage result = parent.getIndexPage(pageKey).copy();
         this.cache.put(pageKey, result);
         return result;
     }
+    /**
+     * Reads through to the closest level holding the page, without copying it into this transaction.
+     */
+    @Override
+    public synchronized TablePage readTablePage(PageKey pageKey){
+        TablePage page = (TablePage)this.cache.get(pageKey);
+        return page != null ? page : parent.readTablePage(pageKey);
+    }
+    @Override
+    public synchronized IndexPage readIndexPage(PageKey pageKey){
+        IndexPage page = (IndexPage)this.cache.get(pageKey);
+        return page != null ? page : parent.readIndexPage(pageKey);
+    }
     public String getName() { return this.name; }
     public Cache getParent() { return this.parent; }
 }
\ No newline at end of file
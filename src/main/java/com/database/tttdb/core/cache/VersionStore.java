@@ -0,0 +1,162 @@
+package com.database.tttdb.core.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.database.tttdb.core.page.Entry;
+
+/**
+ * Keeps the before-images of rows changed since the oldest open snapshot, so that
+ * snapshot transactions can read rows as they were when they started.
+ * <p>
+ * Tables always hold the newest committed version of a row. Every committed change to a
+ * row pushes its before-image, tagged with the commit timestamp, onto the row's version
+ * chain; a row absent from the chain has not changed since any open snapshot began.
+ * Changes made inside an open transaction are already applied to the pages and indexes
+ * snapshots read, so they are kept per transaction level, whether a snapshot is open or not,
+ * until the outermost commit publishes them with a new timestamp, or a rollback discards them.
+ *
+ * <p>Invariants:</p>
+ * <ul>
+ *   <li>The version of a row visible to snapshot {@code s} is the before-image of the oldest
+ *       change committed after {@code s}, else of the oldest uncommitted change, else the table's.</li>
+ *   <li>A {@code null} before-image means the row did not exist, i.e. it was inserted.</li>
+ *   <li>Committed changes are only recorded while a snapshot is open; chain records no open
+ *       snapshot can see past are dropped.</li>
+ *   <li>Every change of an open transaction is recorded, so a snapshot opened before its
+ *       outermost commit reads the rows it changed as they were committed.</li>
+ * </ul>
+ * All methods are synchronized; callers additionally hold the database lock while a change is
+ * applied to the tables, so a snapshot never observes a half-applied commit.
+ */
+public class VersionStore {
+    private record Version(long commitTs, Entry before, Version older) {}
+    private record RowKey(String table, long rowId) {}
+
+    private final Map<String, Map<Long, Version>> chains = new HashMap<>();
+    // Oldest before-image of every row changed at each open transaction level
+    private final List<Map<RowKey, Entry>> pending = new ArrayList<>();
+    // Start timestamps of open snapshots, with the number of snapshots sharing each
+    private final TreeMap<Long, Integer> snapshots = new TreeMap<>();
+    private long lastCommit = 0;
+
+    // == Snapshots ==
+    /**
+     * Opens a snapshot of the latest committed state.
+     * @return the snapshot's start timestamp
+     */
+    public synchronized long openSnapshot(){
+        this.snapshots.merge(this.lastCommit, 1, Integer::sum);
+        return this.lastCommit;
+    }
+    public synchronized void closeSnapshot(long snapshot){
+        this.snapshots.computeIfPresent(snapshot, (ts, count) -> count == 1 ? null : count - 1);
+        this.prune();
+    }
+    public synchronized boolean hasOpenSnapshots(){ return !this.snapshots.isEmpty(); }
+    public synchronized long getLastCommit(){ return this.lastCommit; }
+
+    // == Recording changes ==
+    /**
+     * Records that a row is about to change. Outside a transaction the change is committed at once.
+     *
+     * @param table name of the row's table
+     * @param rowId row id of the changed row
+     * @param before the row before the change, {@code null} for an insert
+     */
+    public synchronized void record(String table, long rowId, Entry before){
+        RowKey key = new RowKey(table, rowId);
+        if (!this.pending.isEmpty()) {
+            this.pending.getLast().putIfAbsent(key, before == null ? NO_ROW : before);
+            return;
+        }
+        if (!this.snapshots.isEmpty()) this.publish(Map.of(key, before == null ? NO_ROW : before));
+    }
+    public synchronized void beginTransaction(){
+        this.pending.add(new LinkedHashMap<>());
+    }
+    public synchronized void commit(){
+        if (this.pending.isEmpty()) return;
+        Map<RowKey, Entry> committed = this.pending.removeLast();
+        if (this.pending.isEmpty()) this.publish(committed);
+        else committed.forEach(this.pending.getLast()::putIfAbsent);
+    }
+    public synchronized void rollback(){
+        if (!this.pending.isEmpty()) this.pending.removeLast();
+    }
+    private void publish(Map<RowKey, Entry> changes){
+        this.lastCommit++;
+        if (this.snapshots.isEmpty()) return;
+        for (Map.Entry<RowKey, Entry> change : changes.entrySet()) {
+            Map<Long, Version> table = this.chains.computeIfAbsent(change.getKey().table(), t -> new HashMap<>());
+            Entry before = change.getValue() == NO_ROW ? null : change.getValue();
+            table.merge(change.getKey().rowId(), new Version(this.lastCommit, before, null),
+                (older, newer) -> new Version(newer.commitTs(), newer.before(), older));
+        }
+    }
+    // Marks an insert in maps that do not accept null values
+    private static final Entry NO_ROW = new Entry(new Object[0], 0);
+
+    // == Reading versions ==
+    /**
+     * Returns every row of {@code table} that changed after {@code snapshot}, committed or not,
+     * mapped to the version the snapshot sees, {@code null} if the row did not exist for it.
+     */
+    public synchronized Map<Long, Entry> changedSince(String table, long snapshot){
+        Map<Long, Entry> result = new HashMap<>();
+        for (int level = this.pending.size() - 1; level >= 0; level--) {
+            for (Map.Entry<RowKey, Entry> change : this.pending.get(level).entrySet()) {
+                if (!change.getKey().table().equals(table)) continue;
+                Entry before = change.getValue();
+                result.put(change.getKey().rowId(), before == NO_ROW ? null : before);
+            }
+        }
+        Map<Long, Version> rows = this.chains.get(table);
+        if (rows == null) return result;
+        for (Map.Entry<Long, Version> row : rows.entrySet()) {
+            Version visible = null;
+            for (Version version = row.getValue(); version != null && version.commitTs() > snapshot; version = version.older()) {
+                visible = version;
+            }
+            if (visible != null) result.put(row.getKey(), visible.before());
+        }
+        return result;
+    }
+    /**
+     * @return {@code true} if the row was changed by a commit after {@code snapshot} or by an open transaction
+     */
+    public synchronized boolean isChangedSince(String table, long rowId, long snapshot){
+        RowKey key = new RowKey(table, rowId);
+        for (Map<RowKey, Entry> level : this.pending) {
+            if (level.containsKey(key)) return true;
+        }
+        Map<Long, Version> rows = this.chains.get(table);
+        Version newest = rows == null ? null : rows.get(rowId);
+        return newest != null && newest.commitTs() > snapshot;
+    }
+    public synchronized void dropTable(String table){
+        this.chains.remove(table);
+    }
+
+    private void prune(){
+        if (this.snapshots.isEmpty()) {
+            this.chains.clear();
+            return;
+        }
+        long oldest = this.snapshots.firstKey();
+        for (Map<Long, Version> rows : this.chains.values()) {
+            rows.replaceAll((rowId, newest) -> trim(newest, oldest));
+            rows.values().removeIf(version -> version == null);
+        }
+        this.chains.values().removeIf(Map::isEmpty);
+    }
+    // Drops the versions no snapshot newer than or at oldest can see
+    private static Version trim(Version version, long oldest){
+        if (version == null || version.commitTs() <= oldest) return null;
+        return new Version(version.commitTs(), version.before(), trim(version.older(), oldest));
+    }
+}
@@ -0,0 +1,169 @@
+package com.database.tttdb.core.execution;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.database.tttdb.api.Query.Aggregate;
+import com.database.tttdb.api.Query.AggregateFunction;
+import com.database.tttdb.core.page.Entry;
+import com.database.tttdb.core.table.DataType;
+import com.database.tttdb.core.table.TableSchema;
+
+/**
+ * Computes aggregates over the entries of a table, grouped by the values of some of their
+ * columns. Each group keeps one accumulator per aggregate in a hash map keyed by the grouped
+ * values, so the entries are read once, in any order, and only the groups are retained.
+ *
+ * <p>Groups come out in the order their first entry was added. Without grouped columns every
+ * entry belongs to one group, which is produced even when no entry was added.</p>
+ */
+public class HashAggregate {
+    private static final Set<DataType> INTEGRAL = Set.of(DataType.SHORT, DataType.INT, DataType.LONG);
+    private static final Set<DataType> NUMERIC = Set.of(DataType.SHORT, DataType.INT, DataType.LONG, DataType.FLOAT, DataType.DOUBLE);
+
+    private final int[] groupColumns;
+    private final List<Aggregate> aggregates;
+    private final int[] columns;            // column read by each aggregate, -1 for COUNT(*)
+    private final boolean[] integral;       // whether each aggregate adds its values as longs
+    private final Map<List<Object>, Accumulator[]> groups = new LinkedHashMap<>();
+
+    /**
+     * @param schema schema of the aggregated entries
+     * @param groupBy names of the grouped columns, empty for a single group
+     * @param aggregates aggregates computed for every group
+     * @throws IllegalArgumentException if a column does not exist, {@code SUM} or {@code AVG}
+     *         reads a non-numeric column, or {@code MIN} or {@code MAX} a column without ordering
+     */
+    public HashAggregate(TableSchema schema, String[] groupBy, List<Aggregate> aggregates) {
+        this.groupColumns = new int[groupBy.length];
+        for (int i = 0; i < groupBy.length; i++) this.groupColumns[i] = columnIndex(schema, groupBy[i]);
+        this.aggregates = aggregates;
+        this.columns = new int[aggregates.size()];
+        this.integral = new boolean[aggregates.size()];
+        for (int i = 0; i < aggregates.size(); i++) {
+            Aggregate aggregate = aggregates.get(i);
+            if (aggregate.column() == null) {
+                if (aggregate.function() != AggregateFunction.COUNT) throw new IllegalArgumentException("Aggregate " + aggregate.name() + " needs a column");
+                this.columns[i] = -1;
+                continue;
+            }
+            this.columns[i] = columnIndex(schema, aggregate.column());
+            DataType type = schema.getTypes()[this.columns[i]];
+            boolean valid = switch (aggregate.function()) {
+                case COUNT -> true;
+                case SUM, AVG -> NUMERIC.contains(type);
+                case MIN, MAX -> Comparable.class.isAssignableFrom(type.getJavaClass());
+            };
+            if (!valid) throw new IllegalArgumentException("Aggregate " + aggregate.name() + " does not apply to column of type " + type);
+            this.integral[i] = INTEGRAL.contains(type);
+        }
+    }
+
+    /**
+     * Adds every entry an operator produces, see {@link #add(Object[])}.
+     *
+     * @param source operator to drain
+     * @return this aggregate
+     */
+    public HashAggregate addAll(Operator source) {
+        for (Entry entry; (entry = source.next()) != null; ) this.add(entry.getValues());
+        return this;
+    }
+
+    /**
+     * Adds the values of one entry to the accumulators of its group.
+     *
+     * @param values values of the entry, in schema order
+     */
+    public void add(Object[] values) {
+        List<Object> key;
+        if (groupColumns.length == 0) key = List.of();
+        else {
+            Object[] grouped = new Object[groupColumns.length];
+            for (int i = 0; i < groupColumns.length; i++) grouped[i] = values[groupColumns[i]];
+            key = Arrays.asList(grouped);
+        }
+        Accumulator[] accumulators = groups.computeIfAbsent(key, k -> this.newAccumulators());
+        // COUNT(*) counts every entry, whatever its values
+        for (int i = 0; i < accumulators.length; i++) accumulators[i].add(columns[i] < 0 ? values : values[columns[i]]);
+    }
+
+    /**
+     * @return one row per group: the grouped values in the order of the grouped columns,
+     *         then the result of each aggregate
+     */
+    public List<Object[]> rows() {
+        Map<List<Object>, Accumulator[]> result = groups;
+        if (result.isEmpty() && groupColumns.length == 0) {
+            result = new HashMap<>();
+            result.put(List.of(), this.newAccumulators());
+        }
+        List<Object[]> rows = new ArrayList<>(result.size());
+        for (Map.Entry<List<Object>, Accumulator[]> group : result.entrySet()) {
+            Object[] row = new Object[groupColumns.length + aggregates.size()];
+            for (int i = 0; i < groupColumns.length; i++) row[i] = group.getKey().get(i);
+            Accumulator[] accumulators = group.getValue();
+            for (int i = 0; i < accumulators.length; i++) row[groupColumns.length + i] = accumulators[i].result();
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /** @return column read by each aggregate, in the order they were given, -1 for {@code COUNT(*)} */
+    public int[] getColumns() { return this.columns.clone(); }
+
+    private Accumulator[] newAccumulators() {
+        Accumulator[] accumulators = new Accumulator[aggregates.size()];
+        for (int i = 0; i < accumulators.length; i++) accumulators[i] = new Accumulator(aggregates.get(i).function(), integral[i]);
+        return accumulators;
+    }
+    private static int columnIndex(TableSchema schema, String column) {
+        int columnIndex = schema.getColumnIndex(column);
+        if (columnIndex < 0) throw new IllegalArgumentException("Unknown column " + column);
+        return columnIndex;
+    }
+
+    // Running result of one aggregate over the non-null values of a group
+    private static final class Accumulator {
+        private final AggregateFunction function;
+        private final boolean integral;
+        private long count;
+        private long longSum;
+        private double doubleSum;
+        private Comparable<Object> extreme;
+
+        private Accumulator(AggregateFunction function, boolean integral) {
+            this.function = function;
+            this.integral = integral;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void add(Object value) {
+            if (value == null) return;
+            count++;
+            switch (function) {
+                case SUM, AVG -> {
+                    if (integral) longSum = Math.addExact(longSum, ((Number) value).longValue());
+                    else doubleSum += ((Number) value).doubleValue();
+                }
+                case MIN -> { if (extreme == null || extreme.compareTo(value) > 0) extreme = (Comparable<Object>) value; }
+                case MAX -> { if (extreme == null || extreme.compareTo(value) < 0) extreme = (Comparable<Object>) value; }
+                case COUNT -> {}
+            }
+        }
+
+        private Object result() {
+            return switch (function) {
+                case COUNT -> count;
+                case SUM -> count == 0 ? null : integral ? (Object) longSum : (Object) doubleSum;
+                case AVG -> count == 0 ? null : (integral ? (double) longSum : doubleSum) / count;
+                case MIN, MAX -> extreme;
+            };
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.database.tttdb.core.execution;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+
+import com.database.tttdb.core.index.IndexInit.BlockPointer;
+import com.database.tttdb.core.manager.IndexManager.IndexRecord;
+import com.database.tttdb.core.page.Entry;
+import com.database.tttdb.core.table.Table;
+
+/**
+ * Produces the entries of index records, in record order. Rows are located by row id in
+ * batches of {@value #BATCH}, each batch under the database read lock; rows deleted since the
+ * records were found are skipped.
+ */
+public class IndexLookup implements Operator {
+    static final int BATCH = 64;
+
+    private final Table table;
+    private final Iterator<? extends IndexRecord<?>> records;
+    private final ArrayDeque<Entry> buffer = new ArrayDeque<>();
+
+    /**
+     * @param table table the records point into
+     * @param records rows to produce
+     */
+    public IndexLookup(Table table, List<? extends IndexRecord<?>> records) {
+        this.table = table;
+        this.records = records.iterator();
+    }
+
+    @Override
+    public Entry next() {
+        while (buffer.isEmpty() && records.hasNext()) {
+            table.getDatabase().readLocked(() -> {
+                for (int i = 0; i < BATCH && records.hasNext(); i++) {
+                    BlockPointer pointer = table.locate(records.next().value().rowId());
+                    if (pointer != null) buffer.add(table.getCache().readTablePage(pointer.BlockID()).get(pointer.RowOffset()));
+                }
+                return null;
+            });
+        }
+        return buffer.poll();
+    }
+}
@@ -0,0 +1,40 @@
+package com.database.tttdb.core.execution;
+
+import com.database.tttdb.core.page.Entry;
+
+/**
+ * Skips the first {@code begin} entries of its input and stops after {@code limit} more,
+ * without pulling further entries from the input. The input is closed once the limit is
+ * reached.
+ */
+public class Limit implements Operator {
+    private final Operator input;
+    private int skip;
+    private long remaining;
+
+    /**
+     * @param input operator producing the entries
+     * @param begin number of entries to skip
+     * @param limit maximum number of entries to produce, negative for no limit
+     */
+    public Limit(Operator input, int begin, int limit) {
+        this.input = input;
+        this.skip = begin;
+        this.remaining = limit < 0 ? Long.MAX_VALUE : limit;
+    }
+
+    @Override
+    public Entry next() {
+        if (remaining == 0) return null;
+        for (; skip > 0; skip--)
+            if (input.next() == null) return null;
+        Entry entry = input.next();
+        if (entry != null) remaining--;
+        else remaining = 0;
+        if (remaining == 0) input.close();
+        return entry;
+    }
+
+    @Override
+    public void close() { input.close(); }
+}
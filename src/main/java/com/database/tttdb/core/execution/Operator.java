@@ -0,0 +1,60 @@
+package com.database.tttdb.core.execution;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.database.tttdb.core.page.Entry;
+
+/**
+ * One step of a pull-based (Volcano) query pipeline. Each call to {@link #next()} produces one
+ * entry, pulling from the operators below only what it needs, so a consumer that stops early
+ * leaves the remaining pages unread.
+ *
+ * <p>Entries may be shared with table pages and must not be modified. A consumer that stops
+ * before the operator is exhausted closes it to release what the operators below hold.</p>
+ */
+public interface Operator extends AutoCloseable {
+    /**
+     * @return the next entry, or {@code null} once the operator is exhausted
+     */
+    Entry next();
+
+    /**
+     * Releases the resources held by this operator and the operators below it. Closing an
+     * operator more than once has no effect.
+     */
+    @Override
+    default void close() {}
+
+    /**
+     * @return the remaining entries of this operator, produced lazily
+     */
+    default Iterator<Entry> iterator() {
+        return new Iterator<>() {
+            private Entry next;
+            @Override
+            public boolean hasNext() {
+                if (next == null) next = Operator.this.next();
+                return next != null;
+            }
+            @Override
+            public Entry next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                Entry current = next;
+                next = null;
+                return current;
+            }
+        };
+    }
+
+    /**
+     * @return the remaining entries of this operator as a sequential, lazily evaluated stream
+     */
+    default Stream<Entry> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+}
@@ -0,0 +1,111 @@
+package com.database.tttdb.core.execution;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import com.database.tttdb.api.Condition;
+import com.database.tttdb.api.Condition.Clause;
+import com.database.tttdb.api.Condition.WhereClause;
+import com.database.tttdb.core.index.Cursor;
+import com.database.tttdb.core.index.IndexInit;
+import com.database.tttdb.core.index.IndexInit.BlockPointer;
+import com.database.tttdb.core.index.IndexInit.PointerPair;
+import com.database.tttdb.core.index.Pair;
+import com.database.tttdb.core.manager.SequentialOperations;
+import com.database.tttdb.core.page.Entry;
+import com.database.tttdb.core.table.Table;
+
+/**
+ * Produces the entries of a table in the key order of an ordered index, forward or reverse,
+ * keeping those matching a WHERE clause. Null keys come first in forward order, as they do in
+ * every ordered index.
+ *
+ * <p>The index is read through a {@link Cursor}, one batch of pairs at a time under the database
+ * read lock, and the rows of a batch are read by row id before the lock is released, so a limit
+ * above the scan stops it after reading about as many keys as it produced. A write between two batches
+ * invalidates the cursor: the next batch seeks back to the last key produced and skips the rows
+ * of that key it already produced.</p>
+ */
+public class OrderedIndexScan implements Operator {
+    private final Table table;
+    private final IndexInit<?> index;
+    private final List<Map.Entry<Clause, Condition<WhereClause>>> clauses;
+    private final Object from, to;
+    private final boolean fromInclusive, toInclusive;
+    private final boolean descending;
+    private final ArrayDeque<Entry> buffer = new ArrayDeque<>();
+    private Cursor<?, PointerPair> cursor;
+    private long modifications;
+    private boolean started, exhausted;
+    private Object lastKey;
+    private final Set<Long> lastRows = new HashSet<>(); // rows of lastKey already produced
+
+    /**
+     * @param table table the index belongs to
+     * @param index ordered single-column index, see {@link IndexInit#isOrdered()}
+     * @param from lowest key to read, {@code null} for no lower bound
+     * @param fromInclusive whether rows of {@code from} are read; with a {@code null}
+     *        {@code from}, whether rows with a {@code null} key are
+     * @param to highest key to read, {@code null} for no upper bound
+     * @param toInclusive whether rows of {@code to} are read
+     * @param descending whether to produce the greatest keys first
+     * @param clauses conditions of the WHERE clause, see
+     *        {@link SequentialOperations#matches(com.database.tttdb.core.table.TableSchema, List, Object[])},
+     *        {@code null} or empty to produce every entry
+     */
+    public OrderedIndexScan(Table table, IndexInit<?> index, Object from, boolean fromInclusive, Object to, boolean toInclusive,
+                            boolean descending, List<Map.Entry<Clause, Condition<WhereClause>>> clauses) {
+        this.table = table;
+        this.index = index;
+        this.clauses = clauses == null ? List.of() : clauses;
+        this.from = from;
+        this.fromInclusive = fromInclusive;
+        this.to = to;
+        this.toInclusive = toInclusive;
+        this.descending = descending;
+    }
+
+    @Override
+    public Entry next() {
+        while (buffer.isEmpty() && !exhausted) table.getDatabase().readLocked(this::readBatch);
+        return buffer.poll();
+    }
+
+    // Reads the next pairs of the index and the matching rows they point to
+    private Void readBatch() {
+        if (cursor == null || modifications != table.getIndexManager().getModifications()) this.reopen();
+        for (int i = 0; i < IndexLookup.BATCH; i++) {
+            Pair<?, PointerPair> pair = descending ? cursor.prev() : cursor.next();
+            if (pair == null) {
+                exhausted = true;
+                break;
+            }
+            long rowId = pair.value.rowId();
+            if (!started || !Objects.equals(pair.key, lastKey)) {
+                lastKey = pair.key;
+                lastRows.clear();
+            }
+            if (!lastRows.add(rowId)) continue; // produced before the cursor was reopened
+            started = true;
+            BlockPointer pointer = table.locate(rowId);
+            if (pointer == null) continue;
+            Entry entry = table.getCache().readTablePage(pointer.BlockID()).get(pointer.RowOffset());
+            if (SequentialOperations.matches(table.getSchema(), clauses, entry.getValues())) buffer.add(entry);
+        }
+        return null;
+    }
+
+    // Opens a cursor on the current index and moves it back to where the scan stopped
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void reopen() {
+        Cursor reopened = ((IndexInit) index).cursor((Comparable) from, fromInclusive, (Comparable) to, toInclusive);
+        if (started) reopened.seek((Comparable) lastKey, !descending);
+        else if (descending) reopened.last();
+        cursor = reopened;
+        modifications = table.getIndexManager().getModifications();
+    }
+}
@@ -0,0 +1,173 @@
+package com.database.tttdb.core.execution;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import com.database.tttdb.api.DatabaseException;
+import com.database.tttdb.core.page.Entry;
+import com.database.tttdb.core.page.TablePage;
+import com.database.tttdb.core.table.Table;
+
+/**
+ * Orders the entries of its input. The input is drained on the first pull, so the operators
+ * above a sort only start once every entry has been read.
+ *
+ * <p>Up to {@code runSize} entries are sorted in memory. Larger inputs are sorted as an
+ * external merge sort: every full run of entries is sorted and written to a temporary file
+ * next to the table file, then the runs are merged while the output is pulled, holding one
+ * entry per run in memory. Each file is deleted once its run is merged, or when the sort is
+ * closed before.</p>
+ *
+ * <p>Merging does not keep the input order of equal entries across runs, so the comparator
+ * should be total for the output not to depend on {@code runSize}.</p>
+ */
+public class Sort implements Operator {
+    /** Entries sorted in memory before spilling a run, see {@link #Sort(Operator, Comparator, Table, int)}. */
+    public static final int RUN_SIZE = 100_000;
+
+    private final Operator input;
+    private final Comparator<Entry> comparator;
+    private final Table table;
+    private final int runSize;
+    private PriorityQueue<Run> runs;
+    private final List<SpilledRun> spilled = new ArrayList<>();
+    private boolean closed;
+
+    public Sort(Operator input, Comparator<Entry> comparator, Table table) {
+        this(input, comparator, table, RUN_SIZE);
+    }
+    /**
+     * @param input operator producing the entries
+     * @param comparator order of the output
+     * @param table table the entries belong to, used to write and read spilled runs
+     * @param runSize maximum number of entries held in memory while reading the input
+     */
+    public Sort(Operator input, Comparator<Entry> comparator, Table table, int runSize) {
+        this.input = input;
+        this.comparator = comparator;
+        this.table = table;
+        this.runSize = runSize;
+    }
+
+    @Override
+    public Entry next() {
+        if (closed) return null;
+        try {
+            if (runs == null) {
+                runs = new PriorityQueue<>((a, b) -> comparator.compare(a.head, b.head));
+                List<Entry> buffer = new ArrayList<>();
+                for (Entry entry = input.next(); entry != null; entry = input.next()) {
+                    buffer.add(entry);
+                    if (buffer.size() < runSize) continue;
+                    buffer.sort(comparator);
+                    add(new Run(spill(buffer)));
+                    buffer = new ArrayList<>();
+                }
+                buffer.sort(comparator);
+                add(new Run(buffer.iterator()));
+            }
+            Run run = runs.poll();
+            if (run == null) return null;
+            Entry entry = run.head;
+            add(run);
+            return entry;
+        } catch (RuntimeException e) {
+            this.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes the input, then closes and deletes the spilled runs not merged yet.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        input.close();
+        DatabaseException failure = null;
+        for (SpilledRun run : spilled) {
+            try {
+                run.delete();
+            } catch (IOException e) {
+                if (failure == null) failure = new DatabaseException("Failed to delete sort run " + run.file, e);
+            }
+        }
+        spilled.clear();
+        if (failure != null) throw failure;
+    }
+    // Queues the run with its next entry, dropping it once exhausted
+    private void add(Run run) {
+        run.head = run.entries.hasNext() ? run.entries.next() : null;
+        if (run.head != null) runs.add(run);
+    }
+
+    private Iterator<Entry> spill(List<Entry> entries) {
+        try {
+            Path file = Files.createTempFile(Path.of(table.getPath()).toAbsolutePath().getParent(), table.getName() + "-sort", ".run");
+            SpilledRun run = new SpilledRun(file, entries.size());
+            spilled.add(run);
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                for (Entry entry : entries) out.write(entry.toBytes(table));
+            }
+            run.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+            return run;
+        } catch (IOException e) {
+            throw new DatabaseException("Failed to spill sort run of table " + table.getName(), e);
+        }
+    }
+
+    // Entries of a run file, deleted once the last one is read
+    private final class SpilledRun implements Iterator<Entry> {
+        private final Path file;
+        private final int size = TablePage.sizeOfEntry(table);
+        private DataInputStream in;
+        private int remaining;
+
+        private SpilledRun(Path file, int remaining) {
+            this.file = file;
+            this.remaining = remaining;
+        }
+        @Override
+        public boolean hasNext() { return remaining > 0; }
+        @Override
+        public Entry next() {
+            byte[] bytes = new byte[size];
+            try {
+                in.readFully(bytes);
+                if (--remaining == 0) {
+                    this.delete();
+                    spilled.remove(this);
+                }
+            } catch (IOException e) {
+                throw new DatabaseException("Failed to read sort run " + file, e);
+            }
+            return Entry.fromBytes(ByteBuffer.wrap(bytes), table);
+        }
+        private void delete() throws IOException {
+            remaining = 0;
+            try {
+                if (in != null) in.close();
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static final class Run {
+        private final Iterator<Entry> entries;
+        private Entry head;
+        private Run(Iterator<Entry> entries) { this.entries = entries; }
+    }
+}
@@ -0,0 +1,73 @@
+package com.database.tttdb.core.execution;
+
+import java.lang.ref.Cleaner;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+
+import com.database.tttdb.api.Condition;
+import com.database.tttdb.api.Condition.Clause;
+import com.database.tttdb.api.Condition.WhereClause;
+import com.database.tttdb.core.Database;
+import com.database.tttdb.core.manager.SequentialOperations;
+import com.database.tttdb.core.page.Entry;
+import com.database.tttdb.core.page.TablePage;
+import com.database.tttdb.core.table.Table;
+
+/**
+ * Reads the table pages in storage order, one page per pull, and produces the entries
+ * matching a WHERE clause. Each page is read under the database read lock, which is released
+ * between pages.
+ *
+ * <p>The scan is registered with the database from its creation until it is exhausted or
+ * closed, so the {@link com.database.tttdb.core.Compactor} does not move rows from pages
+ * it has not read yet into pages it already read. A scan dropped without being closed is
+ * unregistered once it is garbage collected.</p>
+ */
+public class TableScan implements Operator {
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final Table table;
+    private final List<Map.Entry<Clause, Condition<WhereClause>>> clauses;
+    private final ArrayDeque<Entry> buffer = new ArrayDeque<>();
+    private final Cleaner.Cleanable registration;
+    private int pageID;
+
+    /**
+     * @param table table to scan
+     * @param clauses conditions of the WHERE clause, see
+     *        {@link SequentialOperations#matches(com.database.tttdb.core.table.TableSchema, List, Object[])},
+     *        {@code null} or empty to produce every entry
+     */
+    public TableScan(Table table, List<Map.Entry<Clause, Condition<WhereClause>>> clauses) {
+        this.table = table;
+        this.clauses = clauses == null ? List.of() : clauses;
+        Database database = table.getDatabase();
+        Object token = database.openScan();
+        // The action only captures the database and the token, so the scan can still become unreachable
+        this.registration = CLEANER.register(this, () -> database.closeScan(token));
+    }
+
+    @Override
+    public Entry next() {
+        while (buffer.isEmpty()) {
+            boolean read = table.getDatabase().readLocked(() -> {
+                if (pageID >= table.getPages()) return false;
+                TablePage page = table.getCache().readTablePage(pageID++);
+                for (int row = 0; row < page.slotCount(); row++) {
+                    Entry entry = page.get(row);
+                    if (entry != null && SequentialOperations.matches(table.getSchema(), clauses, entry.getValues())) buffer.add(entry);
+                }
+                return true;
+            });
+            if (!read) {
+                this.close();
+                return null;
+            }
+        }
+        return buffer.poll();
+    }
+
+    @Override
+    public void close() { registration.clean(); }
+}
@@ -0,0 +1,52 @@
+package com.database.tttdb.core.execution;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import com.database.tttdb.core.page.Entry;
+
+/**
+ * Produces the first {@code count} entries of its input in order, keeping only those in a
+ * bounded heap while the input is drained: O(n log count) time and O(count) memory instead of
+ * sorting every entry.
+ *
+ * <p>The heap does not keep the input order of equal entries, so the comparator should be total
+ * for the output to be the same whatever {@code count} is.</p>
+ */
+public class TopN implements Operator {
+    private final Operator input;
+    private final Comparator<Entry> comparator;
+    private final int count;
+    private Iterator<Entry> sorted;
+
+    public TopN(Operator input, Comparator<Entry> comparator, int count) {
+        this.input = input;
+        this.comparator = comparator;
+        this.count = count;
+    }
+
+    @Override
+    public Entry next() {
+        if (sorted == null) {
+            // The root is the greatest of the entries kept, replaced when a smaller one comes
+            PriorityQueue<Entry> heap = new PriorityQueue<>(Math.max(1, Math.min(count, 1024)), comparator.reversed());
+            for (Entry entry = input.next(); entry != null && count > 0; entry = input.next()) {
+                if (heap.size() < count) heap.add(entry);
+                else if (comparator.compare(entry, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(entry);
+                }
+            }
+            List<Entry> entries = new ArrayList<>(heap);
+            entries.sort(comparator);
+            sorted = entries.iterator();
+        }
+        return sorted.hasNext() ? sorted.next() : null;
+    }
+
+    @Override
+    public void close() { input.close(); }
+}
@@ -0,0 +1,100 @@
+package com.database.tttdb.core.index;
+
+import java.util.List;
+
+/**
+ * Skeleton of a {@link Cursor} over an index made of ordered groups of pairs, usually one
+ * group per key, with the pairs of the {@code null} key in a group of their own before them.
+ *
+ * <p>The subclass keeps a location on the current group and moves it on request; this class
+ * keeps the pairs of that group and the position of the cursor among them. Methods moving the
+ * location return the pairs of the group moved to, or {@code null} without moving when there
+ * is no such group.</p>
+ *
+ * @param <K> Key type
+ * @param <V> Value type associated with keys
+ */
+public abstract class AbstractCursor<K extends Comparable<? super K>, V> implements Cursor<K, V> {
+    private List<Pair<K, V>> pairs;             // pairs of the current group, null until first placed
+    private int position;                       // the cursor sits before pairs.get(position)
+    private boolean inNulls = true;             // whether the current group is the null key
+
+    /** @return pairs of the {@code null} key, empty if there are none */
+    protected abstract List<Pair<K, V>> nullPairs();
+    /** Moves to the first group of non-null keys. */
+    protected abstract List<Pair<K, V>> lowest();
+    /** Moves to the last group of non-null keys. */
+    protected abstract List<Pair<K, V>> highest();
+    /** Moves to the first group whose key is not below {@code key}, or above it when not {@code inclusive}. */
+    protected abstract List<Pair<K, V>> ceiling(K key, boolean inclusive);
+    /** Moves to the group after the current one. */
+    protected abstract List<Pair<K, V>> higher();
+    /** Moves to the group before the current one, {@code null} when it is the first non-null group. */
+    protected abstract List<Pair<K, V>> lower();
+
+    @Override
+    public void first() {
+        this.enterNulls();
+        this.position = 0;
+    }
+
+    @Override
+    public void last() {
+        List<Pair<K, V>> group = this.highest();
+        if (group == null) {
+            this.enterNulls();
+            this.position = this.pairs.size();
+            return;
+        }
+        this.enter(group, group.size());
+    }
+
+    @Override
+    public void seek(K key, boolean inclusive) {
+        if (key == null) {
+            this.enterNulls();
+            this.position = inclusive ? 0 : this.pairs.size();
+            return;
+        }
+        List<Pair<K, V>> group = this.ceiling(key, inclusive);
+        if (group == null) this.last();
+        else this.enter(group, 0);
+    }
+
+    @Override
+    public Pair<K, V> next() {
+        if (this.pairs == null) this.first();
+        while (this.position == this.pairs.size()) {
+            List<Pair<K, V>> group = this.inNulls ? this.lowest() : this.higher();
+            if (group == null) return null;
+            this.enter(group, 0);
+        }
+        return this.pairs.get(this.position++);
+    }
+
+    @Override
+    public Pair<K, V> prev() {
+        if (this.pairs == null) this.first();
+        while (this.position == 0) {
+            if (this.inNulls) return null;
+            List<Pair<K, V>> group = this.lower();
+            if (group == null) {
+                this.enterNulls();
+                this.position = this.pairs.size();
+            } else {
+                this.enter(group, group.size());
+            }
+        }
+        return this.pairs.get(--this.position);
+    }
+
+    private void enterNulls() {
+        this.pairs = this.nullPairs();
+        this.inNulls = true;
+    }
+    private void enter(List<Pair<K, V>> group, int position) {
+        this.pairs = group;
+        this.position = position;
+        this.inNulls = false;
+    }
+}
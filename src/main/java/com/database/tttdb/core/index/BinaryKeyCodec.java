@@ -0,0 +1,140 @@
+package com.database.tttdb.core.index;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.UUID;
+
+import com.database.tttdb.core.table.DataType;
+
+/**
+ * Order-preserving mapping of keys to byte strings.
+ *
+ * <p>For any two keys {@code a} and {@code b} of a codec, {@code Arrays.compareUnsigned} of
+ * their encodings has the sign of {@code a.compareTo(b)}, and no encoding is a proper prefix of
+ * another, so radix structures can branch on the encoded bytes one at a time.</p>
+ *
+ * @param <K> Key type
+ */
+public interface BinaryKeyCodec<K> {
+    byte[] encode(K key);
+    K decode(byte[] key);
+    /**
+     * @param bytes byte string holding an encoded key at {@code from}
+     * @param from offset of the encoded key
+     * @return number of bytes of the encoded key
+     */
+    int length(byte[] bytes, int from);
+
+    /**
+     * Fixed-width keys are the big-endian bytes of their {@link KeyCodec} encoding with the sign
+     * bit flipped. Strings encode every UTF-16 char in one to three bytes like UTF-8 does, which
+     * keeps {@link String#compareTo} order, escape {@code 0x00} as {@code 0x00 0xFF} and end
+     * with {@code 0x00 0x00}.
+     *
+     * @return the codec for keys of a column type, {@code null} if the type has no encoding
+     */
+    @SuppressWarnings("unchecked")
+    static BinaryKeyCodec<?> forType(DataType type){
+        return switch (type) {
+            case CHAR, VARCHAR -> new BinaryKeyCodec<String>() {
+                public byte[] encode(String key) { return encodeString(key); }
+                public String decode(byte[] key) { return decodeString(key); }
+                public int length(byte[] bytes, int from) { return stringLength(bytes, from); }
+            };
+            // UUID.compareTo compares both halves as signed longs
+            case UUID -> new BinaryKeyCodec<UUID>() {
+                public byte[] encode(UUID key) {
+                    return ByteBuffer.allocate(16)
+                        .putLong(key.getMostSignificantBits() ^ Long.MIN_VALUE)
+                        .putLong(key.getLeastSignificantBits() ^ Long.MIN_VALUE)
+                        .array();
+                }
+                public UUID decode(byte[] key) {
+                    ByteBuffer buffer = ByteBuffer.wrap(key);
+                    return new UUID(buffer.getLong() ^ Long.MIN_VALUE, buffer.getLong() ^ Long.MIN_VALUE);
+                }
+                public int length(byte[] bytes, int from) { return 16; }
+            };
+            case TIMESTAMP -> new BinaryKeyCodec<LocalDateTime>() {
+                public byte[] encode(LocalDateTime key) {
+                    return ByteBuffer.allocate(16)
+                        .putLong(key.toLocalDate().toEpochDay() ^ Long.MIN_VALUE)
+                        .putLong(key.toLocalTime().toNanoOfDay())
+                        .array();
+                }
+                public LocalDateTime decode(byte[] key) {
+                    ByteBuffer buffer = ByteBuffer.wrap(key);
+                    return LocalDateTime.of(LocalDate.ofEpochDay(buffer.getLong() ^ Long.MIN_VALUE), LocalTime.ofNanoOfDay(buffer.getLong()));
+                }
+                public int length(byte[] bytes, int from) { return 16; }
+            };
+            default -> {
+                KeyCodec<Object> codec = (KeyCodec<Object>) KeyCodec.forType(type);
+                if (codec == null) yield null;
+                yield new BinaryKeyCodec<Object>() {
+                    public byte[] encode(Object key) {
+                        return ByteBuffer.allocate(8).putLong(codec.encode(key) ^ Long.MIN_VALUE).array();
+                    }
+                    public Object decode(byte[] key) {
+                        return codec.decode(ByteBuffer.wrap(key).getLong() ^ Long.MIN_VALUE);
+                    }
+                    public int length(byte[] bytes, int from) { return 8; }
+                };
+            }
+        };
+    }
+
+    private static byte[] encodeString(String key){
+        byte[] bytes = new byte[key.length() * 3 + 2];
+        int n = 0;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c == 0) {
+                bytes[n++] = 0;
+                bytes[n++] = (byte) 0xFF;
+            } else if (c < 0x80) {
+                bytes[n++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[n++] = (byte) (0xC0 | c >> 6);
+                bytes[n++] = (byte) (0x80 | c & 0x3F);
+            } else {
+                bytes[n++] = (byte) (0xE0 | c >> 12);
+                bytes[n++] = (byte) (0x80 | c >> 6 & 0x3F);
+                bytes[n++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        n += 2; // terminator 0x00 0x00
+        return n == bytes.length ? bytes : Arrays.copyOf(bytes, n);
+    }
+
+    private static int stringLength(byte[] bytes, int from){
+        int i = from;
+        while (bytes[i] != 0 || bytes[i + 1] != 0) i += bytes[i] == 0 ? 2 : 1;
+        return i + 2 - from;
+    }
+
+    private static String decodeString(byte[] key){
+        StringBuilder sb = new StringBuilder(key.length);
+        int i = 0;
+        while (true) {
+            int b = key[i] & 0xFF;
+            if (b == 0) {
+                if (key[i + 1] == 0) return sb.toString();
+                sb.append('\0');
+                i += 2;
+            } else if (b < 0x80) {
+                sb.append((char) b);
+                i++;
+            } else if (b < 0xE0) {
+                sb.append((char) ((b & 0x1F) << 6 | key[i + 1] & 0x3F));
+                i += 2;
+            } else {
+                sb.append((char) ((b & 0x0F) << 12 | (key[i + 1] & 0x3F) << 6 | key[i + 2] & 0x3F));
+                i += 3;
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.database.tttdb.core.index;
+
+/**
+ * {@link Cursor} restricted to the pairs of another cursor between two bounds, see
+ * {@link Cursor#bounded}.
+ */
+final class BoundedCursor<K extends Comparable<? super K>, V> implements Cursor<K, V> {
+    private final Cursor<K, V> cursor;
+    private final K from;
+    private final boolean fromInclusive;
+    private final K to;
+    private final boolean toInclusive;
+
+    BoundedCursor(Cursor<K, V> cursor, K from, boolean fromInclusive, K to, boolean toInclusive) {
+        this.cursor = cursor;
+        this.from = from;
+        this.fromInclusive = fromInclusive;
+        this.to = to;
+        this.toInclusive = toInclusive;
+        this.first();
+    }
+
+    // Whether a pair comes before the lower bound, null keys coming before any key
+    private boolean below(Pair<K, V> pair) {
+        if (this.from == null) return !this.fromInclusive && pair.key == null;
+        if (pair.key == null) return true;
+        int cmp = pair.key.compareTo(this.from);
+        return cmp < 0 || cmp == 0 && !this.fromInclusive;
+    }
+    private boolean above(Pair<K, V> pair) {
+        if (this.to == null || pair.key == null) return false;
+        int cmp = pair.key.compareTo(this.to);
+        return cmp > 0 || cmp == 0 && !this.toInclusive;
+    }
+
+    @Override
+    public void first() { this.cursor.seek(this.from, this.fromInclusive); }
+
+    @Override
+    public void last() {
+        if (this.to == null) this.cursor.last();
+        else this.cursor.seek(this.to, !this.toInclusive);
+    }
+
+    @Override
+    public void seek(K key, boolean inclusive) {
+        this.cursor.seek(key, inclusive);
+        Pair<K, V> after = this.cursor.next();
+        if (after == null) {
+            this.clampBefore();
+            return;
+        }
+        this.cursor.prev();
+        if (this.below(after)) this.first();
+        else this.clampBefore();
+    }
+    // Moves to the upper bound when the pair before the cursor is past it
+    private void clampBefore() {
+        Pair<K, V> before = this.cursor.prev();
+        if (before == null) return;
+        this.cursor.next();
+        if (this.above(before)) this.last();
+    }
+
+    @Override
+    public Pair<K, V> next() {
+        Pair<K, V> pair = this.cursor.next();
+        if (pair == null || !this.above(pair)) return pair;
+        this.cursor.prev();
+        return null;
+    }
+
+    @Override
+    public Pair<K, V> prev() {
+        Pair<K, V> pair = this.cursor.prev();
+        if (pair == null || !this.below(pair)) return pair;
+        this.cursor.next();
+        return null;
+    }
+}
@@ -0,0 +1,168 @@
+package com.database.tttdb.core.index;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import com.database.tttdb.core.page.Entry;
+import com.database.tttdb.core.page.TablePage;
+import com.database.tttdb.core.table.DataType;
+import com.database.tttdb.core.table.Table;
+
+/**
+ * Index over several columns of a table, keyed by {@link CompositeKey}.
+ *
+ * <p>Because keys compare column by column, every row with equal values in a leading run of
+ * the columns, and a value of the next column inside a range, lies in one contiguous key
+ * range. {@link #prefixSearch} computes the bounds of that range, which select exactly the
+ * matching rows.</p>
+ *
+ * <p>Included columns are written after the indexed columns. They take no part in searches,
+ * but with them the index holds every value a covering query reads, see {@link #decode}.</p>
+ *
+ * <p>Entries are kept in memory only and rebuilt from the table pages when the table starts,
+ * so values carry no index page pointer.</p>
+ */
+public class CompositeIndex extends IndexInit<CompositeKey> {
+    private final String name;
+    private final int[] columns;
+    private final int[] included;
+    private final int[] stored; // columns followed by included, in key order
+    private final int numOfColumns;
+    private final BinaryKeyCodec<Object>[] codecs;
+
+    public CompositeIndex(Table table, String name, int[] columns) {
+        this(table, name, columns, new int[0]);
+    }
+    @SuppressWarnings("unchecked")
+    public CompositeIndex(Table table, String name, int[] columns, int[] included) {
+        super(table.getDatabase().getIndexType());
+        this.setUnique(false);
+        this.setNullable(false);
+        this.columnIndex = -1;
+        this.name = name;
+        this.columns = columns;
+        this.included = included;
+        this.stored = Arrays.copyOf(columns, columns.length + included.length);
+        System.arraycopy(included, 0, stored, columns.length, included.length);
+        this.numOfColumns = table.getSchema().getNumOfColumns();
+        this.codecs = new BinaryKeyCodec[stored.length];
+        DataType[] types = table.getSchema().getTypes();
+        for (int i = 0; i < stored.length; i++)
+            this.codecs[i] = (BinaryKeyCodec<Object>) BinaryKeyCodec.forType(types[stored[i]]);
+    }
+
+    @Override
+    public CompositeIndex initialize(Table table) {
+        for (int pid = 0; pid < table.getPages(); pid++) {
+            TablePage page = table.getCache().readTablePage(pid);
+            for (int row = 0; row < page.slotCount(); row++) {
+                Entry entry = page.get(row);
+                if (entry == null) continue;
+                this.insert(keyOf(entry), new PointerPair(entry.getRowId(), null));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @param entry table row
+     * @return the key of the row in this index
+     */
+    public CompositeKey keyOf(Entry entry) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < stored.length; i++) writeColumn(out, i, entry.get(stored[i]));
+        out.write(CompositeKey.END);
+        return new CompositeKey(out.toByteArray());
+    }
+
+    /**
+     * @param key key of this index
+     * @return the row values held by the key, at their table column positions; columns the
+     *         index does not hold are {@code null}
+     */
+    public Object[] decode(CompositeKey key) {
+        byte[] bytes = key.getBytes();
+        Object[] values = new Object[numOfColumns];
+        int from = 0;
+        for (int i = 0; i < stored.length; i++) {
+            if (bytes[from++] == CompositeKey.NULL) continue;
+            int length = codecs[i].length(bytes, from);
+            values[stored[i]] = codecs[i].decode(Arrays.copyOfRange(bytes, from, from + length));
+            from += length;
+        }
+        return values;
+    }
+
+    /**
+     * @param column table column position
+     * @return whether the index holds the values of the column
+     */
+    public boolean holds(int column) {
+        for (int c : stored) if (c == column) return true;
+        return false;
+    }
+
+    /**
+     * Finds the rows equal to {@code prefix} on the leading columns.
+     *
+     * @param prefix values of the first {@code prefix.length} columns, non-null
+     * @return matching entries in key order
+     */
+    public List<Pair<CompositeKey, PointerPair>> prefixSearch(Object[] prefix) {
+        ByteArrayOutputStream lower = encodePrefix(prefix);
+        ByteArrayOutputStream upper = encodePrefix(prefix);
+        upper.write(CompositeKey.AFTER);
+        return this.rangeSearch(new CompositeKey(lower.toByteArray()), new CompositeKey(upper.toByteArray()));
+    }
+
+    /**
+     * Finds the rows equal to {@code prefix} on the leading columns whose value of the next
+     * column lies between {@code from} and {@code to}. Rows with a null value in that column
+     * never match.
+     *
+     * @param prefix values of the first {@code prefix.length} columns, non-null
+     * @param from lower bound of the next column, {@code null} if unbounded
+     * @param fromInclusive whether {@code from} itself matches
+     * @param to upper bound of the next column, {@code null} if unbounded
+     * @param toInclusive whether {@code to} itself matches
+     * @return matching entries in key order
+     */
+    public List<Pair<CompositeKey, PointerPair>> prefixSearch(Object[] prefix, Object from, boolean fromInclusive, Object to, boolean toInclusive) {
+        int column = prefix.length;
+        ByteArrayOutputStream lower = encodePrefix(prefix);
+        if (from == null) lower.write(CompositeKey.NOT_NULL);
+        else {
+            writeColumn(lower, column, from);
+            if (!fromInclusive) lower.write(CompositeKey.AFTER);
+        }
+        ByteArrayOutputStream upper = encodePrefix(prefix);
+        if (to == null) upper.write(CompositeKey.AFTER);
+        else {
+            writeColumn(upper, column, to);
+            if (toInclusive) upper.write(CompositeKey.AFTER);
+        }
+        return this.rangeSearch(new CompositeKey(lower.toByteArray()), new CompositeKey(upper.toByteArray()));
+    }
+
+    private ByteArrayOutputStream encodePrefix(Object[] prefix) {
+        if (prefix.length > columns.length)
+            throw new IllegalArgumentException("Index " + name + " has " + columns.length + " columns, got " + prefix.length);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < prefix.length; i++) writeColumn(out, i, prefix[i]);
+        return out;
+    }
+
+    private void writeColumn(ByteArrayOutputStream out, int i, Object value) {
+        if (value == null) {
+            out.write(CompositeKey.NULL);
+            return;
+        }
+        out.write(CompositeKey.NOT_NULL);
+        out.writeBytes(codecs[i].encode(value));
+    }
+
+    public String getName() { return this.name; }
+    public int[] getColumns() { return this.columns; }
+    public int[] getIncluded() { return this.included; }
+}
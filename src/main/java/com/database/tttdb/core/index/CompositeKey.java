@@ -0,0 +1,46 @@
+package com.database.tttdb.core.index;
+
+import java.util.Arrays;
+
+/**
+ * Key of a multi-column index: the column values concatenated in one byte string that
+ * compares lexicographically, column by column.
+ *
+ * <p>Each column is written as a marker byte, {@code 0x00} for null and {@code 0x01} otherwise,
+ * followed by the {@link BinaryKeyCodec} encoding of a non-null value, and the key ends with
+ * {@code 0x00}. Since column encodings are prefix-free, comparing the bytes compares the first
+ * column, then the second, and so on, with nulls first.</p>
+ */
+public final class CompositeKey implements Comparable<CompositeKey> {
+    static final byte NULL = 0x00;
+    static final byte NOT_NULL = 0x01;
+    static final byte END = 0x00;
+    static final byte AFTER = (byte) 0xFF; // sorts after the marker of any further column
+
+    private final byte[] bytes;
+
+    CompositeKey(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    public byte[] getBytes() { return this.bytes; }
+
+    @Override
+    public int compareTo(CompositeKey other) {
+        return Arrays.compareUnsigned(this.bytes, other.bytes);
+    }
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CompositeKey other && Arrays.equals(this.bytes, other.bytes);
+    }
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.bytes);
+    }
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("CompositeKey[");
+        for (byte b : this.bytes) sb.append(String.format("%02x", b));
+        return sb.append(']').toString();
+    }
+}
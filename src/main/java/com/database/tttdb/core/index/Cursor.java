@@ -0,0 +1,71 @@
+package com.database.tttdb.core.index;
+
+/**
+ * Position in the key order of an index, moved one key-value pair at a time in either
+ * direction.
+ *
+ * <p>A cursor sits between two pairs, like a {@link java.util.ListIterator}: {@link #next()}
+ * returns the pair after it and moves past it, {@link #prev()} the pair before it, so a
+ * {@code next()} followed by a {@code prev()} returns the same pair twice. Pairs are ordered
+ * by key with {@code null} keys first; pairs sharing a key come in an order fixed by the
+ * index.</p>
+ *
+ * <p>A cursor reads the index as it moves and is only valid while the index is not modified.
+ * A scan that lets writes happen between steps remembers the last key it returned and
+ * {@link #seek seeks} back to it.</p>
+ *
+ * @param <K> Key type
+ * @param <V> Value type associated with keys
+ */
+public interface Cursor<K extends Comparable<? super K>, V> {
+
+    /**
+     * Moves the cursor before the first pair, {@code null} keys included.
+     */
+    void first();
+
+    /**
+     * Moves the cursor after the last pair.
+     */
+    void last();
+
+    /**
+     * Moves the cursor next to a key: before its first pair when {@code inclusive}, after its
+     * last pair otherwise. The key does not need to be in the index.
+     * <p>
+     * A {@code null} key stands for the {@code null} keys, the lowest of the index:
+     * {@code seek(null, true)} is {@link #first()} and {@code seek(null, false)} moves before
+     * the first non-null key.
+     * </p>
+     *
+     * @param key key to move to
+     * @param inclusive whether {@link #next()} returns the pairs of {@code key} afterwards
+     */
+    void seek(K key, boolean inclusive);
+
+    /**
+     * @return the pair after the cursor, or {@code null} when the cursor is after the last pair
+     */
+    Pair<K, V> next();
+
+    /**
+     * @return the pair before the cursor, or {@code null} when the cursor is before the first pair
+     */
+    Pair<K, V> prev();
+
+    /**
+     * Restricts a cursor to the pairs between two bounds, see
+     * {@link Index#cursor(Comparable, boolean, Comparable, boolean)}, and places it before the
+     * first of them.
+     *
+     * @param cursor cursor over every pair of an index
+     * @param fromKey lower bound, {@code null} for the lowest key
+     * @param fromInclusive whether pairs of {@code fromKey} are in the range
+     * @param toKey upper bound, {@code null} for unbounded
+     * @param toInclusive whether pairs of {@code toKey} are in the range
+     * @return cursor over the pairs of the range
+     */
+    static <K extends Comparable<? super K>, V> Cursor<K, V> bounded(Cursor<K, V> cursor, K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        return new BoundedCursor<>(cursor, fromKey, fromInclusive, toKey, toInclusive);
+    }
+}
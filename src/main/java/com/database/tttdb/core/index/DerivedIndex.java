@@ -0,0 +1,118 @@
+package com.database.tttdb.core.index;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.database.tttdb.api.Condition;
+import com.database.tttdb.api.Condition.WhereClause;
+import com.database.tttdb.api.Functions.InnerFunctions;
+import com.database.tttdb.api.Schema.IndexInner;
+import com.database.tttdb.core.manager.IndexUtils;
+import com.database.tttdb.core.page.Entry;
+import com.database.tttdb.core.page.TablePage;
+import com.database.tttdb.core.table.Table;
+import com.database.tttdb.core.table.TableSchema;
+
+/**
+ * Index over one column that is keyed by an expression of the column, holds only the rows
+ * matching a filter, or both.
+ *
+ * <p>A condition is answered by the index when it applies the same function to the same
+ * column, see {@link Condition#apply(InnerFunctions)}. An index with a filter only answers
+ * conditions of a WHERE clause that also requires every condition of the filter.</p>
+ *
+ * <p>Entries are kept in memory only and rebuilt from the table pages when the table starts,
+ * so values carry no index page pointer.</p>
+ */
+public class DerivedIndex<K extends Comparable<? super K>> extends IndexInit<K> {
+    private final String name;
+    private final TableSchema schema;
+    private final InnerFunctions expression;
+    private final List<Condition<WhereClause>> filter;
+
+    public DerivedIndex(Table table, IndexInner definition) {
+        super(table.getDatabase().getIndexType(), definition.expression() == null
+            ? table.getSchema().getTypes()[table.getSchema().getColumnIndex(definition.columns().getFirst())]
+            : null);
+        this.setUnique(false);
+        this.setNullable(true);
+        this.schema = table.getSchema();
+        this.columnIndex = schema.getColumnIndex(definition.columns().getFirst());
+        this.name = definition.name();
+        this.expression = definition.expression();
+        this.filter = definition.filter() == null
+            ? List.of()
+            : definition.filter().getConditions().stream().map(Map.Entry::getValue).toList();
+    }
+
+    @Override
+    public DerivedIndex<K> initialize(Table table) {
+        for (int pid = 0; pid < table.getPages(); pid++) {
+            TablePage page = table.getCache().readTablePage(pid);
+            for (int row = 0; row < page.slotCount(); row++) {
+                Entry entry = page.get(row);
+                if (entry == null || !qualifies(entry)) continue;
+                this.insert(keyOf(entry), new PointerPair(entry.getRowId(), null));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @param entry table row
+     * @return whether the row matches the filter of the index and has an entry in it
+     */
+    public boolean qualifies(Entry entry) {
+        for (Condition<WhereClause> condition : filter)
+            if (!IndexUtils.matches(condition, condition.valueOf(entry.getValues(), schema))) return false;
+        return true;
+    }
+
+    /**
+     * @param entry table row
+     * @return the key of the row in this index, {@code null} when the column is null
+     */
+    @SuppressWarnings("unchecked")
+    public K keyOf(Entry entry) {
+        Object value = entry.get(columnIndex);
+        if (value == null || expression == null) return (K) value;
+        return (K) expression.apply(schema, entry.getValues(), columnIndex);
+    }
+
+    /**
+     * @param condition condition of a WHERE clause
+     * @return whether the keys of the index are the values {@code condition} compares
+     */
+    public boolean answers(Condition<?> condition) {
+        return schema.getColumnIndex(condition.getColumnName()) == columnIndex
+            && Objects.equals(condition.getFunction(), expression);
+    }
+
+    /**
+     * @param conjunction conditions that are all ANDed together
+     * @return whether every row matching the conjunction matches the filter of the index
+     */
+    public boolean isImpliedBy(List<Condition<WhereClause>> conjunction) {
+        for (Condition<WhereClause> required : filter)
+            if (conjunction.stream().noneMatch(condition -> isSame(required, condition))) return false;
+        return true;
+    }
+
+    /**
+     * @param condition condition of a WHERE clause
+     * @return whether every row of the index matches {@code condition}
+     */
+    public boolean isFilteredBy(Condition<?> condition) {
+        return filter.stream().anyMatch(required -> isSame(required, condition));
+    }
+
+    private static boolean isSame(Condition<?> a, Condition<?> b) {
+        return Objects.equals(a.getColumnName(), b.getColumnName())
+            && Objects.equals(a.getFunction(), b.getFunction())
+            && a.getConditions().equals(b.getConditions());
+    }
+
+    public boolean hasFilter() { return !this.filter.isEmpty(); }
+    public String getName() { return this.name; }
+}
@@ -1,5 +1,6 @@
 package com.database.tttdb.core.index;
 
+import java.util.ArrayList;
 import java.util.List;
 /**
  * Interface defining the core operations for an index structure.
@@ -71,6 +72,49 @@ public interface Index<K extends Comparable<? super K>, V> {
      */
     List<Pair<K, V>> rangeSearch(K fromKey, K toKey);
 
+    /**
+     * Opens a cursor over every pair of the index, placed before the first one.
+     * <p>
+     * Ordered structures move the cursor through the index itself, reading only the pairs it
+     * passes. The default implementation reads every pair with {@link #rangeSearch} and sorts
+     * them when opened.
+     * </p>
+     *
+     * @return cursor over the pairs in key order, {@code null} keys first
+     */
+    default Cursor<K, V> cursor() {
+        return new ListCursor<>(this.rangeSearch(null, null));
+    }
+
+    /**
+     * Opens a cursor over the pairs between two bounds, placed before the first one. The
+     * cursor does not move past the bounds: {@link Cursor#first()}, {@link Cursor#last()} and
+     * {@link Cursor#seek} stop at them.
+     * <p>
+     * Bounds compare as in {@link Cursor#seek}: a {@code null} lower bound keeps the
+     * {@code null} keys when inclusive and skips them otherwise, a {@code null} upper bound
+     * leaves the range unbounded above.
+     * </p>
+     * <p>
+     * The default implementation reads the pairs of the range with {@link #rangeSearch} and
+     * those of the {@code null} key with {@link #search};
+     * structures with a cursor of their own bound it with {@link Cursor#bounded}.
+     * </p>
+     *
+     * @param fromKey lower bound, {@code null} for the lowest key
+     * @param fromInclusive whether pairs of {@code fromKey} are in the range
+     * @param toKey upper bound, {@code null} for unbounded
+     * @param toInclusive whether pairs of {@code toKey} are in the range
+     * @return cursor over the pairs of the range in key order
+     */
+    default Cursor<K, V> cursor(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        List<Pair<K, V>> pairs = new ArrayList<>();
+        if (fromKey == null && fromInclusive && this.isNullable()) pairs.addAll(this.search(null));
+        for (Pair<K, V> pair : this.rangeSearch(fromKey, toKey))
+            if (pair.key != null) pairs.add(pair);
+        return Cursor.bounded(new ListCursor<>(pairs), fromKey, fromInclusive, toKey, toInclusive);
+    }
+
     /**
      * Checks whether a specific key exists in the index.
      *
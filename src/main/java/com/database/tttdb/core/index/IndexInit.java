@@ -3,12 +3,18 @@ package com.database.tttdb.core.index;
 import java.nio.ByteBuffer;
 import java.util.List;
 
+import com.database.tttdb.core.index.art.AdaptiveRadixTree;
 import com.database.tttdb.core.index.btree.BPlusTree;
+import com.database.tttdb.core.index.btree.ConcurrentBPlusTree;
+import com.database.tttdb.core.index.btree.LongKeyBPlusTree;
+import com.database.tttdb.core.index.btree.OffHeapBPlusTree;
 import com.database.tttdb.core.index.hashmap.HashIndex;
 import com.database.tttdb.core.index.redBlackTreeIndex.RedBlackTreeIndex;
+import com.database.tttdb.core.index.skiplist.ConcurrentSkipListIndex;
 import com.database.tttdb.core.index.skiplist.SkipListIndex;
 import com.database.tttdb.core.page.Entry;
 import com.database.tttdb.core.page.IndexPage;
+import com.database.tttdb.core.table.DataType;
 import com.database.tttdb.core.table.Table;
 
 /**
@@ -34,31 +40,73 @@ public class IndexInit<K extends Comparable<? super K>> implements Index<K,Index
             return new BlockPointer(BlockID, RowOffset);
         }
     }
-    public record PointerPair(BlockPointer tablePointer, BlockPointer indexPointer) {} 
+    /**
+     * Index value: the stable row id of the indexed row and the location of the index entry.
+     * The row's physical location is resolved through the table's {@link com.database.tttdb.core.table.RowIdMap}.
+     */
+    public record PointerPair(long rowId, BlockPointer indexPointer) {} 
 
     public IndexInit(IndexType indexType){
+        this(indexType, null);
+    }
+    /**
+     * Numeric and date/time keys of a {@link IndexType#BTREE} index are kept in a
+     * {@link LongKeyBPlusTree}, those of an {@link IndexType#OFF_HEAP_BTREE} index in an
+     * {@link OffHeapBPlusTree} and those of a {@link IndexType#HASH_INDEX} as primitive longs.
+     * Keys of an {@link IndexType#ART} index are kept in an {@link AdaptiveRadixTree} when
+     * their type has a {@link BinaryKeyCodec}. Other key types and index types use the generic
+     * implementations.
+     *
+     * @param indexType index implementation of the database
+     * @param keyType type of the indexed column, {@code null} if unknown
+     */
+    @SuppressWarnings("unchecked")
+    public IndexInit(IndexType indexType, DataType keyType){
+        KeyCodec<K> codec = keyType == null ? null : (KeyCodec<K>) KeyCodec.forType(keyType);
+        if (codec != null && indexType == IndexType.BTREE) {
+            this.index = new LongKeyBPlusTree<>(32, codec);
+            return;
+        }
+        if (codec != null && indexType == IndexType.OFF_HEAP_BTREE) {
+            this.index = new OffHeapBPlusTree<>(32, codec);
+            return;
+        }
+        if (codec != null && indexType == IndexType.HASH_INDEX) {
+            this.index = new HashIndex<>(codec);
+            return;
+        }
+        BinaryKeyCodec<K> binaryCodec = keyType == null ? null : (BinaryKeyCodec<K>) BinaryKeyCodec.forType(keyType);
+        if (binaryCodec != null && indexType == IndexType.ART) {
+            this.index = new AdaptiveRadixTree<>(binaryCodec);
+            return;
+        }
         this.index = switch (indexType) {
-            case BTREE -> new BPlusTree<>(32);
+            case BTREE -> new BPlusTree<>(BPlusTree.orderForCacheLines(2));
+            case CONCURRENT_BTREE -> new ConcurrentBPlusTree<>(32);
+            case OFF_HEAP_BTREE -> new BPlusTree<>(BPlusTree.orderForCacheLines(2)); // keys without a fixed-width encoding stay on the heap
             case SKIPLIST -> new SkipListIndex<>();
+            case CONCURRENT_SKIPLIST -> new ConcurrentSkipListIndex<>();
             case HASH_INDEX -> new HashIndex<>();
             case RED_BLACK_TREE -> new RedBlackTreeIndex<>();
+            case ART -> new BPlusTree<>(BPlusTree.orderForCacheLines(2)); // keys without a byte encoding
         };
     }
     @SuppressWarnings("unchecked")
     public IndexInit<K> initialize(Table table){
-        int numberOfPages = table.getPages();
+        int numberOfPages = table.getIndexManager().getPages(columnIndex);
         if(numberOfPages == 0) return this;
         IndexPage page;
         Entry[] list;
         for(int i = 0;i < numberOfPages;i++){
             page = table.getCache().getIndexPage(i, columnIndex);
             list = page.getAll();
-            for (short j = 0; j < page.size(); j++) {
+            for (short j = 0; j < page.slotCount(); j++) {
                 Entry entry = list[j];
+                if (entry == null) continue;
                 K key = (K) entry.get(1);
-                BlockPointer tablePointer = (BlockPointer)entry.get(0);
+                long rowId = (Long)entry.get(0);
                 BlockPointer indexPointer = new BlockPointer(i, j);
-                PointerPair value = new PointerPair(tablePointer, indexPointer);
+                PointerPair value = new PointerPair(rowId, indexPointer);
                 this.insert(key, value);
             }
         }
@@ -69,6 +117,8 @@ public class IndexInit<K extends Comparable<? super K>> implements Index<K,Index
     public void remove(K key, PointerPair value) { this.index.remove(key, value); }
     public List<Pair<K, PointerPair>> search(K key) { return this.index.search(key); }
     public List<Pair<K, PointerPair>> rangeSearch(K fromKey, K toKey) { return this.index.rangeSearch(fromKey, toKey); }
+    public Cursor<K, PointerPair> cursor() { return this.index.cursor(); }
+    public Cursor<K, PointerPair> cursor(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) { return this.index.cursor(fromKey, fromInclusive, toKey, toInclusive); }
     public boolean isKey(K key) { return this.index.isKey(key); }
     public void update(K key, PointerPair newValue) { this.index.update(key, newValue); }
     public void update(K key, PointerPair newValue, PointerPair oldValue) { this.index.update(key, newValue, oldValue); }
@@ -77,6 +127,8 @@ public class IndexInit<K extends Comparable<? super K>> implements Index<K,Index
     public boolean isUnique() { return this.index.isUnique(); }
     public boolean isNullable() { return this.index.isNullable(); }
     public long size() { return index.size(); }
+    /** @return whether {@link #rangeSearch} returns keys in ascending order, null keys first */
+    public boolean isOrdered() { return !(this.index instanceof HashIndex); }
     public K getMax() { return this.index.getMax(); }
     public void clear(){ this.index.clear(); }
 
@@ -85,8 +137,12 @@ public class IndexInit<K extends Comparable<? super K>> implements Index<K,Index
 
     public enum IndexType{
         BTREE,
+        CONCURRENT_BTREE,
+        OFF_HEAP_BTREE,
         SKIPLIST,
+        CONCURRENT_SKIPLIST,
         HASH_INDEX,
-        RED_BLACK_TREE
+        RED_BLACK_TREE,
+        ART
     }
 }
\ No newline at end of file
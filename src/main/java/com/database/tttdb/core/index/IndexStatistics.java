@@ -0,0 +1,126 @@
+package com.database.tttdb.core.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import com.database.tttdb.api.Condition;
+import com.database.tttdb.api.ConditionUtils;
+import com.database.tttdb.core.index.IndexInit.PointerPair;
+
+/**
+ * Summary of the keys of one index used to estimate how many entries a condition selects:
+ * entry and null counts, the number of distinct keys and an equi-depth histogram.
+ *
+ * <p>The histogram keeps {@link #BUCKETS} + 1 keys splitting the sorted non-null keys into
+ * buckets holding the same number of entries, the first and last being the minimum and the
+ * maximum. A range selects about one bucket per boundary it contains, so skewed columns are
+ * estimated as well as uniform ones.</p>
+ *
+ * <p>Statistics are a snapshot: they are built from the index in one pass and do not follow
+ * later writes, {@link #getModifications()} records when they were taken.</p>
+ */
+public final class IndexStatistics {
+    public static final int BUCKETS = 64;
+
+    private final long entries;
+    private final long nulls;
+    private final long distinct;
+    private final Object[] bounds;
+    private final long modifications;
+
+    private IndexStatistics(long entries, long nulls, long distinct, Object[] bounds, long modifications) {
+        this.entries = entries;
+        this.nulls = nulls;
+        this.distinct = distinct;
+        this.bounds = bounds;
+        this.modifications = modifications;
+    }
+
+    /**
+     * Reads every entry of {@code index}.
+     *
+     * @param index index to summarize
+     * @param modifications write counter of the owner at the time the statistics are taken
+     * @return statistics of the current keys
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static IndexStatistics of(IndexInit<?> index, long modifications) {
+        List<? extends Pair<?, PointerPair>> pairs = index.rangeSearch(null, null);
+        List<Comparable> keys = new ArrayList<>(pairs.size());
+        for (Pair<?, PointerPair> pair : pairs)
+            if (pair.key != null) keys.add((Comparable) pair.key);
+        // Ordered indexes return sorted keys, hash indexes do not
+        for (int i = 1; i < keys.size(); i++) {
+            if (keys.get(i - 1).compareTo(keys.get(i)) > 0) {
+                keys.sort(Comparator.naturalOrder());
+                break;
+            }
+        }
+        long distinct = keys.isEmpty() ? 0 : 1;
+        for (int i = 1; i < keys.size(); i++)
+            if (keys.get(i - 1).compareTo(keys.get(i)) != 0) distinct++;
+        Object[] bounds = new Object[keys.isEmpty() ? 0 : BUCKETS + 1];
+        for (int b = 0; b < bounds.length; b++)
+            bounds[b] = keys.get((int) ((long) (keys.size() - 1) * b / BUCKETS));
+        return new IndexStatistics(pairs.size(), pairs.size() - keys.size(), distinct, bounds, modifications);
+    }
+
+    /**
+     * Estimates the number of index entries matching a condition on the keys of the index.
+     *
+     * @param condition condition comparing the keys of the index
+     * @return estimated matching entries, between 0 and {@link #getEntries()}
+     */
+    public long estimate(Condition<?> condition) {
+        try {
+            return estimateEntries(condition);
+        } catch (ClassCastException e) {
+            return entries; // values of another type than the keys, left to the index search to reject
+        }
+    }
+    private long estimateEntries(Condition<?> condition) {
+        ConditionUtils.RangeSet keys = ConditionUtils.rangeSet(condition.getConditions());
+        long estimate = keys.nulls() ? nulls : 0;
+        for (ConditionUtils.Range range : keys.ranges()) estimate += estimateRange(range);
+        return Math.min(entries, estimate);
+    }
+    private long estimateRange(ConditionUtils.Range range) {
+        long values = entries - nulls;
+        if (range.from() == null && range.to() == null) return values;
+        if (bounds.length == 0) return 0;
+        if (range.isPoint()) {
+            int below = position(range.from(), false), through = position(range.from(), true);
+            if (through == 0 || below == bounds.length) return 0;
+            // A key on several boundaries fills buckets of its own
+            return through - below > 1 ? values * (through - below) / bounds.length : perKey();
+        }
+        int from = range.from() == null ? 0 : position(range.from(), !range.fromInclusive());
+        int to = range.to() == null ? bounds.length : position(range.to(), range.toInclusive());
+        if (to < from || to == 0 || from == bounds.length) return 0;
+        return Math.max(1, values * Math.max(1, to - from) / bounds.length);
+    }
+
+    // Number of histogram boundaries below value, counting those equal to it when inclusive is set
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private int position(Object value, boolean inclusive) {
+        int lo = 0, hi = bounds.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = ((Comparable) bounds[mid]).compareTo(value);
+            if (cmp < 0 || inclusive && cmp == 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+    private long perKey() {
+        return distinct == 0 ? 0 : Math.max(1, (entries - nulls) / distinct);
+    }
+
+    public long getEntries() { return this.entries; }
+    public long getNulls() { return this.nulls; }
+    public long getDistinct() { return this.distinct; }
+    public Object getMin() { return bounds.length == 0 ? null : bounds[0]; }
+    public Object getMax() { return bounds.length == 0 ? null : bounds[bounds.length - 1]; }
+    public long getModifications() { return this.modifications; }
+}
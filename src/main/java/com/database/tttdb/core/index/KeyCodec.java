@@ -0,0 +1,70 @@
+package com.database.tttdb.core.index;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import com.database.tttdb.core.table.DataType;
+
+/**
+ * Order-preserving mapping of fixed-width keys to {@code long}.
+ *
+ * <p>For any two keys {@code a} and {@code b} of a codec,
+ * {@code Long.compare(encode(a), encode(b))} has the sign of {@code a.compareTo(b)},
+ * so indexes can store and compare the encoded form only.</p>
+ *
+ * @param <K> Key type
+ */
+public interface KeyCodec<K> {
+    long encode(K key);
+    K decode(long key);
+
+    /**
+     * @return the codec for keys of a column type, {@code null} if the type is not fixed-width
+     * or does not fit in a {@code long}
+     */
+    static KeyCodec<?> forType(DataType type){
+        return switch (type) {
+            case SHORT -> new KeyCodec<Short>() {
+                public long encode(Short key) { return key; }
+                public Short decode(long key) { return (short) key; }
+            };
+            case INT -> new KeyCodec<Integer>() {
+                public long encode(Integer key) { return key; }
+                public Integer decode(long key) { return (int) key; }
+            };
+            case LONG -> new KeyCodec<Long>() {
+                public long encode(Long key) { return key; }
+                public Long decode(long key) { return key; }
+            };
+            // IEEE bits order like signed integers once the magnitude of negatives is flipped
+            case FLOAT -> new KeyCodec<Float>() {
+                public long encode(Float key) {
+                    int bits = Float.floatToIntBits(key);
+                    return bits ^ ((bits >> 31) & Integer.MAX_VALUE);
+                }
+                public Float decode(long key) {
+                    int bits = (int) key;
+                    return Float.intBitsToFloat(bits ^ ((bits >> 31) & Integer.MAX_VALUE));
+                }
+            };
+            case DOUBLE -> new KeyCodec<Double>() {
+                public long encode(Double key) {
+                    long bits = Double.doubleToLongBits(key);
+                    return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+                }
+                public Double decode(long key) {
+                    return Double.longBitsToDouble(key ^ ((key >> 63) & Long.MAX_VALUE));
+                }
+            };
+            case DATE -> new KeyCodec<LocalDate>() {
+                public long encode(LocalDate key) { return key.toEpochDay(); }
+                public LocalDate decode(long key) { return LocalDate.ofEpochDay(key); }
+            };
+            case TIME -> new KeyCodec<LocalTime>() {
+                public long encode(LocalTime key) { return key.toNanoOfDay(); }
+                public LocalTime decode(long key) { return LocalTime.ofNanoOfDay(key); }
+            };
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package com.database.tttdb.core.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * {@link Cursor} over pairs read from an index up front, for indexes without a cursor of their
+ * own. The pairs are sorted by key, {@code null} first, keeping the order of equal keys.
+ */
+final class ListCursor<K extends Comparable<? super K>, V> implements Cursor<K, V> {
+    private final List<Pair<K, V>> pairs;
+    private int position;
+
+    ListCursor(List<Pair<K, V>> pairs) {
+        this.pairs = new ArrayList<>(pairs);
+        this.pairs.sort(Comparator.comparing(pair -> pair.key, Comparator.nullsFirst(Comparator.naturalOrder())));
+    }
+
+    @Override
+    public void first() { this.position = 0; }
+    @Override
+    public void last() { this.position = this.pairs.size(); }
+
+    @Override
+    public void seek(K key, boolean inclusive) {
+        int lo = 0, hi = this.pairs.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            K current = this.pairs.get(mid).key;
+            int cmp = current == null ? (key == null ? 0 : -1) : key == null ? 1 : current.compareTo(key);
+            if (cmp < 0 || !inclusive && cmp == 0) lo = mid + 1;
+            else hi = mid;
+        }
+        this.position = lo;
+    }
+
+    @Override
+    public Pair<K, V> next() {
+        return this.position == this.pairs.size() ? null : this.pairs.get(this.position++);
+    }
+    @Override
+    public Pair<K, V> prev() {
+        return this.position == 0 ? null : this.pairs.get(--this.position);
+    }
+}
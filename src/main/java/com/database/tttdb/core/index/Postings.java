@@ -0,0 +1,98 @@
+package com.database.tttdb.core.index;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Values of a duplicate key, kept sorted by hash code so that membership is a binary search
+ * over one array instead of a hash set per key.
+ *
+ * <p>Indexes store the values of a key as a single object: the value itself while the key has
+ * one, a {@code Postings} once it has more. The static helpers work on that representation.</p>
+ */
+public final class Postings {
+    /** Returned by {@link #remove} when the value is not there. */
+    public static final Object MISSING = new Object();
+
+    private Object[] values;
+    private int count;
+
+    private Postings(Object first, Object second) {
+        this.values = new Object[4];
+        this.values[0] = first;
+        this.count = 1;
+        this.insert(second);
+    }
+
+    // Position of value, or -(insertion point + 1)
+    private int indexOf(Object value) {
+        int hash = value.hashCode();
+        int lo = 0, hi = this.count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (this.values[mid].hashCode() < hash) lo = mid + 1;
+            else hi = mid;
+        }
+        for (int i = lo; i < this.count && this.values[i].hashCode() == hash; i++) {
+            if (this.values[i].equals(value)) return i;
+        }
+        return -(lo + 1);
+    }
+    private boolean insert(Object value) {
+        int pos = this.indexOf(value);
+        if (pos >= 0) return false;
+        pos = -(pos + 1);
+        if (this.count == this.values.length) this.values = Arrays.copyOf(this.values, this.count + (this.count >> 1));
+        System.arraycopy(this.values, pos, this.values, pos + 1, this.count - pos);
+        this.values[pos] = value;
+        this.count++;
+        return true;
+    }
+    private boolean delete(Object value) {
+        int pos = this.indexOf(value);
+        if (pos < 0) return false;
+        System.arraycopy(this.values, pos + 1, this.values, pos, this.count - pos - 1);
+        this.values[--this.count] = null;
+        return true;
+    }
+
+    /**
+     * @param values current values of a key, null if it has none
+     * @return the values with value added, or null if it is already there
+     */
+    public static Object add(Object values, Object value) {
+        if (values == null) return value;
+        if (values instanceof Postings postings) return postings.insert(value) ? postings : null;
+        if (values.equals(value)) return null;
+        return new Postings(values, value);
+    }
+
+    /**
+     * @param values current values of a key, null if it has none
+     * @return the values without value (null once empty), or {@link #MISSING} if it is not there
+     */
+    public static Object remove(Object values, Object value) {
+        if (values instanceof Postings postings) {
+            if (!postings.delete(value)) return MISSING;
+            return postings.count == 1 ? postings.values[0] : postings;
+        }
+        return values != null && values.equals(value) ? null : MISSING;
+    }
+
+    /** @return number of values held */
+    public static int count(Object values) {
+        if (values == null) return 0;
+        return values instanceof Postings postings ? postings.count : 1;
+    }
+
+    /** Appends one pair per value to result. */
+    @SuppressWarnings("unchecked")
+    public static <K, V> void addPairs(List<Pair<K, V>> result, K key, Object values) {
+        if (values == null) return;
+        if (!(values instanceof Postings postings)) {
+            result.add(new Pair<>(key, (V) values));
+            return;
+        }
+        for (int i = 0; i < postings.count; i++) result.add(new Pair<>(key, (V) postings.values[i]));
+    }
+}
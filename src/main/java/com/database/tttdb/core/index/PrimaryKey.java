@@ -1,10 +1,11 @@
 package com.database.tttdb.core.index;
 
+import com.database.tttdb.core.table.DataType;
 import com.database.tttdb.core.table.Table;
 
 public class PrimaryKey<K extends Comparable<? super K>> extends IndexInit<K> {
-    public PrimaryKey(Table table, int columnIndex) {
-        super(table.getDatabase().getIndexType());
+    public PrimaryKey(Table table, int columnIndex, DataType type) {
+        super(table.getDatabase().getIndexType(), type);
         this.columnIndex = columnIndex;
     }
 }
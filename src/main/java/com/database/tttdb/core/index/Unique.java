@@ -1,10 +1,11 @@
 package com.database.tttdb.core.index;
 
+import com.database.tttdb.core.table.DataType;
 import com.database.tttdb.core.table.Table;
 
 public class Unique<K extends Comparable<? super K>> extends IndexInit<K> {
-    public Unique(Table table, int columnIndex) {
-        super(table.getDatabase().getIndexType());
+    public Unique(Table table, int columnIndex, DataType type) {
+        super(table.getDatabase().getIndexType(), type);
         this.setNullable(true);
         this.columnIndex = columnIndex;
     }
@@ -0,0 +1,573 @@
+package com.database.tttdb.core.index.art;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.database.tttdb.core.index.BinaryKeyCodec;
+import com.database.tttdb.core.index.Index;
+import com.database.tttdb.core.index.Pair;
+import com.database.tttdb.core.index.Postings;
+
+/**
+ * Adaptive radix tree (ART) over the order-preserving byte encoding of the keys
+ * (see {@link BinaryKeyCodec}).
+ *
+ * <p>Inner nodes branch on one byte of the encoded key and come in four sizes, grown and shrunk
+ * as children are added and removed:
+ * <ul>
+ *   <li>Node4 and Node16: sorted arrays of key bytes and children</li>
+ *   <li>Node48: a 256-entry byte index into 48 children</li>
+ *   <li>Node256: one child slot per byte value</li>
+ * </ul>
+ * Chains of single-child nodes are collapsed into a prefix stored on the next inner node, so the
+ * height depends on where keys differ, not on their length. Leaves keep only the encoded bytes
+ * left below their position (often none) with the value or {@link Postings}; keys returned by
+ * scans are decoded from the path.</p>
+ *
+ * <p>Children are visited in byte order, which is key order, so range scans walk the tree
+ * in order. Null keys are kept apart from the tree (when null values are enabled).</p>
+ *
+ * @param <K> Key type (must implement Comparable)
+ * @param <V> Value type associated with keys
+ */
+public class AdaptiveRadixTree<K extends Comparable<? super K>, V> implements Index<K, V> {
+
+    private final BinaryKeyCodec<K> codec;
+    private Node root;
+    private long size = 0;
+    private boolean isUnique = true;
+    private boolean isNullable = false;
+    private Object nullValues;// Value or Postings of the null key, null if there is none
+
+    /**
+     * @param codec byte encoding of the keys
+     */
+    public AdaptiveRadixTree(BinaryKeyCodec<K> codec) {
+        this.codec = codec;
+    }
+
+    // ========! INSERTION !==========
+    // Core Operation (see interface docs for details)
+    public void insert(K key, V value) {
+        if (key == null) {
+            if (!this.isNullable) return;
+            Object values = Postings.add(this.nullValues, value);
+            if (values == null) return;
+            this.nullValues = values;
+            this.size++;
+            return;
+        }
+        this.root = this.insert(this.root, this.codec.encode(key), 0, value);
+    }
+
+    // Returns the node that takes the place of node
+    private Node insert(Node node, byte[] encoded, int depth, V value) {
+        if (node == null) {
+            this.size++;
+            return new Leaf(encoded, depth, value);
+        }
+        if (node instanceof Leaf leaf) {
+            if (leaf.matches(encoded, depth)) {
+                if (this.isUnique) return leaf; // Key exists and tree is unique
+                Object values = Postings.add(leaf.values, value);
+                if (values == null) return leaf;
+                leaf.values = values;
+                this.size++;
+                return leaf;
+            }
+            // Split the leaf where the two keys start to differ
+            int end = depth;
+            while (leaf.suffix[end - depth] == encoded[end]) end++;
+            Inner split = new Node4(slice(encoded, depth, end));
+            int branch = leaf.suffix[end - depth] & 0xFF;
+            leaf.suffix = slice(leaf.suffix, end - depth + 1, leaf.suffix.length);
+            split.put(branch, leaf);
+            split.put(encoded[end] & 0xFF, new Leaf(encoded, end + 1, value));
+            this.size++;
+            return split;
+        }
+        Inner inner = (Inner) node;
+        int matched = inner.matchPrefix(encoded, depth);
+        if (matched < inner.prefix.length) {
+            // The key leaves the compressed path: split the prefix
+            Inner split = new Node4(slice(inner.prefix, 0, matched));
+            int branch = inner.prefix[matched] & 0xFF;
+            inner.prefix = slice(inner.prefix, matched + 1, inner.prefix.length);
+            split.put(branch, inner);
+            split.put(encoded[depth + matched] & 0xFF, new Leaf(encoded, depth + matched + 1, value));
+            this.size++;
+            return split;
+        }
+        depth += inner.prefix.length;
+        int b = encoded[depth] & 0xFF;
+        Node child = inner.find(b);
+        Node updated = this.insert(child, encoded, depth + 1, value);
+        if (updated == child) return inner;
+        if (child == null && inner.isFull()) inner = inner.grow();
+        inner.put(b, updated);
+        return inner;
+    }
+
+    // ===========! REMOVING !=============
+    // Core Operation (see interface docs for details)
+    public void remove(K key, V value) {
+        if (key == null) {
+            if (!this.isNullable || this.nullValues == null) return;
+            Object values = Postings.remove(this.nullValues, value);
+            if (values == Postings.MISSING) return;
+            this.nullValues = values;
+            this.size--;
+            return;
+        }
+        if (this.root != null) this.root = this.remove(this.root, this.codec.encode(key), 0, value);
+    }
+
+    // Returns the node that takes the place of node, null once it is empty
+    private Node remove(Node node, byte[] encoded, int depth, V value) {
+        if (node instanceof Leaf leaf) {
+            if (!leaf.matches(encoded, depth)) return leaf;
+            Object values = Postings.remove(leaf.values, value);
+            if (values == Postings.MISSING) return leaf; // The specific value was not found for this key.
+            this.size--;
+            if (values == null) return null;
+            leaf.values = values;
+            return leaf;
+        }
+        Inner inner = (Inner) node;
+        if (inner.matchPrefix(encoded, depth) < inner.prefix.length) return inner;
+        depth += inner.prefix.length;
+        if (depth >= encoded.length) return inner;
+        int b = encoded[depth] & 0xFF;
+        Node child = inner.find(b);
+        if (child == null) return inner;
+        Node updated = this.remove(child, encoded, depth + 1, value);
+        if (updated == child) return inner;
+        if (updated != null) {
+            inner.put(b, updated);
+            return inner;
+        }
+        inner.remove(b);
+        if (inner.count > 1) return inner.shrink();
+        // A single child takes the place of its parent, inheriting the parent's path
+        int only = inner.next(0);
+        Node last = inner.find(only);
+        if (last instanceof Inner lastInner) lastInner.prefix = join(inner.prefix, only, lastInner.prefix);
+        else ((Leaf) last).suffix = join(inner.prefix, only, ((Leaf) last).suffix);
+        return last;
+    }
+
+    // ==========! SEARCHING !===========
+    // Core Operation (see interface docs for details)
+    public List<Pair<K, V>> search(K key) {
+        List<Pair<K, V>> result = new ArrayList<>();
+        if (key == null) {
+            if (this.isNullable) Postings.addPairs(result, null, this.nullValues);
+            return result;
+        }
+        Leaf leaf = this.findLeaf(key);
+        if (leaf != null) Postings.addPairs(result, key, leaf.values);
+        return result;
+    }
+    // Core Operation (see interface docs for details)
+    public boolean isKey(K key) {
+        if (key == null) return this.isNullable && this.nullValues != null;
+        return this.findLeaf(key) != null;
+    }
+
+    public K getMax(){
+        if (this.root == null) return null;
+        KeyBuffer path = new KeyBuffer();
+        Node current = this.root;
+        while (current instanceof Inner inner) {
+            int b = inner.previous(255);
+            path.append(inner.prefix);
+            path.append(b);
+            current = inner.find(b);
+        }
+        path.append(((Leaf) current).suffix);
+        return this.codec.decode(path.toArray());
+    }
+
+    // Leaf holding key, null if there is none
+    private Leaf findLeaf(K key) {
+        byte[] encoded = this.codec.encode(key);
+        Node current = this.root;
+        int depth = 0;
+        while (current instanceof Inner inner) {
+            if (inner.matchPrefix(encoded, depth) < inner.prefix.length) return null;
+            depth += inner.prefix.length;
+            if (depth >= encoded.length) return null;
+            current = inner.find(encoded[depth++] & 0xFF);
+        }
+        if (current == null) return null;
+        Leaf leaf = (Leaf) current;
+        return leaf.matches(encoded, depth) ? leaf : null;
+    }
+
+    // Core Operation (see interface docs for details)
+    public List<Pair<K,V>> rangeSearch(K start, K end) {
+        List<Pair<K,V>> result = new ArrayList<>();
+        if (start == null && this.isNullable) Postings.addPairs(result, null, this.nullValues);
+        if (this.root == null) return result;
+        byte[] low = start == null ? null : this.codec.encode(start);
+        byte[] high = end == null ? null : this.codec.encode(end);
+        this.scan(this.root, new KeyBuffer(), low, high, result);
+        return result;
+    }
+
+    /*
+     * Appends the entries of a subtree within the bounds, in order. path holds the bytes leading to
+     * node; low and high are the encoded bounds while path still equals their first bytes, null
+     * once it is past them.
+     */
+    private void scan(Node node, KeyBuffer path, byte[] low, byte[] high, List<Pair<K,V>> result) {
+        int depth = path.length;
+        if (node instanceof Leaf leaf) {
+            byte[] suffix = leaf.suffix;
+            if (low != null && compareFrom(suffix, low, depth) < 0) return;
+            if (high != null && compareFrom(suffix, high, depth) > 0) return;
+            path.append(suffix);
+            Postings.addPairs(result, this.codec.decode(path.toArray()), leaf.values);
+            path.length = depth;
+            return;
+        }
+        Inner inner = (Inner) node;
+        for (int i = 0; i < inner.prefix.length && (low != null || high != null); i++) {
+            int b = inner.prefix[i] & 0xFF;
+            if (low != null) {
+                int bound = depth + i < low.length ? low[depth + i] & 0xFF : -1;
+                if (b < bound) return; // whole subtree below start
+                if (b > bound) low = null;
+            }
+            if (high != null) {
+                int bound = depth + i < high.length ? high[depth + i] & 0xFF : -1;
+                if (b > bound) return; // whole subtree above end
+                if (b < bound) high = null;
+            }
+        }
+        path.append(inner.prefix);
+        int branchDepth = path.length;
+        int from = low != null && branchDepth < low.length ? low[branchDepth] & 0xFF : 0;
+        int to = high != null && branchDepth < high.length ? high[branchDepth] & 0xFF : 255;
+        for (int b = inner.next(from); b <= to; b = inner.next(b + 1)) {
+            path.length = branchDepth;
+            path.append(b);
+            this.scan(inner.find(b), path, b == from ? low : null, b == to ? high : null, result);
+        }
+        path.length = depth;
+    }
+
+    // Compares suffix with the bytes of bound from offset, unsigned
+    private static int compareFrom(byte[] suffix, byte[] bound, int offset) {
+        int from = Math.min(offset, bound.length);
+        return Arrays.compareUnsigned(suffix, 0, suffix.length, bound, from, bound.length);
+    }
+
+    // ===============UPDATE=============
+    /**
+     * Updates a value (assumes unique keys).
+     *
+     * @param key Key to update
+     * @param newValue New value to set
+     */
+    public void update(K key, V newValue) throws IllegalStateException{
+        if (!this.isUnique) throw new IllegalStateException("Must specify oldValue in non-unique trees.");
+        this.update(key, newValue, null);
+    }
+
+    /**
+     * Updates a value associated with a key. For non-unique trees,
+     * specifies old value to update.
+     *
+     * @param key Key to update
+     * @param newValue New value to set
+     * @param oldValue Old value to replace (required for non-unique trees)
+     */
+    public void update(K key, V newValue, V oldValue) throws IllegalStateException {
+        if (key == null) {
+            if (this.isNullable && newValue != null) this.nullValues = this.replaceValue(this.nullValues, oldValue, newValue);
+            return;
+        }
+        if (this.isUnique && oldValue != null) throw new IllegalStateException("Cannot specify oldValue in unique trees.");
+        if (newValue == null) return;
+        Leaf leaf = this.findLeaf(key);
+        if (leaf == null) return;
+        leaf.values = this.isUnique ? newValue : this.replaceValue(leaf.values, oldValue, newValue);
+    }
+
+    // Values with oldValue swapped for newValue, unchanged if oldValue is not there
+    private Object replaceValue(Object values, V oldValue, V newValue) {
+        Object removed = Postings.remove(values, oldValue);
+        if (removed == Postings.MISSING) return values;
+        Object updated = Postings.add(removed, newValue);
+        if (updated != null) return updated;
+        this.size--; // newValue was already there
+        return removed;
+    }
+
+    public void clear(){
+        this.root = null;
+        this.nullValues = null;
+        this.size = 0;
+    }
+
+    private static final byte[] EMPTY = new byte[0];
+
+    // Bytes of key from from to to, shared EMPTY if there are none
+    private static byte[] slice(byte[] key, int from, int to) {
+        return from >= to ? EMPTY : Arrays.copyOfRange(key, from, to);
+    }
+
+    // head, then b, then tail
+    private static byte[] join(byte[] head, int b, byte[] tail) {
+        byte[] joined = Arrays.copyOf(head, head.length + 1 + tail.length);
+        joined[head.length] = (byte) b;
+        System.arraycopy(tail, 0, joined, head.length + 1, tail.length);
+        return joined;
+    }
+
+    /** Growable byte array holding the path of a scan. */
+    private static final class KeyBuffer {
+        byte[] bytes = new byte[32];
+        int length;
+
+        void append(int b) {
+            if (this.length == this.bytes.length) this.bytes = Arrays.copyOf(this.bytes, this.length * 2);
+            this.bytes[this.length++] = (byte) b;
+        }
+        void append(byte[] b) {
+            if (this.length + b.length > this.bytes.length) this.bytes = Arrays.copyOf(this.bytes, Math.max(this.length * 2, this.length + b.length));
+            System.arraycopy(b, 0, this.bytes, this.length, b.length);
+            this.length += b.length;
+        }
+        byte[] toArray() { return Arrays.copyOf(this.bytes, this.length); }
+    }
+
+    // =======! NODES !======
+    private static class Node {}
+
+    private static final class Leaf extends Node {
+        byte[] suffix;  // Encoded key bytes below the leaf's position
+        Object values;  // Value or Postings of the key
+
+        Leaf(byte[] key, int depth, Object value) {
+            this.suffix = slice(key, depth, key.length);
+            this.values = value;
+        }
+
+        boolean matches(byte[] key, int depth) {
+            return Arrays.equals(this.suffix, 0, this.suffix.length, key, Math.min(depth, key.length), key.length);
+        }
+    }
+
+    /** Inner node: branches on the byte that follows its compressed path. */
+    private static abstract class Inner extends Node {
+        byte[] prefix;
+        int count;
+
+        Inner(byte[] prefix) { this.prefix = prefix; }
+
+        /** @return child for a byte, null if there is none */
+        abstract Node find(int b);
+        /** Sets the child for a byte, adding it if there is none (the node must not be full then). */
+        abstract void put(int b, Node child);
+        abstract void remove(int b);
+        /** @return smallest byte at least from that has a child, 256 if there is none */
+        abstract int next(int from);
+        /** @return largest byte at most from that has a child, -1 if there is none */
+        abstract int previous(int from);
+        abstract boolean isFull();
+        /** @return node of the next size holding the same children */
+        abstract Inner grow();
+        /** @return node of the previous size if the children fit with room to spare, else this */
+        abstract Inner shrink();
+
+        // Number of prefix bytes equal to the key bytes from depth
+        int matchPrefix(byte[] key, int depth) {
+            int n = Math.min(this.prefix.length, key.length - depth);
+            int i = 0;
+            while (i < n && this.prefix[i] == key[depth + i]) i++;
+            return i;
+        }
+    }
+
+    /** Node4 and Node16: key bytes kept sorted next to their children. */
+    private static class SortedNode extends Inner {
+        final byte[] keys;
+        final Node[] children;
+
+        SortedNode(byte[] prefix, int capacity) {
+            super(prefix);
+            this.keys = new byte[capacity];
+            this.children = new Node[capacity];
+        }
+
+        // Position of b, or -(insertion point + 1)
+        private int indexOf(int b) {
+            for (int i = 0; i < this.count; i++) {
+                int key = this.keys[i] & 0xFF;
+                if (key == b) return i;
+                if (key > b) return -(i + 1);
+            }
+            return -(this.count + 1);
+        }
+        Node find(int b) {
+            int i = this.indexOf(b);
+            return i < 0 ? null : this.children[i];
+        }
+        void put(int b, Node child) {
+            int i = this.indexOf(b);
+            if (i >= 0) {
+                this.children[i] = child;
+                return;
+            }
+            i = -(i + 1);
+            System.arraycopy(this.keys, i, this.keys, i + 1, this.count - i);
+            System.arraycopy(this.children, i, this.children, i + 1, this.count - i);
+            this.keys[i] = (byte) b;
+            this.children[i] = child;
+            this.count++;
+        }
+        void remove(int b) {
+            int i = this.indexOf(b);
+            if (i < 0) return;
+            System.arraycopy(this.keys, i + 1, this.keys, i, this.count - i - 1);
+            System.arraycopy(this.children, i + 1, this.children, i, this.count - i - 1);
+            this.children[--this.count] = null;
+        }
+        int next(int from) {
+            for (int i = 0; i < this.count; i++) {
+                if ((this.keys[i] & 0xFF) >= from) return this.keys[i] & 0xFF;
+            }
+            return 256;
+        }
+        int previous(int from) {
+            for (int i = this.count - 1; i >= 0; i--) {
+                if ((this.keys[i] & 0xFF) <= from) return this.keys[i] & 0xFF;
+            }
+            return -1;
+        }
+        boolean isFull() { return this.count == this.keys.length; }
+        Inner grow() {
+            Inner grown = this.keys.length == 4 ? new Node16(this.prefix) : new Node48(this.prefix);
+            for (int i = 0; i < this.count; i++) grown.put(this.keys[i] & 0xFF, this.children[i]);
+            return grown;
+        }
+        Inner shrink() {
+            if (this.keys.length == 4 || this.count > 3) return this;
+            Inner shrunk = new Node4(this.prefix);
+            for (int i = 0; i < this.count; i++) shrunk.put(this.keys[i] & 0xFF, this.children[i]);
+            return shrunk;
+        }
+    }
+
+    private static final class Node4 extends SortedNode {
+        Node4(byte[] prefix) { super(prefix, 4); }
+    }
+
+    private static final class Node16 extends SortedNode {
+        Node16(byte[] prefix) { super(prefix, 16); }
+    }
+
+    private static final class Node48 extends Inner {
+        final byte[] index = new byte[256]; // slot + 1 of the child of each byte, 0 if none
+        final Node[] children = new Node[48];
+
+        Node48(byte[] prefix) { super(prefix); }
+
+        Node find(int b) {
+            int slot = this.index[b];
+            return slot == 0 ? null : this.children[slot - 1];
+        }
+        void put(int b, Node child) {
+            int slot = this.index[b];
+            if (slot == 0) {
+                while (this.children[slot] != null) slot++;
+                this.index[b] = (byte) (slot + 1);
+                this.count++;
+            } else {
+                slot--;
+            }
+            this.children[slot] = child;
+        }
+        void remove(int b) {
+            int slot = this.index[b];
+            if (slot == 0) return;
+            this.children[slot - 1] = null;
+            this.index[b] = 0;
+            this.count--;
+        }
+        int next(int from) {
+            for (int b = from; b < 256; b++) if (this.index[b] != 0) return b;
+            return 256;
+        }
+        int previous(int from) {
+            for (int b = from; b >= 0; b--) if (this.index[b] != 0) return b;
+            return -1;
+        }
+        boolean isFull() { return this.count == 48; }
+        Inner grow() {
+            Inner grown = new Node256(this.prefix);
+            for (int b = 0; b < 256; b++) if (this.index[b] != 0) grown.put(b, this.children[this.index[b] - 1]);
+            return grown;
+        }
+        Inner shrink() {
+            if (this.count > 12) return this;
+            Inner shrunk = new Node16(this.prefix);
+            for (int b = 0; b < 256; b++) if (this.index[b] != 0) shrunk.put(b, this.children[this.index[b] - 1]);
+            return shrunk;
+        }
+    }
+
+    private static final class Node256 extends Inner {
+        final Node[] children = new Node[256];
+
+        Node256(byte[] prefix) { super(prefix); }
+
+        Node find(int b) { return this.children[b]; }
+        void put(int b, Node child) {
+            if (this.children[b] == null) this.count++;
+            this.children[b] = child;
+        }
+        void remove(int b) {
+            if (this.children[b] == null) return;
+            this.children[b] = null;
+            this.count--;
+        }
+        int next(int from) {
+            for (int b = from; b < 256; b++) if (this.children[b] != null) return b;
+            return 256;
+        }
+        int previous(int from) {
+            for (int b = from; b >= 0; b--) if (this.children[b] != null) return b;
+            return -1;
+        }
+        boolean isFull() { return false; }
+        Inner grow() { return this; }
+        Inner shrink() {
+            if (this.count > 37) return this;
+            Inner shrunk = new Node48(this.prefix);
+            for (int b = 0; b < 256; b++) if (this.children[b] != null) shrunk.put(b, this.children[b]);
+            return shrunk;
+        }
+    }
+
+    // Configuration & Accessors
+    /**
+     * Enables/disables key uniqueness.
+     *
+     * @param unique true to enforce unique keys, false to allow duplicates
+     */
+    public void setUnique(boolean unique) {this.isUnique = unique;}
+    public boolean isUnique(){return this.isUnique;}
+    public void setNullable(boolean nullable) {this.isNullable = nullable;}
+    public boolean isNullable(){return this.isNullable;}
+    /** @return Number of keys(if unique) or values(if not unique) in the tree */
+    public long size(){return this.size;}
+
+    @Override
+    public String toString() {
+        return "AdaptiveRadixTree{size=" + this.size + "}";
+    }
+}
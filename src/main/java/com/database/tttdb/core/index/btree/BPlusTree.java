@@ -1,15 +1,17 @@
 package com.database.tttdb.core.index.btree;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.List;
 
 import java.util.LinkedList;
 import java.util.Queue;
 
+import com.database.tttdb.core.index.AbstractCursor;
+import com.database.tttdb.core.index.Cursor;
 import com.database.tttdb.core.index.Index;
 import com.database.tttdb.core.index.Pair;
+import com.database.tttdb.core.index.Postings;
 
 /**
  * B+ Tree implementation supporting configurable order, unique/non-unique keys,
@@ -19,26 +21,35 @@ import com.database.tttdb.core.index.Pair;
  * <p>Key Features:
  * <ul>
  *   <li>Automatic height adjustment during insertions/deletions</li>
- *   <li>Leaf node chaining for efficient range scans</li>
+ *   <li>Leaf node chaining in both directions for range scans and {@link Cursor}s</li>
  *   <li>Support for duplicate keys (when uniqueness is disabled)</li>
  *   <li>Support for Null values (when null values are enabled)</li>
  *   <li>Dynamic node splitting/merging with borrowing optimizations</li>
  * </ul>
  *
+ * <p>Nodes keep their keys in sorted arrays searched with binary search, and the tree is
+ * descended recursively so nodes need no parent pointers. A duplicate key holds its values
+ * in a compact {@link Postings} array, and String keys of a leaf share their common prefix
+ * (see {@link Node}).</p>
+ *
  * @param <K> Key type (must implement Comparable)
  * @param <V> Value type associated with keys
  */
 public class BPlusTree<K extends Comparable<? super K>, V> implements Index<K, V> {
 
+    private static final int CACHE_LINE_BYTES = 64;
+    private static final int REFERENCE_BYTES = 4; // compressed object pointers
+
     private Node<K, V> root;
     private Node<K, V> start;// Points to the first leaf node
     private final int order;
     private long size = 0;
     private boolean isUnique = true;
     private boolean isNullable = false;
-    private Pair<K,V> nullPair;
+    private Object nullValues;// Value or Postings of the null key, null if there is none
     private final int minKeys;
-    private final Comparator<Pair<K, V>> keyComparator = (pair1, pair2) -> pair1.key.compareTo(pair2.key);
+
+    private record Split<K, V>(K key, Node<K, V> right) {}
 
     /**
      * Constructs a B+ Tree with specified order.
@@ -49,456 +60,355 @@ public class BPlusTree<K extends Comparable<? super K>, V> implements Index<K, V
     public BPlusTree(int order) {
         if (order < 3)
             throw new IllegalArgumentException("B+Tree Order must be at least 3.");
-        this.root = new Node<>(true);// Start with an empty leaf root
-        this.start = root;
         this.order = order;
-        this.size = 0;
         this.minKeys = (int) Math.ceil((double) this.order / 2.0) - 1;
+        this.clear();
+    }
+
+    /**
+     * Order whose key array of references fills the given number of cache lines.
+     *
+     * @param cacheLines cache lines per key array
+     * @return tree order, at least 3
+     */
+    public static int orderForCacheLines(int cacheLines) {
+        return Math.max(3, cacheLines * CACHE_LINE_BYTES / REFERENCE_BYTES);
     }
 
     // ========! INSERTION !==========
     // Core Operation (see interface docs for details)
     public void insert(K key, V value) {
-        if(this.nullInsert(key, value)) return;
-        Pair<K, V> newPair = new Pair<>(key, value);
-        // Split root if it's full
-        if (this.root.pairs.size() == order - 1) {
-            splitRoot();
-        }
-        insertNonFull(this.root, newPair);
-    }
-
-    private boolean nullInsert(K key, V value){
-        if(!this.isNullable) return false;
-        if(key == null){
-            if(this.nullPair == null) this.nullPair = new Pair<>(null,null);
-            if(this.nullPair.value == null) this.nullPair.value = value;
-            else this.nullPair.addDup(value);
+        if (key == null && this.isNullable) {
+            Object values = Postings.add(this.nullValues, value);
+            if (values == null) return;
+            this.nullValues = values;
             this.size++;
-            return true;
-        }
-        return false;
-    }
-
-    private void splitRoot() {
-        Node<K, V> newRoot = new Node<>(false);
-        Node<K, V> oldRoot = root;
-        root = newRoot;
-        newRoot.children.add(oldRoot);
-        oldRoot.parent = newRoot;
-        splitChild(newRoot, 0);
-    }
-
-    private void splitChild(Node<K, V> parentNode, int childIndex) {
-        Node<K, V> leftChild = parentNode.children.get(childIndex);
-        Node<K, V> newRightChild = new Node<>(leftChild.isLeaf);
-        newRightChild.parent = parentNode;
-        if (leftChild.isLeaf) {
-            splitLeaf(leftChild, newRightChild, childIndex);
-        } else {
-            splitInternal(leftChild, newRightChild, childIndex);
-        }
-        // Recursive parent splitting added here
-        if (parentNode.pairs.size() >= order) {
-            if (parentNode == root) {
-                splitRoot();
-            } else {
-                int indexInGrandparent = parentNode.parent.children.indexOf(parentNode);
-                splitChild(parentNode.parent, indexInGrandparent);
-            }
-        }
-    }
-
-    private void splitLeaf(Node<K, V> leftChild, Node<K, V> rightChild, int childIndex) {
-        int splitPoint = leftChild.pairs.size() / 2;
-        // Move pairs to new node
-        rightChild.pairs.addAll(leftChild.pairs.subList(splitPoint, leftChild.pairs.size()));
-        leftChild.pairs.subList(splitPoint, leftChild.pairs.size()).clear();
-        // Update leaf links
-        rightChild.next = leftChild.next;
-        leftChild.next = rightChild;
-        // Promote first key of right child
-        K promotedKey = rightChild.pairs.getFirst().key;
-        Node<K, V> parent = leftChild.parent;
-        // Insert in parent at correct position
-        parent.pairs.add(childIndex, new Pair<>(promotedKey, null));
-        parent.children.add(childIndex + 1, rightChild);
-    }
-
-    private void splitInternal(Node<K, V> leftChild, Node<K, V> rightChild, int childIndex) {
-        int midIndex = leftChild.pairs.size() / 2;
-        Pair<K, V> promotedPair = leftChild.pairs.get(midIndex);
-        leftChild.pairs.remove(midIndex);
-        // Move keys and children to the new node
-        rightChild.pairs.addAll(leftChild.pairs.subList(midIndex, leftChild.pairs.size()));
-        rightChild.children.addAll(leftChild.children.subList(midIndex + 1, leftChild.children.size()));
-        // Clean up the child node
-        leftChild.pairs.subList(midIndex, leftChild.pairs.size()).clear();
-        leftChild.children.subList(midIndex + 1, leftChild.children.size()).clear();
-        // Update parent pointers for the new node's children
-        for (Node<K, V> child : rightChild.children) {
-            child.parent = rightChild;
+            return;
         }
-        // Insert promoted key and new child into the parent (immediate parent)
-        rightChild.parent.pairs.add(childIndex, promotedPair);
-        rightChild.parent.children.add(childIndex + 1, rightChild);
+        Split<K, V> split = this.insert(this.root, key, value);
+        if (split == null) return;
+        Node<K, V> newRoot = new Node<>(false, this.order);
+        newRoot.keys[0] = split.key();
+        newRoot.children[0] = this.root;
+        newRoot.children[1] = split.right();
+        newRoot.count = 1;
+        this.root = newRoot;
     }
 
-    private void insertNonFull(Node<K, V> node, Pair<K, V> pair) {
+    private Split<K, V> insert(Node<K, V> node, K key, V value) {
         if (node.isLeaf) {
-            insertIntoLeaf(node, pair);
-        } else {
-            insertIntoInternal(node, pair);
-        }
-    }
-
-    private void insertIntoLeaf(Node<K, V> leaf, Pair<K, V> pair) {
-        int pos = Collections.binarySearch(leaf.pairs, pair, keyComparator);
-        if (pos >= 0 && isUnique) {
-            return; // Key exists and tree is unique
-        } else if (pos >= 0) {
-            // Handle duplicates by adding to the existing pair's duplicates
-            if (!leaf.pairs.get(pos).value.equals(pair.value)) {
-                leaf.pairs.get(pos).addDup(pair.value);
+            int pos = lowerBound(node, key);
+            if (pos < node.count && node.compare(pos, key) == 0) {
+                if (this.isUnique) return null; // Key exists and tree is unique
+                Object values = Postings.add(node.values[pos], value);
+                if (values == null) return null;
+                node.values[pos] = values;
                 this.size++;
+                return null;
             }
-        } else {
-            pos = -(pos + 1);
-            leaf.pairs.add(pos, pair);
+            System.arraycopy(node.keys, pos, node.keys, pos + 1, node.count - pos);
+            System.arraycopy(node.values, pos, node.values, pos + 1, node.count - pos);
+            node.count++;
+            node.setKey(pos, key);
+            node.values[pos] = value;
             this.size++;
-            if (leaf.pairs.size() >= order) {
-                if (leaf == root) {
-                    splitRoot(); // Special handling for root leaf
-                } else {
-                    splitChild(leaf.parent, parentChildIndex(leaf));
-                }
-            }
-        }
-    }
-
-    private int parentChildIndex(Node<K, V> child) {
-        return child.parent.children.indexOf(child);
+            return node.count < this.order ? null : this.splitLeaf(node);
+        }
+        int index = childIndex(node, key);
+        Split<K, V> split = this.insert(node.children[index], key, value);
+        if (split == null) return null;
+        System.arraycopy(node.keys, index, node.keys, index + 1, node.count - index);
+        System.arraycopy(node.children, index + 1, node.children, index + 2, node.count - index);
+        node.keys[index] = split.key();
+        node.children[index + 1] = split.right();
+        node.count++;
+        return node.count < this.order ? null : this.splitInternal(node);
     }
 
-    private void insertIntoInternal(Node<K, V> node, Pair<K, V> pair) {
-        int index = findChildIndex(node, pair.key);
-        Node<K, V> child = node.children.get(index);
-        if (child.pairs.size() >= order) {
-            splitChild(node, index);
-            // Adjust index after split
-            if (pair.key.compareTo(node.pairs.get(index).key) > 0) {
-                index++;
-            }
-        }
-        insertNonFull(node.children.get(index), pair);
+    private Split<K, V> splitLeaf(Node<K, V> leaf) {
+        int mid = leaf.count / 2;
+        Node<K, V> right = new Node<>(true, this.order);
+        right.count = leaf.count - mid;
+        right.prefix = leaf.prefix;
+        System.arraycopy(leaf.keys, mid, right.keys, 0, right.count);
+        System.arraycopy(leaf.values, mid, right.values, 0, right.count);
+        Arrays.fill(leaf.keys, mid, leaf.count, null);
+        Arrays.fill(leaf.values, mid, leaf.count, null);
+        leaf.count = mid;
+        leaf.compress();
+        right.compress();
+        right.next = leaf.next;
+        right.prev = leaf;
+        if (leaf.next != null) leaf.next.prev = right;
+        leaf.next = right;
+        return new Split<>(right.getKey(0), right);
     }
 
-    private static <K extends Comparable<? super K>, V> int findChildIndex(Node<K, V> node, K key) {
-        return upperBoundIndex(node, key);
+    private Split<K, V> splitInternal(Node<K, V> node) {
+        int mid = node.count / 2;
+        Node<K, V> right = new Node<>(false, this.order);
+        right.count = node.count - mid - 1;
+        System.arraycopy(node.keys, mid + 1, right.keys, 0, right.count);
+        System.arraycopy(node.children, mid + 1, right.children, 0, right.count + 1);
+        @SuppressWarnings("unchecked")
+        K promoted = (K) node.keys[mid];
+        Arrays.fill(node.keys, mid, node.count, null);
+        Arrays.fill(node.children, mid + 1, node.count + 1, null);
+        node.count = mid;
+        return new Split<>(promoted, right);
     }
 
     // ===========! REMOVING !=============
     // Core Operation (see interface docs for details)
     public void remove(K key, V value) {
-        if(nullRemoval(key, value)) return;
-        if (key == null || root == null) return;
-        // 1. Find the leaf node where the key should exist.
-        Node<K, V> leaf = findLeafNode(key);
-        if (leaf == null) return; // Key is not in the tree.
-        // 2. Remove the entry from the leaf node.
-        boolean wasRemoved = removeFromLeaf(leaf, key, value);
-        // If the specified key-value pair was not found and removed, we are done.
-        if (!wasRemoved) return;
-        // 3. If the root is a leaf with no more entries, the tree is now empty.
-        if (root.isLeaf && root.pairs.isEmpty()) {
-            this.start = root; // 'start' points to the now-empty root/leaf.
+        if (key == null) {
+            if (!this.isNullable || this.nullValues == null) return;
+            Object values = Postings.remove(this.nullValues, value);
+            if (values == Postings.MISSING) return;
+            this.nullValues = values;
+            this.size--;
             return;
         }
-        // 4. Handle underflow. If the leaf has too few keys, we must rebalance.
-        // We use a bottom-up approach, starting from the modified leaf.
-        Node<K, V> currentNode = leaf;
-        while (currentNode != root && currentNode.pairs.size() < minKeys) {
-            Node<K, V> parent = currentNode.parent;
-            int childIndex = parent.children.indexOf(currentNode);
-            handleUnderflow(parent, currentNode, childIndex);
-            currentNode = parent; // Move up to the parent to check for cascading underflow.
-        }
-        // 5. If the root is an internal node that has lost all its keys,
-        // its only remaining child becomes the new root, shrinking the tree's height.
-        if (!root.isLeaf && root.pairs.isEmpty()) {
-            root = root.children.getFirst();
-            root.parent = null;
-        }
-        if (!root.isLeaf) {
-            for (int i = 0; i < root.pairs.size(); i++) {
-                Node<K, V> child = root.children.get(i + 1);
-                K firstKey = child.getFirstLeafKey();
-                if (firstKey != null) {
-                    root.pairs.get(i).key = firstKey;
-                }
-            }
-        }
+        if (!this.remove(this.root, key, value)) return;
+        this.size--;
+        // An internal root that lost its last key is replaced by its only child.
+        if (!this.root.isLeaf && this.root.count == 0) this.root = this.root.children[0];
     }
 
-    private boolean nullRemoval(K key, V value) {
-        if (!this.isNullable) return false;
-        if (key == null) {
-            if (this.nullPair.value.equals(value)) {
-                if (this.nullPair.getDuplicates() != null) {
-                    V dupValue = this.nullPair.getDuplicates().iterator().next();
-                    this.nullPair.value = dupValue;
-                    this.nullPair.removeDup(dupValue);
-                    this.size--;
-                } else {
-                    this.nullPair = null;
-                    this.size--;
-                }
-            } else if (this.nullPair.getDuplicates() != null) {
-                this.nullPair.removeDup(value);
-                this.size--;
+    private boolean remove(Node<K, V> node, K key, V value) {
+        if (node.isLeaf) {
+            int pos = lowerBound(node, key);
+            if (pos == node.count || node.compare(pos, key) != 0) return false;
+            Object values = Postings.remove(node.values[pos], value);
+            if (values == Postings.MISSING) return false; // The specific value was not found for this key.
+            if (values != null) {
+                node.values[pos] = values;
+                return true;
             }
+            System.arraycopy(node.keys, pos + 1, node.keys, pos, node.count - pos - 1);
+            System.arraycopy(node.values, pos + 1, node.values, pos, node.count - pos - 1);
+            node.count--;
+            node.keys[node.count] = null;
+            node.values[node.count] = null;
             return true;
         }
-        return false;
-    }
-
-    private Node<K, V> findLeafNode(K key) {
-        Node<K, V> current = this.root;
-        while (!current.isLeaf) {
-            current = current.children.get(findChildIndex(current, key));
-        }
-        return current;
-    }
-
-    private boolean removeFromLeaf(Node<K, V> node, K key, V value) {
-        Pair<K, V> temp = new Pair<>(key, value);
-        int index = Collections.binarySearch(node.pairs, temp, keyComparator);
-        if (index < 0) return false; // Key does not exist.
-        boolean keyWasFirst = (index == 0);
-        // Handle unique vs. non-unique cases
-        if (isUnique) {
-            if(node.pairs.get(index).value.equals(value)) {
-                node.pairs.remove(index);
-                this.size--;
-            }
-        } else {
-            Pair<K, V> pair = node.pairs.get(index);
-            if (pair.value.equals(value)) {
-                // The primary value matches. Promote a duplicate if one exists.
-                if (pair.getDuplicates() != null && !pair.getDuplicates().isEmpty()) {
-                    V dupValue = pair.getDuplicates().iterator().next();
-                    pair.value = dupValue;
-                    pair.removeDup(dupValue);
-                } else {
-                    // This was the last value for this key. Remove the pair.
-                    node.pairs.remove(index);
-                }
-                this.size--;
-            } else if (pair.getDuplicates() != null && pair.getDuplicates().contains(value)) {
-                // The value to remove is in the duplicate set.
-                pair.removeDup(value);
-                this.size--;
-            } else {
-                return false; // The specific value was not found for this key.
-            }
-        }
-
-        // CRITICAL STEP: If we removed the first key in the leaf, the separator key
-        // in one of the parent nodes might now be incorrect. We must update it.
-        if (keyWasFirst && node.parent != null && !node.pairs.isEmpty()) {
-            int childIndex = parentChildIndex(node);
-            if (childIndex > 0) {
-                K newFirstKey = node.pairs.getFirst().key;
-                if (newFirstKey != null) {
-                    node.parent.pairs.get(childIndex - 1).key = newFirstKey;
-                }
-            }
-        }
+        int index = childIndex(node, key);
+        if (!this.remove(node.children[index], key, value)) return false;
+        if (node.children[index].count < this.minKeys) this.handleUnderflow(node, index);
         return true;
     }
 
-    private void handleUnderflow(Node<K, V> parent, Node<K, V> child, int childIndex) {
-        // Try borrowing from the left sibling first.
-        if (childIndex > 0) {
-            Node<K, V> leftSibling = parent.children.get(childIndex - 1);
-            if (leftSibling.pairs.size() > minKeys) {
-                borrowFromLeft(parent, child, leftSibling, childIndex);
-                return;
-            }
-        }
-        // Try borrowing from the right sibling.
-        if (childIndex < parent.children.size() - 1) {
-            Node<K, V> rightSibling = parent.children.get(childIndex + 1);
-            if (rightSibling.pairs.size() > minKeys) {
-                borrowFromRight(parent, child, rightSibling, childIndex);
-                return;
-            }
-        }
-        // If borrowing is not possible, we must merge.
-        // Merge with the right sibling if it exists, otherwise with the left.
-        if (childIndex < parent.children.size() - 1) {
-            mergeNodes(parent, childIndex, childIndex + 1);
-        } else if (childIndex > 0) {
-            mergeNodes(parent, childIndex - 1, childIndex);
-        }
+    private void handleUnderflow(Node<K, V> parent, int index) {
+        Node<K, V> child = parent.children[index];
+        Node<K, V> left = index > 0 ? parent.children[index - 1] : null;
+        Node<K, V> right = index < parent.count ? parent.children[index + 1] : null;
+        // Try borrowing from a sibling first, merge if neither can spare a key.
+        if (left != null && left.count > this.minKeys) this.borrowFromLeft(parent, index, left, child);
+        else if (right != null && right.count > this.minKeys) this.borrowFromRight(parent, index, child, right);
+        else if (right != null) this.mergeNodes(parent, index, child, right);
+        else if (left != null) this.mergeNodes(parent, index - 1, left, child);
     }
 
-    private void borrowFromLeft(Node<K, V> parent, Node<K, V> child, Node<K, V> leftSibling, int childIndex) {
-        if (leftSibling.pairs.isEmpty())
-            return;
+    private void borrowFromLeft(Node<K, V> parent, int index, Node<K, V> left, Node<K, V> child) {
+        System.arraycopy(child.keys, 0, child.keys, 1, child.count);
         if (child.isLeaf) {
             // Leaf node rotation (right rotation)
-            Pair<K, V> borrowedPair = leftSibling.pairs.removeLast();
-            child.pairs.addFirst(borrowedPair);
-            parent.pairs.set(childIndex - 1, new Pair<>(borrowedPair.key, null));
+            System.arraycopy(child.values, 0, child.values, 1, child.count);
+            child.count++;
+            child.setKey(0, left.getKey(left.count - 1));
+            child.values[0] = left.values[left.count - 1];
+            left.values[left.count - 1] = null;
+            parent.keys[index - 1] = child.getKey(0);
         } else {
             // Internal node rotation
-            Pair<K, V> borrowedPair = leftSibling.pairs.removeLast();
-            Node<K, V> borrowedChild = leftSibling.children.removeLast();
-            borrowedChild.parent = child;
-            Pair<K, V> separator = parent.pairs.get(childIndex - 1);
-            child.pairs.addFirst(separator);
-            child.children.addFirst(borrowedChild);
-            parent.pairs.set(childIndex - 1, borrowedPair);
-        }
+            System.arraycopy(child.children, 0, child.children, 1, child.count + 1);
+            child.count++;
+            child.keys[0] = parent.keys[index - 1];
+            child.children[0] = left.children[left.count];
+            left.children[left.count] = null;
+            parent.keys[index - 1] = left.keys[left.count - 1];
+        }
+        left.keys[left.count - 1] = null;
+        left.count--;
     }
 
-    private void borrowFromRight(Node<K, V> parent, Node<K, V> child, Node<K, V> rightSibling, int childIndex) {
-        if (rightSibling.pairs.isEmpty())
-            return;
+    private void borrowFromRight(Node<K, V> parent, int index, Node<K, V> child, Node<K, V> right) {
         if (child.isLeaf) {
             // Leaf node rotation (left rotation)
-            Pair<K, V> borrowedPair = rightSibling.pairs.removeFirst();
-            child.pairs.addLast(borrowedPair);
-            parent.pairs.set(childIndex, new Pair<>(rightSibling.pairs.getFirst().key, null));
+            child.count++;
+            child.setKey(child.count - 1, right.getKey(0));
+            child.values[child.count - 1] = right.values[0];
+            System.arraycopy(right.values, 1, right.values, 0, right.count - 1);
+            right.values[right.count - 1] = null;
         } else {
             // Internal node rotation
-            Pair<K, V> borrowedPair = rightSibling.pairs.removeFirst();
-            Node<K, V> borrowedChild = rightSibling.children.removeFirst();
-            borrowedChild.parent = child;
-            Pair<K, V> separator = parent.pairs.get(childIndex);
-            child.pairs.addLast(separator);
-            child.children.addLast(borrowedChild);
-            parent.pairs.set(childIndex, borrowedPair);
-        }
+            child.keys[child.count] = parent.keys[index];
+            child.children[child.count + 1] = right.children[0];
+            child.count++;
+            parent.keys[index] = right.keys[0];
+            System.arraycopy(right.children, 1, right.children, 0, right.count);
+            right.children[right.count] = null;
+        }
+        System.arraycopy(right.keys, 1, right.keys, 0, right.count - 1);
+        right.keys[right.count - 1] = null;
+        right.count--;
+        if (child.isLeaf) parent.keys[index] = right.getKey(0);
     }
 
-    private void mergeNodes(Node<K, V> parent, int leftIndex, int rightIndex) {
-        Node<K, V> leftChild = parent.children.get(leftIndex);
-        Node<K, V> rightChild = parent.children.get(rightIndex);
-        // If the nodes are internal, we must also pull down the separator key from the
-        // parent.
-        if (!leftChild.isLeaf) {
-            Pair<K, V> separator = parent.pairs.get(leftIndex);
-            leftChild.pairs.add(separator);
-        }
-        // Move all pairs and children from the right node to the left node.
-        leftChild.pairs.addAll(rightChild.pairs);
-        if (!leftChild.isLeaf) {
-            for (Node<K, V> node : rightChild.children) {
-                node.parent = leftChild;
+    // Appends right to left and drops the separator between them from the parent.
+    private void mergeNodes(Node<K, V> parent, int leftIndex, Node<K, V> left, Node<K, V> right) {
+        if (left.isLeaf) {
+            for (int i = 0; i < right.count; i++) {
+                left.count++;
+                left.setKey(left.count - 1, right.getKey(i));
+                left.values[left.count - 1] = right.values[i];
             }
-            leftChild.children.addAll(rightChild.children);
-        }
-        // If they are leaves, update the linked list pointer.
-        if (leftChild.isLeaf) {
-            leftChild.next = rightChild.next;
-            if (!leftChild.pairs.isEmpty()) {
-                int newLeftIndex = parent.children.indexOf(leftChild);
-                if (newLeftIndex > 0) {
-                    parent.pairs.get(newLeftIndex - 1).key = leftChild.pairs.getFirst().key;
-                }
-            }
-        }
-        // Remove the separator and the pointer to the right child from the parent,
-        // as the right child is now empty and obsolete.
-        parent.pairs.remove(leftIndex);
-        parent.children.remove(rightIndex);
+            left.compress();
+            left.next = right.next;
+            if (right.next != null) right.next.prev = left;
+        } else {
+            // Internal nodes also pull down the separator key from the parent.
+            left.keys[left.count] = parent.keys[leftIndex];
+            System.arraycopy(right.keys, 0, left.keys, left.count + 1, right.count);
+            System.arraycopy(right.children, 0, left.children, left.count + 1, right.count + 1);
+            left.count += right.count + 1;
+        }
+        System.arraycopy(parent.keys, leftIndex + 1, parent.keys, leftIndex, parent.count - leftIndex - 1);
+        System.arraycopy(parent.children, leftIndex + 2, parent.children, leftIndex + 1, parent.count - leftIndex - 1);
+        parent.count--;
+        parent.keys[parent.count] = null;
+        parent.children[parent.count + 1] = null;
     }
 
     // ==========! SEARCHING !===========
     // Core Operation (see interface docs for details)
     public List<Pair<K, V>> search(K key) {
-        if(key == null && this.isNullable && this.nullPair != null) return this.nullPair.getAllPairs();
-        if(key == null && this.isNullable && this.nullPair == null) return new ArrayList<>();
-        Node<K, V> node = this.findNode(key);
-        if (node == null)
-            return null;
-        int idx = Collections.binarySearch(node.pairs, new Pair<>(key, null), keyComparator);
-        if (idx >= 0) {
-            return node.pairs.get(idx).getAllPairs();
+        List<Pair<K, V>> result = new ArrayList<>();
+        if (key == null) {
+            if (this.isNullable) Postings.addPairs(result, null, this.nullValues);
+            return result;
         }
-        return new ArrayList<>();
+        Node<K, V> leaf = this.findLeaf(key);
+        int pos = lowerBound(leaf, key);
+        if (pos < leaf.count && leaf.compare(pos, key) == 0) Postings.addPairs(result, leaf.getKey(pos), leaf.values[pos]);
+        return result;
     }
     // Core Operation (see interface docs for details)
     public boolean isKey(K key) {
-        if (this.root == null)
-            return false;
-        return !this.search(key).isEmpty();
+        if (key == null) return this.isNullable && this.nullValues != null;
+        Node<K, V> leaf = this.findLeaf(key);
+        int pos = lowerBound(leaf, key);
+        return pos < leaf.count && leaf.compare(pos, key) == 0;
     }
 
     public K getMax(){
-        if (this.root.pairs.isEmpty()) return null;
         Node<K, V> current = this.root;
-        while (!current.isLeaf) {
-            current = current.children.getLast();
-        }
-        return current.pairs.getLast().key;
+        while (!current.isLeaf) current = current.children[current.count];
+        return current.count == 0 ? null : current.getKey(current.count - 1);
+    }
+
+    private Node<K, V> findLeaf(K key) {
+        Node<K, V> current = this.root;
+        while (!current.isLeaf) current = current.children[childIndex(current, key)];
+        return current;
     }
 
-    private Node<K,V> findNode(K key) {
-        Node<K,V> cur = this.root;
-        while (cur != null && !cur.isLeaf) {
-            int i = upperBoundIndex(cur, key);
-            cur = cur.children.get(i);                  // children.size() == pairs.size() + 1
+    // First index whose key is not less than key
+    private static <K extends Comparable<? super K>, V> int lowerBound(Node<K, V> node, K key) {
+        int lo = 0, hi = node.count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (node.compare(mid, key) < 0) lo = mid + 1;
+            else hi = mid;
         }
-        return cur;
+        return lo;
     }
 
-    private static <K extends Comparable<? super K>, V> int upperBoundIndex(Node<K,V> node, K key) {
-        List<Pair<K,V>> ps = node.pairs;
-        int lo = 0, hi = ps.size();
+    // First index whose separator is greater than key: keys equal to a separator live right of it
+    private static <K extends Comparable<? super K>, V> int childIndex(Node<K, V> node, K key) {
+        int lo = 0, hi = node.count;
         while (lo < hi) {
             int mid = (lo + hi) >>> 1;
-            if (key.compareTo(ps.get(mid).key) >= 0) lo = mid + 1;
+            if (node.compare(mid, key) <= 0) lo = mid + 1;
             else hi = mid;
         }
-        return lo;                                      // first index with pair.key > key
+        return lo;
     }
     // Core Operation (see interface docs for details)
     public List<Pair<K,V>> rangeSearch(K start, K end) {
-        Node<K, V> current;
-        int idx = 0;
-        if (start != null) {
-            current = findNode(start);
-            if (current == null)
-                return new ArrayList<>();
-            for (idx = 0; idx < current.pairs.size(); idx++) {
-                if (current.pairs.get(idx).key.compareTo(start) >= 0) {
-                    break;
-                }
-            }
-        } else {
-            current = this.start;
-        }
         List<Pair<K,V>> result = new ArrayList<>();
+        if (start == null && this.isNullable) Postings.addPairs(result, null, this.nullValues);
+        Node<K, V> current = start == null ? this.start : this.findLeaf(start);
+        int i = start == null ? 0 : lowerBound(current, start);
         while (current != null) {
-            int i = idx;
-            while (i < current.pairs.size() && (end == null || current.pairs.get(i).key.compareTo(end) <= 0)) {
-                result.addAll(current.pairs.get(i).getAllPairs());
-                i++;
-            }
-            if (i == current.pairs.size() && (end == null || (!current.pairs.isEmpty() && current.pairs.getLast().key.compareTo(end) <= 0))) {
-                current = current.next;
-                idx = 0;
-            } else {
-                break;
+            for (; i < current.count; i++) {
+                if (end != null && current.compare(i, end) > 0) return result;
+                Postings.addPairs(result, current.getKey(i), current.values[i]);
             }
+            current = current.next;
+            i = 0;
         }
-        if(start == null && this.isNullable && this.nullPair != null && this.nullPair.value != null) result.addAll(0,this.nullPair.getAllPairs());
         return result;
     }
 
+    // Core Operation (see interface docs for details)
+    public Cursor<K, V> cursor() {
+        return new LeafCursor();
+    }
+    // Core Operation (see interface docs for details)
+    public Cursor<K, V> cursor(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        return Cursor.bounded(new LeafCursor(), fromKey, fromInclusive, toKey, toInclusive);
+    }
+
+    // Walks the keys of the leaf chain, one group of pairs per key
+    private final class LeafCursor extends AbstractCursor<K, V> {
+        private Node<K, V> leaf;
+        private int slot;
+
+        protected List<Pair<K, V>> nullPairs() {
+            List<Pair<K, V>> pairs = new ArrayList<>();
+            if (isNullable) Postings.addPairs(pairs, null, nullValues);
+            return pairs;
+        }
+        protected List<Pair<K, V>> lowest() {
+            return this.move(start, 0);
+        }
+        protected List<Pair<K, V>> highest() {
+            Node<K, V> last = root;
+            while (!last.isLeaf) last = last.children[last.count];
+            return this.move(last, last.count - 1);
+        }
+        protected List<Pair<K, V>> ceiling(K key, boolean inclusive) {
+            Node<K, V> found = findLeaf(key);
+            int i = lowerBound(found, key);
+            if (!inclusive && i < found.count && found.compare(i, key) == 0) i++;
+            return this.move(found, i);
+        }
+        protected List<Pair<K, V>> higher() {
+            return this.move(this.leaf, this.slot + 1);
+        }
+        protected List<Pair<K, V>> lower() {
+            return this.move(this.leaf, this.slot - 1);
+        }
+        // Moves to a slot of a leaf, following the chain past either end of it
+        private List<Pair<K, V>> move(Node<K, V> node, int i) {
+            while (node != null && i >= node.count) {
+                node = node.next;
+                i = 0;
+            }
+            while (node != null && i < 0) {
+                node = node.prev;
+                if (node != null) i = node.count - 1;
+            }
+            if (node == null) return null;
+            this.leaf = node;
+            this.slot = i;
+            List<Pair<K, V>> pairs = new ArrayList<>(1);
+            Postings.addPairs(pairs, node.getKey(i), node.values[i]);
+            return pairs;
+        }
+    }
+
     // ===============UPDATE=============
     /**
      * Updates a value (assumes unique keys).
@@ -520,44 +430,37 @@ public class BPlusTree<K extends Comparable<? super K>, V> implements Index<K, V
      * @param oldValue Old value to replace (required for non-unique trees)
      */
     public void update(K key, V newValue, V oldValue) throws IllegalStateException {
-        if(updateNull(key, newValue, oldValue)) return;
+        if (key == null) {
+            if (this.isNullable && newValue != null) this.nullValues = this.replaceValue(this.nullValues, oldValue, newValue);
+            return;
+        }
         if (this.isUnique && oldValue != null) throw new IllegalStateException("Cannot specify oldValue in unique trees.");
-        if (key == null || newValue == null) return;
-        Node<K, V> node = this.findNode(key);
-        int idx = Collections.binarySearch(node.pairs, new Pair<>(key, null), keyComparator);
-        if (idx < 0) return;
-        Pair<K,V> pair = node.pairs.get(idx);
-        if (isUnique) {
-            pair.value = newValue;
-        } else {
-            // For non-unique trees, update in place
-            if (pair.value.equals(oldValue)) pair.value = newValue;
-            else if (pair.getDuplicates()!=null && pair.getDuplicates().contains(oldValue)) {
-                pair.removeDup(oldValue);
-                pair.addDup(newValue);
-            }
+        if (newValue == null) return;
+        Node<K, V> leaf = this.findLeaf(key);
+        int pos = lowerBound(leaf, key);
+        if (pos == leaf.count || leaf.compare(pos, key) != 0) return;
+        if (this.isUnique) {
+            leaf.values[pos] = newValue;
+            return;
         }
+        // For non-unique trees, update in place
+        leaf.values[pos] = this.replaceValue(leaf.values[pos], oldValue, newValue);
     }
 
-    private boolean updateNull(K key, V newValue, V oldValue){
-        if(!this.isNullable) return false;
-        if(this.nullPair == null) return false;
-        if(key == null){
-            if (this.nullPair.value.equals(oldValue)) {
-                this.nullPair.value = newValue;
-            } else if (this.nullPair.getDuplicates().contains(oldValue)) {
-                this.nullPair.removeDup(oldValue);
-                this.nullPair.addDup(newValue);
-            }
-            return true;
-        }
-        return false;
+    // Values with oldValue swapped for newValue, unchanged if oldValue is not there
+    private Object replaceValue(Object values, V oldValue, V newValue) {
+        Object removed = Postings.remove(values, oldValue);
+        if (removed == Postings.MISSING) return values;
+        Object updated = Postings.add(removed, newValue);
+        if (updated != null) return updated;
+        this.size--; // newValue was already there
+        return removed;
     }
 
     public void clear(){
-        root = new Node<>(true);
+        root = new Node<>(true, this.order);
         start = root;
-        nullPair = null;
+        nullValues = null;
         size = 0;
     }
 
@@ -568,7 +471,7 @@ public class BPlusTree<K extends Comparable<? super K>, V> implements Index<K, V
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        if (root == null || root.pairs.isEmpty()) {
+        if (root == null || root.count == 0) {
             return "Tree is empty.";
         }
         Queue<Node<K, V>> queue = new LinkedList<>();
@@ -585,7 +488,7 @@ public class BPlusTree<K extends Comparable<? super K>, V> implements Index<K, V
                 if (i < levelSize - 1)
                     sb.append("  --  "); // Separator
                 if (!current.isLeaf) {
-                    queue.addAll(current.children);
+                    for (int j = 0; j <= current.count; j++) queue.add(current.children[j]);
                 }
             }
             sb.append("\n\n");
@@ -613,7 +516,6 @@ public class BPlusTree<K extends Comparable<? super K>, V> implements Index<K, V
     public boolean isUnique(){return this.isUnique;}
     public void setNullable(boolean nullable) {this.isNullable = nullable;}
     public boolean isNullable(){return this.isNullable;}
-    public Pair<K,V> getNullPair(){return this.nullPair;}
     /** @return Root node of tree */
     public Node<K, V> getRoot() {return this.root;}
     /** @return First leaf node in sequence */
@@ -622,4 +524,4 @@ public class BPlusTree<K extends Comparable<? super K>, V> implements Index<K, V
     public long size(){return this.size;}
     /** @return Order of the tree */
     public int getOrder() {return this.order;}
-}
\ No newline at end of file
+}
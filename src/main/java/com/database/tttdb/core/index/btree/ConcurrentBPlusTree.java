@@ -0,0 +1,533 @@
+package com.database.tttdb.core.index.btree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.StampedLock;
+
+import com.database.tttdb.core.index.Index;
+import com.database.tttdb.core.index.Pair;
+
+/**
+ * Thread-safe B+ Tree (a B-link tree) using optimistic lock coupling, for indexes shared by
+ * concurrent readers and writers.
+ *
+ * <p>Every node carries a {@link StampedLock} whose stamp acts as its version counter:</p>
+ * <ul>
+ *   <li>Lookups and range scans take no locks. They read a node under an optimistic stamp and
+ *       retry the node if a writer changed it meanwhile, so reads scale with the number of cores.</li>
+ *   <li>Inserts, removals and updates write-lock only the leaf holding the key. A leaf split also
+ *       locks the parent, after the leaf was released.</li>
+ *   <li>Each node keeps a high key and a link to its right sibling. A reader or writer that reaches
+ *       a node after a concurrent split moved its key away follows the link instead of restarting.</li>
+ * </ul>
+ *
+ * <p>Notes:</p>
+ * <ul>
+ *   <li>Nodes are not merged when keys are removed; an emptied leaf stays linked and is reused by
+ *       later inserts into its key range. {@link #clear()} drops all nodes.</li>
+ *   <li>Values of a key are kept in an immutable array replaced on every change, so a reader
+ *       never observes a partially updated value list.</li>
+ * </ul>
+ *
+ * @param <K> Key type (must implement Comparable)
+ * @param <V> Value type associated with keys
+ */
+public class ConcurrentBPlusTree<K extends Comparable<? super K>, V> implements Index<K, V> {
+
+    private static final class LinkNode {
+        private final StampedLock lock = new StampedLock();
+        private final Lock writeLock = lock.asWriteLock();
+        private final int level;        // 0 for leaves
+        private final Object[] keys;    // separators (internal) or keys (leaf)
+        private final Object[][] values;// leaf only: immutable value arrays per key
+        private final LinkNode[] children;  // internal only: count + 1 children
+        private int count;
+        private Object highKey;         // exclusive upper bound of this node's keys, null for +inf
+        private LinkNode right;
+
+        private LinkNode(int level, int capacity){
+            this.level = level;
+            this.keys = new Object[capacity];
+            this.values = level == 0 ? new Object[capacity][] : null;
+            this.children = level == 0 ? null : new LinkNode[capacity + 1];
+        }
+        private boolean isLeaf() { return this.level == 0; }
+    }
+
+    private final int order;
+    private volatile LinkNode root;
+    private final Object rootMonitor = new Object();
+    private final AtomicLong size = new AtomicLong();
+    private volatile boolean isUnique = true;
+    private volatile boolean isNullable = false;
+    private Object[] nullValues;    // guarded by rootMonitor, replaced on change
+
+    /**
+     * Constructs a concurrent B+ Tree with specified order.
+     *
+     * @param order Tree order (minimum 3). Determines max keys per node (order-1).
+     * @throws IllegalArgumentException if order < 3
+     */
+    public ConcurrentBPlusTree(int order){
+        if (order < 3)
+            throw new IllegalArgumentException("B+Tree Order must be at least 3.");
+        this.order = order;
+        this.root = new LinkNode(0, order);
+    }
+
+    // ========! OPTIMISTIC TRAVERSAL !==========
+    /**
+     * Descends to the node of the given level whose key range holds {@code key}.
+     * The node is returned unlocked; callers re-check its high key under their own stamp or lock.
+     */
+    private LinkNode findNode(K key, int level){
+        LinkNode node = this.root;
+        while (true) {
+            long stamp = node.lock.tryOptimisticRead();
+            if (stamp == 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            LinkNode next;
+            try {
+                if (this.beyond(node, key)) next = node.right;
+                else if (node.level <= level) next = node;
+                else next = node.children[upperBound(node, key)];
+            } catch (RuntimeException e) {
+                if (node.lock.validate(stamp)) throw e;
+                continue;
+            }
+            if (!node.lock.validate(stamp)) continue;
+            if (next == node) return node;
+            node = next;
+        }
+    }
+    // Locks the node of the given level holding key, moving right past concurrent splits
+    private LinkNode lockNode(K key, int level){
+        LinkNode node = this.findNode(key, level);
+        node.writeLock.lock();
+        while (this.beyond(node, key)) {
+            LinkNode next = node.right;
+            next.writeLock.lock();
+            node.writeLock.unlock();
+            node = next;
+        }
+        return node;
+    }
+    @SuppressWarnings("unchecked")
+    private boolean beyond(LinkNode node, K key){
+        return node.highKey != null && key.compareTo((K) node.highKey) >= 0;
+    }
+    // First index whose key is greater than key
+    @SuppressWarnings("unchecked")
+    private static <K extends Comparable<? super K>> int upperBound(LinkNode node, K key){
+        int lo = 0, hi = node.count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (key.compareTo((K) node.keys[mid]) >= 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+    // Index of key, or -(insertion point) - 1
+    @SuppressWarnings("unchecked")
+    private static <K extends Comparable<? super K>> int indexOf(LinkNode node, K key){
+        int lo = 0, hi = node.count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = key.compareTo((K) node.keys[mid]);
+            if (c > 0) lo = mid + 1;
+            else if (c < 0) hi = mid - 1;
+            else return mid;
+        }
+        return -(lo + 1);
+    }
+
+    // ========! INSERTION !==========
+    // Core Operation (see interface docs for details)
+    public void insert(K key, V value){
+        if (key == null) {
+            this.insertNull(value);
+            return;
+        }
+        LinkNode leaf = this.lockNode(key, 0);
+        int pos = indexOf(leaf, key);
+        if (pos >= 0) {
+            Object[] current = leaf.values[pos];
+            if (!this.isUnique && !contains(current, value)) {
+                leaf.values[pos] = append(current, value);
+                this.size.incrementAndGet();
+            }
+            leaf.writeLock.unlock();
+            return;
+        }
+        pos = -(pos + 1);
+        System.arraycopy(leaf.keys, pos, leaf.keys, pos + 1, leaf.count - pos);
+        System.arraycopy(leaf.values, pos, leaf.values, pos + 1, leaf.count - pos);
+        leaf.keys[pos] = key;
+        leaf.values[pos] = new Object[]{ value };
+        leaf.count++;
+        this.size.incrementAndGet();
+        if (leaf.count < this.order) {
+            leaf.writeLock.unlock();
+            return;
+        }
+        LinkNode sibling = this.splitLeaf(leaf);
+        Object separator = leaf.highKey;
+        leaf.writeLock.unlock();
+        this.insertSeparator(leaf, separator, sibling);
+    }
+    private void insertNull(V value){
+        if (!this.isNullable) throw new NullPointerException("Null keys are not allowed in this index.");
+        synchronized (this.rootMonitor) {
+            if (this.nullValues == null) this.nullValues = new Object[]{ value };
+            else if (contains(this.nullValues, value)) return;
+            else this.nullValues = append(this.nullValues, value);
+            this.size.incrementAndGet();
+        }
+    }
+    // Moves the upper half of a full leaf into a new right sibling; caller holds the leaf lock
+    private LinkNode splitLeaf(LinkNode leaf){
+        int mid = leaf.count / 2;
+        LinkNode sibling = new LinkNode(0, this.order);
+        sibling.count = leaf.count - mid;
+        System.arraycopy(leaf.keys, mid, sibling.keys, 0, sibling.count);
+        System.arraycopy(leaf.values, mid, sibling.values, 0, sibling.count);
+        sibling.highKey = leaf.highKey;
+        sibling.right = leaf.right;
+        leaf.right = sibling;
+        leaf.highKey = sibling.keys[0];
+        Arrays.fill(leaf.keys, mid, leaf.count, null);
+        Arrays.fill(leaf.values, mid, leaf.count, null);
+        leaf.count = mid;
+        return sibling;
+    }
+    // Moves the keys above the middle separator into a new right sibling and returns the
+    // separator to promote; caller holds the node lock
+    private Object splitInternal(LinkNode node, LinkNode[] sibling){
+        int mid = node.count / 2;
+        Object promoted = node.keys[mid];
+        LinkNode right = new LinkNode(node.level, this.order);
+        right.count = node.count - mid - 1;
+        System.arraycopy(node.keys, mid + 1, right.keys, 0, right.count);
+        System.arraycopy(node.children, mid + 1, right.children, 0, right.count + 1);
+        right.highKey = node.highKey;
+        right.right = node.right;
+        node.right = right;
+        node.highKey = promoted;
+        Arrays.fill(node.keys, mid, node.count, null);
+        Arrays.fill(node.children, mid + 1, node.count + 1, null);
+        node.count = mid;
+        sibling[0] = right;
+        return promoted;
+    }
+    // Links a split-off sibling into the level above, growing the tree when the root split
+    @SuppressWarnings("unchecked")
+    private void insertSeparator(LinkNode left, Object separator, LinkNode sibling){
+        synchronized (this.rootMonitor) {
+            while (this.root.level == left.level) {
+                if (this.root == left) {
+                    LinkNode newRoot = new LinkNode(left.level + 1, this.order);
+                    newRoot.keys[0] = separator;
+                    newRoot.children[0] = left;
+                    newRoot.children[1] = sibling;
+                    newRoot.count = 1;
+                    this.root = newRoot;
+                    this.rootMonitor.notifyAll();
+                    return;
+                }
+                // The root split too and its new parent is being installed by another thread
+                try {
+                    this.rootMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while growing the B+Tree.", e);
+                }
+            }
+        }
+        K key = (K) separator;
+        LinkNode parent = this.lockNode(key, left.level + 1);
+        int pos = upperBound(parent, key);
+        System.arraycopy(parent.keys, pos, parent.keys, pos + 1, parent.count - pos);
+        System.arraycopy(parent.children, pos + 1, parent.children, pos + 2, parent.count - pos);
+        parent.keys[pos] = separator;
+        parent.children[pos + 1] = sibling;
+        parent.count++;
+        if (parent.count < this.order) {
+            parent.writeLock.unlock();
+            return;
+        }
+        LinkNode[] right = new LinkNode[1];
+        Object promoted = this.splitInternal(parent, right);
+        parent.writeLock.unlock();
+        this.insertSeparator(parent, promoted, right[0]);
+    }
+
+    // ===========! REMOVING !=============
+    // Core Operation (see interface docs for details)
+    public void remove(K key, V value){
+        if (key == null) {
+            this.removeNull(value);
+            return;
+        }
+        LinkNode leaf = this.lockNode(key, 0);
+        try {
+            int pos = indexOf(leaf, key);
+            if (pos < 0) return;
+            Object[] current = leaf.values[pos];
+            if (!contains(current, value)) return;
+            this.size.decrementAndGet();
+            if (current.length > 1) {
+                leaf.values[pos] = without(current, value);
+                return;
+            }
+            System.arraycopy(leaf.keys, pos + 1, leaf.keys, pos, leaf.count - pos - 1);
+            System.arraycopy(leaf.values, pos + 1, leaf.values, pos, leaf.count - pos - 1);
+            leaf.count--;
+            leaf.keys[leaf.count] = null;
+            leaf.values[leaf.count] = null;
+        } finally {
+            leaf.writeLock.unlock();
+        }
+    }
+    private void removeNull(V value){
+        if (!this.isNullable) return;
+        synchronized (this.rootMonitor) {
+            if (this.nullValues == null || !contains(this.nullValues, value)) return;
+            this.nullValues = this.nullValues.length == 1 ? null : without(this.nullValues, value);
+            this.size.decrementAndGet();
+        }
+    }
+
+    // ==========! SEARCHING !===========
+    // Core Operation (see interface docs for details)
+    @SuppressWarnings("unchecked")
+    public List<Pair<K, V>> search(K key){
+        if (key == null) return this.nullPairs();
+        LinkNode node = this.findNode(key, 0);
+        while (true) {
+            long stamp = node.lock.tryOptimisticRead();
+            if (stamp == 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            LinkNode next = null;
+            Object[] found = null;
+            try {
+                if (this.beyond(node, key)) next = node.right;
+                else {
+                    int pos = indexOf(node, key);
+                    if (pos >= 0) found = node.values[pos];
+                }
+            } catch (RuntimeException e) {
+                if (node.lock.validate(stamp)) throw e;
+                continue;
+            }
+            if (!node.lock.validate(stamp)) continue;
+            if (next != null) {
+                node = next;
+                continue;
+            }
+            List<Pair<K, V>> result = new ArrayList<>();
+            if (found != null) for (Object value : found) result.add(new Pair<>(key, (V) value));
+            return result;
+        }
+    }
+    // Core Operation (see interface docs for details)
+    public boolean isKey(K key){
+        return !this.search(key).isEmpty();
+    }
+    // Core Operation (see interface docs for details)
+    @SuppressWarnings("unchecked")
+    public List<Pair<K, V>> rangeSearch(K fromKey, K toKey){
+        List<Pair<K, V>> result = fromKey == null ? this.nullPairs() : new ArrayList<>();
+        LinkNode node = fromKey == null ? this.leftmostLeaf() : this.findNode(fromKey, 0);
+        Object[] keys = new Object[this.order];
+        Object[][] values = new Object[this.order][];
+        while (node != null) {
+            long stamp = node.lock.tryOptimisticRead();
+            if (stamp == 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            // Copy the leaf under one stamp, then emit it once the copy is known to be consistent
+            int count;
+            LinkNode next;
+            Object highKey;
+            try {
+                count = node.count;
+                System.arraycopy(node.keys, 0, keys, 0, count);
+                System.arraycopy(node.values, 0, values, 0, count);
+                next = node.right;
+                highKey = node.highKey;
+            } catch (RuntimeException e) {
+                if (node.lock.validate(stamp)) throw e;
+                continue;
+            }
+            if (!node.lock.validate(stamp)) continue;
+            for (int i = 0; i < count; i++) {
+                K key = (K) keys[i];
+                if (fromKey != null && key.compareTo(fromKey) < 0) continue;
+                if (toKey != null && key.compareTo(toKey) > 0) return result;
+                for (Object value : values[i]) result.add(new Pair<>(key, (V) value));
+            }
+            if (toKey != null && highKey != null && ((K) highKey).compareTo(toKey) > 0) return result;
+            node = next;
+        }
+        return result;
+    }
+    private LinkNode leftmostLeaf(){
+        LinkNode node = this.root;
+        while (!node.isLeaf()) {
+            long stamp = node.lock.tryOptimisticRead();
+            LinkNode child = node.children[0];
+            if (stamp != 0 && node.lock.validate(stamp)) node = child;
+        }
+        return node;
+    }
+    @SuppressWarnings("unchecked")
+    private List<Pair<K, V>> nullPairs(){
+        List<Pair<K, V>> result = new ArrayList<>();
+        if (!this.isNullable) return result;
+        Object[] values;
+        synchronized (this.rootMonitor) { values = this.nullValues; }
+        if (values != null) for (Object value : values) result.add(new Pair<>(null, (V) value));
+        return result;
+    }
+
+    // Core Operation (see interface docs for details)
+    @SuppressWarnings("unchecked")
+    public K getMax(){
+        K max = null;
+        LinkNode node = this.leftmostLeaf();
+        // Emptied leaves are not merged away, so the last non-empty leaf holds the maximum
+        while (node != null) {
+            long stamp = node.lock.tryOptimisticRead();
+            if (stamp == 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            K last;
+            LinkNode next;
+            try {
+                last = node.count == 0 ? null : (K) node.keys[node.count - 1];
+                next = node.right;
+            } catch (RuntimeException e) {
+                if (node.lock.validate(stamp)) throw e;
+                continue;
+            }
+            if (!node.lock.validate(stamp)) continue;
+            if (last != null) max = last;
+            node = next;
+        }
+        return max;
+    }
+
+    // ===============UPDATE=============
+    /**
+     * Updates a value (assumes unique keys).
+     *
+     * @param key Key to update
+     * @param newValue New value to set
+     */
+    public void update(K key, V newValue) throws IllegalStateException {
+        if (!this.isUnique) throw new IllegalStateException("Must specify oldValue in non-unique trees.");
+        this.update(key, newValue, null);
+    }
+    /**
+     * Updates a value associated with a key. For non-unique trees,
+     * specifies old value to update.
+     *
+     * @param key Key to update
+     * @param newValue New value to set
+     * @param oldValue Old value to replace (required for non-unique trees)
+     */
+    public void update(K key, V newValue, V oldValue) throws IllegalStateException {
+        if (key == null) {
+            // The null key may hold several values even in unique trees
+            if (!this.isNullable) return;
+            synchronized (this.rootMonitor) {
+                if (this.nullValues != null) this.nullValues = replaced(this.nullValues, oldValue, newValue, false);
+            }
+            return;
+        }
+        if (this.isUnique && oldValue != null) throw new IllegalStateException("Cannot specify oldValue in unique trees.");
+        if (newValue == null) return;
+        LinkNode leaf = this.lockNode(key, 0);
+        try {
+            int pos = indexOf(leaf, key);
+            if (pos >= 0) leaf.values[pos] = replaced(leaf.values[pos], oldValue, newValue, this.isUnique);
+        } finally {
+            leaf.writeLock.unlock();
+        }
+    }
+    // A unique key's single value is replaced outright, otherwise only oldValue is
+    private static Object[] replaced(Object[] values, Object oldValue, Object newValue, boolean unique){
+        if (unique) return new Object[]{ newValue };
+        if (!contains(values, oldValue)) return values;
+        Object[] copy = values.clone();
+        for (int i = 0; i < copy.length; i++) {
+            if (copy[i].equals(oldValue)) copy[i] = newValue;
+        }
+        return copy;
+    }
+
+    private static boolean contains(Object[] values, Object value){
+        for (Object candidate : values) {
+            if (candidate.equals(value)) return true;
+        }
+        return false;
+    }
+    private static Object[] append(Object[] values, Object value){
+        Object[] copy = Arrays.copyOf(values, values.length + 1);
+        copy[values.length] = value;
+        return copy;
+    }
+    private static Object[] without(Object[] values, Object value){
+        int index = 0;
+        while (!values[index].equals(value)) index++;
+        Object[] copy = new Object[values.length - 1];
+        System.arraycopy(values, 0, copy, 0, index);
+        System.arraycopy(values, index + 1, copy, index, copy.length - index);
+        return copy;
+    }
+
+    /**
+     * Drops all nodes. Not safe to call while other threads use the tree.
+     */
+    public void clear(){
+        synchronized (this.rootMonitor) {
+            this.root = new LinkNode(0, this.order);
+            this.nullValues = null;
+            this.size.set(0);
+        }
+    }
+
+    // =======! PRINTING !======
+    /**
+     * @return String representation of the leaf chain
+     */
+    @Override
+    public String toString(){
+        StringBuilder sb = new StringBuilder("!=========! Leaf Chain !=========!\n");
+        for (Pair<K, V> pair : this.rangeSearch(null, null)) {
+            sb.append(pair).append(' ');
+        }
+        return sb.append('\n').toString();
+    }
+
+    // Configuration & Accessors
+    public void setUnique(boolean unique) { this.isUnique = unique; }
+    public boolean isUnique() { return this.isUnique; }
+    public void setNullable(boolean nullable) { this.isNullable = nullable; }
+    public boolean isNullable() { return this.isNullable; }
+    /** @return Number of keys(if unique) or values(if not unique) in the tree */
+    public long size() { return this.size.get(); }
+    /** @return Order of the tree */
+    public int getOrder() { return this.order; }
+    /** @return Number of levels, 1 for a tree that is a single leaf */
+    public int getHeight() { return this.root.level + 1; }
+}
@@ -0,0 +1,521 @@
+package com.database.tttdb.core.index.btree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.database.tttdb.core.index.AbstractCursor;
+import com.database.tttdb.core.index.Cursor;
+import com.database.tttdb.core.index.Index;
+import com.database.tttdb.core.index.IndexInit.BlockPointer;
+import com.database.tttdb.core.index.IndexInit.PointerPair;
+import com.database.tttdb.core.index.KeyCodec;
+import com.database.tttdb.core.index.Pair;
+
+/**
+ * B+ Tree specialized for keys that map to a {@code long} in order, storing keys and
+ * {@link PointerPair} values in primitive arrays.
+ *
+ * <p>Each entry takes three {@code long} slots in its leaf: the encoded key, the row id and the
+ * packed index pointer. No key, value or {@link Pair} object is kept per entry; they are created
+ * only for the results of a lookup.</p>
+ *
+ * <p>Entries are ordered by (key, row id), so duplicate keys of a non-unique index are plain
+ * neighbouring entries and separators in internal nodes are (key, row id) pairs as well.</p>
+ *
+ * @param <K> Key type, mapped to {@code long} by its {@link KeyCodec}
+ */
+public class LongKeyBPlusTree<K extends Comparable<? super K>> implements Index<K, PointerPair> {
+
+    private static final long NO_POINTER = Long.MIN_VALUE;
+
+    private abstract static class Node {
+        final long[] keys;
+        final long[] rowIds;
+        int count;
+        Node(int capacity){
+            this.keys = new long[capacity];
+            this.rowIds = new long[capacity];
+        }
+    }
+    private static final class Leaf extends Node {
+        final long[] pointers;
+        Leaf next;
+        Leaf prev;
+        Leaf(int capacity){
+            super(capacity);
+            this.pointers = new long[capacity];
+        }
+    }
+    private static final class Inner extends Node {
+        final Node[] children;
+        Inner(int capacity){
+            super(capacity);
+            this.children = new Node[capacity + 1];
+        }
+    }
+    private record Split(long key, long rowId, Node right) {}
+
+    private final KeyCodec<K> codec;
+    private final int order;
+    private final int minKeys;
+    private Node root;
+    private Leaf first;
+    private long size = 0;
+    private boolean isUnique = true;
+    private boolean isNullable = false;
+    // null-key bucket, as parallel row id / pointer arrays
+    private long[] nullRowIds = new long[0];
+    private long[] nullPointers = new long[0];
+
+    /**
+     * @param order Tree order (minimum 3). Determines max keys per node (order-1).
+     * @param codec mapping of the keys to {@code long}
+     * @throws IllegalArgumentException if order < 3
+     */
+    public LongKeyBPlusTree(int order, KeyCodec<K> codec){
+        if (order < 3)
+            throw new IllegalArgumentException("B+Tree Order must be at least 3.");
+        this.order = order;
+        this.codec = codec;
+        this.minKeys = (int) Math.ceil(order / 2.0) - 1;
+        this.clear();
+    }
+
+    // ========! ENCODING !==========
+    private static long pack(BlockPointer pointer){
+        if (pointer == null) return NO_POINTER;
+        return ((long) pointer.BlockID() << 16) | (pointer.RowOffset() & 0xFFFFL);
+    }
+    private static BlockPointer unpack(long pointer){
+        if (pointer == NO_POINTER) return null;
+        return new BlockPointer((int) (pointer >> 16), (short) pointer);
+    }
+    private static int compare(long key1, long rowId1, long key2, long rowId2){
+        int c = Long.compare(key1, key2);
+        return c != 0 ? c : Long.compare(rowId1, rowId2);
+    }
+    // First index whose entry is not less than (key, rowId)
+    private static int lowerBound(Node node, long key, long rowId){
+        int lo = 0, hi = node.count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(node.keys[mid], node.rowIds[mid], key, rowId) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+    // Child holding (key, rowId): entries equal to a separator live right of it
+    private static int childIndex(Inner node, long key, long rowId){
+        int lo = 0, hi = node.count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(key, rowId, node.keys[mid], node.rowIds[mid]) >= 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+    private Leaf findLeaf(long key, long rowId){
+        Node node = this.root;
+        while (node instanceof Inner inner) node = inner.children[childIndex(inner, key, rowId)];
+        return (Leaf) node;
+    }
+
+    // ========! INSERTION !==========
+    // Core Operation (see interface docs for details)
+    public void insert(K key, PointerPair value){
+        if (key == null) {
+            if (!this.isNullable) throw new NullPointerException("Null keys are not allowed in this index.");
+            if (this.nullIndexOf(value) >= 0) return;
+            this.nullRowIds = Arrays.copyOf(this.nullRowIds, this.nullRowIds.length + 1);
+            this.nullPointers = Arrays.copyOf(this.nullPointers, this.nullPointers.length + 1);
+            this.nullRowIds[this.nullRowIds.length - 1] = value.rowId();
+            this.nullPointers[this.nullPointers.length - 1] = pack(value.indexPointer());
+            this.size++;
+            return;
+        }
+        long encoded = this.codec.encode(key);
+        if (this.isUnique && this.firstEntry(encoded) != null) return;
+        Split split = this.insert(this.root, encoded, value.rowId(), pack(value.indexPointer()));
+        if (split == null) return;
+        Inner newRoot = new Inner(this.order);
+        newRoot.keys[0] = split.key();
+        newRoot.rowIds[0] = split.rowId();
+        newRoot.children[0] = this.root;
+        newRoot.children[1] = split.right();
+        newRoot.count = 1;
+        this.root = newRoot;
+    }
+    private Split insert(Node node, long key, long rowId, long pointer){
+        if (node instanceof Leaf leaf) {
+            int pos = lowerBound(leaf, key, rowId);
+            if (pos < leaf.count && leaf.keys[pos] == key && leaf.rowIds[pos] == rowId) return null;
+            shift(leaf, pos, 1);
+            System.arraycopy(leaf.pointers, pos, leaf.pointers, pos + 1, leaf.count - pos);
+            leaf.keys[pos] = key;
+            leaf.rowIds[pos] = rowId;
+            leaf.pointers[pos] = pointer;
+            leaf.count++;
+            this.size++;
+            return leaf.count < this.order ? null : this.splitLeaf(leaf);
+        }
+        Inner inner = (Inner) node;
+        int index = childIndex(inner, key, rowId);
+        Split split = this.insert(inner.children[index], key, rowId, pointer);
+        if (split == null) return null;
+        shift(inner, index, 1);
+        System.arraycopy(inner.children, index + 1, inner.children, index + 2, inner.count - index);
+        inner.keys[index] = split.key();
+        inner.rowIds[index] = split.rowId();
+        inner.children[index + 1] = split.right();
+        inner.count++;
+        return inner.count < this.order ? null : this.splitInner(inner);
+    }
+    private Split splitLeaf(Leaf leaf){
+        int mid = leaf.count / 2;
+        Leaf right = new Leaf(this.order);
+        right.count = leaf.count - mid;
+        System.arraycopy(leaf.keys, mid, right.keys, 0, right.count);
+        System.arraycopy(leaf.rowIds, mid, right.rowIds, 0, right.count);
+        System.arraycopy(leaf.pointers, mid, right.pointers, 0, right.count);
+        leaf.count = mid;
+        right.next = leaf.next;
+        right.prev = leaf;
+        if (leaf.next != null) leaf.next.prev = right;
+        leaf.next = right;
+        return new Split(right.keys[0], right.rowIds[0], right);
+    }
+    private Split splitInner(Inner inner){
+        int mid = inner.count / 2;
+        Inner right = new Inner(this.order);
+        right.count = inner.count - mid - 1;
+        System.arraycopy(inner.keys, mid + 1, right.keys, 0, right.count);
+        System.arraycopy(inner.rowIds, mid + 1, right.rowIds, 0, right.count);
+        System.arraycopy(inner.children, mid + 1, right.children, 0, right.count + 1);
+        Arrays.fill(inner.children, mid + 1, inner.count + 1, null);
+        inner.count = mid;
+        return new Split(inner.keys[mid], inner.rowIds[mid], right);
+    }
+    // Moves entries from pos on by distance (positive opens a gap, negative closes one)
+    private static void shift(Node node, int pos, int distance){
+        int from = distance > 0 ? pos : pos - distance;
+        System.arraycopy(node.keys, from, node.keys, from + distance, node.count - from);
+        System.arraycopy(node.rowIds, from, node.rowIds, from + distance, node.count - from);
+    }
+
+    // ===========! REMOVING !=============
+    // Core Operation (see interface docs for details)
+    public void remove(K key, PointerPair value){
+        if (key == null) {
+            int index = this.nullIndexOf(value);
+            if (index < 0) return;
+            this.nullRowIds = without(this.nullRowIds, index);
+            this.nullPointers = without(this.nullPointers, index);
+            this.size--;
+            return;
+        }
+        if (!this.remove(this.root, this.codec.encode(key), value.rowId(), pack(value.indexPointer()))) return;
+        this.size--;
+        if (this.root instanceof Inner inner && inner.count == 0) this.root = inner.children[0];
+    }
+    private boolean remove(Node node, long key, long rowId, long pointer){
+        if (node instanceof Leaf leaf) {
+            int pos = lowerBound(leaf, key, rowId);
+            if (pos == leaf.count || leaf.keys[pos] != key || leaf.rowIds[pos] != rowId || leaf.pointers[pos] != pointer) return false;
+            shift(leaf, pos, -1);
+            System.arraycopy(leaf.pointers, pos + 1, leaf.pointers, pos, leaf.count - pos - 1);
+            leaf.count--;
+            return true;
+        }
+        Inner inner = (Inner) node;
+        int index = childIndex(inner, key, rowId);
+        if (!this.remove(inner.children[index], key, rowId, pointer)) return false;
+        if (inner.children[index].count < this.minKeys) this.rebalance(inner, index);
+        return true;
+    }
+    private void rebalance(Inner parent, int index){
+        Node child = parent.children[index];
+        Node left = index > 0 ? parent.children[index - 1] : null;
+        Node right = index < parent.count ? parent.children[index + 1] : null;
+        if (left != null && left.count > this.minKeys) this.borrowFromLeft(parent, index, left, child);
+        else if (right != null && right.count > this.minKeys) this.borrowFromRight(parent, index, child, right);
+        else if (right != null) this.merge(parent, index, child, right);
+        else if (left != null) this.merge(parent, index - 1, left, child);
+    }
+    private void borrowFromLeft(Inner parent, int index, Node left, Node child){
+        shift(child, 0, 1);
+        if (child instanceof Leaf leaf) {
+            Leaf from = (Leaf) left;
+            System.arraycopy(leaf.pointers, 0, leaf.pointers, 1, leaf.count);
+            leaf.keys[0] = from.keys[from.count - 1];
+            leaf.rowIds[0] = from.rowIds[from.count - 1];
+            leaf.pointers[0] = from.pointers[from.count - 1];
+            parent.keys[index - 1] = leaf.keys[0];
+            parent.rowIds[index - 1] = leaf.rowIds[0];
+        } else {
+            Inner to = (Inner) child, from = (Inner) left;
+            System.arraycopy(to.children, 0, to.children, 1, to.count + 1);
+            to.keys[0] = parent.keys[index - 1];
+            to.rowIds[0] = parent.rowIds[index - 1];
+            to.children[0] = from.children[from.count];
+            from.children[from.count] = null;
+            parent.keys[index - 1] = from.keys[from.count - 1];
+            parent.rowIds[index - 1] = from.rowIds[from.count - 1];
+        }
+        child.count++;
+        left.count--;
+    }
+    private void borrowFromRight(Inner parent, int index, Node child, Node right){
+        if (child instanceof Leaf leaf) {
+            Leaf from = (Leaf) right;
+            leaf.keys[leaf.count] = from.keys[0];
+            leaf.rowIds[leaf.count] = from.rowIds[0];
+            leaf.pointers[leaf.count] = from.pointers[0];
+            System.arraycopy(from.pointers, 1, from.pointers, 0, from.count - 1);
+            shift(from, 0, -1);
+            parent.keys[index] = from.keys[0];
+            parent.rowIds[index] = from.rowIds[0];
+        } else {
+            Inner to = (Inner) child, from = (Inner) right;
+            to.keys[to.count] = parent.keys[index];
+            to.rowIds[to.count] = parent.rowIds[index];
+            to.children[to.count + 1] = from.children[0];
+            parent.keys[index] = from.keys[0];
+            parent.rowIds[index] = from.rowIds[0];
+            System.arraycopy(from.children, 1, from.children, 0, from.count);
+            from.children[from.count] = null;
+            shift(from, 0, -1);
+        }
+        child.count++;
+        right.count--;
+    }
+    // Appends right to left and drops the separator between them from the parent
+    private void merge(Inner parent, int leftIndex, Node left, Node right){
+        if (left instanceof Leaf leaf) {
+            Leaf from = (Leaf) right;
+            System.arraycopy(from.keys, 0, leaf.keys, leaf.count, from.count);
+            System.arraycopy(from.rowIds, 0, leaf.rowIds, leaf.count, from.count);
+            System.arraycopy(from.pointers, 0, leaf.pointers, leaf.count, from.count);
+            leaf.count += from.count;
+            leaf.next = from.next;
+            if (from.next != null) from.next.prev = leaf;
+        } else {
+            Inner to = (Inner) left, from = (Inner) right;
+            to.keys[to.count] = parent.keys[leftIndex];
+            to.rowIds[to.count] = parent.rowIds[leftIndex];
+            System.arraycopy(from.keys, 0, to.keys, to.count + 1, from.count);
+            System.arraycopy(from.rowIds, 0, to.rowIds, to.count + 1, from.count);
+            System.arraycopy(from.children, 0, to.children, to.count + 1, from.count + 1);
+            to.count += from.count + 1;
+        }
+        shift(parent, leftIndex, -1);
+        System.arraycopy(parent.children, leftIndex + 2, parent.children, leftIndex + 1, parent.count - leftIndex - 1);
+        parent.children[parent.count] = null;
+        parent.count--;
+    }
+
+    // ==========! SEARCHING !===========
+    // Core Operation (see interface docs for details)
+    public List<Pair<K, PointerPair>> search(K key){
+        if (key == null) return this.nullPairs();
+        long encoded = this.codec.encode(key);
+        return this.collect(encoded, encoded);
+    }
+    // Core Operation (see interface docs for details)
+    public boolean isKey(K key){
+        if (key == null) return this.isNullable && this.nullRowIds.length > 0;
+        return this.firstEntry(this.codec.encode(key)) != null;
+    }
+    // Core Operation (see interface docs for details)
+    public List<Pair<K, PointerPair>> rangeSearch(K fromKey, K toKey){
+        List<Pair<K, PointerPair>> result = new ArrayList<>();
+        if (fromKey == null && this.isNullable) result.addAll(this.nullPairs());
+        result.addAll(this.collect(fromKey == null ? Long.MIN_VALUE : this.codec.encode(fromKey),
+            toKey == null ? Long.MAX_VALUE : this.codec.encode(toKey)));
+        return result;
+    }
+    private List<Pair<K, PointerPair>> collect(long from, long to){
+        List<Pair<K, PointerPair>> result = new ArrayList<>();
+        Leaf leaf = this.findLeaf(from, Long.MIN_VALUE);
+        int i = lowerBound(leaf, from, Long.MIN_VALUE);
+        while (leaf != null) {
+            for (; i < leaf.count; i++) {
+                if (leaf.keys[i] > to) return result;
+                result.add(new Pair<>(this.codec.decode(leaf.keys[i]), new PointerPair(leaf.rowIds[i], unpack(leaf.pointers[i]))));
+            }
+            leaf = leaf.next;
+            i = 0;
+        }
+        return result;
+    }
+    // The first value stored under an encoded key, or null
+    private PointerPair firstEntry(long key){
+        Leaf leaf = this.findLeaf(key, Long.MIN_VALUE);
+        int i = lowerBound(leaf, key, Long.MIN_VALUE);
+        if (i == leaf.count) {
+            leaf = leaf.next;
+            i = 0;
+        }
+        if (leaf == null || leaf.keys[i] != key) return null;
+        return new PointerPair(leaf.rowIds[i], unpack(leaf.pointers[i]));
+    }
+    // Core Operation (see interface docs for details)
+    public Cursor<K, PointerPair> cursor(){
+        return new LeafCursor();
+    }
+    // Core Operation (see interface docs for details)
+    public Cursor<K, PointerPair> cursor(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive){
+        return Cursor.bounded(new LeafCursor(), fromKey, fromInclusive, toKey, toInclusive);
+    }
+
+    // Walks the leaf chain one entry at a time, duplicate keys being neighbouring entries
+    private final class LeafCursor extends AbstractCursor<K, PointerPair> {
+        private Leaf leaf;
+        private int slot;
+
+        protected List<Pair<K, PointerPair>> nullPairs(){
+            return LongKeyBPlusTree.this.nullPairs();
+        }
+        protected List<Pair<K, PointerPair>> lowest(){
+            return this.move(first, 0);
+        }
+        protected List<Pair<K, PointerPair>> highest(){
+            Node node = root;
+            while (node instanceof Inner inner) node = inner.children[inner.count];
+            return this.move((Leaf) node, node.count - 1);
+        }
+        protected List<Pair<K, PointerPair>> ceiling(K key, boolean inclusive){
+            long encoded = codec.encode(key);
+            if (!inclusive && encoded == Long.MAX_VALUE) return null;
+            long from = inclusive ? encoded : encoded + 1;
+            Leaf found = findLeaf(from, Long.MIN_VALUE);
+            return this.move(found, lowerBound(found, from, Long.MIN_VALUE));
+        }
+        protected List<Pair<K, PointerPair>> higher(){
+            return this.move(this.leaf, this.slot + 1);
+        }
+        protected List<Pair<K, PointerPair>> lower(){
+            return this.move(this.leaf, this.slot - 1);
+        }
+        // Moves to a slot of a leaf, following the chain past either end of it
+        private List<Pair<K, PointerPair>> move(Leaf node, int i){
+            while (node != null && i >= node.count) {
+                node = node.next;
+                i = 0;
+            }
+            while (node != null && i < 0) {
+                node = node.prev;
+                if (node != null) i = node.count - 1;
+            }
+            if (node == null) return null;
+            this.leaf = node;
+            this.slot = i;
+            return List.of(new Pair<>(codec.decode(node.keys[i]), new PointerPair(node.rowIds[i], unpack(node.pointers[i]))));
+        }
+    }
+
+    public K getMax(){
+        Node node = this.root;
+        while (node instanceof Inner inner) node = inner.children[inner.count];
+        return node.count == 0 ? null : this.codec.decode(node.keys[node.count - 1]);
+    }
+
+    // ===============UPDATE=============
+    /**
+     * Updates a value (assumes unique keys).
+     *
+     * @param key Key to update
+     * @param newValue New value to set
+     */
+    public void update(K key, PointerPair newValue) throws IllegalStateException {
+        if (!this.isUnique) throw new IllegalStateException("Must specify oldValue in non-unique trees.");
+        this.update(key, newValue, null);
+    }
+    /**
+     * Updates a value associated with a key. For non-unique trees,
+     * specifies old value to update.
+     *
+     * @param key Key to update
+     * @param newValue New value to set
+     * @param oldValue Old value to replace (required for non-unique trees)
+     */
+    public void update(K key, PointerPair newValue, PointerPair oldValue) throws IllegalStateException {
+        if (key == null) {
+            int index = this.nullIndexOf(oldValue);
+            if (index < 0 || newValue == null) return;
+            this.nullRowIds[index] = newValue.rowId();
+            this.nullPointers[index] = pack(newValue.indexPointer());
+            return;
+        }
+        if (this.isUnique && oldValue != null) throw new IllegalStateException("Cannot specify oldValue in unique trees.");
+        if (newValue == null) return;
+        PointerPair current = this.isUnique ? this.firstEntry(this.codec.encode(key)) : oldValue;
+        if (current == null || !this.remove(this.root, this.codec.encode(key), current.rowId(), pack(current.indexPointer()))) return;
+        if (this.root instanceof Inner inner && inner.count == 0) this.root = inner.children[0];
+        this.size--;
+        boolean unique = this.isUnique;
+        this.isUnique = false; // the key was just removed, skip the duplicate check
+        this.insert(key, newValue);
+        this.isUnique = unique;
+    }
+
+    private int nullIndexOf(PointerPair value){
+        if (value == null) return -1;
+        long pointer = pack(value.indexPointer());
+        for (int i = 0; i < this.nullRowIds.length; i++) {
+            if (this.nullRowIds[i] == value.rowId() && this.nullPointers[i] == pointer) return i;
+        }
+        return -1;
+    }
+    private List<Pair<K, PointerPair>> nullPairs(){
+        List<Pair<K, PointerPair>> result = new ArrayList<>();
+        if (!this.isNullable) return result;
+        for (int i = 0; i < this.nullRowIds.length; i++) {
+            result.add(new Pair<>(null, new PointerPair(this.nullRowIds[i], unpack(this.nullPointers[i]))));
+        }
+        return result;
+    }
+    private static long[] without(long[] values, int index){
+        long[] copy = new long[values.length - 1];
+        System.arraycopy(values, 0, copy, 0, index);
+        System.arraycopy(values, index + 1, copy, index, copy.length - index);
+        return copy;
+    }
+
+    public void clear(){
+        this.first = new Leaf(this.order);
+        this.root = this.first;
+        this.nullRowIds = new long[0];
+        this.nullPointers = new long[0];
+        this.size = 0;
+    }
+
+    // =======! PRINTING !======
+    /**
+     * @return String representation of the leaf chain
+     */
+    @Override
+    public String toString(){
+        StringBuilder sb = new StringBuilder("!=========! Leaf Chain !=========!\n");
+        for (Leaf leaf = this.first; leaf != null; leaf = leaf.next) {
+            sb.append('[');
+            for (int i = 0; i < leaf.count; i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(this.codec.decode(leaf.keys[i])).append('@').append(leaf.rowIds[i]);
+            }
+            sb.append(']');
+            if (leaf.next != null) sb.append(" -> ");
+        }
+        return sb.append('\n').toString();
+    }
+
+    // Configuration & Accessors
+    public void setUnique(boolean unique) { this.isUnique = unique; }
+    public boolean isUnique() { return this.isUnique; }
+    public void setNullable(boolean nullable) { this.isNullable = nullable; }
+    public boolean isNullable() { return this.isNullable; }
+    /** @return Number of keys(if unique) or values(if not unique) in the tree */
+    public long size() { return this.size; }
+    /** @return Order of the tree */
+    public int getOrder() { return this.order; }
+}
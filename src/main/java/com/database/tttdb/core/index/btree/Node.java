@@ -1,58 +1,124 @@
 package com.database.tttdb.core.index.btree;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import com.database.tttdb.core.index.Pair;
 /**
  * Represents a node in the B+ Tree structure (either internal or leaf node).
  *
  * <p>Node Type Characteristics:
  * <ul>
- *   <li>Leaf Nodes: Store key-value pairs and maintain linked-list pointers</li>
- *   <li>Internal Nodes: Store separator keys and child pointers</li>
+ *   <li>Leaf Nodes: Store sorted keys with their value or posting list, and maintain doubly linked-list pointers</li>
+ *   <li>Internal Nodes: Store sorted separator keys and child pointers</li>
  * </ul>
  *
+ * <p>Keys, values and children live in arrays sized to the tree order and are searched with
+ * binary search. When every key of a leaf is a {@link String} sharing a common prefix, the
+ * prefix is stored once in {@link #prefix} and the key slots hold only the suffixes.</p>
+ *
  * @param <K> Key type (must be comparable)
  * @param <V> Value type associated with keys
  */
 public class Node<K,V> {
-    public boolean isLeaf;        // Node type identifier
-    public List<Pair<K,V>> pairs; // Keys + values (leaf) or separator keys (internal)
-    public List<Node<K,V>> children;  // Child nodes (internal nodes only)
-    public Node<K,V> parent;      // Parent node reference
+    public final boolean isLeaf;  // Node type identifier
+    Object[] keys;                // Keys (leaf) or separator keys (internal), first count slots used
+    Object[] values;              // Value or posting list per key (leaf nodes only)
+    Node<K,V>[] children;         // Child nodes, count + 1 used (internal nodes only)
+    int count;
+    String prefix;                // Common prefix stripped from String keys (leaf nodes only)
     public Node<K,V> next;        // Next leaf node pointer (leaf nodes only)
+    public Node<K,V> prev;        // Previous leaf node pointer (leaf nodes only)
 
     /**
      * Creates a new node of specified type.
      *
      * @param isLeaf true for leaf node, false for internal node
+     * @param capacity number of key slots, the tree order
      */
-    public Node(Boolean isLeaf){
+    @SuppressWarnings("unchecked")
+    Node(boolean isLeaf, int capacity){
         this.isLeaf = isLeaf;
-        this.pairs = new ArrayList<>();
-        this.children = isLeaf ? null : new ArrayList<>();
-        this.parent = null;
-        this.next = null;
+        this.keys = new Object[capacity];
+        this.values = isLeaf ? new Object[capacity] : null;
+        this.children = isLeaf ? null : (Node<K,V>[]) new Node[capacity + 1];
+    }
+
+    /** @return Number of keys in the node */
+    public int size(){ return this.count; }
+    /** @return Full key at a position, with the leaf prefix put back */
+    @SuppressWarnings("unchecked")
+    public K getKey(int i){
+        return this.prefix == null ? (K) this.keys[i] : (K) (this.prefix + this.keys[i]);
     }
+    /** @return Child at a position (internal nodes only) */
+    public Node<K,V> getChild(int i){ return this.children[i]; }
 
     /**
-     * Traverses to the leftmost leaf in the subtree and retrieves its first key.
-     * Used for updating parent separator keys during deletions.
-     *
-     * @return First key in the leftmost leaf, or null if no keys exist
+     * Compares the key at a position with another key, as {@code getKey(i).compareTo(key)}
+     * but without rebuilding prefix-compressed keys.
      */
-    public K getFirstLeafKey() {
-        Node<K, V> n = this;
-        while (!n.isLeaf) {
-            n = n.children.getFirst();
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    int compare(int i, K key){
+        if (this.prefix == null) return ((Comparable) this.keys[i]).compareTo(key);
+        return compareCompressed(this.prefix, (String) this.keys[i], (String) key);
+    }
+
+    // String.compareTo of (prefix + suffix) against key
+    private static int compareCompressed(String prefix, String suffix, String key){
+        int p = prefix.length();
+        int common = Math.min(p, key.length());
+        for (int i = 0; i < common; i++) {
+            int c = prefix.charAt(i) - key.charAt(i);
+            if (c != 0) return c;
+        }
+        if (key.length() < p) return p + suffix.length() - key.length();
+        int n = Math.min(suffix.length(), key.length() - p);
+        for (int i = 0; i < n; i++) {
+            int c = suffix.charAt(i) - key.charAt(p + i);
+            if (c != 0) return c;
         }
-        return n.pairs.isEmpty() ? null : n.pairs.getFirst().key;
+        return suffix.length() - (key.length() - p);
+    }
+
+    /**
+     * Stores a key in a leaf slot, shortening the leaf prefix first if the key does not share it.
+     */
+    void setKey(int i, K key){
+        if (this.prefix != null && !((String) key).startsWith(this.prefix)) {
+            this.shortenPrefix(commonPrefix(this.prefix, (String) key));
+        }
+        this.keys[i] = this.prefix == null ? key : ((String) key).substring(this.prefix.length());
+    }
+
+    /**
+     * Strips the longest prefix shared by all keys of a leaf. Sorted keys share whatever
+     * prefix the first and the last key share.
+     */
+    void compress(){
+        if (!this.isLeaf || this.count < 2 || !(this.keys[0] instanceof String)) return;
+        String first = (String) this.getKey(0);
+        int length = commonPrefix(first, (String) this.getKey(this.count - 1));
+        int current = this.prefix == null ? 0 : this.prefix.length();
+        if (length <= current) return;
+        String added = first.substring(current, length);
+        for (int i = 0; i < this.count; i++) this.keys[i] = ((String) this.keys[i]).substring(added.length());
+        this.prefix = first.substring(0, length);
+    }
+
+    // Moves the part of the prefix past length back into every suffix
+    private void shortenPrefix(int length){
+        String moved = this.prefix.substring(length);
+        for (int i = 0; i < this.count; i++) this.keys[i] = moved + this.keys[i];
+        this.prefix = length == 0 ? null : this.prefix.substring(0, length);
+    }
+
+    private static int commonPrefix(String a, String b){
+        int n = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < n && a.charAt(i) == b.charAt(i)) i++;
+        return i;
     }
 
     /**
      * Generates a structural summary:
-     * - Lists all keys with their values
+     * - Lists all keys
      * - Indicates node type (leaf/internal)
      * - Shows child count (internal nodes)
      *
@@ -61,10 +127,10 @@ public class Node<K,V> {
     @Override
     public String toString() {
         StringBuilder keys = new StringBuilder("{Keys:[");
-        for(Pair<K,V> pair : this.pairs){
-            keys.append(pair.toString()).append(", ");
+        for (int i = 0; i < this.count; i++) {
+            keys.append(this.getKey(i)).append(", ");
         }
-        String stats = "], Leaf:"+ (isLeaf ? "Yes":"No") + ", ChildrenNum:" + (this.children == null ? "NULL":this.children.size());
+        String stats = "], Leaf:"+ (isLeaf ? "Yes":"No") + ", ChildrenNum:" + (this.isLeaf ? "NULL" : this.count + 1);
         return "\n"+keys+stats+"}\n";
     }
 }
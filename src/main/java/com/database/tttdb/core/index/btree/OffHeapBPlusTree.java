@@ -0,0 +1,494 @@
+package com.database.tttdb.core.index.btree;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.database.tttdb.core.index.Index;
+import com.database.tttdb.core.index.IndexInit.BlockPointer;
+import com.database.tttdb.core.index.IndexInit.PointerPair;
+import com.database.tttdb.core.index.KeyCodec;
+import com.database.tttdb.core.index.Pair;
+
+/**
+ * B+ Tree whose nodes live outside the Java heap.
+ *
+ * <p>Nodes are fixed-size blocks in direct {@link ByteBuffer} chunks and refer to each other
+ * by node number, so the heap only holds the chunk table whatever the size of the index.
+ * Keys are stored in their {@link KeyCodec} encoding next to the row id and the packed index
+ * pointer, in the same (key, row id) order as {@link LongKeyBPlusTree}.</p>
+ *
+ * <p>Nodes freed by merges are reused by later splits. The chunks themselves are returned to
+ * the system once the tree is cleared and the old buffers become unreachable.</p>
+ *
+ * <p>Node layout: {@code count(int) leaf(int) next(int) pad(int)}, then {@code order} keys,
+ * {@code order} row ids and either {@code order} packed pointers (leaves) or
+ * {@code order + 1} child numbers (internal nodes).</p>
+ *
+ * @param <K> Key type, mapped to {@code long} by its {@link KeyCodec}
+ */
+public class OffHeapBPlusTree<K extends Comparable<? super K>> implements Index<K, PointerPair> {
+
+    private static final long NO_POINTER = Long.MIN_VALUE;
+    private static final int NONE = -1;
+    private static final int CHUNK_BYTES = 1 << 16;
+    // header fields
+    private static final int COUNT = 0;
+    private static final int LEAF = 4;
+    private static final int NEXT = 8;
+    private static final int ENTRIES = 16;
+    // entry fields
+    private static final int KEYS = 0;
+    private static final int ROW_IDS = 1;
+    private static final int POINTERS = 2;
+    // null keys are kept in a second tree ordered by row id
+    private static final int KEY_TREE = 0;
+    private static final int NULL_TREE = 1;
+
+    private record Split(long key, long rowId, int right) {}
+
+    private final KeyCodec<K> codec;
+    private final int order;
+    private final int minKeys;
+    private final int nodeSize;
+    private final int nodesPerChunk;
+    private final int childrenOffset;
+    private ByteBuffer[] chunks;
+    private int allocated;
+    private int freeNodes;
+    private final int[] roots = new int[2];
+    private long size = 0;
+    private boolean isUnique = true;
+    private boolean isNullable = false;
+
+    /**
+     * @param order Tree order (minimum 3). Determines max keys per node (order-1).
+     * @param codec mapping of the keys to {@code long}
+     * @throws IllegalArgumentException if order < 3
+     */
+    public OffHeapBPlusTree(int order, KeyCodec<K> codec){
+        if (order < 3)
+            throw new IllegalArgumentException("B+Tree Order must be at least 3.");
+        this.order = order;
+        this.codec = codec;
+        this.minKeys = (int) Math.ceil(order / 2.0) - 1;
+        this.childrenOffset = ENTRIES + 2 * Long.BYTES * order;
+        this.nodeSize = ENTRIES + 3 * Long.BYTES * order;
+        this.nodesPerChunk = Math.max(1, CHUNK_BYTES / this.nodeSize);
+        this.clear();
+    }
+
+    // ========! NODE STORAGE !==========
+    private int allocate(boolean leaf){
+        int node = this.freeNodes;
+        if (node != NONE) {
+            this.freeNodes = this.next(node);
+        } else {
+            node = this.allocated++;
+            int chunk = node / this.nodesPerChunk;
+            if (chunk == this.chunks.length) this.chunks = Arrays.copyOf(this.chunks, chunk * 2);
+            if (this.chunks[chunk] == null)
+                this.chunks[chunk] = ByteBuffer.allocateDirect(this.nodesPerChunk * this.nodeSize).order(ByteOrder.nativeOrder());
+        }
+        this.setCount(node, 0);
+        this.buffer(node).putInt(this.offset(node) + LEAF, leaf ? 1 : 0);
+        this.setNext(node, NONE);
+        return node;
+    }
+    // Freed nodes are linked through their next field
+    private void release(int node){
+        this.setNext(node, this.freeNodes);
+        this.freeNodes = node;
+    }
+    private ByteBuffer buffer(int node){ return this.chunks[node / this.nodesPerChunk]; }
+    private int offset(int node){ return (node % this.nodesPerChunk) * this.nodeSize; }
+
+    private int count(int node){ return this.buffer(node).getInt(this.offset(node) + COUNT); }
+    private void setCount(int node, int count){ this.buffer(node).putInt(this.offset(node) + COUNT, count); }
+    private boolean isLeaf(int node){ return this.buffer(node).getInt(this.offset(node) + LEAF) == 1; }
+    private int next(int node){ return this.buffer(node).getInt(this.offset(node) + NEXT); }
+    private void setNext(int node, int next){ this.buffer(node).putInt(this.offset(node) + NEXT, next); }
+    private long get(int node, int field, int i){
+        return this.buffer(node).getLong(this.offset(node) + ENTRIES + (field * this.order + i) * Long.BYTES);
+    }
+    private void set(int node, int field, int i, long value){
+        this.buffer(node).putLong(this.offset(node) + ENTRIES + (field * this.order + i) * Long.BYTES, value);
+    }
+    private int child(int node, int i){ return this.buffer(node).getInt(this.offset(node) + this.childrenOffset + i * Integer.BYTES); }
+    private void setChild(int node, int i, int child){
+        this.buffer(node).putInt(this.offset(node) + this.childrenOffset + i * Integer.BYTES, child);
+    }
+    // Copies back to front when moving right inside a node so overlapping ranges stay intact
+    private void copy(int field, int from, int fromPos, int to, int toPos, int length){
+        if (from == to && toPos > fromPos) {
+            for (int i = length - 1; i >= 0; i--) this.set(to, field, toPos + i, this.get(from, field, fromPos + i));
+        } else {
+            for (int i = 0; i < length; i++) this.set(to, field, toPos + i, this.get(from, field, fromPos + i));
+        }
+    }
+    private void copyEntries(int from, int fromPos, int to, int toPos, int length, boolean leaf){
+        this.copy(KEYS, from, fromPos, to, toPos, length);
+        this.copy(ROW_IDS, from, fromPos, to, toPos, length);
+        if (leaf) this.copy(POINTERS, from, fromPos, to, toPos, length);
+    }
+    private void copyChildren(int from, int fromPos, int to, int toPos, int length){
+        if (from == to && toPos > fromPos) {
+            for (int i = length - 1; i >= 0; i--) this.setChild(to, toPos + i, this.child(from, fromPos + i));
+        } else {
+            for (int i = 0; i < length; i++) this.setChild(to, toPos + i, this.child(from, fromPos + i));
+        }
+    }
+    private void setSeparator(int node, int i, long key, long rowId){
+        this.set(node, KEYS, i, key);
+        this.set(node, ROW_IDS, i, rowId);
+    }
+
+    // ========! ENCODING !==========
+    private static long pack(BlockPointer pointer){
+        if (pointer == null) return NO_POINTER;
+        return ((long) pointer.BlockID() << 16) | (pointer.RowOffset() & 0xFFFFL);
+    }
+    private static BlockPointer unpack(long pointer){
+        if (pointer == NO_POINTER) return null;
+        return new BlockPointer((int) (pointer >> 16), (short) pointer);
+    }
+    private static int compare(long key1, long rowId1, long key2, long rowId2){
+        int c = Long.compare(key1, key2);
+        return c != 0 ? c : Long.compare(rowId1, rowId2);
+    }
+    // First index whose entry is not less than (key, rowId)
+    private int lowerBound(int node, long key, long rowId){
+        int lo = 0, hi = this.count(node);
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(this.get(node, KEYS, mid), this.get(node, ROW_IDS, mid), key, rowId) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+    // Child holding (key, rowId): entries equal to a separator live right of it
+    private int childIndex(int node, long key, long rowId){
+        int lo = 0, hi = this.count(node);
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(key, rowId, this.get(node, KEYS, mid), this.get(node, ROW_IDS, mid)) >= 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+    private int findLeaf(int tree, long key, long rowId){
+        int node = this.roots[tree];
+        while (!this.isLeaf(node)) node = this.child(node, this.childIndex(node, key, rowId));
+        return node;
+    }
+
+    // ========! INSERTION !==========
+    // Core Operation (see interface docs for details)
+    public void insert(K key, PointerPair value){
+        if (key == null) {
+            if (!this.isNullable) throw new NullPointerException("Null keys are not allowed in this index.");
+            this.insertEntry(NULL_TREE, 0, value.rowId(), pack(value.indexPointer()));
+            return;
+        }
+        long encoded = this.codec.encode(key);
+        if (this.isUnique && this.firstEntry(encoded) != null) return;
+        this.insertEntry(KEY_TREE, encoded, value.rowId(), pack(value.indexPointer()));
+    }
+    private void insertEntry(int tree, long key, long rowId, long pointer){
+        Split split = this.insert(this.roots[tree], key, rowId, pointer);
+        if (split == null) return;
+        int root = this.allocate(false);
+        this.setSeparator(root, 0, split.key(), split.rowId());
+        this.setChild(root, 0, this.roots[tree]);
+        this.setChild(root, 1, split.right());
+        this.setCount(root, 1);
+        this.roots[tree] = root;
+    }
+    private Split insert(int node, long key, long rowId, long pointer){
+        int count = this.count(node);
+        if (this.isLeaf(node)) {
+            int pos = this.lowerBound(node, key, rowId);
+            if (pos < count && this.get(node, KEYS, pos) == key && this.get(node, ROW_IDS, pos) == rowId) return null;
+            this.copyEntries(node, pos, node, pos + 1, count - pos, true);
+            this.setSeparator(node, pos, key, rowId);
+            this.set(node, POINTERS, pos, pointer);
+            this.setCount(node, ++count);
+            this.size++;
+            return count < this.order ? null : this.splitLeaf(node);
+        }
+        int index = this.childIndex(node, key, rowId);
+        Split split = this.insert(this.child(node, index), key, rowId, pointer);
+        if (split == null) return null;
+        this.copyEntries(node, index, node, index + 1, count - index, false);
+        this.copyChildren(node, index + 1, node, index + 2, count - index);
+        this.setSeparator(node, index, split.key(), split.rowId());
+        this.setChild(node, index + 1, split.right());
+        this.setCount(node, ++count);
+        return count < this.order ? null : this.splitInner(node);
+    }
+    private Split splitLeaf(int leaf){
+        int count = this.count(leaf);
+        int mid = count / 2;
+        int right = this.allocate(true);
+        this.copyEntries(leaf, mid, right, 0, count - mid, true);
+        this.setCount(right, count - mid);
+        this.setCount(leaf, mid);
+        this.setNext(right, this.next(leaf));
+        this.setNext(leaf, right);
+        return new Split(this.get(right, KEYS, 0), this.get(right, ROW_IDS, 0), right);
+    }
+    private Split splitInner(int node){
+        int count = this.count(node);
+        int mid = count / 2;
+        int right = this.allocate(false);
+        this.copyEntries(node, mid + 1, right, 0, count - mid - 1, false);
+        this.copyChildren(node, mid + 1, right, 0, count - mid);
+        this.setCount(right, count - mid - 1);
+        this.setCount(node, mid);
+        return new Split(this.get(node, KEYS, mid), this.get(node, ROW_IDS, mid), right);
+    }
+
+    // ===========! REMOVING !=============
+    // Core Operation (see interface docs for details)
+    public void remove(K key, PointerPair value){
+        if (key == null) this.removeEntry(NULL_TREE, 0, value.rowId(), pack(value.indexPointer()));
+        else this.removeEntry(KEY_TREE, this.codec.encode(key), value.rowId(), pack(value.indexPointer()));
+    }
+    private boolean removeEntry(int tree, long key, long rowId, long pointer){
+        if (!this.remove(this.roots[tree], key, rowId, pointer)) return false;
+        this.size--;
+        int root = this.roots[tree];
+        if (!this.isLeaf(root) && this.count(root) == 0) {
+            this.roots[tree] = this.child(root, 0);
+            this.release(root);
+        }
+        return true;
+    }
+    private boolean remove(int node, long key, long rowId, long pointer){
+        if (this.isLeaf(node)) {
+            int count = this.count(node);
+            int pos = this.lowerBound(node, key, rowId);
+            if (pos == count || this.get(node, KEYS, pos) != key || this.get(node, ROW_IDS, pos) != rowId
+                || this.get(node, POINTERS, pos) != pointer) return false;
+            this.copyEntries(node, pos + 1, node, pos, count - pos - 1, true);
+            this.setCount(node, count - 1);
+            return true;
+        }
+        int index = this.childIndex(node, key, rowId);
+        if (!this.remove(this.child(node, index), key, rowId, pointer)) return false;
+        if (this.count(this.child(node, index)) < this.minKeys) this.rebalance(node, index);
+        return true;
+    }
+    private void rebalance(int parent, int index){
+        int child = this.child(parent, index);
+        int left = index > 0 ? this.child(parent, index - 1) : NONE;
+        int right = index < this.count(parent) ? this.child(parent, index + 1) : NONE;
+        if (left != NONE && this.count(left) > this.minKeys) this.borrowFromLeft(parent, index, left, child);
+        else if (right != NONE && this.count(right) > this.minKeys) this.borrowFromRight(parent, index, child, right);
+        else if (right != NONE) this.merge(parent, index, child, right);
+        else if (left != NONE) this.merge(parent, index - 1, left, child);
+    }
+    private void borrowFromLeft(int parent, int index, int left, int child){
+        int count = this.count(child);
+        int leftCount = this.count(left);
+        if (this.isLeaf(child)) {
+            this.copyEntries(child, 0, child, 1, count, true);
+            this.copyEntries(left, leftCount - 1, child, 0, 1, true);
+            this.setSeparator(parent, index - 1, this.get(child, KEYS, 0), this.get(child, ROW_IDS, 0));
+        } else {
+            this.copyEntries(child, 0, child, 1, count, false);
+            this.copyChildren(child, 0, child, 1, count + 1);
+            this.setSeparator(child, 0, this.get(parent, KEYS, index - 1), this.get(parent, ROW_IDS, index - 1));
+            this.setChild(child, 0, this.child(left, leftCount));
+            this.setSeparator(parent, index - 1, this.get(left, KEYS, leftCount - 1), this.get(left, ROW_IDS, leftCount - 1));
+        }
+        this.setCount(child, count + 1);
+        this.setCount(left, leftCount - 1);
+    }
+    private void borrowFromRight(int parent, int index, int child, int right){
+        int count = this.count(child);
+        int rightCount = this.count(right);
+        if (this.isLeaf(child)) {
+            this.copyEntries(right, 0, child, count, 1, true);
+            this.copyEntries(right, 1, right, 0, rightCount - 1, true);
+            this.setSeparator(parent, index, this.get(right, KEYS, 0), this.get(right, ROW_IDS, 0));
+        } else {
+            this.setSeparator(child, count, this.get(parent, KEYS, index), this.get(parent, ROW_IDS, index));
+            this.setChild(child, count + 1, this.child(right, 0));
+            this.setSeparator(parent, index, this.get(right, KEYS, 0), this.get(right, ROW_IDS, 0));
+            this.copyEntries(right, 1, right, 0, rightCount - 1, false);
+            this.copyChildren(right, 1, right, 0, rightCount);
+        }
+        this.setCount(child, count + 1);
+        this.setCount(right, rightCount - 1);
+    }
+    // Appends right to left, drops the separator between them from the parent and frees right
+    private void merge(int parent, int leftIndex, int left, int right){
+        int count = this.count(left);
+        int rightCount = this.count(right);
+        if (this.isLeaf(left)) {
+            this.copyEntries(right, 0, left, count, rightCount, true);
+            this.setCount(left, count + rightCount);
+            this.setNext(left, this.next(right));
+        } else {
+            this.setSeparator(left, count, this.get(parent, KEYS, leftIndex), this.get(parent, ROW_IDS, leftIndex));
+            this.copyEntries(right, 0, left, count + 1, rightCount, false);
+            this.copyChildren(right, 0, left, count + 1, rightCount + 1);
+            this.setCount(left, count + rightCount + 1);
+        }
+        this.release(right);
+        int parentCount = this.count(parent);
+        this.copyEntries(parent, leftIndex + 1, parent, leftIndex, parentCount - leftIndex - 1, false);
+        this.copyChildren(parent, leftIndex + 2, parent, leftIndex + 1, parentCount - leftIndex - 1);
+        this.setCount(parent, parentCount - 1);
+    }
+
+    // ==========! SEARCHING !===========
+    // Core Operation (see interface docs for details)
+    public List<Pair<K, PointerPair>> search(K key){
+        List<Pair<K, PointerPair>> result = new ArrayList<>();
+        if (key == null) {
+            if (this.isNullable) this.collect(NULL_TREE, Long.MIN_VALUE, Long.MAX_VALUE, result);
+            return result;
+        }
+        long encoded = this.codec.encode(key);
+        this.collect(KEY_TREE, encoded, encoded, result);
+        return result;
+    }
+    // Core Operation (see interface docs for details)
+    public boolean isKey(K key){
+        if (key == null) return this.isNullable && this.count(this.roots[NULL_TREE]) > 0;
+        return this.firstEntry(this.codec.encode(key)) != null;
+    }
+    // Core Operation (see interface docs for details)
+    public List<Pair<K, PointerPair>> rangeSearch(K fromKey, K toKey){
+        List<Pair<K, PointerPair>> result = new ArrayList<>();
+        if (fromKey == null && this.isNullable) this.collect(NULL_TREE, Long.MIN_VALUE, Long.MAX_VALUE, result);
+        this.collect(KEY_TREE, fromKey == null ? Long.MIN_VALUE : this.codec.encode(fromKey),
+            toKey == null ? Long.MAX_VALUE : this.codec.encode(toKey), result);
+        return result;
+    }
+    private void collect(int tree, long from, long to, List<Pair<K, PointerPair>> result){
+        int leaf = this.findLeaf(tree, from, Long.MIN_VALUE);
+        int i = this.lowerBound(leaf, from, Long.MIN_VALUE);
+        while (leaf != NONE) {
+            int count = this.count(leaf);
+            for (; i < count; i++) {
+                long key = this.get(leaf, KEYS, i);
+                if (key > to) return;
+                K decoded = tree == NULL_TREE ? null : this.codec.decode(key);
+                result.add(new Pair<>(decoded, new PointerPair(this.get(leaf, ROW_IDS, i), unpack(this.get(leaf, POINTERS, i)))));
+            }
+            leaf = this.next(leaf);
+            i = 0;
+        }
+    }
+    // The first value stored under an encoded key, or null
+    private PointerPair firstEntry(long key){
+        int leaf = this.findLeaf(KEY_TREE, key, Long.MIN_VALUE);
+        int i = this.lowerBound(leaf, key, Long.MIN_VALUE);
+        if (i == this.count(leaf)) {
+            leaf = this.next(leaf);
+            i = 0;
+        }
+        if (leaf == NONE || this.get(leaf, KEYS, i) != key) return null;
+        return new PointerPair(this.get(leaf, ROW_IDS, i), unpack(this.get(leaf, POINTERS, i)));
+    }
+    public K getMax(){
+        int node = this.roots[KEY_TREE];
+        while (!this.isLeaf(node)) node = this.child(node, this.count(node));
+        int count = this.count(node);
+        return count == 0 ? null : this.codec.decode(this.get(node, KEYS, count - 1));
+    }
+
+    // ===============UPDATE=============
+    /**
+     * Updates a value (assumes unique keys).
+     *
+     * @param key Key to update
+     * @param newValue New value to set
+     */
+    public void update(K key, PointerPair newValue) throws IllegalStateException {
+        if (!this.isUnique) throw new IllegalStateException("Must specify oldValue in non-unique trees.");
+        this.update(key, newValue, null);
+    }
+    /**
+     * Updates a value associated with a key. For non-unique trees,
+     * specifies old value to update.
+     *
+     * @param key Key to update
+     * @param newValue New value to set
+     * @param oldValue Old value to replace (required for non-unique trees)
+     */
+    public void update(K key, PointerPair newValue, PointerPair oldValue) throws IllegalStateException {
+        if (key == null) {
+            if (oldValue == null || newValue == null) return;
+            if (this.removeEntry(NULL_TREE, 0, oldValue.rowId(), pack(oldValue.indexPointer())))
+                this.insertEntry(NULL_TREE, 0, newValue.rowId(), pack(newValue.indexPointer()));
+            return;
+        }
+        if (this.isUnique && oldValue != null) throw new IllegalStateException("Cannot specify oldValue in unique trees.");
+        if (newValue == null) return;
+        long encoded = this.codec.encode(key);
+        PointerPair current = this.isUnique ? this.firstEntry(encoded) : oldValue;
+        if (current == null || !this.removeEntry(KEY_TREE, encoded, current.rowId(), pack(current.indexPointer()))) return;
+        this.insertEntry(KEY_TREE, encoded, newValue.rowId(), pack(newValue.indexPointer()));
+    }
+
+    /**
+     * Drops every node. The previous chunks are released with their buffers.
+     */
+    public void clear(){
+        this.chunks = new ByteBuffer[4];
+        this.allocated = 0;
+        this.freeNodes = NONE;
+        this.roots[KEY_TREE] = this.allocate(true);
+        this.roots[NULL_TREE] = this.allocate(true);
+        this.size = 0;
+    }
+
+    // =======! PRINTING !======
+    /**
+     * @return String representation of the leaf chain
+     */
+    @Override
+    public String toString(){
+        int leaf = this.roots[KEY_TREE];
+        while (!this.isLeaf(leaf)) leaf = this.child(leaf, 0);
+        StringBuilder sb = new StringBuilder("!=========! Leaf Chain !=========!\n");
+        for (; leaf != NONE; leaf = this.next(leaf)) {
+            sb.append('[');
+            for (int i = 0; i < this.count(leaf); i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(this.codec.decode(this.get(leaf, KEYS, i))).append('@').append(this.get(leaf, ROW_IDS, i));
+            }
+            sb.append(']');
+            if (this.next(leaf) != NONE) sb.append(" -> ");
+        }
+        return sb.append('\n').toString();
+    }
+
+    // Configuration & Accessors
+    public void setUnique(boolean unique) { this.isUnique = unique; }
+    public boolean isUnique() { return this.isUnique; }
+    public void setNullable(boolean nullable) { this.isNullable = nullable; }
+    public boolean isNullable() { return this.isNullable; }
+    /** @return Number of keys(if unique) or values(if not unique) in the tree */
+    public long size() { return this.size; }
+    /** @return Order of the tree */
+    public int getOrder() { return this.order; }
+    /** @return Direct memory reserved for nodes, in bytes */
+    public long getOffHeapBytes() {
+        long bytes = 0;
+        for (ByteBuffer chunk : this.chunks) if (chunk != null) bytes += chunk.capacity();
+        return bytes;
+    }
+    /** @return Nodes in use, excluding freed ones waiting for reuse */
+    public int getNodeCount() {
+        int free = 0;
+        for (int node = this.freeNodes; node != NONE; node = this.next(node)) free++;
+        return this.allocated - free;
+    }
+}
@@ -1,79 +1,117 @@
 package com.database.tttdb.core.index.hashmap;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.NoSuchElementException;
 
 import com.database.tttdb.core.index.Index;
+import com.database.tttdb.core.index.KeyCodec;
 import com.database.tttdb.core.index.Pair;
+import com.database.tttdb.core.index.Postings;
 
+/**
+ * Hash index on an open-addressing table with Robin Hood probing.
+ *
+ * <p>Each slot holds a key, its hash and its value, or a {@link Postings} list once a
+ * non-unique key has several, so unique keys cost no allocation beyond the value itself.
+ * Removal shifts the following entries back instead of leaving tombstones, which keeps probe
+ * sequences short.</p>
+ *
+ * <p>The table is never rehashed at once: when it fills up, a table of twice the size takes all
+ * new entries and every write moves a few slots of the old one across, while lookups check both.
+ * When constructed with a {@link KeyCodec}, keys are stored as primitive {@code long}s.</p>
+ *
+ * @param <K> Key type
+ * @param <V> Value type associated with keys
+ */
 public class HashIndex<K extends Comparable<? super K>,V> implements Index<K,V> {
 
-    private final HashMap<K,List<V>> hashmap;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MIGRATE_STEP = 16; // old slots moved across per write while resizing
+    private static final Object MOVED = new Object(); // value of an old slot that has left it
+
+    private final KeyCodec<K> codec; // keys are stored as longs when set
+    private Table table;   // takes all new entries
+    private Table old;     // being moved into table, null unless resizing
+    private int migrated;  // slots of old already moved
+    private Object nullValues;
     private boolean isNullable = false;
     private boolean isUnique = true;
     private long size = 0;
 
     public HashIndex(){
-        this.hashmap = new HashMap<>();
+        this(null);
+    }
+    /**
+     * @param codec encoding of the keys to {@code long}, {@code null} to store key objects
+     */
+    public HashIndex(KeyCodec<K> codec){
+        this.codec = codec;
+        this.table = new Table(INITIAL_CAPACITY);
     }
 
     public void insert(K key, V value) {
         ensureKeyValidity(key);
-        if (isUnique) {
-            List<V> list = hashmap.get(key);
-            if (list == null) {
-                list = new ArrayList<>(1);
-                list.add(value);
-                hashmap.put(key, list);
-                size++;
-            } else {
-                list.set(0, value);
-            }
-        } else {
-            List<V> list = hashmap.computeIfAbsent(key, k -> new ArrayList<>());
-            list.add(value);
+        if (key == null) {
+            Object values = this.isUnique ? value : Postings.add(this.nullValues, value);
+            if (values == null) return;
+            if (this.nullValues == null || !this.isUnique) size++;
+            this.nullValues = values;
+            return;
+        }
+        this.migrate(MIGRATE_STEP);
+        long bits = this.bits(key);
+        int hash = this.hash(key, bits);
+        int i = this.claim(key, bits, hash);
+        if (i < 0) {
+            this.table.add(key, bits, hash, value);
             size++;
+            if (this.table.isFull()) this.grow();
+            return;
+        }
+        if (isUnique) {
+            this.table.values[i] = value;
+            return;
         }
+        Object values = Postings.add(this.table.values[i], value);
+        if (values == null) return;
+        this.table.values[i] = values;
+        size++;
     }
 
     public void remove(K key, V value) {
         ensureKeyValidity(key);
-        List<V> list = hashmap.get(key);
-        if (list == null) return;
-        if (value == null) {
-            if (list.remove(null)) size--;
-        } else {
-            if(list.remove(value)) size--;
-        }
-        if (list.isEmpty()) {
-            hashmap.remove(key);
+        if (key == null) {
+            Object values = Postings.remove(this.nullValues, value);
+            if (values == Postings.MISSING) return;
+            this.nullValues = values;
+            size--;
+            return;
         }
+        this.migrate(MIGRATE_STEP);
+        long bits = this.bits(key);
+        int i = this.claim(key, bits, this.hash(key, bits));
+        if (i < 0) return;
+        Object values = Postings.remove(this.table.values[i], value);
+        if (values == Postings.MISSING) return;
+        size--;
+        if (values == null) this.table.delete(i);
+        else this.table.values[i] = values;
     }
 
     public List<Pair<K, V>> search(K key) {
         ensureKeyValidity(key);
         List<Pair<K, V>> out = new ArrayList<>();
-        List<V> list = hashmap.get(key);
-        if (list == null) return out;
-        for (V v : list) {
-            out.add(new Pair<>(key, v));
-        }
+        Postings.addPairs(out, key, this.valuesOf(key));
         return out;
     }
 
     public List<Pair<K, V>> rangeSearch(K fromKey, K toKey) {
         // Unordered index: full scan with filtering. Bounds inclusive. Null means unbounded.
         List<Pair<K, V>> out = new ArrayList<>();
-        for (Map.Entry<K, List<V>> e : hashmap.entrySet()) {
-            K k = e.getKey();
-            if (!within(k, fromKey, toKey)) continue;
-            for (V v : e.getValue()) {
-                out.add(new Pair<>(k, v));
-            }
-        }
+        if (within(null, fromKey, toKey)) Postings.addPairs(out, null, this.nullValues);
+        if (this.old != null) this.old.scan(fromKey, toKey, out);
+        this.table.scan(fromKey, toKey, out);
         return out;
     }
 
@@ -89,8 +127,7 @@ public class HashIndex<K extends Comparable<? super K>,V> implements Index<K,V>
 
     public boolean isKey(K key) {
         ensureKeyValidity(key);
-        List<V> list = hashmap.get(key);
-        return list != null && !list.isEmpty();
+        return this.valuesOf(key) != null;
     }
 
     public void update(K key, V newValue) {
@@ -98,11 +135,14 @@ public class HashIndex<K extends Comparable<? super K>,V> implements Index<K,V>
         if (!isUnique) {
             throw new IllegalStateException("update(key,newValue) requires unique index");
         }
-        List<V> list = hashmap.get(key);
-        if (list == null || list.isEmpty()) {
-            throw new NoSuchElementException("Key not found");
+        if (key == null) {
+            if (this.nullValues == null) throw new NoSuchElementException("Key not found");
+            this.nullValues = newValue;
+            return;
         }
-        list.set(0, newValue);
+        int i = this.slotOf(key);
+        if (i < 0) throw new NoSuchElementException("Key not found");
+        this.table.values[i] = newValue;
     }
 
     public void update(K key, V newValue, V oldValue) {
@@ -110,31 +150,24 @@ public class HashIndex<K extends Comparable<? super K>,V> implements Index<K,V>
         if (isUnique) {
             throw new IllegalStateException("update(key,newValue,oldValue) is for non-unique index");
         }
-        List<V> list = hashmap.get(key);
-        if (list == null || list.isEmpty()) {
-            throw new NoSuchElementException("Key not found");
-        }
-        boolean replaced = false;
-        if (oldValue == null) {
-            for (int i = 0; i < list.size(); i++) {
-                if (list.get(i) == null) {
-                    list.set(i, newValue);
-                    replaced = true;
-                    break;
-                }
-            }
-        } else {
-            for (int i = 0; i < list.size(); i++) {
-                if (oldValue.equals(list.get(i))) {
-                    list.set(i, newValue);
-                    replaced = true;
-                    break;
-                }
-            }
-        }
-        if (!replaced) {
-            throw new NoSuchElementException("Old value not found for key");
+        if (key == null) {
+            if (this.nullValues == null) throw new NoSuchElementException("Key not found");
+            this.nullValues = this.replaceValue(this.nullValues, oldValue, newValue);
+            return;
         }
+        int i = this.slotOf(key);
+        if (i < 0) throw new NoSuchElementException("Key not found");
+        this.table.values[i] = this.replaceValue(this.table.values[i], oldValue, newValue);
+    }
+
+    // Values with oldValue swapped for newValue
+    private Object replaceValue(Object values, V oldValue, V newValue) {
+        Object removed = Postings.remove(values, oldValue);
+        if (removed == Postings.MISSING) throw new NoSuchElementException("Old value not found for key");
+        Object updated = Postings.add(removed, newValue);
+        if (updated != null) return updated;
+        size--; // newValue was already there
+        return removed;
     }
 
     public long size(){
@@ -142,21 +175,22 @@ public class HashIndex<K extends Comparable<? super K>,V> implements Index<K,V>
     }
 
     public K getMax() {
-        K max = null;
-        for (K k : hashmap.keySet()) {
-            if (k == null) continue; // null excluded from ordering
-            if (max == null || k.compareTo(max) > 0) {
-                max = k;
-            }
-        }
-        return max; // may be null if empty or only null keys exist
+        K max = this.table.max(null);
+        return this.old == null ? max : this.old.max(max); // null excluded from ordering
     }
 
     public void clear(){
-        hashmap.clear();
+        this.table = new Table(INITIAL_CAPACITY);
+        this.old = null;
+        this.nullValues = null;
         size = 0;
     }
 
+    /** @return Number of slots of the table taking new entries */
+    public int getCapacity(){ return this.table.hashes.length; }
+    /** @return true while entries are being moved to a larger table */
+    public boolean isResizing(){ return this.old != null; }
+
     public void setUnique(boolean isUnique) { this.isUnique = isUnique; }
     public void setNullable(boolean isNullable) { this.isNullable = isNullable; }
     public boolean isUnique() { return isUnique; }
@@ -167,4 +201,168 @@ public class HashIndex<K extends Comparable<? super K>,V> implements Index<K,V>
             throw new IllegalArgumentException("Null keys are not allowed");
         }
     }
-}
\ No newline at end of file
+
+    // =======! TABLE ACCESS !======
+    private long bits(K key) { return this.codec == null ? 0 : this.codec.encode(key); }
+
+    // Spread hash, never 0 as 0 marks an empty slot
+    private int hash(K key, long bits) {
+        int h = this.codec == null ? key.hashCode() : Long.hashCode(bits);
+        h *= 0x9E3779B9;
+        h ^= h >>> 16;
+        return h == 0 ? 1 : h;
+    }
+
+    private Object valuesOf(K key) {
+        if (key == null) return this.nullValues;
+        long bits = this.bits(key);
+        int hash = this.hash(key, bits);
+        int i = this.table.indexOf(key, bits, hash);
+        if (i >= 0) return this.table.values[i];
+        if (this.old == null) return null;
+        i = this.old.indexOf(key, bits, hash);
+        return i < 0 ? null : this.old.values[i];
+    }
+
+    private int slotOf(K key) {
+        long bits = this.bits(key);
+        return this.claim(key, bits, this.hash(key, bits));
+    }
+
+    // Slot of key in table, moving it over from old first, -1 if it is in neither
+    private int claim(K key, long bits, int hash) {
+        if (this.old != null) {
+            int i = this.old.indexOf(key, bits, hash);
+            if (i >= 0) {
+                this.table.add(key, bits, hash, this.old.values[i]);
+                this.old.values[i] = MOVED;
+            }
+        }
+        return this.table.indexOf(key, bits, hash);
+    }
+
+    private void grow() {
+        if (this.old != null) this.migrate(Integer.MAX_VALUE);
+        this.old = this.table;
+        this.table = new Table(this.old.hashes.length * 2);
+        this.migrated = 0;
+    }
+
+    private void migrate(int slots) {
+        if (this.old == null) return;
+        Table from = this.old;
+        int end = (int) Math.min(from.hashes.length, (long) this.migrated + slots);
+        for (int i = this.migrated; i < end; i++) {
+            if (from.hashes[i] == 0 || from.values[i] == MOVED) continue;
+            this.table.add(from.keys == null ? null : from.keys[i], from.longKeys == null ? 0 : from.longKeys[i], from.hashes[i], from.values[i]);
+            from.values[i] = MOVED; // keeps the slot occupied so later probes pass over it
+        }
+        this.migrated = end;
+        if (end == from.hashes.length) this.old = null;
+    }
+
+    /**
+     * Slot arrays of one table. Slots hold their key in {@code keys}, or in {@code longKeys}
+     * when the index has a codec.
+     */
+    private final class Table {
+        final Object[] keys;
+        final long[] longKeys;
+        final int[] hashes;    // 0 for empty slots
+        final Object[] values; // value or Postings, MOVED once migrated
+        final int mask;
+        int count;
+
+        Table(int capacity) {
+            this.keys = codec == null ? new Object[capacity] : null;
+            this.longKeys = codec == null ? null : new long[capacity];
+            this.hashes = new int[capacity];
+            this.values = new Object[capacity];
+            this.mask = capacity - 1;
+        }
+
+        // Load factor of 7/8: Robin Hood probing keeps sequences short at high load
+        boolean isFull() { return this.count > this.hashes.length - (this.hashes.length >> 3); }
+
+        // Slots between the home slot of hash and i
+        private int distance(int hash, int i) { return (i - (hash & this.mask)) & this.mask; }
+
+        int indexOf(Object key, long bits, int hash) {
+            int i = hash & this.mask;
+            for (int dist = 0; ; dist++, i = (i + 1) & this.mask) {
+                int h = this.hashes[i];
+                // Entries are ordered by distance, so a closer one means key is not here
+                if (h == 0 || this.distance(h, i) < dist) return -1;
+                if (h == hash && this.values[i] != MOVED
+                        && (this.keys == null ? this.longKeys[i] == bits : this.keys[i].equals(key))) return i;
+            }
+        }
+
+        // Inserts an absent key, displacing entries closer to their home slot
+        void add(Object key, long bits, int hash, Object value) {
+            int i = hash & this.mask;
+            for (int dist = 0; ; dist++, i = (i + 1) & this.mask) {
+                int h = this.hashes[i];
+                if (h == 0) {
+                    this.set(i, key, bits, hash, value);
+                    this.count++;
+                    return;
+                }
+                int d = this.distance(h, i);
+                if (d < dist) {
+                    Object k = this.keys == null ? null : this.keys[i];
+                    long b = this.longKeys == null ? 0 : this.longKeys[i];
+                    Object v = this.values[i];
+                    this.set(i, key, bits, hash, value);
+                    key = k;
+                    bits = b;
+                    hash = h;
+                    value = v;
+                    dist = d;
+                }
+            }
+        }
+
+        // Empties a slot, shifting back the entries after it that are away from their home slot
+        void delete(int i) {
+            int next = (i + 1) & this.mask;
+            while (this.hashes[next] != 0 && this.distance(this.hashes[next], next) > 0) {
+                this.set(i, this.keys == null ? null : this.keys[next], this.longKeys == null ? 0 : this.longKeys[next],
+                    this.hashes[next], this.values[next]);
+                i = next;
+                next = (next + 1) & this.mask;
+            }
+            this.set(i, null, 0, 0, null);
+            this.count--;
+        }
+
+        private void set(int i, Object key, long bits, int hash, Object value) {
+            if (this.keys != null) this.keys[i] = key;
+            else this.longKeys[i] = bits;
+            this.hashes[i] = hash;
+            this.values[i] = value;
+        }
+
+        @SuppressWarnings("unchecked")
+        private K keyAt(int i) {
+            return this.keys == null ? codec.decode(this.longKeys[i]) : (K) this.keys[i];
+        }
+
+        void scan(K from, K to, List<Pair<K, V>> out) {
+            for (int i = 0; i < this.hashes.length; i++) {
+                if (this.hashes[i] == 0 || this.values[i] == MOVED) continue;
+                K k = this.keyAt(i);
+                if (within(k, from, to)) Postings.addPairs(out, k, this.values[i]);
+            }
+        }
+
+        K max(K max) {
+            for (int i = 0; i < this.hashes.length; i++) {
+                if (this.hashes[i] == 0 || this.values[i] == MOVED) continue;
+                K k = this.keyAt(i);
+                if (max == null || k.compareTo(max) > 0) max = k;
+            }
+            return max;
+        }
+    }
+}
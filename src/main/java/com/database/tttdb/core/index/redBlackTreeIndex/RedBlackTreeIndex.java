@@ -1,6 +1,8 @@
 package com.database.tttdb.core.index.redBlackTreeIndex;
 import java.util.*;
 
+import com.database.tttdb.core.index.AbstractCursor;
+import com.database.tttdb.core.index.Cursor;
 import com.database.tttdb.core.index.Index;
 import com.database.tttdb.core.index.Pair;
 
@@ -140,6 +142,14 @@ public class RedBlackTreeIndex<K extends Comparable<? super K>, V> implements In
         return out;
     }
 
+    public Cursor<K, V> cursor() {
+        return new NodeCursor();
+    }
+
+    public Cursor<K, V> cursor(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        return Cursor.bounded(new NodeCursor(), fromKey, fromInclusive, toKey, toInclusive);
+    }
+
     public boolean isKey(K key) {
         if (key == null) return nullPair != null;
         return findNode(key) != null;
@@ -252,6 +262,59 @@ public class RedBlackTreeIndex<K extends Comparable<? super K>, V> implements In
         return sb.toString();
     }
 
+    // ===== cursor =====
+
+    // Walks the tree in order one node (key) at a time through the parent links
+    private final class NodeCursor extends AbstractCursor<K, V> {
+        private Node node;
+
+        protected List<Pair<K, V>> nullPairs() {
+            return nullPair == null ? List.of() : nullPair.getAllPairs();
+        }
+        protected List<Pair<K, V>> lowest() {
+            return move(root == null ? null : minimum(root));
+        }
+        protected List<Pair<K, V>> highest() {
+            Node x = root;
+            while (x != null && x.right != null) x = x.right;
+            return move(x);
+        }
+        protected List<Pair<K, V>> ceiling(K key, boolean inclusive) {
+            Node x = root, found = null;
+            while (x != null) {
+                int c = x.key.compareTo(key);
+                if (c > 0 || inclusive && c == 0) {
+                    found = x;
+                    x = x.left;
+                } else {
+                    x = x.right;
+                }
+            }
+            return move(found);
+        }
+        protected List<Pair<K, V>> higher() {
+            Node x = node;
+            if (x.right != null) return move(minimum(x.right));
+            while (x.parent != null && x == x.parent.right) x = x.parent;
+            return move(x.parent);
+        }
+        protected List<Pair<K, V>> lower() {
+            Node x = node;
+            if (x.left != null) {
+                x = x.left;
+                while (x.right != null) x = x.right;
+                return move(x);
+            }
+            while (x.parent != null && x == x.parent.left) x = x.parent;
+            return move(x.parent);
+        }
+        private List<Pair<K, V>> move(Node to) {
+            if (to == null) return null;
+            node = to;
+            return to.pair.getAllPairs();
+        }
+    }
+
     // ===== helpers =====
 
     private void ensureNullable() {
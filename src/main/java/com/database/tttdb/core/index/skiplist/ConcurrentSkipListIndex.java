@@ -0,0 +1,370 @@
+package com.database.tttdb.core.index.skiplist;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.database.tttdb.core.index.Index;
+import com.database.tttdb.core.index.Pair;
+
+/**
+ * Lock-free skip list index, safe for concurrent readers and writers.
+ * <p>
+ * Links are changed with compare-and-set only, following Harris' list: a key is removed by
+ * first clearing its values, then marking each of its links by swapping in a marker node that
+ * points to the old successor, and finally unlinking it from its predecessors. Traversals that
+ * meet a marked node help unlink it. Readers never write and never wait.
+ * </p>
+ * <p>
+ * Lookups and scans are weakly consistent, like those of
+ * {@link java.util.concurrent.ConcurrentSkipListMap}: a key present for the whole call is always
+ * found, a key inserted or removed during the call may or may not be.
+ * </p>
+ *
+ * <p>Compared to {@link SkipListIndex}, nodes allocate link arrays sized to their own level
+ * and keep their values in a small immutable array replaced on change, instead of a
+ * {@link LinkedHashSet}.</p>
+ */
+public final class ConcurrentSkipListIndex<K extends Comparable<? super K>, V> implements Index<K, V> {
+    private static final int MAX_LEVEL = 32;
+    private static final VarHandle NEXT = MethodHandles.arrayElementVarHandle(Node[].class);
+    private static final VarHandle VALUES;
+    static {
+        try {
+            VALUES = MethodHandles.lookup().findVarHandle(Node.class, "values", Object[].class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Node<K> head = new Node<>(null, new Object[0], MAX_LEVEL);
+    private final AtomicInteger level = new AtomicInteger(1);
+    private final LongAdder size = new LongAdder();
+
+    private volatile boolean unique = false;
+    private volatile boolean nullable = false;
+
+    // null-key bucket
+    private final AtomicReference<Object[]> nullValues = new AtomicReference<>();
+
+    private static final class Node<K> {
+        final K key;
+        volatile Object[] values; // null once the key is removed
+        final Node<K>[] next;     // one link per level of this node
+        final boolean marker;     // a marker's next[0] is the successor of the removed node
+
+        @SuppressWarnings("unchecked")
+        Node(K key, Object[] values, int topLevel) {
+            this.key = key;
+            this.values = values;
+            this.next = (Node<K>[]) new Node[topLevel];
+            this.marker = false;
+        }
+        @SuppressWarnings("unchecked")
+        Node(Node<K> successor) {
+            this.key = null;
+            this.next = (Node<K>[]) new Node[]{ successor };
+            this.marker = true;
+        }
+        int topLevel() { return this.next.length; }
+    }
+    private int cmp(K a, K b) {
+        return a.compareTo(b);
+    }
+    private int randomLevel() {
+        int lvl = 1;
+        while (lvl < MAX_LEVEL && ThreadLocalRandom.current().nextDouble() < 0.5) lvl++;
+        return lvl;
+    }
+    @SuppressWarnings("unchecked")
+    private static <K> Node<K> next(Node<K> node, int level) {
+        return (Node<K>) NEXT.getAcquire(node.next, level);
+    }
+    private static <K> boolean casNext(Node<K> node, int level, Node<K> expected, Node<K> update) {
+        return NEXT.compareAndSet(node.next, level, expected, update);
+    }
+    // Successor of node on a level, looking through the marker of a removed node
+    private static <K> Node<K> successor(Node<K> node, int level) {
+        Node<K> next = next(node, level);
+        return next != null && next.marker ? next(next, 0) : next;
+    }
+
+    /**
+     * Fills preds and succs with the neighbours of key on every level, unlinking marked nodes
+     * on the way.
+     * @return the live node holding key, or {@code null}
+     */
+    private Node<K> find(K key, Node<K>[] preds, Node<K>[] succs) {
+        retry:
+        while (true) {
+            Node<K> pred = head;
+            Node<K> curr = null;
+            for (int i = MAX_LEVEL - 1; i >= 0; i--) {
+                curr = next(pred, i);
+                if (curr != null && curr.marker) continue retry; // pred was removed meanwhile
+                while (curr != null) {
+                    Node<K> succ = next(curr, i);
+                    if (succ != null && succ.marker) {
+                        Node<K> after = next(succ, 0);
+                        if (!casNext(pred, i, curr, after)) continue retry;
+                        curr = after;
+                        continue;
+                    }
+                    if (cmp(curr.key, key) >= 0) break;
+                    pred = curr;
+                    curr = succ;
+                }
+                if (preds != null) {
+                    preds[i] = pred;
+                    succs[i] = curr;
+                }
+            }
+            return curr != null && cmp(curr.key, key) == 0 ? curr : null;
+        }
+    }
+    // Read-only descent to the first node whose key is not less than key
+    private Node<K> ceiling(K key) {
+        Node<K> pred = head;
+        for (int i = level.get() - 1; i >= 0; i--) {
+            Node<K> curr = successor(pred, i);
+            while (curr != null && cmp(curr.key, key) < 0) {
+                pred = curr;
+                curr = successor(curr, i);
+            }
+        }
+        return successor(pred, 0);
+    }
+    private Node<K> findNode(K key) {
+        Node<K> node = ceiling(key);
+        return node != null && cmp(node.key, key) == 0 && node.values != null ? node : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void insert(K key, V value) {
+        if (key == null) {
+            if (!nullable) throw new IllegalArgumentException("Null keys not allowed");
+            while (true) {
+                Object[] values = nullValues.get();
+                Object[] updated = this.added(values, value);
+                if (updated == values) return;
+                if (nullValues.compareAndSet(values, updated)) {
+                    if (values == null || values.length < updated.length) size.increment();
+                    return;
+                }
+            }
+        }
+        Node<K>[] preds = (Node<K>[]) new Node[MAX_LEVEL];
+        Node<K>[] succs = (Node<K>[]) new Node[MAX_LEVEL];
+        while (true) {
+            Node<K> found = find(key, preds, succs);
+            if (found != null) {
+                Object[] values = found.values;
+                if (values == null) {
+                    this.unlink(found);
+                    continue;
+                }
+                Object[] updated = this.added(values, value);
+                if (updated == values) return;
+                if (!VALUES.compareAndSet(found, values, updated)) continue;
+                if (values.length < updated.length) size.increment();
+                return;
+            }
+            int topLevel = randomLevel();
+            Node<K> node = new Node<>(key, new Object[]{ value }, topLevel);
+            for (int i = 0; i < topLevel; i++) node.next[i] = succs[i];
+            if (!casNext(preds[0], 0, succs[0], node)) continue;
+            size.increment();
+            level.accumulateAndGet(topLevel, Math::max);
+            this.linkUpperLevels(node, preds, succs);
+            return;
+        }
+    }
+    private void linkUpperLevels(Node<K> node, Node<K>[] preds, Node<K>[] succs) {
+        for (int i = 1; i < node.topLevel(); i++) {
+            while (true) {
+                Node<K> succ = next(node, i);
+                if ((succ != null && succ.marker) || node.values == null) return; // removed meanwhile
+                if (succ != succs[i] && !casNext(node, i, succ, succs[i])) continue;
+                if (casNext(preds[i], i, succs[i], node)) break;
+                find(node.key, preds, succs);
+                if (succs[0] != node) return;
+            }
+        }
+    }
+    // Values after adding value, or the same array when nothing changes
+    private Object[] added(Object[] values, Object value) {
+        if (values == null) return new Object[]{ value };
+        if (unique) return values.length == 1 && values[0].equals(value) ? values : new Object[]{ value };
+        for (Object candidate : values) {
+            if (candidate.equals(value)) return values;
+        }
+        Object[] copy = Arrays.copyOf(values, values.length + 1);
+        copy[values.length] = value;
+        return copy;
+    }
+    private static Object[] removed(Object[] values, Object value) {
+        for (int i = 0; i < values.length; i++) {
+            if (!values[i].equals(value)) continue;
+            Object[] copy = new Object[values.length - 1];
+            System.arraycopy(values, 0, copy, 0, i);
+            System.arraycopy(values, i + 1, copy, i, copy.length - i);
+            return copy;
+        }
+        return values;
+    }
+
+    public void remove(K key, V value) {
+        if (key == null) {
+            if (!nullable) return;
+            while (true) {
+                Object[] values = nullValues.get();
+                if (values == null) return;
+                Object[] updated = removed(values, value);
+                if (updated == values) return;
+                if (nullValues.compareAndSet(values, updated.length == 0 ? null : updated)) {
+                    size.decrement();
+                    return;
+                }
+            }
+        }
+        while (true) {
+            Node<K> node = findNode(key);
+            if (node == null) return;
+            Object[] values = node.values;
+            if (values == null) continue;
+            Object[] updated = removed(values, value);
+            if (updated == values) return;
+            if (!VALUES.compareAndSet(node, values, updated.length == 0 ? null : updated)) continue;
+            size.decrement();
+            if (updated.length == 0) this.unlink(node);
+            return;
+        }
+    }
+    // Marks every link of a removed node top-down, then lets find() unlink it
+    private void unlink(Node<K> node) {
+        for (int i = node.topLevel() - 1; i >= 0; i--) {
+            while (true) {
+                Node<K> succ = next(node, i);
+                if (succ != null && succ.marker) break;
+                if (casNext(node, i, succ, new Node<>(succ))) break;
+            }
+        }
+        find(node.key, null, null);
+    }
+
+    public List<Pair<K, V>> search(K key) {
+        if (key == null) {
+            if (!nullable) return List.of();
+            return valuesToPairs(null, nullValues.get());
+        }
+        Node<K> node = findNode(key);
+        if (node == null) return List.of();
+        return valuesToPairs(node.key, node.values);
+    }
+
+    public List<Pair<K,V>> rangeSearch(K fromKey, K toKey) {
+        List<Pair<K,V>> out = new ArrayList<>();
+        if (nullable && fromKey == null) out.addAll(valuesToPairs(null, nullValues.get()));
+        Node<K> node = fromKey == null ? successor(head, 0) : ceiling(fromKey);
+        while (node != null && (toKey == null || cmp(node.key, toKey) <= 0)) {
+            out.addAll(valuesToPairs(node.key, node.values));
+            node = successor(node, 0);
+        }
+        return out;
+    }
+
+    public boolean isKey(K key) {
+        if (key == null) return nullable && nullValues.get() != null;
+        return findNode(key) != null;
+    }
+
+    public void update(K key, V newValue) {
+        if (!unique) throw new IllegalStateException("update(key,newValue) requires unique index");
+        if (key == null) {
+            if (!nullable || nullValues.get() == null) throw new NoSuchElementException("Key not found");
+            nullValues.set(new Object[]{ newValue });
+            return;
+        }
+        while (true) {
+            Node<K> node = findNode(key);
+            if (node == null) throw new NoSuchElementException("Key not found");
+            Object[] values = node.values;
+            if (values != null && VALUES.compareAndSet(node, values, new Object[]{ newValue })) return;
+        }
+    }
+
+    @Override
+    public void update(K key, V newValue, V oldValue) {
+        if (key == null) {
+            while (true) {
+                Object[] values = nullable ? nullValues.get() : null;
+                Object[] updated = values == null ? null : removed(values, oldValue);
+                if (updated == values) throw new NoSuchElementException("Pair not found");
+                if (nullValues.compareAndSet(values, this.added(updated, newValue))) return;
+            }
+        }
+        while (true) {
+            Node<K> node = findNode(key);
+            Object[] values = node == null ? null : node.values;
+            Object[] updated = values == null ? null : removed(values, oldValue);
+            if (updated == values) throw new NoSuchElementException("Pair not found");
+            if (VALUES.compareAndSet(node, values, this.added(updated.length == 0 ? null : updated, newValue))) return;
+        }
+    }
+
+    public long size(){
+        return size.sum();
+    }
+
+    public K getMax() {
+        K max = null;
+        Node<K> node = head;
+        for (int i = level.get() - 1; i >= 0; i--) {
+            Node<K> next = successor(node, i);
+            while (next != null) {
+                node = next;
+                next = successor(node, i);
+            }
+        }
+        if (node != head && node.values != null) return node.key;
+        // The last node was being removed; scan for the last live key
+        for (node = successor(head, 0); node != null; node = successor(node, 0)) {
+            if (node.values != null) max = node.key;
+        }
+        return max;
+    }
+
+    /**
+     * Unlinks all keys. Not safe to call while other threads use the index.
+     */
+    public void clear() {
+        for (int i = 0; i < MAX_LEVEL; i++) head.next[i] = null;
+        level.set(1);
+        size.reset();
+        nullValues.set(null);
+    }
+
+    public void setUnique(boolean isUnique) { this.unique = isUnique; }
+    public void setNullable(boolean isNullable) { this.nullable = isNullable; }
+    public boolean isUnique() { return unique; }
+    public boolean isNullable() { return nullable; }
+
+    @SuppressWarnings("unchecked")
+    private List<Pair<K,V>> valuesToPairs(K key, Object[] values) {
+        if (values == null) return new ArrayList<>();
+        List<Pair<K,V>> res = new ArrayList<>(values.length);
+        for (Object value : values) res.add(new Pair<>(key, (V) value));
+        return res;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Pair<K,V> pair : this.rangeSearch(null, null)) sb.append(pair).append('\n');
+        return sb.toString();
+    }
+}
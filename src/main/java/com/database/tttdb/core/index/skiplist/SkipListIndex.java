@@ -3,6 +3,8 @@ package com.database.tttdb.core.index.skiplist;
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
 
+import com.database.tttdb.core.index.AbstractCursor;
+import com.database.tttdb.core.index.Cursor;
 import com.database.tttdb.core.index.Index;
 import com.database.tttdb.core.index.Pair;
 
@@ -28,7 +30,7 @@ public final class SkipListIndex<K extends Comparable<? super K>, V> implements
         Node(K key, int topLevel) {
             this.key = key;
             this.topLevel = topLevel;                // in [1..MAX_LEVEL]
-            this.next = (Node<K,V>[]) new Node[MAX_LEVEL]; // fixed size
+            this.next = (Node<K,V>[]) new Node[topLevel]; // sized to the node's level
         }
     }
     private int cmp(K a, K b) {
@@ -156,6 +158,54 @@ public final class SkipListIndex<K extends Comparable<? super K>, V> implements
         return out;
     }
 
+    public Cursor<K, V> cursor() {
+        return new NodeCursor();
+    }
+
+    public Cursor<K, V> cursor(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        return Cursor.bounded(new NodeCursor(), fromKey, fromInclusive, toKey, toInclusive);
+    }
+
+    // Walks the bottom level one node (key) at a time; nodes have no back links, so moving
+    // back searches the predecessor from the head
+    private final class NodeCursor extends AbstractCursor<K, V> {
+        private Node<K,V> node;
+
+        protected List<Pair<K,V>> nullPairs() {
+            if (!nullable || nullValues == null) return List.of();
+            return valuesToPairs(null, nullValues);
+        }
+        protected List<Pair<K,V>> lowest() {
+            return move(head.next[0]);
+        }
+        protected List<Pair<K,V>> highest() {
+            Node<K,V> x = head;
+            for (int i = level - 1; i >= 0; i--) {
+                while (x.next[i] != null) x = x.next[i];
+            }
+            return move(x == head ? null : x);
+        }
+        protected List<Pair<K,V>> ceiling(K key, boolean inclusive) {
+            Node<K,V> x = head;
+            for (int i = level - 1; i >= 0; i--) {
+                while (x.next[i] != null && (inclusive ? cmp(x.next[i].key, key) < 0 : cmp(x.next[i].key, key) <= 0)) x = x.next[i];
+            }
+            return move(x.next[0]);
+        }
+        protected List<Pair<K,V>> higher() {
+            return move(node.next[0]);
+        }
+        protected List<Pair<K,V>> lower() {
+            Node<K,V> pred = findPreds(node.key)[0];
+            return move(pred == head ? null : pred);
+        }
+        private List<Pair<K,V>> move(Node<K,V> to) {
+            if (to == null) return null;
+            node = to;
+            return valuesToPairs(to.key, to.values);
+        }
+    }
+
     public boolean isKey(K key) {
         if (key == null) return nullable && nullValues != null && !nullValues.isEmpty();
         return findNode(key) != null;
@@ -0,0 +1,130 @@
+package com.database.tttdb.core.manager;
+
+import com.database.tttdb.core.cache.FreeSpaceMap;
+import com.database.tttdb.core.index.IndexInit.BlockPointer;
+import com.database.tttdb.core.page.Entry;
+import com.database.tttdb.core.page.IndexPage;
+import com.database.tttdb.core.page.TablePage;
+import com.database.tttdb.core.table.Table;
+
+/**
+ * Moves entries from the tail of table and index files into tombstoned slots of lower pages,
+ * so that emptied tail pages can be released and the files truncated.
+ * <p>
+ * Each call does a bounded amount of work, measured in page accesses, and records what it did
+ * in a {@link Progress}. Callers are expected to run it inside a transaction and to hold the
+ * database lock, see {@link com.database.tttdb.core.Compactor}.
+ *
+ * <p>Invariants:</p>
+ * <ul>
+ *   <li>Entries only move to pages below the current last page, so every move shortens the file.</li>
+ *   <li>A moved table row keeps its row id; only its entry in the table's row id map is rewritten.</li>
+ *   <li>A moved index entry keeps its row id; only the in-memory index value is rewritten.</li>
+ * </ul>
+ */
+public class CompactionManager {
+    /**
+     * Budget and counters of one compaction pass.
+     */
+    public static final class Progress {
+        private final int budget;
+        private int used = 0;
+        private int rowsMoved = 0;
+        private int indexEntriesMoved = 0;
+        private int pagesReleased = 0;
+        /**
+         * @param budget number of page accesses the pass may perform
+         */
+        public Progress(int budget){
+            this.budget = budget;
+        }
+        private void spend(int pages){ this.used += pages; }
+        public boolean isExhausted(){ return this.used >= this.budget; }
+        public int getUsed(){ return this.used; }
+        public int getRowsMoved(){ return this.rowsMoved; }
+        public int getIndexEntriesMoved(){ return this.indexEntriesMoved; }
+        public int getPagesReleased(){ return this.pagesReleased; }
+    }
+
+    /**
+     * Moves rows from the last table page into the lowest pages with free slots and
+     * releases the tail page once it is empty, until the table is dense or the budget runs out.
+     * Indexes refer to rows by row id, so a move only updates the table's row id map.
+     *
+     * @param table table to compact
+     * @param progress budget and counters of the current pass
+     * @return {@code true} if the table is dense, {@code false} if work remains
+     */
+    public static boolean compactTable(Table table, Progress progress){
+        while (!progress.isExhausted()) {
+            int last = table.getPages() - 1;
+            if (last < 0) return true;
+            TablePage tail = table.getCache().getTablePage(last);
+            progress.spend(1);
+            if (tail.size() == 0) {
+                table.getCache().deleteLastTablePage(tail);
+                progress.pagesReleased++;
+                continue;
+            }
+            FreeSpaceMap freeSpace = table.getFreeSpaceMap();
+            int targetID = freeSpace.firstFree(last);
+            if (targetID < 0) return true;
+            TablePage target = table.getCache().getTablePage(targetID);
+            progress.spend(1);
+            while (!target.isFull() && tail.size() > 0 && !progress.isExhausted()) {
+                int slot = tail.slotCount() - 1;
+                Entry entry = tail.delete(slot);
+                int newSlot = target.add(entry);
+                table.getRowIdMap().put(entry.getRowId(), new BlockPointer(targetID, (short)newSlot));
+                progress.rowsMoved++;
+            }
+            if (target.isFull()) freeSpace.markFull(targetID);
+            freeSpace.markFree(last);
+            table.getCache().putTablePage(target);
+            table.getCache().putTablePage(tail);
+        }
+        return false;
+    }
+
+    /**
+     * Moves index entries from the last page of a column's index file into the lowest pages
+     * with free slots and releases the tail page once it is empty.
+     *
+     * @param table owning table
+     * @param columnIndex indexed column
+     * @param progress budget and counters of the current pass
+     * @return {@code true} if the index file is dense, {@code false} if work remains
+     */
+    public static boolean compactIndex(Table table, int columnIndex, Progress progress){
+        IndexManager indexManager = table.getIndexManager();
+        while (!progress.isExhausted()) {
+            int last = indexManager.getPages(columnIndex) - 1;
+            if (last < 0) return true;
+            IndexPage tail = table.getCache().getIndexPage(last, columnIndex);
+            progress.spend(1);
+            if (tail.size() == 0) {
+                table.getCache().deleteLastIndexPage(tail);
+                progress.pagesReleased++;
+                continue;
+            }
+            FreeSpaceMap freeSpace = indexManager.getFreeSpaceMap(columnIndex);
+            int targetID = freeSpace.firstFree(last);
+            if (targetID < 0) return true;
+            IndexPage target = table.getCache().getIndexPage(targetID, columnIndex);
+            progress.spend(1);
+            while (!target.isFull() && tail.size() > 0 && !progress.isExhausted()) {
+                int slot = tail.slotCount() - 1;
+                Entry entry = tail.delete(slot);
+                int newSlot = target.add(entry);
+                indexManager.relocateIndexEntry(columnIndex, entry.get(1), (Long)entry.get(0),
+                    new BlockPointer(last, (short)slot), new BlockPointer(targetID, (short)newSlot));
+                progress.indexEntriesMoved++;
+            }
+            if (target.isFull()) freeSpace.markFull(targetID);
+            freeSpace.markFree(last);
+            table.getCache().putIndexPage(target);
+            table.getCache().putIndexPage(tail);
+        }
+        return false;
+    }
+}
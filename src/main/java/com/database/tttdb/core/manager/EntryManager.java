@@ -4,23 +4,41 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
 
+import com.database.tttdb.api.Condition;
+import com.database.tttdb.api.Condition.Clause;
 import com.database.tttdb.api.Condition.UpdateCondition;
 import com.database.tttdb.api.Condition.WhereClause;
+import com.database.tttdb.api.ConditionUtils;
 import com.database.tttdb.api.DatabaseException;
 import com.database.tttdb.api.Functions.InnerFunctions;
 import com.database.tttdb.api.Functions.endConditionalUpdate;
 import com.database.tttdb.api.Functions.selectColumn;
+import com.database.tttdb.api.Query.Aggregate;
+import com.database.tttdb.api.Query.AggregateFunction;
 import com.database.tttdb.api.Query.SelectType;
 import com.database.tttdb.api.Query.SelectionType;
 import com.database.tttdb.core.Database;
+import com.database.tttdb.core.execution.HashAggregate;
+import com.database.tttdb.core.execution.IndexLookup;
+import com.database.tttdb.core.execution.Limit;
+import com.database.tttdb.core.execution.Operator;
+import com.database.tttdb.core.execution.OrderedIndexScan;
+import com.database.tttdb.core.execution.Sort;
+import com.database.tttdb.core.execution.TableScan;
+import com.database.tttdb.core.execution.TopN;
+import com.database.tttdb.core.index.Cursor;
+import com.database.tttdb.core.index.IndexInit;
 import com.database.tttdb.core.index.IndexInit.BlockPointer;
 import com.database.tttdb.core.manager.IndexManager.IndexRecord;
 import com.database.tttdb.core.page.Entry;
 import com.database.tttdb.core.page.TablePage;
+import com.database.tttdb.core.table.DataType;
 import com.database.tttdb.core.table.Table;
+import com.database.tttdb.core.table.TableSchema;
 import com.database.tttdb.api.Row;
-import com.database.tttdb.api.Schema;
 import com.database.tttdb.api.UpdateFields;
 
 public class EntryManager {
@@ -32,7 +50,8 @@ public class EntryManager {
      * <ul>
      *   <li>Entries are located using the table's index and collected with an offset ({@code begin}) and row limit ({@code limit}).</li>
      *   <li>If a {@link SelectType} with {@link SelectionType#ASCENDING} or {@link SelectionType#DESCENDING} is provided,
-     *       the resulting entries are sorted in-memory by the specified column.</li>
+     *       the entries are ordered by the specified column before the offset and limit apply, see
+     *       {@link #openEntries(Table, WhereClause, int, int, SelectType)}.</li>
      * </ul>
      *
      * <p>Notes:</p>
@@ -40,6 +59,9 @@ public class EntryManager {
      *   <li>If {@code limit} is negative, all matching entries are returned after the {@code begin} offset.</li>
      *   <li>Sorting requires that the target column's values implement {@link Comparable}.</li>
      *   <li>{@code null} values are handled safely and placed first when ordering ascending.</li>
+     *   <li>Pages are read with {@link com.database.tttdb.core.cache.Cache#readTablePage} without opening a transaction,
+     *       so a selection copies no pages, even inside an open transaction.
+     *       The returned entries are shared with the pages and must not be modified.</li>
      * </ul>
      *
      * @param table the table to select from
@@ -51,34 +73,218 @@ public class EntryManager {
      * @return a list of entries matching the criteria, optionally ordered by a given column
      */
     public static <K extends Comparable<? super K>> List<Entry> selectEntries(Table table, WhereClause whereClause, int begin, int limit, SelectType type) {
+        if (comparator(table, type) != null) {
+            try (Operator operator = openEntries(table, whereClause, begin, limit, type)) {
+                return operator.stream().toList();
+            }
+        }
         List<IndexRecord<K>> blockPointerList = table.selectIndex(whereClause);
-        List<Entry> entries = selectionProcess(table, blockPointerList, begin, limit);
-        //Apply ordering if ASC or DESC is set
-        if (type.type() == SelectionType.ASCENDING || type.type() == SelectionType.DESCENDING) {
-            int columnIndex = table.getSchema().getColumnIndex(type.column());
-            Comparator<Entry> comparator =Comparator.comparing(
-                            e -> (Comparable) e.get(columnIndex),
-                            Comparator.nullsFirst(Comparator.naturalOrder()));
-            if (type.type() == SelectionType.DESCENDING) {
-                comparator = comparator.reversed();
+        return selectionProcess(table, blockPointerList, begin, limit);
+    }
+    /**
+     * Selects entries like {@link #selectEntries(Table, WhereClause, int, int, SelectType)} for a
+     * query that only reads {@code columns}. When a multi-column index holds every column the
+     * query reads, including those of the WHERE clause and the ordering column, the entries are
+     * built from the index without reading table pages and only hold those columns.
+     *
+     * @param table the table to select from
+     * @param whereClause condition used to filter candidate entries
+     * @param begin the number of matching entries to skip before collecting results
+     * @param limit the maximum number of entries to return; if negative, all matching entries are returned
+     * @param type ordering information
+     * @param columns names of the columns the caller reads from the entries
+     * @return a list of entries matching the criteria, optionally ordered by a given column
+     */
+    public static <K extends Comparable<? super K>> List<Entry> selectEntries(Table table, WhereClause whereClause, int begin, int limit, SelectType type, String[] columns) {
+        TableSchema schema = table.getSchema();
+        IntStream read = Arrays.stream(columns).mapToInt(schema::getColumnIndex);
+        if (type.type() == SelectionType.ASCENDING || type.type() == SelectionType.DESCENDING)
+            read = IntStream.concat(read, IntStream.of(schema.getColumnIndex(type.column())));
+        int[] readColumns = read.toArray();
+        List<Object[]> rows = Arrays.stream(readColumns).allMatch(c -> c >= 0) ? table.getIndexManager().findCovering(whereClause, readColumns) : null;
+        if (rows == null) return selectEntries(table, whereClause, begin, limit, type);
+
+        List<Entry> entries = new ArrayList<>(rows.size());
+        for (Object[] row : rows) entries.add(new Entry(row, 0));
+        sortEntries(table, entries, type);
+        int from = Math.min(begin, entries.size());
+        int end = limit < 0 ? entries.size() : (int) Math.min(entries.size(), (long) from + limit);
+        return new ArrayList<>(entries.subList(from, end));
+    }
+    /**
+     * Opens a pull-based pipeline producing the entries of a select lazily.
+     * <p>
+     * The WHERE clause is planned when the pipeline is opened. When the planner answers it
+     * through indexes, the matching rows are fetched by row id as they are pulled; otherwise, and
+     * without a WHERE clause, the table pages are scanned one at a time in storage order. The
+     * {@code begin} offset and {@code limit} are applied last, after ordering, and stop the
+     * reads once enough entries were produced.
+     * <p>
+     * An ordered select walks an ordered index of the ordering column, forward or in reverse,
+     * when there is no WHERE clause or when the clause is not selective enough to be answered
+     * through indexes and a limit bounds the walk; conditions on the column then also bound the
+     * walk. Otherwise the matching entries are sorted: in a bounded heap of {@code begin + limit}
+     * entries when limited, in memory or by an external merge sort spilling to temporary files
+     * when not, see {@link Sort}.
+     * <p>
+     * Pages are read under the database read lock, released between pulls, so concurrent
+     * writes may be observed by the part of the result not yet produced. The returned entries
+     * are shared with the pages and must not be modified.
+     *
+     * @param table the table to select from
+     * @param whereClause condition used to filter entries, may be {@code null}
+     * @param begin the number of matching entries to skip
+     * @param limit the maximum number of entries to produce; if negative, all matching entries are produced
+     * @param type ordering information
+     * @return the root operator of the pipeline
+     */
+    public static <K extends Comparable<? super K>> Operator openEntries(Table table, WhereClause whereClause, int begin, int limit, SelectType type) {
+        List<Map.Entry<Clause, Condition<WhereClause>>> clauses = whereClause == null ? null : whereClause.getConditions();
+        List<IndexRecord<K>> records = whereClause == null
+            ? null
+            : table.getDatabase().readLocked(() -> table.getIndexManager().<K>findIndexedRange(whereClause));
+        Comparator<Entry> comparator = comparator(table, type);
+        if (comparator == null) {
+            Operator source = records == null ? new TableScan(table, clauses) : new IndexLookup(table, records);
+            return new Limit(source, begin, limit);
+        }
+        int columnIndex = table.getSchema().getColumnIndex(type.column());
+        IndexInit<?> index = columnIndex < 0 ? null : table.getIndexManager().getIndexes()[columnIndex];
+        boolean descending = type.type() == SelectionType.DESCENDING;
+        if (index != null && index.isOrdered()) {
+            KeyRange range = orderedBounds(table, clauses, columnIndex);
+            // A limited walk bounded by the clause reads about as many keys as it produces:
+            // the keyset pagination case, a condition on the ordering column past the last row seen
+            boolean walk = whereClause == null || limit >= 0 && (records == null || range.bounded() && onlyOn(table, clauses, columnIndex));
+            if (walk) return new Limit(new OrderedIndexScan(table, index, range.from(), range.fromInclusive(), range.to(), range.toInclusive(), descending, clauses), begin, limit);
+        }
+        Operator source = records == null ? new TableScan(table, clauses) : new IndexLookup(table, records);
+        long kept = limit < 0 ? Long.MAX_VALUE : (long) begin + limit;
+        source = kept <= Sort.RUN_SIZE ? new TopN(source, comparator, (int) kept) : new Sort(source, comparator, table);
+        return new Limit(source, begin, limit);
+    }
+    /**
+     * Computes aggregates over the entries matching a {@link WhereClause}, grouped by the values
+     * of some columns, see {@link HashAggregate}.
+     * <p>
+     * Without grouped columns the aggregates are first answered from the indexes when every one
+     * of them can be: {@code COUNT(*)} from the number of rows of the table, or of index records
+     * when the planner answers the WHERE clause through indexes, and, without a WHERE clause,
+     * {@code COUNT}, {@code MIN} and {@code MAX} of a column from its index. No row is read then.
+     * Otherwise the matching entries are pulled through the pipeline of
+     * {@link #openEntries(Table, WhereClause, int, int, SelectType)} and aggregated as they come.
+     *
+     * @param table the table to aggregate
+     * @param whereClause condition used to filter entries, may be {@code null}
+     * @param groupBy names of the grouped columns, empty for a single group
+     * @param aggregates aggregates computed for every group
+     * @return one row per group: the grouped values, then the result of each aggregate
+     * @throws IllegalArgumentException if an aggregate does not apply to its column
+     */
+    public static List<Object[]> aggregateEntries(Table table, WhereClause whereClause, String[] groupBy, List<Aggregate> aggregates) {
+        HashAggregate aggregate = new HashAggregate(table.getSchema(), groupBy, aggregates);
+        if (groupBy.length == 0) {
+            Object[] answered = table.getDatabase().readLocked(() -> aggregateFromIndexes(table, whereClause, aggregates, aggregate.getColumns()));
+            if (answered != null) return List.<Object[]>of(answered);
+        }
+        try (Operator operator = openEntries(table, whereClause, 0, -1, new SelectType(SelectionType.NORMAL, null))) {
+            return aggregate.addAll(operator).rows();
+        }
+    }
+    // The aggregates of all matching rows from index sizes and bounds, null when one of them needs the rows
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object[] aggregateFromIndexes(Table table, WhereClause whereClause, List<Aggregate> aggregates, int[] columns) {
+        Object[] row = new Object[aggregates.size()];
+        if (whereClause != null) {
+            if (!aggregates.stream().allMatch(aggregate -> aggregate.function() == AggregateFunction.COUNT && aggregate.column() == null)) return null;
+            List<?> records = table.getIndexManager().findIndexedRange(whereClause);
+            if (records == null) return null;
+            Arrays.fill(row, (long) records.size());
+            return row;
+        }
+        IndexInit<?>[] indexes = table.getIndexManager().getIndexes();
+        for (int i = 0; i < row.length; i++) {
+            AggregateFunction function = aggregates.get(i).function();
+            if (columns[i] < 0) {
+                row[i] = (long) table.getRowIdMap().size();
+                continue;
             }
-            entries.sort(comparator);
+            IndexInit index = indexes[columns[i]];
+            if (index == null || function != AggregateFunction.COUNT && function != AggregateFunction.MIN && function != AggregateFunction.MAX) return null;
+            long values = index.size() - (index.isNullable() ? index.search(null).size() : 0);
+            if (function == AggregateFunction.COUNT) row[i] = values;
+            else if (values == 0) row[i] = null;
+            // Null keys come first, a cursor past them starts at the smallest value
+            else if (function == AggregateFunction.MIN) row[i] = index.cursor(null, false, null, true).next().key;
+            else if (!index.isOrdered()) row[i] = index.getMax();
+            else {
+                Cursor cursor = index.cursor(null, false, null, true);
+                cursor.last();
+                row[i] = cursor.prev().key;
+            }
+        }
+        return row;
+    }
+    // Key range of the ordering column every matching row falls in
+    private record KeyRange(Object from, boolean fromInclusive, Object to, boolean toInclusive) {
+        boolean bounded() { return from != null || to != null; }
+    }
+    // The bounds of a condition on the ordering column when the clause is a conjunction,
+    // unbounded otherwise
+    private static KeyRange orderedBounds(Table table, List<Map.Entry<Clause, Condition<WhereClause>>> clauses, int columnIndex) {
+        KeyRange unbounded = new KeyRange(null, true, null, true);
+        if (clauses == null || clauses.stream().anyMatch(entry -> entry.getKey() == Clause.OR)) return unbounded;
+        DataType type = table.getSchema().getTypes()[columnIndex];
+        for (var entry : clauses) {
+            Condition<WhereClause> condition = entry.getValue();
+            if (condition.getFunction() != null || table.getSchema().getColumnIndex(condition.getColumnName()) != columnIndex) continue;
+            ConditionUtils.RangeSet keys = ConditionUtils.rangeSet(condition.getConditions());
+            ConditionUtils.Range span = keys.span();
+            if (span == null || (span.from() != null && !type.isValid(span.from())) || (span.to() != null && !type.isValid(span.to()))) continue;
+            // Null keys come first, they are read only when the condition matches them
+            boolean fromInclusive = span.from() == null ? keys.nulls() : span.fromInclusive();
+            return new KeyRange(span.from(), fromInclusive, span.to(), span.toInclusive());
         }
-        return entries;
+        return unbounded;
+    }
+    // Whether every condition of the clause is on one column
+    private static boolean onlyOn(Table table, List<Map.Entry<Clause, Condition<WhereClause>>> clauses, int columnIndex) {
+        for (var entry : clauses)
+            if (entry.getValue().getFunction() != null || table.getSchema().getColumnIndex(entry.getValue().getColumnName()) != columnIndex) return false;
+        return true;
+    }
+    /**
+     * Sorts entries in place by the column of a {@link SelectionType#ASCENDING} or
+     * {@link SelectionType#DESCENDING} select type; {@link SelectionType#NORMAL} leaves them unchanged.
+     */
+    public static void sortEntries(Table table, List<Entry> entries, SelectType type){
+        Comparator<Entry> comparator = comparator(table, type);
+        if (comparator != null) entries.sort(comparator);
+    }
+    // Order of an ASCENDING or DESCENDING select type, null values first when ascending; null for NORMAL.
+    // Equal values are ordered by row id, so a top-N heap of any size and a sort agree on the order
+    // of ties and pages of one ordered select neither repeat nor skip rows
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparator<Entry> comparator(Table table, SelectType type){
+        if (type.type() != SelectionType.ASCENDING && type.type() != SelectionType.DESCENDING) return null;
+        int columnIndex = table.getSchema().getColumnIndex(type.column());
+        Comparator<Entry> comparator = Comparator.comparing(
+                        e -> (Comparable) e.get(columnIndex),
+                        Comparator.nullsFirst(Comparator.naturalOrder()));
+        comparator = comparator.thenComparingLong(Entry::getRowId);
+        return type.type() == SelectionType.DESCENDING ? comparator.reversed() : comparator;
     }
     private static <K extends Comparable<? super K>> List<Entry> selectionProcess(Table table, List<IndexRecord<K>> indexResult, int begin, int limit){
         List<Entry> result = new ArrayList<>();
         int index = 0;
         boolean selectAll = limit < 0;
-        table.getDatabase().startTransaction("Internal Selection Process Transaction");
         for (IndexRecord<K> pair : indexResult) {
-            BlockPointer blockPointer = pair.value().tablePointer();
             if(!selectAll && index>=limit+begin) break;
             if(index++ < begin) continue;
-            TablePage page = table.getCache().getTablePage(blockPointer.BlockID());
+            BlockPointer blockPointer = table.locate(pair.value().rowId());
+            TablePage page = table.getCache().readTablePage(blockPointer.BlockID());
             result.add(page.get(blockPointer.RowOffset()));
         }
-        table.getDatabase().rollBack("Rollback after selection: no writes performed");
         return result;
     }
     //==INSERTION==
@@ -101,15 +307,11 @@ public class EntryManager {
      */
     public static int insertEntries(Table table, List<Row> rows){
         Database db = table.getDatabase();
-        Schema schema = db.getSchema(table.getName());
         db.startTransaction("Internal Insertion Process Transaction");
         int result = 0;
         try {
             for (Row r : rows) {
-                Entry e = Entry.prepareEntry(r.getColumns(), r.getValues(), table);
-                schema.isValidEntry(e, table);
-                ForeignKeyManager.foreignKeyCheck(db.getDBMS(), db, table.getName(), e);
-                insertEntry(table, e);
+                insertRow(table, Entry.prepareEntry(r.getColumns(), r.getValues(), table));
                 result++;
             }
             db.commit();
@@ -122,18 +324,32 @@ public class EntryManager {
             throw new RuntimeException(ex);
         }
     }
+    /**
+     * Validates a prepared entry against the table's schema and foreign keys and inserts it.
+     *
+     * @param table the table to insert into
+     * @param entry the entry to insert
+     */
+    public static void insertRow(Table table, Entry entry){
+        Database db = table.getDatabase();
+        db.getSchema(table.getName()).isValidEntry(entry, table);
+        ForeignKeyManager.foreignKeyCheck(db.getDBMS(), db, table.getName(), entry);
+        insertEntry(table, entry);
+    }
     /**
      * Inserts a single entry into the specified table.
      * <p>
-     * The method ensures that the entry is added to the last page of the table if there is capacity;
-     * otherwise, a new page is created. It also updates the table's index and cache.
+     * The entry goes into the first page the table's free-space map reports as having an
+     * empty slot, reusing slots left behind by deletions; the file only grows when every
+     * page is full. It also updates the table's index and cache.
      * <p>
      * The insertion process includes:
      * <ul>
-     *   <li>Ensuring there is at least one page in the table.</li>
-     *   <li>Adding the entry to the last page if there is space.</li>
-     *   <li>Creating a new page if the last page is full, and inserting the entry there.</li>
-     *   <li>Updating the table index and cache accordingly.</li>
+     *   <li>Looking up the lowest page with free space in the free-space map.</li>
+     *   <li>Creating a new page if no page has space.</li>
+     *   <li>Adding the entry to the first empty slot of that page.</li>
+     *   <li>Assigning the entry a new row id and mapping it to the entry's location.</li>
+     *   <li>Updating the table index, free-space map and cache accordingly.</li>
      * </ul>
      *
      * @param table the table where the entry should be inserted
@@ -141,12 +357,12 @@ public class EntryManager {
      * @throws IllegalArgumentException if the entry is invalid according to the table schema
      */
     public static void insertEntry(Table table, Entry entry) {
-        if (table.getPages() == 0) table.addOnePage();
-        TablePage page = table.getCache().getLastTablePage();
-        if (page.size() >= page.getCapacity()) {
+        int pageID = table.getFreeSpaceMap().firstFree(table.getPages());
+        if (pageID < 0) {
             table.addOnePage();
-            page = table.getCache().getLastTablePage();
+            pageID = table.getPages() - 1;
         }
+        TablePage page = table.getCache().getTablePage(pageID);
         insertionProcess(table, entry, page);
     }
     /**
@@ -160,16 +376,22 @@ public class EntryManager {
      * @param page the page where the entry should be added
      */
     private static void insertionProcess(Table table, Entry entry, TablePage page) {
-        page.add(entry);
-        table.insertIndex(entry, new BlockPointer(page.getPageID(), (short)(page.size()-1)));
+        long rowId = table.getRowIdMap().allocate();
+        entry.setRowId(rowId);
+        table.getDatabase().getVersionStore().record(table.getName(), rowId, null);
+        int slot = page.add(entry);
+        if (page.isFull()) table.getFreeSpaceMap().markFull(page.getPageID());
+        table.getRowIdMap().put(rowId, new BlockPointer(page.getPageID(), (short)slot));
+        table.insertIndex(entry, rowId);
         table.getCache().putTablePage(page);
     }
     //==DELETION==
     /**
     * Deletes entries from the table that fall within a specified range on a given column.
     * The deletion uses a range index to identify target entries and removes up to the given limit.
-    * The method ensures page compaction by replacing deleted entries with the last entry
-    * from the table when applicable. If the last page becomes empty as a result, it is removed.
+    * Deleted rows leave a tombstoned slot in their page, which is recorded in the table's
+    * free-space map and reused by later inserts; no other row moves, so only the indexes
+    * of the deleted row are touched. If the last page becomes empty as a result, it is removed.
     * @param whereClause contains a condition, it is used to search for entries
     * @param limit the maximum number of entries to delete; if negative, all matching entries are deleted
     * @return the number of entries successfully deleted
@@ -192,56 +414,42 @@ public class EntryManager {
         int deletedCount = 0;
         for (IndexRecord<K> value : indexResult) {
             if(!deleteAll && deletedCount>=limit)return deletedCount;
-            BlockPointer pointer = table.searchIndex(value.key(), value.columnIndex()).getFirst().value.tablePointer();
-            Entry entryToDelete = table.getCache()
-                    .getTablePage(pointer.BlockID())
-                    .get(pointer.RowOffset());
-            boolean allowed = ForeignKeyManager.foreignKeyDeletion(table, entryToDelete);
-            if (!allowed) 
-                throw new IllegalStateException("Foreign key RESTRICT violation on delete.");
-            TablePage page = deletionProcess(table, pointer);
-            deletedCount++;
-            if (page.isLastPage() && page.size() == 0) {
-                table.getCache().deleteLastTablePage(page);
-                continue;
-            }
-            replaceWithLast(table, page, pointer);
-            table.getCache().putTablePage(page);
+            if (deleteRow(table, value.value().rowId())) deletedCount++;
         }
         return deletedCount;
     }
-    private static TablePage deletionProcess(Table table, BlockPointer pointer){
+    /**
+     * Deletes a single row by row id, applying the foreign key actions of the table's children.
+     *
+     * @param table the table holding the row
+     * @param rowId row id of the row to delete
+     * @return {@code false} if the row no longer exists, e.g. it was removed by a cascading delete
+     * @throws IllegalStateException if a RESTRICT foreign key forbids the deletion
+     */
+    public static boolean deleteRow(Table table, long rowId){
+        BlockPointer pointer = table.locate(rowId);
+        if (pointer == null) return false;
+        Entry entryToDelete = table.getCache()
+                .readTablePage(pointer.BlockID())
+                .get(pointer.RowOffset());
+        boolean allowed = ForeignKeyManager.foreignKeyDeletion(table, entryToDelete);
+        if (!allowed) 
+            throw new IllegalStateException("Foreign key RESTRICT violation on delete.");
+        TablePage page = deletionProcess(table, rowId, pointer);
+        if (page.isLastPage() && page.size() == 0) table.getCache().deleteLastTablePage(page);
+        else table.getCache().putTablePage(page);
+        return true;
+    }
+    private static TablePage deletionProcess(Table table, long rowId, BlockPointer pointer){
         TablePage page = table.getCache().getTablePage(pointer.BlockID());
         Entry removed = page.get(pointer.RowOffset());
-        table.removeIndex(removed, pointer);
-        page.remove(pointer.RowOffset());
-        if (!page.isLastPage() && pointer.RowOffset() != page.size()) {
-            page.swap(pointer.RowOffset(), page.size());
-        }
+        table.getDatabase().getVersionStore().record(table.getName(), rowId, removed);
+        table.removeIndex(removed, rowId);
+        table.getRowIdMap().remove(rowId);
+        page.delete(pointer.RowOffset());
+        table.getFreeSpaceMap().markFree(page.getPageID());
         return page;
     }
-    private static void replaceWithLast(Table table, TablePage page, BlockPointer pointer){
-    if (page.isLastPage()) {
-            if (pointer.RowOffset() != page.size()) {
-                Entry moved = page.get(pointer.RowOffset());
-                BlockPointer oldValue = new BlockPointer(page.getPageID(), page.size());
-                table.updateIndex(moved, pointer, oldValue);
-            }
-        } else {
-            TablePage lastPage = table.getCache().getLastTablePage();
-            int lastOffset = lastPage.size() - 1;
-            Entry lastEntry = lastPage.get(lastOffset);
-            BlockPointer oldPointer = new BlockPointer(lastPage.getPageID(), (short) lastOffset);
-            lastPage.removeLast();
-            page.add(pointer.RowOffset(), lastEntry);
-            table.updateIndex(lastEntry, pointer, oldPointer);
-            if (lastPage.size() == 0) {
-                table.getCache().deleteLastTablePage(lastPage);
-            } else {
-                table.getCache().putTablePage(lastPage);
-            }
-        }
-    }
     //==UPDATING==
     /**
      * Updates entries in the table that fall within a specified range on a given column.
@@ -249,9 +457,9 @@ public class EntryManager {
      * The method:
      * <ul>
      *   <li>Uses a range index to locate target entries based on the given column and range.</li>
-     *   <li>Removes each matching entry from the page and index.</li>
      *   <li>Applies provided transformation functions to specified columns.</li>
-     *   <li>Validates and reinserts the updated entry into the page and index.</li>
+     *   <li>Validates the updated entry and stores it in the same slot, keeping its row id.</li>
+     *   <li>Rewrites the keys of the indexes whose column changed; other indexes are not touched.</li>
      *   <li>Updates the page in the cache.</li>
      * </ul>
      *
@@ -281,34 +489,61 @@ public class EntryManager {
         for (IndexRecord<K> pair : indexResult) {
             index++;
             if(!updateAll && index>=limit)return result;
-            TablePage page = table.getCache().getTablePage(pair.value().tablePointer().BlockID());
+            long rowId = pair.value().rowId();
+            BlockPointer pointer = table.locate(rowId);
+            if (pointer == null) continue;
+            TablePage page = table.getCache().getTablePage(pointer.BlockID());
             if (page == null) continue;
-            updateProcess(table, page, pair.value().tablePointer(), updates.getFunctionsList());
+            updateProcess(table, page, rowId, pointer, updates.getFunctionsList());
             table.getCache().putTablePage(page);
             result++;
         }
         return result;
     }
-    private static void updateProcess(Table table, TablePage page, BlockPointer tablePointer, List<InnerFunctions> updates) {
+    private static void updateProcess(Table table, TablePage page, long rowId, BlockPointer tablePointer, List<InnerFunctions> updates) {
         Entry oldEntry = page.get(tablePointer.RowOffset());
-        table.removeIndex(oldEntry, tablePointer);
-        Entry newEntry;
-        newEntry = newEntry(table, oldEntry, updates);
-        page.set(tablePointer.RowOffset(),newEntry);
-        table.insertIndex(newEntry, tablePointer);
+        replaceEntry(table, page, rowId, tablePointer, oldEntry, updatedEntry(table, oldEntry, updates));
+    }
+    /**
+     * Replaces a single row by row id with {@code newEntry}, after validating it like any update.
+     *
+     * @param table the table holding the row
+     * @param rowId row id of the row to replace
+     * @param newEntry new contents of the row, owned by the table afterwards
+     * @return {@code false} if the row no longer exists
+     */
+    public static boolean updateRow(Table table, long rowId, Entry newEntry){
+        BlockPointer pointer = table.locate(rowId);
+        if (pointer == null) return false;
+        TablePage page = table.getCache().getTablePage(pointer.BlockID());
+        replaceEntry(table, page, rowId, pointer, page.get(pointer.RowOffset()), newEntry);
+        table.getCache().putTablePage(page);
+        return true;
     }
-    private static Entry newEntry(Table table, Entry oldEntry, List<InnerFunctions> updates){
+    private static void replaceEntry(Table table, TablePage page, long rowId, BlockPointer tablePointer, Entry oldEntry, Entry newEntry){
         Database database = table.getDatabase();
+        database.getSchema(table.getName()).isValidEntry(newEntry, table, oldEntry);
+        ForeignKeyManager.foreignKeyCheck(database.getDBMS(), database, table.getName(), newEntry);
+        ForeignKeyManager.foreignKeyUpdate(table, oldEntry, newEntry.getValues());
+        newEntry.setRowId(rowId);
+        database.getVersionStore().record(table.getName(), rowId, oldEntry);
+        page.set(tablePointer.RowOffset(), newEntry);
+        table.updateIndex(oldEntry, newEntry, rowId);
+    }
+    /**
+     * Computes the new contents of a row from a list of update functions without validating or storing it.
+     *
+     * @param table owning table
+     * @param oldEntry current contents of the row, left unchanged
+     * @param updates update functions, see {@link #applyUpdates}
+     * @return a new entry holding the updated values
+     */
+    public static Entry updatedEntry(Table table, Entry oldEntry, List<InnerFunctions> updates){
         Object[] orig = oldEntry.getValues();
         Object[] newValues = Arrays.copyOf(orig, orig.length);
         applyUpdates(table, newValues, updates);
-
-        Entry newEntry = new Entry(newValues,table.getSchema().numNullables())
+        return new Entry(newValues,table.getSchema().numNullables())
             .setBitMap(table.getSchema().getNotNull());
-        database.getSchema(table.getName()).isValidEntry(newEntry, table);
-        ForeignKeyManager.foreignKeyCheck(database.getDBMS(), database, table.getName(), newEntry);
-        ForeignKeyManager.foreignKeyUpdate(table, oldEntry, newValues);
-        return newEntry;
     }
     /**
      * Applies a sequence of update operations to an entry's value array in place.
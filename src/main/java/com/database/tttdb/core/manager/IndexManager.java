@@ -1,29 +1,40 @@
 package com.database.tttdb.core.manager;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 import com.database.tttdb.api.Condition;
 import com.database.tttdb.api.Condition.Clause;
 import com.database.tttdb.api.Condition.WhereClause;
+import com.database.tttdb.api.Schema.IndexInner;
 import com.database.tttdb.core.FileIO;
+import com.database.tttdb.core.cache.FreeSpaceMap;
 import com.database.tttdb.core.cache.IndexSnapshot;
 import com.database.tttdb.core.cache.TableSnapshot;
 import com.database.tttdb.core.cache.IndexSnapshot.Operation;
 import com.database.tttdb.core.cache.IndexSnapshot.OperationEnum;
 import com.database.tttdb.core.cache.PageKey;
+import com.database.tttdb.core.index.CompositeIndex;
+import com.database.tttdb.core.index.CompositeKey;
+import com.database.tttdb.core.index.DerivedIndex;
 import com.database.tttdb.core.index.IndexFactory;
 import com.database.tttdb.core.index.IndexInit;
+import com.database.tttdb.core.index.IndexStatistics;
 import com.database.tttdb.core.index.Pair;
 import com.database.tttdb.core.index.IndexFactory.IndexKind;
 import com.database.tttdb.core.index.IndexInit.BlockPointer;
 import com.database.tttdb.core.index.IndexInit.PointerPair;
 import com.database.tttdb.core.page.Entry;
 import com.database.tttdb.core.page.IndexPage;
+import com.database.tttdb.core.page.Page;
 import com.database.tttdb.core.table.DataType;
 import com.database.tttdb.core.table.Table;
 import com.database.tttdb.core.table.TableSchema;
@@ -33,10 +44,18 @@ public class IndexManager {
     private final Table table;
     private final TableSchema schema;
     private final IndexInit<?>[] indexes;
+    private final CompositeIndex[] composites;
+    private final List<DerivedIndex<?>> derived;
+    private final IndexInit<?>[] allIndexes; // indexes, composites, then derived indexes: positions of snapshot operations
     private final DataType[] columnTypes;
     private final IndexPageManager pageManager;
     private final TableSnapshot[] tableSnapshots;
     private final IndexSnapshot indexSnapshot;
+    private final Map<IndexInit<?>, IndexStatistics> statistics = new ConcurrentHashMap<>();
+    private long modifications; // writes to the indexes, compared against the statistics to find stale ones
+
+    // Cost of reading one row by row id through an index, against one row of a sequential scan
+    private static final double RANDOM_ROW_COST = 4.0;
 
     public IndexManager(Table table) {
         this.table = table;
@@ -55,16 +74,40 @@ public class IndexManager {
             else if (secondaryIndexes[i]) this.indexes[i] = IndexFactory.createIndex(IndexKind.SECONDARY, table, i, columnTypes[i]);
             if(indexes[i] != null) this.tableSnapshots[i] = new TableSnapshot();
         }
+        String[] compositeNames = schema.getCompositeNames();
+        int[][] compositeColumns = schema.getCompositeColumns();
+        int[][] compositeIncluded = schema.getCompositeIncluded();
+        this.composites = new CompositeIndex[compositeNames.length];
+        for (int i = 0; i < composites.length; i++)
+            this.composites[i] = new CompositeIndex(table, compositeNames[i], compositeColumns[i], compositeIncluded[i]);
+        this.derived = new ArrayList<>();
+        for (IndexInner definition : schema.getDerivedIndexes())
+            this.derived.add(new DerivedIndex<>(table, definition));
+        this.allIndexes = Arrays.copyOf(indexes, indexes.length + composites.length + derived.size());
+        System.arraycopy(composites, 0, allIndexes, indexes.length, composites.length);
+        for (int i = 0; i < derived.size(); i++) allIndexes[indexes.length + composites.length + i] = derived.get(i);
         this.indexSnapshot = new IndexSnapshot();
     }
     public void initialize(){
         for (int i = 0; i < indexes.length; i++) {
             IndexInit<?> idx = indexes[i];
             if (idx == null) continue;
-            idx.initialize(table);
-            int numPages = FileIO.getNumOfPages(table.getIndexPath(i), IndexPage.sizeOfEntry(table, i));
+            int sizeOfEntry = IndexPage.sizeOfEntry(table, i);
+            int numPages = FileIO.getNumOfPages(table.getIndexPath(i), sizeOfEntry);
             tableSnapshots[i].setNumOfPages(numPages);
+            tableSnapshots[i].getFreeSpaceMap().load(FileIO.readEntryCounts(table.getIndexPath(i), sizeOfEntry), Page.getPageCapacity(sizeOfEntry));
+            idx.initialize(table);
+        }
+        for (CompositeIndex composite : composites) {
+            composite.clear();
+            composite.initialize(table);
         }
+        for (DerivedIndex<?> index : derived) {
+            index.clear();
+            index.initialize(table);
+        }
+        statistics.clear();
+        modifications++;
     }
 
     public boolean isIndexed(int columnIndex){
@@ -74,21 +117,32 @@ public class IndexManager {
         if(this.indexes[columnIndex] == null) return SequentialOperations.getMaxSequential(table,columnIndex);
         return this.indexes[columnIndex].getMax();
     }
+    /**
+     * One index hit. Records are equal when they refer to the same row, whichever index produced them.
+     */
     public record IndexRecord<K>(K key, PointerPair value, int columnIndex) {
             @Override
         public boolean equals(Object o) {
             if (this == o) return true;
             if (!(o instanceof IndexRecord<?> other)) return false;
-            return Objects.equals(value, other.value);
+            return value.rowId() == other.value.rowId();
         }
         @Override
         public int hashCode() {
-            return Objects.hash(value);
+            return Long.hashCode(value.rowId());
         }
     }
     /**
-     * Evaluates a WHERE clause using available indexes.
-     * Combines per-condition index hits with AND/OR semantics.
+     * Evaluates a WHERE clause, reading at most one index range per condition that needs one
+     * and never scanning the table more than once.
+     *
+     * <p>The conditions before the first OR are ANDed together. The planner estimates how many
+     * rows each index able to answer one of them selects, from the statistics of the index,
+     * and reads only the cheapest one, or the multi-column index when it selects fewer rows.
+     * The other conditions of the conjunction, and the AND conditions after an OR, are tested
+     * on the rows found. Each OR condition adds the rows of its own index. When a condition
+     * that must add rows has no index, or the index plan costs more than reading the table,
+     * the whole clause is evaluated in a single sequential scan instead.</p>
      *
      * @param whereClause parsed clause tree. If null, returns full-scan fallback via preferred index.
      * @param <K> key type
@@ -96,18 +150,166 @@ public class IndexManager {
      */
     public <K extends Comparable<? super K>> List<IndexRecord<K>> findRangeIndex(WhereClause whereClause) {
         if (whereClause == null) return IndexUtils.noCondition(table, indexes, schema.getPreferredIndexColumn());
-
+        List<IndexRecord<K>> records = findIndexedRange(whereClause);
+        if (records != null) return records;
         List<Map.Entry<Clause, Condition<WhereClause>>> clauses = whereClause.getConditions();
-        List<IndexRecord<K>> previous = Collections.emptyList();
-
+        if (clauses.size() == 1) return IndexUtils.scanCondition(table, clauses.getFirst().getValue());
+        return SequentialOperations.sequentialWhereSearch(table, clauses);
+    }
+    /**
+     * Evaluates a WHERE clause like {@link #findRangeIndex(WhereClause)} when the planner answers
+     * it through indexes.
+     *
+     * @param whereClause parsed clause tree
+     * @param <K> key type
+     * @return ordered list of index records matching the clause, or {@code null} when the clause
+     *         is cheaper to evaluate by a sequential scan of the table, which is left to the caller
+     */
+    public <K extends Comparable<? super K>> List<IndexRecord<K>> findIndexedRange(WhereClause whereClause) {
+        List<Map.Entry<Clause, Condition<WhereClause>>> clauses = whereClause.getConditions();
+        List<Condition<WhereClause>> conjunction = new ArrayList<>();
         for (var entry : clauses) {
-            Clause clause = entry.getKey();
-            List<IndexRecord<K>> results = IndexUtils.evaluateCondition(table, indexes, entry.getValue());
-            if (clause == Clause.FIRST) previous = results;
-            else if (clause == Clause.OR) previous = IndexUtils.mergeOr(previous, results);
-            else if (clause == Clause.AND) previous = IndexUtils.mergeAnd(previous, results);
+            if (entry.getKey() == Clause.OR) break;
+            conjunction.add(entry.getValue());
+        }
+        List<Map.Entry<Clause, Condition<WhereClause>>> rest = clauses.subList(conjunction.size(), clauses.size());
+
+        // Partial indexes only answer conditions ANDed with their whole filter, which their rows already match
+        List<DerivedIndex<?>> implied = derived.stream().filter(index -> index.isImpliedBy(conjunction)).toList();
+        List<DerivedIndex<?>> unfiltered = derived.stream().filter(index -> !index.hasFilter()).toList();
+
+        Condition<WhereClause> driver = null;
+        IndexInit<?> driverIndex = null;
+        long driverRows = Long.MAX_VALUE;
+        for (Condition<WhereClause> condition : conjunction) {
+            int columnIndex = schema.getColumnIndex(condition.getColumnName());
+            if (columnIndex < 0) { // matches no row, nor does the conjunction
+                driver = condition;
+                driverIndex = null;
+                driverRows = 0;
+                break;
+            }
+            IndexInit<?> index = IndexUtils.indexFor(indexes, implied, condition, columnIndex);
+            if (index == null) continue;
+            long rows = getStatistics(index).estimate(condition);
+            if (rows < driverRows) {
+                driver = condition;
+                driverIndex = index;
+                driverRows = rows;
+            }
+        }
+        IndexUtils.CompositeMatch<K> match = driverRows == 0 ? null : IndexUtils.compositeSearch(table, indexes, composites, conjunction, false);
+        boolean useComposite = match != null && match.records().size() <= driverRows;
+        if (useComposite) driverRows = match.records().size();
+
+        double indexCost = driverRows == Long.MAX_VALUE ? Double.POSITIVE_INFINITY : driverRows * RANDOM_ROW_COST;
+        for (var entry : rest) {
+            if (entry.getKey() != Clause.OR) continue;
+            Condition<WhereClause> condition = entry.getValue();
+            int columnIndex = schema.getColumnIndex(condition.getColumnName());
+            IndexInit<?> index = columnIndex < 0 ? null : IndexUtils.indexFor(indexes, unfiltered, condition, columnIndex);
+            if (index == null) indexCost = Double.POSITIVE_INFINITY;
+            else indexCost += getStatistics(index).estimate(condition) * RANDOM_ROW_COST;
+        }
+        if (indexCost > table.getRowIdMap().size()) return null;
+
+        List<IndexRecord<K>> records;
+        Set<Condition<WhereClause>> satisfied = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (useComposite) {
+            records = match.records();
+            satisfied.addAll(match.covered());
+        } else {
+            records = IndexUtils.evaluateCondition(table, indexes, implied, driver);
+            satisfied.add(driver);
+            if (driverIndex instanceof DerivedIndex<?> index && index.hasFilter())
+                for (Condition<WhereClause> condition : conjunction)
+                    if (index.isFilteredBy(condition)) satisfied.add(condition);
+        }
+        records = IndexUtils.filter(table, records, conjunction.stream().filter(c -> !satisfied.contains(c)).toList());
+        for (var entry : rest) {
+            if (entry.getKey() == Clause.OR) records = IndexUtils.mergeOr(records, IndexUtils.evaluateCondition(table, indexes, unfiltered, entry.getValue()));
+            else records = IndexUtils.filter(table, records, List.of(entry.getValue()));
+        }
+        return records;
+    }
+    /**
+     * Write counter of the indexes of this table, moved by every insert, removal, update,
+     * rollback and reload. A {@link com.database.tttdb.core.index.Cursor} opened on one of them
+     * is only valid while the counter does not move.
+     *
+     * @return number of writes to the indexes so far
+     */
+    public long getModifications() { return modifications; }
+    /**
+     * Statistics of an index of this table, rebuilt once the table was written to more times
+     * than a tenth of the entries they were built from.
+     *
+     * @param index single-column, multi-column or derived index of this table
+     * @return current statistics of the index
+     */
+    public IndexStatistics getStatistics(IndexInit<?> index) {
+        IndexStatistics current = statistics.get(index);
+        if (current != null && modifications - current.getModifications() <= current.getEntries() / 10) return current;
+        IndexStatistics rebuilt = IndexStatistics.of(index, modifications);
+        statistics.put(index, rebuilt);
+        return rebuilt;
+    }
+    /**
+     * Answers a select from a multi-column index that holds every column it reads, without
+     * reading table pages. Applies when the WHERE clause has no OR and a leading run of the
+     * index columns is constrained by it, or when there is no WHERE clause at all. Conditions
+     * the index bounds do not cover are evaluated on the decoded values.
+     *
+     * @param whereClause parsed clause, may be null
+     * @param columns table columns the select reads, besides those of the WHERE clause
+     * @return the values of the matching rows at their column positions, with {@code null} for
+     *         columns the index does not hold, or {@code null} if no index covers the select
+     */
+    public List<Object[]> findCovering(WhereClause whereClause, int[] columns) {
+        if (composites.length == 0) return null;
+        List<Condition<WhereClause>> conjunction = new ArrayList<>();
+        if (whereClause != null) {
+            for (var entry : whereClause.getConditions()) {
+                if (entry.getKey() != Clause.FIRST && entry.getKey() != Clause.AND) return null;
+                conjunction.add(entry.getValue());
+            }
         }
-        return previous;
+        int[] conditionColumns = new int[conjunction.size()];
+        for (int i = 0; i < conditionColumns.length; i++) {
+            conditionColumns[i] = schema.getColumnIndex(conjunction.get(i).getColumnName());
+            if (conditionColumns[i] < 0 || conjunction.get(i).getFunction() != null) return null;
+        }
+        List<CompositeIndex> holding = new ArrayList<>();
+        for (CompositeIndex composite : composites)
+            if (Arrays.stream(columns).allMatch(composite::holds) && Arrays.stream(conditionColumns).allMatch(composite::holds))
+                holding.add(composite);
+        if (holding.isEmpty()) return null;
+
+        CompositeIndex index;
+        List<CompositeKey> keys = new ArrayList<>();
+        Set<Condition<WhereClause>> covered = Collections.emptySet();
+        if (conjunction.isEmpty()) {
+            index = holding.getFirst();
+            for (Pair<CompositeKey, PointerPair> pair : index.rangeSearch(null, null)) keys.add(pair.key);
+        } else {
+            IndexUtils.CompositeMatch<CompositeKey> match = IndexUtils.compositeSearch(table, indexes, holding.toArray(new CompositeIndex[0]), conjunction, true);
+            if (match == null) return null;
+            index = match.index();
+            covered = match.covered();
+            for (IndexRecord<CompositeKey> record : match.records()) keys.add(record.key());
+        }
+        List<Object[]> rows = new ArrayList<>(keys.size());
+        for (CompositeKey key : keys) {
+            Object[] values = index.decode(key);
+            boolean matches = true;
+            for (int i = 0; i < conjunction.size() && matches; i++) {
+                Condition<WhereClause> condition = conjunction.get(i);
+                if (covered.contains(condition)) continue;
+                matches = IndexUtils.matches(condition, values[conditionColumns[i]]);
+            }
+            if (matches) rows.add(values);
+        }
+        return rows;
     }
     /**
      * Locates index pointer pairs for an exact key on a column.
@@ -142,103 +344,204 @@ public class IndexManager {
      * Inserts index entries for a newly inserted table row.
      * Appends an INSERT operation to the index snapshot for rollback.
      * Invariants:
-     * - Arrays are written by index position i, matching {@code indexes[i]}.
+     * - Arrays are written by index position i, matching {@code indexes[i]}, then by
+     *   {@code indexes.length + j} for the multi-column index {@code j}.
      *
      * @param entry row data
-     * @param tablePointer location of the row in table storage
+     * @param rowId stable row id of the row
      * @param <K> key type
      */
     @SuppressWarnings("unchecked")
-    public <K extends Comparable<? super K>> void insertIndex(Entry entry, BlockPointer tablePointer){
-        Object[] keys = new Object[indexes.length];
-        PointerPair[] values = new PointerPair[indexes.length];
+    public <K extends Comparable<? super K>> void insertIndex(Entry entry, long rowId){
+        Object[] keys = new Object[allIndexes.length];
+        PointerPair[] values = new PointerPair[allIndexes.length];
         for (int i = 0; i < indexes.length; i++) {
             IndexInit<K> index = (IndexInit<K>)indexes[i];
             if(index == null) continue;
             assert index.getColumnIndex() == i : "Index position and columnIndex diverged";
             int columnIndex = index.getColumnIndex();
             K key = IndexUtils.getValidatedKey(entry, index, columnIndex,columnTypes[columnIndex]);
-            BlockPointer indexPointer = this.pageManager.insert(tablePointer, key, index.getColumnIndex());
-            PointerPair value = new PointerPair(tablePointer,indexPointer);
+            BlockPointer indexPointer = this.pageManager.insert(rowId, key, index.getColumnIndex());
+            PointerPair value = new PointerPair(rowId,indexPointer);
             index.insert(key, value);
             keys[i] = key;
             values[i] = value;
         }
+        for (int i = 0; i < composites.length; i++) {
+            CompositeKey key = composites[i].keyOf(entry);
+            PointerPair value = new PointerPair(rowId, null);
+            composites[i].insert(key, value);
+            keys[indexes.length + i] = key;
+            values[indexes.length + i] = value;
+        }
+        for (int i = 0; i < derived.size(); i++) {
+            DerivedIndex<K> index = (DerivedIndex<K>) derived.get(i);
+            if (!index.qualifies(entry)) continue;
+            K key = index.keyOf(entry);
+            PointerPair value = new PointerPair(rowId, null);
+            index.insert(key, value);
+            keys[indexes.length + composites.length + i] = key;
+            values[indexes.length + composites.length + i] = value;
+        }
+        modifications++;
         Operation operation = new Operation(OperationEnum.INSERT, keys, values,null);
         indexSnapshot.addOperation(operation);
     }
 
     /**
      * Removes index entries for a deleted table row.
-     * If a swap occurs during compaction, records an UPDATE op before the REMOVE
-     * so rollback can undo the swap then reinsert.
+     * Appends a REMOVE operation to the index snapshot for rollback.
      *
      * @param entry row being deleted
-     * @param blockPointer table pointer of the row
+     * @param rowId stable row id of the row
      * @param <K> key type
      */
     @SuppressWarnings("unchecked")
-    public <K extends Comparable<? super K>> void removeIndex(Entry entry, BlockPointer blockPointer){
-        Object[] keys = new Object[indexes.length];
-        PointerPair[] values = new PointerPair[indexes.length];
-        Object[] updatedKeys = new Object[indexes.length];
-        PointerPair[] updatedValues = new PointerPair[indexes.length];
-        PointerPair[] updatedOldValues = new PointerPair[indexes.length];
-        boolean indexChanged = false;
+    public <K extends Comparable<? super K>> void removeIndex(Entry entry, long rowId){
+        Object[] keys = new Object[allIndexes.length];
+        PointerPair[] values = new PointerPair[allIndexes.length];
         for (int i = 0; i < indexes.length; i++) {
             IndexInit<K> index = (IndexInit<K>)indexes[i];
             if(index == null) continue;
             assert index.getColumnIndex() == i : "Index position and columnIndex diverged";
             int columnIndex = index.getColumnIndex();
             K key = IndexUtils.getValidatedKey(entry, index, columnIndex,columnTypes[columnIndex]);
-            BlockPointer indexPointer = pageManager.findIndexPointer(index, key, blockPointer);
-            PointerPair value = new PointerPair(blockPointer, indexPointer);
-            indexChanged |= pageManager.remove(index, value, index.getColumnIndex(),updatedKeys,updatedValues,updatedOldValues);
+            BlockPointer indexPointer = pageManager.findIndexPointer(index, key, rowId);
+            PointerPair value = new PointerPair(rowId, indexPointer);
+            pageManager.remove(value, columnIndex);
             index.remove(key, value);
             keys[i] = key;
             values[i] = value;
         }
-        Operation updatedOperation = new Operation(OperationEnum.UPDATE, updatedKeys, updatedValues,updatedOldValues);
+        for (int i = 0; i < composites.length; i++) {
+            CompositeKey key = composites[i].keyOf(entry);
+            PointerPair value = new PointerPair(rowId, null);
+            composites[i].remove(key, value);
+            keys[indexes.length + i] = key;
+            values[indexes.length + i] = value;
+        }
+        for (int i = 0; i < derived.size(); i++) {
+            DerivedIndex<K> index = (DerivedIndex<K>) derived.get(i);
+            if (!index.qualifies(entry)) continue;
+            K key = index.keyOf(entry);
+            PointerPair value = new PointerPair(rowId, null);
+            index.remove(key, value);
+            keys[indexes.length + composites.length + i] = key;
+            values[indexes.length + composites.length + i] = value;
+        }
+        modifications++;
         Operation operation = new Operation(OperationEnum.REMOVE, keys, values,null);
-        if(indexChanged) indexSnapshot.addOperation(updatedOperation);
         indexSnapshot.addOperation(operation);
     }
 
     /**
-     * Updates index entries for a moved or modified row.
-     * Records an UPDATE operation for rollback.
+     * Updates index entries of a row whose values changed in place.
+     * Only indexes whose key actually changed are touched: the index entry keeps its slot
+     * and row id, only its key is rewritten. Records a REMOVE of the old keys followed by an
+     * INSERT of the new keys, restricted to the changed indexes, for rollback.
      *
-     * @param entry new entry state
-     * @param newBlockPointer new table pointer
-     * @param oldBlockPointer old table pointer
+     * @param oldEntry row values before the update
+     * @param newEntry row values after the update
+     * @param rowId stable row id of the row
      * @param <K> key type
      */
     @SuppressWarnings("unchecked")
-    public <K extends Comparable<? super K>> void updateIndex(Entry entry, BlockPointer newBlockPointer, BlockPointer oldBlockPointer){
-        Object[] keys = new Object[indexes.length];
-        PointerPair[] values = new PointerPair[indexes.length];
-        PointerPair[] oldValues = new PointerPair[indexes.length];
+    public <K extends Comparable<? super K>> void updateIndex(Entry oldEntry, Entry newEntry, long rowId){
+        Object[] oldKeys = new Object[allIndexes.length];
+        Object[] newKeys = new Object[allIndexes.length];
+        PointerPair[] values = new PointerPair[allIndexes.length];
+        boolean changed = false;
         for (int i = 0; i < indexes.length; i++) {
             IndexInit<K> index = (IndexInit<K>)indexes[i];
             if(index == null) continue;
             assert index.getColumnIndex() == i : "Index position and columnIndex diverged";
             int columnIndex = index.getColumnIndex();
-            K key = IndexUtils.getValidatedKey(entry, index, columnIndex,columnTypes[columnIndex]);
-            BlockPointer indexPointer = pageManager.findIndexPointer(index, key, oldBlockPointer);
-            pageManager.update(indexPointer , newBlockPointer, key, columnIndex);
-            PointerPair newValue = new PointerPair(newBlockPointer, indexPointer);
-            PointerPair oldValue = new PointerPair(oldBlockPointer, indexPointer);
-            if(index.isUnique())index.update(key, newValue);
-            else index.update(key, newValue, oldValue);
-            keys[i] = key;
-            values[i] = newValue;
-            oldValues[i] = oldValue;
+            K oldKey = IndexUtils.getValidatedKey(oldEntry, index, columnIndex,columnTypes[columnIndex]);
+            K newKey = IndexUtils.getValidatedKey(newEntry, index, columnIndex,columnTypes[columnIndex]);
+            if(Objects.equals(oldKey, newKey)) continue;
+            BlockPointer indexPointer = pageManager.findIndexPointer(index, oldKey, rowId);
+            PointerPair value = new PointerPair(rowId, indexPointer);
+            pageManager.update(indexPointer, rowId, newKey, columnIndex);
+            index.remove(oldKey, value);
+            index.insert(newKey, value);
+            oldKeys[i] = oldKey;
+            newKeys[i] = newKey;
+            values[i] = value;
+            changed = true;
         }
-        Operation operation = new Operation(OperationEnum.UPDATE, keys, values, oldValues);
-        indexSnapshot.addOperation(operation);
+        for (int i = 0; i < composites.length; i++) {
+            CompositeKey oldKey = composites[i].keyOf(oldEntry);
+            CompositeKey newKey = composites[i].keyOf(newEntry);
+            if(oldKey.equals(newKey)) continue;
+            PointerPair value = new PointerPair(rowId, null);
+            composites[i].remove(oldKey, value);
+            composites[i].insert(newKey, value);
+            oldKeys[indexes.length + i] = oldKey;
+            newKeys[indexes.length + i] = newKey;
+            values[indexes.length + i] = value;
+            changed = true;
+        }
+        // A row enters or leaves a partial index when the update changes whether it matches the filter
+        PointerPair[] removedValues = values.clone();
+        PointerPair[] insertedValues = values;
+        for (int i = 0; i < derived.size(); i++) {
+            DerivedIndex<K> index = (DerivedIndex<K>) derived.get(i);
+            boolean wasIndexed = index.qualifies(oldEntry);
+            boolean isIndexed = index.qualifies(newEntry);
+            K oldKey = wasIndexed ? index.keyOf(oldEntry) : null;
+            K newKey = isIndexed ? index.keyOf(newEntry) : null;
+            if(wasIndexed == isIndexed && Objects.equals(oldKey, newKey)) continue;
+            int position = indexes.length + composites.length + i;
+            PointerPair value = new PointerPair(rowId, null);
+            if(wasIndexed) {
+                index.remove(oldKey, value);
+                oldKeys[position] = oldKey;
+                removedValues[position] = value;
+            }
+            if(isIndexed) {
+                index.insert(newKey, value);
+                newKeys[position] = newKey;
+                insertedValues[position] = value;
+            }
+            changed = true;
+        }
+        if(!changed) return;
+        modifications++;
+        indexSnapshot.addOperation(new Operation(OperationEnum.REMOVE, oldKeys, removedValues, null));
+        indexSnapshot.addOperation(new Operation(OperationEnum.INSERT, newKeys, insertedValues, null));
+    }
+
+    /**
+     * Repoints the in-memory index value of an index entry that was moved to another
+     * index page slot. The row id and key are unchanged.
+     * Records an UPDATE operation for rollback that only touches {@code columnIndex}.
+     *
+     * @param columnIndex indexed column
+     * @param key key stored in the moved index entry
+     * @param rowId row id stored in the moved index entry
+     * @param oldIndexPointer previous location of the index entry
+     * @param newIndexPointer new location of the index entry
+     * @param <K> key type
+     */
+    @SuppressWarnings("unchecked")
+    public <K extends Comparable<? super K>> void relocateIndexEntry(int columnIndex, Object key, long rowId, BlockPointer oldIndexPointer, BlockPointer newIndexPointer){
+        IndexInit<K> index = (IndexInit<K>)indexes[columnIndex];
+        PointerPair newValue = new PointerPair(rowId, newIndexPointer);
+        PointerPair oldValue = new PointerPair(rowId, oldIndexPointer);
+        if(index.isUnique()) index.update((K)key, newValue);
+        else index.update((K)key, newValue, oldValue);
+        Object[] keys = new Object[allIndexes.length];
+        PointerPair[] values = new PointerPair[allIndexes.length];
+        PointerPair[] oldValues = new PointerPair[allIndexes.length];
+        keys[columnIndex] = key;
+        values[columnIndex] = newValue;
+        oldValues[columnIndex] = oldValue;
+        indexSnapshot.addOperation(new Operation(OperationEnum.UPDATE, keys, values, oldValues));
     }
 
     public IndexInit<?>[] getIndexes() { return this.indexes; }
+    public CompositeIndex[] getCompositeIndexes() { return this.composites; }
+    public List<DerivedIndex<?>> getDerivedIndexes() { return this.derived; }
     public int getPages(int columnIndex) {
         TableSnapshot ts = tableSnapshots[columnIndex];
         return ts != null ? ts.getNumOfPages() : 0;
@@ -250,6 +553,9 @@ public class IndexManager {
     public void removeOnePage(int columnIndex) { 
         this.tableSnapshots[columnIndex].removeOnePage();
     }
+    public FreeSpaceMap getFreeSpaceMap(int columnIndex) {
+        return this.tableSnapshots[columnIndex].getFreeSpaceMap();
+    }
 
     public Set<PageKey> getDeletedPagesSet(int columnIndex) { 
         return this.tableSnapshots[columnIndex].getDeletedPageIDSet(); 
@@ -271,8 +577,9 @@ public class IndexManager {
         indexSnapshot.commit();
     }
     public void rollback() {
-        indexSnapshot.rollback(indexes);
+        indexSnapshot.rollback(allIndexes);
         forEachSnapshot(TableSnapshot::rollback);
+        modifications++;
     }
     private void forEachSnapshot(Consumer<TableSnapshot> action) {
         for (TableSnapshot ts : tableSnapshots)
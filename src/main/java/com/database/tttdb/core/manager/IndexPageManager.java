@@ -11,10 +11,10 @@ import com.database.tttdb.core.page.IndexPage;
 import com.database.tttdb.core.table.Table;
 /**
  * Manages on-disk and cached pages for secondary/primary index structures.
- * Provides pointer lookup, index-entry insert/remove with compaction,
+ * Provides pointer lookup, index-entry insert/remove with slot reuse,
  * and in-place index-entry updates.
  * Invariants:
- * - Each index entry is a 2-field {@link Entry}: [0]=table BlockPointer, [1]=key.
+ * - Each index entry is a 2-field {@link Entry}: [0]=row id, [1]=key.
  * - Column index selects the index file/segment.
  * - Cache writes are persisted via {@code table.getCache().putIndexPage(...)}.
  */
@@ -28,171 +28,96 @@ public class IndexPageManager {
     }
 
     /**
-     * Finds the index-page pointer that corresponds to a specific table-row pointer for a given key.
+     * Finds the index-page pointer that corresponds to a specific row for a given key.
      *
      * @param index index to search
      * @param key key to probe
-     * @param tablePointer table-row pointer to match
+     * @param rowId row id to match
      * @param <K> key type
      * @return the index {@link BlockPointer} if found, otherwise {@code null}
      */
     @SuppressWarnings("unchecked")
-    public <K extends Comparable<? super K>> BlockPointer findIndexPointer(IndexInit<?> index, K key, BlockPointer tablePointer){
+    public <K extends Comparable<? super K>> BlockPointer findIndexPointer(IndexInit<?> index, K key, long rowId){
         List<Pair<K, PointerPair>> pointerList = ((IndexInit<K>)index).search(key);
         BlockPointer result = null;
         for (Pair<K, PointerPair> pair : pointerList) {
-            if(tablePointer.equals(pair.value.tablePointer())) result = pair.value.indexPointer();
+            if(pair.value.rowId() == rowId) result = pair.value.indexPointer();
         }
         return result;
     }
 
     /**
-     * Appends a new index entry [tablePointer, value] to the last index page for the column,
-     * growing pages if required.
+     * Stores a new index entry [rowId, value] in the first index page with an
+     * empty slot, as reported by the column's free-space map, growing pages if required.
      *
-     * @param pointer table-row pointer
+     * @param rowId row id of the indexed row
      * @param value key value to store (nullable obeys schema.notNull[columnIndex])
      * @param columnIndex index column id
      * @return {@link BlockPointer} to the new index entry
      */
-    public BlockPointer insert(BlockPointer pointer, Object value, int columnIndex){
-        if(table.getIndexManager().getPages(columnIndex)==0)table.getIndexManager().addOnePage(columnIndex);
-        IndexPage page = table.getCache().getLastIndexPage(columnIndex);
-        Object[] values = {pointer, value};
-        boolean isNotNullable = table.getSchema().getNotNull()[columnIndex];
-        int numOfNulls = !isNotNullable? 1:0;
-        Entry entry = new Entry(values, numOfNulls)
-            .setBitMap(new boolean[]{true,isNotNullable});
-        if(page.size() >= page.getCapacity()){
-            this.table.getIndexManager().addOnePage(columnIndex);
-            page = table.getCache().getLastIndexPage(columnIndex);
+    public BlockPointer insert(long rowId, Object value, int columnIndex){
+        IndexManager indexManager = table.getIndexManager();
+        int pageID = indexManager.getFreeSpaceMap(columnIndex).firstFree(indexManager.getPages(columnIndex));
+        if(pageID < 0){
+            indexManager.addOnePage(columnIndex);
+            pageID = indexManager.getPages(columnIndex) - 1;
         }
-        page.add(entry);
+        IndexPage page = table.getCache().getIndexPage(pageID, columnIndex);
+        int slot = page.add(this.indexEntry(rowId, value, columnIndex));
+        if(page.isFull()) indexManager.getFreeSpaceMap(columnIndex).markFull(pageID);
         table.getCache().putIndexPage(page);
-        return new BlockPointer(page.getPageID(), (short)(page.size()-1));
+        return new BlockPointer(page.getPageID(), (short)slot);
     }
 
     /**
-     * Removes an index entry and compacts by swapping the last entry into the hole
-     * when needed. Populates arrays describing any swap so callers can snapshot an
-     * UPDATE operation for rollback.
+     * Removes an index entry by tombstoning its slot. The slot is recorded in the
+     * column's free-space map and reused by a later {@link #insert}; no other index
+     * entry moves, so the logical index needs no pointer updates.
      *
-     * @param index logical index to update after swap
-     * @param pointerPair pair of (table, index) pointers identifying the entry to remove
+     * @param pointerPair row id and index pointer identifying the entry to remove
      * @param columnIndex index column id
-     * @param keys out: swapped key (if a swap occurred), else null
-     * @param values out: new PointerPair of swapped entry (if swap), else null
-     * @param oldValues out: old PointerPair location for swapped entry (if swap), else null
-     * @param <K> key type
-     * @return true if a swap occurred and outputs were populated, false if no swap
+     * @throws IllegalArgumentException if the stored row id does not match
      */
-    public <K extends Comparable<? super K>> boolean remove(IndexInit<K> index, PointerPair pointerPair, int columnIndex, Object[] keys, PointerPair[] values, PointerPair[] oldValues){
+    public void remove(PointerPair pointerPair, int columnIndex){
         BlockPointer indexPointer = pointerPair.indexPointer();
-        IndexPage page = this.removalProcess(pointerPair, columnIndex);
-        if (page.isLastPage() && page.size() == 1) {
-            page.remove(indexPointer.RowOffset());
+        IndexPage page = table.getCache().getIndexPage(indexPointer.BlockID(), columnIndex);
+        Entry removedEntry = page.get(indexPointer.RowOffset());
+        if (removedEntry == null || (Long)removedEntry.get(0) != pointerPair.rowId())
+            throw new IllegalArgumentException("Mismatching row id from removed index entry");
+        page.delete(indexPointer.RowOffset());
+        table.getIndexManager().getFreeSpaceMap(columnIndex).markFree(page.getPageID());
+        if (page.isLastPage() && page.size() == 0) {
             table.getCache().deleteLastIndexPage(page);
-            return false;
+            return;
         }
-        boolean changed = this.replaceWithLast(index, page, indexPointer, columnIndex,keys,values,oldValues);
         table.getCache().putIndexPage(page);
-        return changed;
-    }
-    /**
-     * Marks the slot as empty and validates that the removed entry matches the expected table pointer.
-     *
-     * @param pointerPair identifies the index entry to remove
-     * @param columnIndex index column id
-     * @return the loaded {@link IndexPage} with the hole created
-     * @throws IllegalArgumentException if the table pointer does not match
-     */
-    private IndexPage removalProcess(PointerPair pointerPair, int columnIndex){
-        BlockPointer indexPointer = pointerPair.indexPointer();
-        IndexPage page = table.getCache().getIndexPage(pointerPair.indexPointer().BlockID(), columnIndex);
-        Entry removedEntry = page.get(indexPointer.RowOffset());
-        page.set(indexPointer.RowOffset(), null);
-        if (!removedEntry.get(0).equals(pointerPair.tablePointer()))
-            throw new IllegalArgumentException("Mismatching table pointer from removed index entry");
-        return page;
     }
     /**
-     * Compacts the page by moving a candidate entry into the hole and updates the logical index.
-     * Writes swap metadata into the provided arrays for rollback.
-     * Cases:
-     * - Last page: if the hole is not at the tail, swap with last entry on the same page.
-     * - Non-last page: pull the last entry of the last page into the hole and shrink last page.
-     *
-     * @param index logical index to reflect new/old pointer for the swapped key
-     * @param page page containing the hole
-     * @param indexPointer location of the hole
-     * @param columnIndex index column id
-     * @param keys out key written when a swap occurs
-     * @param values out new PointerPair for swapped entry
-     * @param oldValues out old PointerPair for swapped entry
-     * @param <K> key type
-     * @return true if a swap occurred, false otherwise
-     */
-    @SuppressWarnings("unchecked")
-    private <K extends Comparable<? super K>> boolean replaceWithLast(IndexInit<K> index, IndexPage page, BlockPointer indexPointer, int columnIndex, Object[] keys, PointerPair[] values, PointerPair[] oldValues){
-        if(page.isLastPage()){
-            page.remove(indexPointer.RowOffset());
-            if(indexPointer.RowOffset() != page.size()){
-                Entry swapped = page.get(indexPointer.RowOffset());
-                BlockPointer oldPointer = new BlockPointer(page.getPageID(),page.size());
-                PointerPair oldPair = new PointerPair((BlockPointer)swapped.get(0), oldPointer);
-                PointerPair newPair = new PointerPair((BlockPointer)swapped.get(0), indexPointer);
-                if(index.isUnique())index.update((K)swapped.get(1), newPair);
-                else index.update((K)swapped.get(1), newPair, oldPair);
-                keys[columnIndex] = swapped.get(1);
-                values[columnIndex] = newPair;
-                oldValues[columnIndex] = oldPair;
-                return true;
-            }
-            return false;
-        }
-        IndexPage lastPage = table.getCache().getLastIndexPage(columnIndex);
-        int lastOffset = lastPage.size() - 1;
-        Entry lastEntry = lastPage.get(lastOffset);
-        BlockPointer oldPointer = new BlockPointer(lastPage.getPageID(), (short)lastOffset);
-        PointerPair oldPair = new PointerPair((BlockPointer)lastEntry.get(0), oldPointer);
-
-        lastPage.removeLast();
-
-        page.set(indexPointer.RowOffset(), lastEntry);
-        PointerPair newPair = new PointerPair((BlockPointer) lastEntry.get(0), 
-                                new BlockPointer(page.getPageID(), indexPointer.RowOffset()));
-        if(index.isUnique())index.update((K)lastEntry.get(1), newPair);
-        else index.update((K)lastEntry.get(1), newPair, oldPair);
-        keys[columnIndex] = lastEntry.get(1);
-        values[columnIndex] = newPair;
-        oldValues[columnIndex] = oldPair;
-        if(lastPage.size() == 0){
-            table.getCache().deleteLastIndexPage(lastPage);
-        }else{
-            table.getCache().putIndexPage(lastPage);
-        }
-        return true;
-    }
-    /**
-     * Updates an existing index entry in place.
+     * Replaces an existing index entry in its slot. The old entry object is left untouched,
+     * since it may still be shared with a page copy of an enclosing transaction.
      *
      * @param IndexPointer index entry location to update
-     * @param newPointer new table-row pointer
+     * @param rowId row id of the indexed row
      * @param newValue new key value to store
      * @param columnIndex index column id
      * @throws IllegalArgumentException if {@code IndexPointer} is null
      * @throws IndexOutOfBoundsException if the row offset is invalid for the page
      */
-    public void update(BlockPointer IndexPointer, BlockPointer newPointer, Object newValue, int columnIndex){
+    public void update(BlockPointer IndexPointer, long rowId, Object newValue, int columnIndex){
         if (IndexPointer == null) throw new IllegalArgumentException("IndexPointer is null");
         IndexPage page = table.getCache().getIndexPage(IndexPointer.BlockID(),columnIndex);
         int row = IndexPointer.RowOffset();
-        if (row < 0 || row >= page.size()) {
-            throw new IndexOutOfBoundsException("Invalid index pointer: " + row + " page size: " + page.size());
+        if (row < 0 || row >= page.slotCount() || page.get(row) == null) {
+            throw new IndexOutOfBoundsException("Invalid index pointer: " + row + " page slots: " + page.slotCount());
         }
-        Entry updated = page.get(row);
-        updated.set(0, newPointer);
-        updated.set(1, newValue);
+        page.set(row, this.indexEntry(rowId, newValue, columnIndex));
         table.getCache().putIndexPage(page);
     }
+    private Entry indexEntry(long rowId, Object value, int columnIndex){
+        Object[] values = {rowId, value};
+        boolean isNotNullable = table.getSchema().getNotNull()[columnIndex];
+        int numOfNulls = !isNotNullable? 1:0;
+        return new Entry(values, numOfNulls)
+            .setBitMap(new boolean[]{true,isNotNullable});
+    }
 }
\ No newline at end of file
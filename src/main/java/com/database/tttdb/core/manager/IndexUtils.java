@@ -1,37 +1,147 @@
 package com.database.tttdb.core.manager;
 
 import com.database.tttdb.api.Condition;
+import com.database.tttdb.api.Condition.Conditions;
 import com.database.tttdb.api.Condition.WhereClause;
 import com.database.tttdb.api.ConditionUtils;
 import com.database.tttdb.core.index.*;
+import com.database.tttdb.core.index.IndexInit.BlockPointer;
 import com.database.tttdb.core.index.IndexInit.PointerPair;
 import com.database.tttdb.core.manager.IndexManager.IndexRecord;
 import com.database.tttdb.core.page.Entry;
 import com.database.tttdb.core.table.DataType;
+import com.database.tttdb.core.table.RowIdBitmap;
 import com.database.tttdb.core.table.Table;
+import com.database.tttdb.core.table.TableSchema;
 import java.util.*;
 
 public final class IndexUtils {
 
     private IndexUtils() {} // prevent instantiation
 
-    @SuppressWarnings("unchecked")
     public static <K extends Comparable<? super K>> List<IndexRecord<K>> evaluateCondition(Table table, IndexInit<?>[] indexes, Condition<WhereClause> condition) {
-        ConditionUtils.RangeBounds bounds = ConditionUtils.extractRange(condition.getConditions());
+        return evaluateCondition(table, indexes, List.of(), condition);
+    }
+    /**
+     * Finds the rows matching one condition, through the column index, an expression or partial
+     * index from {@code derived} that answers the condition, or a sequential scan. The index
+     * only reads the keys of the condition's {@link ConditionUtils#rangeSet range set}, see
+     * {@link #search(IndexInit, ConditionUtils.RangeSet)}.
+     *
+     * @param table table being queried
+     * @param indexes single-column indexes by column position
+     * @param derived expression and partial indexes usable for this condition
+     * @param condition condition to evaluate
+     * @param <K> key type
+     * @return matching index records
+     */
+    @SuppressWarnings("unchecked")
+    public static <K extends Comparable<? super K>> List<IndexRecord<K>> evaluateCondition(Table table, IndexInit<?>[] indexes, List<DerivedIndex<?>> derived, Condition<WhereClause> condition) {
         int columnIndex = table.getSchema().getColumnIndex(condition.getColumnName());
         if (columnIndex < 0) return Collections.emptyList();
-        IndexInit<K> index = (IndexInit<K>) indexes[columnIndex];
-        List<Pair<K, PointerPair>> pairs =
-            (index == null)
-                ? SequentialOperations.sequentialRangeSearch(table, (K) bounds.start(), (K) bounds.end(), columnIndex)
-                : index.rangeSearch((K) bounds.start(), (K) bounds.end());
+        IndexInit<K> index = (IndexInit<K>) indexFor(indexes, derived, condition, columnIndex);
+        if (index == null) return scanCondition(table, condition);
+        List<Pair<K, PointerPair>> pairs = search(index, ConditionUtils.rangeSet(condition.getConditions()));
 
         List<IndexRecord<K>> results = new ArrayList<>(pairs.size());
         for (Pair<K, PointerPair> p : pairs)
-            if (condition.isApplicable(p.key))
-                results.add(new IndexRecord<>(p.key, p.value, columnIndex));
+            results.add(new IndexRecord<>(p.key, p.value, columnIndex));
         return results;
     }
+    /**
+     * Reads the pairs of an index whose keys are in a range set. Single keys, as in an IN-list,
+     * are each found with one {@link IndexInit#search lookup}, other ranges are walked with a
+     * bounded {@link Cursor} that starts and stops at their open or closed ends. An unordered
+     * index reads every pair once instead when the set holds more than single keys.
+     *
+     * @param index index to read
+     * @param ranges keys to read
+     * @param <K> key type
+     * @return pairs of the keys in the set, in key order when the index is ordered
+     */
+    @SuppressWarnings("unchecked")
+    public static <K extends Comparable<? super K>> List<Pair<K, PointerPair>> search(IndexInit<K> index, ConditionUtils.RangeSet ranges) {
+        List<Pair<K, PointerPair>> pairs = new ArrayList<>();
+        if (!index.isOrdered() && !ranges.isPoints()) {
+            for (Pair<K, PointerPair> pair : index.rangeSearch(null, null))
+                if (ranges.contains(pair.key)) pairs.add(pair);
+            return pairs;
+        }
+        if (ranges.nulls() && index.isNullable()) pairs.addAll(index.search(null));
+        for (ConditionUtils.Range range : ranges.ranges()) {
+            if (range.isPoint()) {
+                pairs.addAll(index.search((K) range.from()));
+                continue;
+            }
+            // A null lower bound skips the null keys, already read above
+            Cursor<K, PointerPair> cursor = index.cursor((K) range.from(), range.from() != null && range.fromInclusive(), (K) range.to(), range.toInclusive());
+            for (Pair<K, PointerPair> pair; (pair = cursor.next()) != null; ) pairs.add(pair);
+        }
+        return pairs;
+    }
+    /**
+     * Finds the rows matching one condition by a sequential scan, whether or not an index could
+     * answer it. The scan evaluates the condition per page, on dictionary codes when encoded.
+     *
+     * @param table table being queried
+     * @param condition condition to evaluate
+     * @param <K> key type
+     * @return matching index records in storage order
+     */
+    public static <K extends Comparable<? super K>> List<IndexRecord<K>> scanCondition(Table table, Condition<WhereClause> condition) {
+        int columnIndex = table.getSchema().getColumnIndex(condition.getColumnName());
+        if (columnIndex < 0) return Collections.emptyList();
+        List<Pair<K, PointerPair>> pairs = SequentialOperations.sequentialConditionSearch(table, condition, columnIndex);
+        List<IndexRecord<K>> results = new ArrayList<>(pairs.size());
+        for (Pair<K, PointerPair> p : pairs)
+            results.add(new IndexRecord<>(p.key, p.value, columnIndex));
+        return results;
+    }
+    /**
+     * Keeps the records whose rows match every condition, reading the rows from the table pages.
+     *
+     * @param table table being queried
+     * @param records records to test
+     * @param conditions conditions that are all ANDed together
+     * @param <K> key type
+     * @return the matching records, in the same order
+     */
+    public static <K> List<IndexRecord<K>> filter(Table table, List<IndexRecord<K>> records, List<Condition<WhereClause>> conditions) {
+        if (conditions.isEmpty() || records.isEmpty()) return records;
+        TableSchema schema = table.getSchema();
+        for (Condition<WhereClause> condition : conditions)
+            if (schema.getColumnIndex(condition.getColumnName()) < 0) return Collections.emptyList();
+        List<IndexRecord<K>> result = new ArrayList<>();
+        for (IndexRecord<K> record : records) {
+            BlockPointer pointer = table.locate(record.value().rowId());
+            if (pointer == null) continue;
+            Object[] values = table.getCache().readTablePage(pointer.BlockID()).get(pointer.RowOffset()).getValues();
+            boolean matching = true;
+            for (int i = 0; i < conditions.size() && matching; i++)
+                matching = matches(conditions.get(i), conditions.get(i).valueOf(values, schema));
+            if (matching) result.add(record);
+        }
+        return result;
+    }
+    /**
+     * @return the index answering {@code condition}: the column index for plain conditions,
+     *         else an index of {@code derived} keyed by the values the condition compares, or
+     *         {@code null} if there is none
+     */
+    public static IndexInit<?> indexFor(IndexInit<?>[] indexes, List<DerivedIndex<?>> derived, Condition<?> condition, int columnIndex) {
+        if (condition.getFunction() == null && indexes[columnIndex] != null) return indexes[columnIndex];
+        for (DerivedIndex<?> index : derived)
+            if (index.answers(condition)) return index;
+        return null;
+    }
+    /**
+     * Tests a value compared by a condition the way a sequential scan does: {@code null}
+     * values only match null-aware conditions ({@code isNull()}, {@code notNull()}).
+     */
+    public static boolean matches(Condition<?> condition, Object value) {
+        if (value != null) return condition.isApplicable(value);
+        return SequentialOperations.NULL_AWARE.containsAll(condition.getConditions().keySet()) && condition.isApplicable(null);
+    }
     @SuppressWarnings("unchecked")
     public static <K extends Comparable<? super K>> List<IndexManager.IndexRecord<K>> noCondition(
         Table table, IndexInit<?>[] indexes, int columnIndex) {
@@ -50,24 +160,130 @@ public final class IndexUtils {
         return result;
     }
 
+    /**
+     * Result of answering part of a conjunction through a multi-column index.
+     *
+     * @param index index that produced the records
+     * @param records rows matching every covered condition
+     * @param covered conditions the records already satisfy
+     */
+    public record CompositeMatch<K>(CompositeIndex index, List<IndexRecord<K>> records, Set<Condition<WhereClause>> covered) {}
+
+    private static final Set<Conditions> RANGE = EnumSet.of(
+        Conditions.IS_BIGGER, Conditions.IS_BIGGER_OR_EQUAL, Conditions.IS_SMALLER, Conditions.IS_SMALLER_OR_EQUAL);
+
+    /**
+     * Picks the multi-column index covering the most conditions of a conjunction: equality on a
+     * leading run of its columns, optionally followed by a range on the next column. A single
+     * covered condition is only answered this way when its column has no index of its own,
+     * unless the rows are read from the multi-column index alone.
+     *
+     * @param table table being queried
+     * @param indexes single-column indexes by column position
+     * @param composites multi-column indexes of the table
+     * @param conjunction conditions that are all ANDed together
+     * @param indexOnly whether the caller reads the rows from the matched index without table pages
+     * @param <K> key type
+     * @return the rows matching the covered conditions, {@code null} if no index applies
+     */
+    @SuppressWarnings("unchecked")
+    public static <K> CompositeMatch<K> compositeSearch(Table table, IndexInit<?>[] indexes, CompositeIndex[] composites, List<Condition<WhereClause>> conjunction, boolean indexOnly) {
+        if (composites.length == 0) return null;
+        DataType[] types = table.getSchema().getTypes();
+        Map<Integer, Condition<WhereClause>> equalities = new HashMap<>();
+        Map<Integer, Condition<WhereClause>> ranges = new HashMap<>();
+        for (Condition<WhereClause> condition : conjunction) {
+            int columnIndex = table.getSchema().getColumnIndex(condition.getColumnName());
+            if (columnIndex < 0 || condition.getFunction() != null) continue;
+            EnumMap<Conditions, Object> conditions = condition.getConditions();
+            if (!conditions.values().stream().allMatch(v -> v != null && types[columnIndex].isValid(v))) continue;
+            if (conditions.keySet().equals(EnumSet.of(Conditions.IS_EQUAL))) equalities.putIfAbsent(columnIndex, condition);
+            else if (isSingleRange(conditions)) ranges.putIfAbsent(columnIndex, condition);
+        }
+
+        CompositeIndex best = null;
+        int bestPrefix = 0;
+        int bestCovered = 0;
+        for (CompositeIndex composite : composites) {
+            int[] columns = composite.getColumns();
+            int prefix = 0;
+            while (prefix < columns.length && equalities.containsKey(columns[prefix])) prefix++;
+            int covered = prefix + (prefix < columns.length && ranges.containsKey(columns[prefix]) ? 1 : 0);
+            if (covered > bestCovered) {
+                best = composite;
+                bestPrefix = prefix;
+                bestCovered = covered;
+            }
+        }
+        if (best == null) return null;
+        int[] columns = best.getColumns();
+        if (bestCovered == 1 && !indexOnly && indexes[columns[0]] != null) return null;
+
+        Set<Condition<WhereClause>> covered = Collections.newSetFromMap(new IdentityHashMap<>());
+        Object[] prefix = new Object[bestPrefix];
+        for (int i = 0; i < bestPrefix; i++) {
+            Condition<WhereClause> condition = equalities.get(columns[i]);
+            prefix[i] = condition.getConditions().get(Conditions.IS_EQUAL);
+            covered.add(condition);
+        }
+        List<Pair<CompositeKey, PointerPair>> pairs;
+        if (bestCovered == bestPrefix) pairs = best.prefixSearch(prefix);
+        else {
+            Condition<WhereClause> range = ranges.get(columns[bestPrefix]);
+            EnumMap<Conditions, Object> conditions = range.getConditions();
+            boolean fromInclusive = conditions.containsKey(Conditions.IS_BIGGER_OR_EQUAL);
+            boolean toInclusive = conditions.containsKey(Conditions.IS_SMALLER_OR_EQUAL);
+            Object from = conditions.get(fromInclusive ? Conditions.IS_BIGGER_OR_EQUAL : Conditions.IS_BIGGER);
+            Object to = conditions.get(toInclusive ? Conditions.IS_SMALLER_OR_EQUAL : Conditions.IS_SMALLER);
+            pairs = best.prefixSearch(prefix, from, fromInclusive, to, toInclusive);
+            covered.add(range);
+        }
+        List<IndexRecord<K>> records = new ArrayList<>(pairs.size());
+        for (Pair<CompositeKey, PointerPair> p : pairs)
+            records.add(new IndexRecord<>((K) p.key, p.value, -1));
+        return new CompositeMatch<>(best, records, covered);
+    }
+
+    private static boolean isSingleRange(EnumMap<Conditions, Object> conditions) {
+        if (conditions.isEmpty() || !RANGE.containsAll(conditions.keySet())) return false;
+        return !(conditions.containsKey(Conditions.IS_BIGGER) && conditions.containsKey(Conditions.IS_BIGGER_OR_EQUAL))
+            && !(conditions.containsKey(Conditions.IS_SMALLER) && conditions.containsKey(Conditions.IS_SMALLER_OR_EQUAL));
+    }
+
+    /**
+     * Union of two index results: the records of {@code a}, then those of {@code b} whose row is
+     * not in {@code a}. Rows are matched through a {@link RowIdBitmap}, in one pass over each list.
+     */
     public static <K> List<IndexManager.IndexRecord<K>> mergeOr(
             List<IndexManager.IndexRecord<K>> a, List<IndexManager.IndexRecord<K>> b) {
         if (a.isEmpty()) return b;
         if (b.isEmpty()) return a;
+        RowIdBitmap seen = rowIds(a);
         List<IndexManager.IndexRecord<K>> merged = new ArrayList<>(a.size() + b.size());
         merged.addAll(a);
         for (IndexManager.IndexRecord<K> r : b)
-            if (!a.contains(r)) merged.add(r);
+            if (seen.add(r.value().rowId())) merged.add(r);
         return merged;
     }
 
+    /**
+     * Intersection of two index results: the records of {@code a} whose row is in {@code b}, in
+     * the order of {@code a}.
+     */
     public static <K> List<IndexManager.IndexRecord<K>> mergeAnd(
             List<IndexManager.IndexRecord<K>> a, List<IndexManager.IndexRecord<K>> b) {
         if (a.isEmpty() || b.isEmpty()) return Collections.emptyList();
-        List<IndexManager.IndexRecord<K>> filtered = new ArrayList<>(a);
-        filtered.retainAll(b);
+        RowIdBitmap kept = rowIds(b);
+        List<IndexManager.IndexRecord<K>> filtered = new ArrayList<>(Math.min(a.size(), b.size()));
+        for (IndexManager.IndexRecord<K> r : a)
+            if (kept.contains(r.value().rowId())) filtered.add(r);
         return filtered;
     }
+    private static <K> RowIdBitmap rowIds(List<IndexManager.IndexRecord<K>> records) {
+        RowIdBitmap rowIds = new RowIdBitmap();
+        for (IndexManager.IndexRecord<K> r : records) rowIds.add(r.value().rowId());
+        return rowIds;
+    }
     @SuppressWarnings("unchecked")
     public static <K extends Comparable<? super K>> K getValidatedKey(Entry entry, IndexInit<?> index, int columnIndex, DataType type) {
         K key = (K)entry.get(columnIndex);
@@ -0,0 +1,269 @@
+package com.database.tttdb.core.manager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.database.tttdb.api.DatabaseException;
+import com.database.tttdb.api.DatabaseException.DeadlockException;
+import com.database.tttdb.api.DatabaseException.LockTimeoutException;
+
+/**
+ * Logical locks held by transactions on tables, rows and key ranges of indexed columns.
+ * <p>
+ * Locks are taken through a per-transaction {@link Handle} and held until the handle is
+ * closed (strict two-phase locking). They are independent of the database latch that protects
+ * pages and indexes: a transaction only waits for locks while it holds no latch.
+ *
+ * <p>Invariants:</p>
+ * <ul>
+ *   <li>Locking a row or key range first takes the matching intention lock on its table
+ *       ({@link LockMode#IS} for shared, {@link LockMode#IX} for exclusive).</li>
+ *   <li>A handle holds at most one mode per resource; a second request upgrades it to the
+ *       combination of both, e.g. {@code S + IX = SIX}.</li>
+ *   <li>Key ranges are closed intervals, {@code null} bounds are unbounded. Scans lock ranges in
+ *       {@link LockMode#S}, inserts lock their keys as points in {@link LockMode#IX}; overlapping
+ *       ranges conflict in incompatible modes, which keeps inserts out of ranges a writer scanned
+ *       while letting inserts of equal keys and scans of the same range run together.</li>
+ *   <li>A request that would close a cycle in the wait-for graph fails at once with a
+ *       {@link DeadlockException}; a request that waits longer than the timeout fails with a
+ *       {@link LockTimeoutException}. The failing transaction keeps its other locks.</li>
+ * </ul>
+ */
+public class LockManager {
+    public enum LockMode {
+        IS, IX, S, SIX, X;
+        private static final boolean[][] COMPATIBLE = {
+            //            IS     IX     S      SIX    X
+            /* IS  */ { true,  true,  true,  true,  false },
+            /* IX  */ { true,  true,  false, false, false },
+            /* S   */ { true,  false, true,  false, false },
+            /* SIX */ { true,  false, false, false, false },
+            /* X   */ { false, false, false, false, false },
+        };
+        public boolean isCompatible(LockMode other) { return COMPATIBLE[this.ordinal()][other.ordinal()]; }
+        /** @return the weakest mode granting both this mode and {@code other} */
+        public LockMode combine(LockMode other) {
+            if (this == other) return this;
+            if (this == X || other == X) return X;
+            if (this == SIX || other == SIX) return SIX;
+            if ((this == S && other == IX) || (this == IX && other == S)) return SIX;
+            if (this == IS) return other;
+            if (other == IS) return this;
+            return X;
+        }
+    }
+
+    /** A lockable table or row. */
+    public sealed interface Resource permits TableLock, RowLock {}
+    public record TableLock(String table) implements Resource {}
+    public record RowLock(String table, long rowId) implements Resource {}
+    /** Closed interval of keys of an indexed column; a {@code null} bound is unbounded. */
+    public record KeyRange(String table, int column, Object low, Object high) {
+        public static KeyRange point(String table, int column, Object key) { return new KeyRange(table, column, key, key); }
+        boolean overlaps(KeyRange other) {
+            return compare(this.low, other.high) <= 0 && compare(other.low, this.high) <= 0;
+        }
+    }
+    private record RangeLock(Handle owner, KeyRange range, LockMode mode) {}
+    private static final class LockState {
+        private final Map<Handle, LockMode> granted = new LinkedHashMap<>();
+    }
+    public record Metrics(long acquired, long waits, long waitMillis, long timeouts, long deadlocks, int lockedResources) {}
+
+    private final Map<Resource, LockState> locks = new HashMap<>();
+    private final Map<String, List<RangeLock>> ranges = new HashMap<>();
+    private final Map<Handle, Set<Handle>> waitsFor = new HashMap<>();
+    private final AtomicLong nextHandle = new AtomicLong();
+    private volatile long timeoutMillis = 10_000;
+
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong waits = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong deadlocks = new AtomicLong();
+
+    /**
+     * Locks held by one transaction. Closing the handle releases all of them.
+     */
+    public final class Handle implements AutoCloseable {
+        private final long id;
+        private final String name;
+        private final Map<Resource, LockMode> held = new HashMap<>();
+        private final List<RangeLock> heldRanges = new ArrayList<>();
+        private Handle(long id, String name){
+            this.id = id;
+            this.name = name;
+        }
+        /**
+         * Locks a table or row, waiting for conflicting holders to finish.
+         * @throws DeadlockException if waiting would deadlock
+         * @throws LockTimeoutException if the lock is not granted in time
+         */
+        public void lock(Resource resource, LockMode mode){
+            if (resource instanceof RowLock row) acquire(this, new TableLock(row.table()), intention(mode));
+            acquire(this, resource, mode);
+        }
+        /**
+         * Locks a key range in {@link LockMode#S}, {@link LockMode#IX} or {@link LockMode#X} mode.
+         * @throws DeadlockException if waiting would deadlock
+         * @throws LockTimeoutException if the lock is not granted in time
+         */
+        public void lockRange(KeyRange range, LockMode mode){
+            if (mode == LockMode.IS || mode == LockMode.SIX) throw new IllegalArgumentException("Key ranges are locked in S, IX or X mode, not " + mode);
+            acquire(this, new TableLock(range.table()), intention(mode));
+            acquireRange(this, range, mode);
+        }
+        /** @return the mode held on {@code resource}, {@code null} if none */
+        public LockMode getMode(Resource resource){
+            synchronized (LockManager.this) { return this.held.get(resource); }
+        }
+        @Override
+        public void close(){ release(this); }
+        @Override
+        public String toString(){ return this.name + "#" + this.id; }
+    }
+
+    /**
+     * Creates a handle for a new transaction.
+     * @param name name used in lock error messages
+     */
+    public Handle begin(String name){
+        return new Handle(nextHandle.incrementAndGet(), name);
+    }
+    public void setTimeoutMillis(long timeoutMillis){
+        if (timeoutMillis <= 0) throw new IllegalArgumentException("Lock timeout must be positive: " + timeoutMillis);
+        this.timeoutMillis = timeoutMillis;
+    }
+    public long getTimeoutMillis(){ return this.timeoutMillis; }
+    public synchronized Metrics getMetrics(){
+        int rangeCount = 0;
+        for (List<RangeLock> list : this.ranges.values()) rangeCount += list.size();
+        return new Metrics(acquired.get(), waits.get(), TimeUnit.NANOSECONDS.toMillis(waitNanos.get()),
+            timeouts.get(), deadlocks.get(), this.locks.size() + rangeCount);
+    }
+
+    // == Acquiring ==
+    // The state of a resource and the ranges of a column are only created once a lock is granted,
+    // so a failed request leaves nothing behind, and looked up again after each wait since the
+    // last holder releasing them removes them
+    private synchronized void acquire(Handle handle, Resource resource, LockMode mode){
+        LockMode current = handle.held.get(resource);
+        LockMode wanted = current == null ? mode : current.combine(mode);
+        if (wanted == current) return;
+        this.await(handle, resource, () -> {
+            Set<Handle> blockers = new LinkedHashSet<>();
+            LockState state = this.locks.get(resource);
+            if (state != null) state.granted.forEach((owner, held) -> {
+                if (owner != handle && !held.isCompatible(wanted)) blockers.add(owner);
+            });
+            return blockers;
+        });
+        this.locks.computeIfAbsent(resource, r -> new LockState()).granted.put(handle, wanted);
+        handle.held.put(resource, wanted);
+        this.acquired.incrementAndGet();
+    }
+    private synchronized void acquireRange(Handle handle, KeyRange range, LockMode mode){
+        for (RangeLock own : handle.heldRanges) {
+            if (own.range().equals(range) && own.mode().combine(mode) == own.mode()) return;
+        }
+        this.await(handle, range, () -> {
+            Set<Handle> blockers = new LinkedHashSet<>();
+            for (RangeLock other : this.ranges.getOrDefault(columnKey(range), List.of())) {
+                if (other.owner() != handle && !other.mode().isCompatible(mode) && other.range().overlaps(range)) blockers.add(other.owner());
+            }
+            return blockers;
+        });
+        RangeLock lock = new RangeLock(handle, range, mode);
+        this.ranges.computeIfAbsent(columnKey(range), c -> new ArrayList<>()).add(lock);
+        handle.heldRanges.add(lock);
+        this.acquired.incrementAndGet();
+    }
+    private interface Blockers { Set<Handle> find(); }
+    // Waits on this monitor until no blockers remain; caller holds the monitor
+    private void await(Handle handle, Object target, Blockers blockers){
+        Set<Handle> current = blockers.find();
+        if (current.isEmpty()) return;
+        this.waits.incrementAndGet();
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(this.timeoutMillis);
+        try {
+            while (!current.isEmpty()) {
+                this.waitsFor.put(handle, current);
+                if (this.reaches(current, handle)) {
+                    this.deadlocks.incrementAndGet();
+                    throw new DeadlockException("Deadlock: " + handle + " waiting for " + target + " held by " + current + ".");
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    this.timeouts.incrementAndGet();
+                    throw new LockTimeoutException("Lock wait timeout: " + handle + " waiting for " + target + " held by " + current + ".");
+                }
+                this.wait(Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining)));
+                current = blockers.find();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseException("Interrupted while waiting for lock on " + target + ".", e);
+        } finally {
+            this.waitsFor.remove(handle);
+            this.waitNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+    // Depth-first search of the wait-for graph
+    private boolean reaches(Set<Handle> from, Handle target){
+        Set<Handle> visited = new HashSet<>();
+        ArrayDeque<Handle> stack = new ArrayDeque<>(from);
+        while (!stack.isEmpty()) {
+            Handle next = stack.pop();
+            if (next == target) return true;
+            if (!visited.add(next)) continue;
+            Set<Handle> edges = this.waitsFor.get(next);
+            if (edges != null) stack.addAll(edges);
+        }
+        return false;
+    }
+
+    // == Releasing ==
+    private synchronized void release(Handle handle){
+        for (Resource resource : handle.held.keySet()) {
+            LockState state = this.locks.get(resource);
+            if (state == null) continue;
+            state.granted.remove(handle);
+            if (state.granted.isEmpty()) this.locks.remove(resource);
+        }
+        handle.held.clear();
+        for (RangeLock lock : handle.heldRanges) {
+            List<RangeLock> column = this.ranges.get(columnKey(lock.range()));
+            if (column == null) continue;
+            column.remove(lock);
+            if (column.isEmpty()) this.ranges.remove(columnKey(lock.range()));
+        }
+        handle.heldRanges.clear();
+        this.waitsFor.remove(handle);
+        this.notifyAll();
+    }
+
+    private static LockMode intention(LockMode mode){
+        return mode == LockMode.S || mode == LockMode.IS ? LockMode.IS : LockMode.IX;
+    }
+    private static String columnKey(KeyRange range){
+        return range.table() + "#" + range.column();
+    }
+    // Compares range bounds; null is unbounded, incomparable keys are treated as equal
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Object low, Object high){
+        if (low == null || high == null) return -1;
+        if (low instanceof Number a && high instanceof Number b) return Double.compare(a.doubleValue(), b.doubleValue());
+        if (low.getClass() == high.getClass() && low instanceof Comparable comparable) return comparable.compareTo(high);
+        return 0;
+    }
+}
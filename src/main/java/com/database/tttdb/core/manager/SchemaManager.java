@@ -57,6 +57,7 @@ public class SchemaManager {
 
             try {
                 Files.deleteIfExists(tablePath);
+                Files.deleteIfExists(Paths.get(table.getRowIdPath()));
 
                 for (int i = 0; i < isIndexed.length; i++) {
                     if (isIndexed[i]) {
@@ -2,13 +2,20 @@ package com.database.tttdb.core.manager;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import com.database.tttdb.api.Condition;
+import com.database.tttdb.api.Condition.Clause;
+import com.database.tttdb.api.Condition.Conditions;
+import com.database.tttdb.api.Condition.WhereClause;
 import com.database.tttdb.core.index.Pair;
-import com.database.tttdb.core.index.IndexInit.BlockPointer;
 import com.database.tttdb.core.index.IndexInit.PointerPair;
+import com.database.tttdb.core.manager.IndexManager.IndexRecord;
 import com.database.tttdb.core.page.Entry;
 import com.database.tttdb.core.page.TablePage;
 import com.database.tttdb.core.table.Table;
+import com.database.tttdb.core.table.TableSchema;
 
 public class SequentialOperations {
     @SuppressWarnings("unchecked")
@@ -17,10 +24,12 @@ public class SequentialOperations {
             K max = null;
             final boolean skipNulls = !table.getSchema().getNotNull()[columnIndex]; // true if column can be null
             for (int pid = 0; pid < table.getPages(); pid++) {
-                TablePage page = table.getCache().getTablePage(pid);
-                int sz = page.size();
+                TablePage page = table.getCache().readTablePage(pid);
+                int sz = page.slotCount();
                 for (int row = 0; row < sz; row++) {
-                    Object v = page.get(row).get(columnIndex);
+                    Entry entry = page.get(row);
+                    if (entry == null) continue;
+                    Object v = entry.get(columnIndex);
                     if (skipNulls && v == null) continue;
                     K val = (K) v;
                     if (val == null) continue;           // safety if column declared NOT NULL but value is null
@@ -29,22 +38,116 @@ public class SequentialOperations {
             }
             return max;
         }
+    /**
+     * Scans the table for entries whose column value is between two keys, both inclusive.
+     * {@code null} values are only returned when the range is unbounded on both sides.
+     *
+     * @param table table to scan
+     * @param lower lowest value, {@code null} for unbounded
+     * @param upper highest value, {@code null} for unbounded
+     * @param columnIndex column to compare
+     * @return matching (value, pointer) pairs in storage order
+     */
     @SuppressWarnings("unchecked")
-    public static <K extends Comparable<? super K>> List<Pair<K,PointerPair>> sequentialRangeSearch(Table table, K upper, K lower, int columnIndex){
+    public static <K extends Comparable<? super K>> List<Pair<K,PointerPair>> sequentialRangeSearch(Table table, K lower, K upper, int columnIndex){
         List<Pair<K,PointerPair>> result = new ArrayList<>();
         for(int i = 0; i < table.getPages(); i++){
-            TablePage page = table.getCache().getTablePage(i);
-            for(int y = 0; y < page.size(); y++){
+            TablePage page = table.getCache().readTablePage(i);
+            for(int y = 0; y < page.slotCount(); y++){
                 Entry entry = page.get(y);
+                if (entry == null) continue;
                 K value = (K) entry.get(columnIndex);
 
                 // Filter by range
+                if (value == null && (lower != null || upper != null)) continue;
                 if((lower == null || value.compareTo(lower) >= 0) && (upper == null || value.compareTo(upper) <= 0)){
-                    PointerPair pointer = new PointerPair(new BlockPointer(i, (short)y), null);
+                    PointerPair pointer = new PointerPair(entry.getRowId(), null);
                     result.add(new Pair<>(value, pointer));
                 }
             }
         }
         return result;
     }
+    /**
+     * Scans the table for entries whose column value satisfies {@code condition}.
+     * Each page evaluates the condition through its column encoding, so encoded
+     * (low-cardinality) columns test every distinct value once per page.
+     * {@code null} values only match null-aware conditions ({@code isNull()}, {@code notNull()}).
+     * Conditions applying a function to the column are evaluated on every row.
+     *
+     * @param table table to scan
+     * @param condition condition on the column
+     * @param columnIndex column the condition refers to
+     * @return matching (value, pointer) pairs in storage order
+     */
+    @SuppressWarnings("unchecked")
+    public static <K extends Comparable<? super K>> List<Pair<K,PointerPair>> sequentialConditionSearch(Table table, Condition<?> condition, int columnIndex){
+        List<Pair<K,PointerPair>> result = new ArrayList<>();
+        if (condition.getFunction() != null) {
+            for(int i = 0; i < table.getPages(); i++){
+                TablePage page = table.getCache().readTablePage(i);
+                for(int y = 0; y < page.slotCount(); y++){
+                    Entry entry = page.get(y);
+                    if (entry == null) continue;
+                    Object value = condition.valueOf(entry.getValues(), table.getSchema());
+                    if (IndexUtils.matches(condition, value))
+                        result.add(new Pair<>((K) value, new PointerPair(entry.getRowId(), null)));
+                }
+            }
+            return result;
+        }
+        boolean nullAware = NULL_AWARE.containsAll(condition.getConditions().keySet());
+        for(int i = 0; i < table.getPages(); i++){
+            TablePage page = table.getCache().readTablePage(i);
+            page.forEachMatch(columnIndex,
+                value -> value == null ? nullAware && condition.isApplicable(null) : condition.isApplicable(value),
+                row -> {
+                    Entry entry = page.get(row);
+                    result.add(new Pair<>((K) entry.get(columnIndex), new PointerPair(entry.getRowId(), null)));
+                });
+        }
+        return result;
+    }
+    /**
+     * Scans the table once for entries matching a whole WHERE clause, see {@link #matches}.
+     *
+     * @param table table to scan
+     * @param clauses conditions of the WHERE clause with the clause joining each to the previous ones
+     * @return matching records in storage order
+     */
+    public static <K> List<IndexRecord<K>> sequentialWhereSearch(Table table, List<Map.Entry<Clause, Condition<WhereClause>>> clauses){
+        TableSchema schema = table.getSchema();
+        List<IndexRecord<K>> result = new ArrayList<>();
+        for(int i = 0; i < table.getPages(); i++){
+            TablePage page = table.getCache().readTablePage(i);
+            for(int y = 0; y < page.slotCount(); y++){
+                Entry entry = page.get(y);
+                if (entry != null && matches(schema, clauses, entry.getValues()))
+                    result.add(new IndexRecord<>(null, new PointerPair(entry.getRowId(), null), -1));
+            }
+        }
+        return result;
+    }
+    /**
+     * Evaluates a whole WHERE clause on one row. Conditions are combined from left to right,
+     * each AND or OR applying to the result of the conditions before it, the way index results
+     * of separate conditions are merged. An empty clause matches every row.
+     *
+     * @param schema schema of the table
+     * @param clauses conditions of the WHERE clause with the clause joining each to the previous ones
+     * @param values values of the row
+     * @return whether the row matches the clause
+     */
+    public static boolean matches(TableSchema schema, List<Map.Entry<Clause, Condition<WhereClause>>> clauses, Object[] values){
+        boolean matching = clauses.isEmpty();
+        for (int c = 0; c < clauses.size(); c++) {
+            Clause clause = clauses.get(c).getKey();
+            if (c > 0 && (clause == Clause.OR ? matching : !matching)) continue;
+            Condition<WhereClause> condition = clauses.get(c).getValue();
+            matching = schema.getColumnIndex(condition.getColumnName()) >= 0
+                && IndexUtils.matches(condition, condition.valueOf(values, schema));
+        }
+        return matching;
+    }
+    static final Set<Conditions> NULL_AWARE = Set.of(Conditions.IS_EQUAL, Conditions.IS_NOT_EQUAL, Conditions.IS_IN);
 }
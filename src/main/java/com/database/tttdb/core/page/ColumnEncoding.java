@@ -0,0 +1,182 @@
+package com.database.tttdb.core.page;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+
+import com.database.tttdb.core.table.DataType;
+
+/**
+ * Per-page encoding of a single low-cardinality column.
+ * <p>
+ * When a page is scanned a second time on a {@code CHAR}, {@code VARCHAR}, {@code SHORT},
+ * {@code INT} or {@code BOOLEAN} column, the values of the column are inspected and one
+ * of three representations is chosen:
+ * <ul>
+ *   <li>{@link Kind#RUN_LENGTH} – the slots form a few long runs of equal values,
+ *       stored as (first slot, dictionary code) pairs.</li>
+ *   <li>{@link Kind#DICTIONARY} – few distinct values, stored as one byte code per slot.</li>
+ *   <li>{@link Kind#PLAIN} – too many distinct values, the entries are used as-is.</li>
+ * </ul>
+ * For encoded columns predicates are evaluated once per dictionary code (or run) instead
+ * of once per row. The entries themselves are never modified.
+ *
+ * <p>Invariants:</p>
+ * <ul>
+ *   <li>Dictionary codes are positions in {@link #dictionary}; {@code null} is a regular value.</li>
+ *   <li>{@link #EMPTY} marks a slot that holds no entry.</li>
+ *   <li>An encoding describes the page as it was when it was built; pages discard it on mutation.</li>
+ * </ul>
+ */
+public final class ColumnEncoding {
+    public enum Kind {
+        PLAIN,
+        DICTIONARY,
+        RUN_LENGTH
+    }
+
+    /** Largest dictionary that still fits the one byte code space (code 255 is {@link #EMPTY}). */
+    public static final int MAX_DICTIONARY_SIZE = 255;
+    /** Code of a slot without an entry. */
+    public static final int EMPTY = 0xFF;
+    /** RLE is chosen when the page has at most one run per this many slots. */
+    private static final int RUN_LENGTH_FACTOR = 4;
+    /** Dictionary encoding is chosen when the page has at most one distinct value per this many slots. */
+    private static final int DICTIONARY_FACTOR = 2;
+
+    private static final ColumnEncoding PLAIN = new ColumnEncoding(Kind.PLAIN, null, null, null, null, 0);
+
+    private final Kind kind;
+    private final Object[] dictionary;
+    private final byte[] codes;      // DICTIONARY: code per slot
+    private final short[] runStarts; // RUN_LENGTH: first slot of each run
+    private final byte[] runCodes;   // RUN_LENGTH: code of each run
+    private final int slots;
+
+    private ColumnEncoding(Kind kind, Object[] dictionary, byte[] codes, short[] runStarts, byte[] runCodes, int slots) {
+        this.kind = kind;
+        this.dictionary = dictionary;
+        this.codes = codes;
+        this.runStarts = runStarts;
+        this.runCodes = runCodes;
+        this.slots = slots;
+    }
+
+    /** @return the encoding that uses the entries as-is */
+    public static ColumnEncoding plain() { return PLAIN; }
+
+    public static boolean isEncodable(DataType type) {
+        return switch (type) {
+            case CHAR, VARCHAR, SHORT, INT, BOOLEAN -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Chooses and builds the encoding of one column of a page.
+     *
+     * @param entries page slots, {@code null} for an empty slot
+     * @param slots number of slots to consider
+     * @param columnIndex column to encode
+     * @param type column type
+     * @return the chosen encoding, {@link Kind#PLAIN} if encoding does not pay off
+     */
+    public static ColumnEncoding encode(Entry[] entries, int slots, int columnIndex, DataType type) {
+        if (!isEncodable(type) || slots < DICTIONARY_FACTOR) return PLAIN;
+        Map<Object, Integer> codeOf = new HashMap<>();
+        byte[] codes = new byte[slots];
+        int runs = 0;
+        int previous = -1;
+        for (int slot = 0; slot < slots; slot++) {
+            Entry entry = entries[slot];
+            int code;
+            if (entry == null) {
+                code = EMPTY;
+            } else {
+                Object value = entry.get(columnIndex);
+                Integer known = codeOf.get(value);
+                if (known == null) {
+                    if (codeOf.size() == MAX_DICTIONARY_SIZE) return PLAIN;
+                    known = codeOf.size();
+                    codeOf.put(value, known);
+                }
+                code = known;
+            }
+            codes[slot] = (byte) code;
+            if (code != previous) runs++;
+            previous = code;
+        }
+
+        Object[] dictionary = new Object[codeOf.size()];
+        for (Map.Entry<Object, Integer> e : codeOf.entrySet()) dictionary[e.getValue()] = e.getKey();
+
+        ColumnEncoding result;
+        if (runs * RUN_LENGTH_FACTOR <= slots) {
+            short[] runStarts = new short[runs];
+            byte[] runCodes = new byte[runs];
+            int run = -1;
+            previous = -1;
+            for (int slot = 0; slot < slots; slot++) {
+                int code = codes[slot] & 0xFF;
+                if (code == previous) continue;
+                run++;
+                runStarts[run] = (short) slot;
+                runCodes[run] = (byte) code;
+                previous = code;
+            }
+            result = new ColumnEncoding(Kind.RUN_LENGTH, dictionary, null, runStarts, runCodes, slots);
+        } else if (dictionary.length * DICTIONARY_FACTOR <= slots) {
+            result = new ColumnEncoding(Kind.DICTIONARY, dictionary, codes, null, null, slots);
+        } else {
+            return PLAIN;
+        }
+        return result;
+    }
+
+    /**
+     * Calls {@code action} with every occupied slot whose value satisfies {@code predicate}.
+     * For encoded columns the predicate is evaluated at most once per dictionary value.
+     *
+     * @param entries page slots the encoding was built from
+     * @param columnIndex column the encoding describes
+     * @param predicate value test
+     * @param action receives matching slot numbers in ascending order
+     */
+    public void forEachMatch(Entry[] entries, int slotCount, int columnIndex, Predicate<Object> predicate, IntConsumer action) {
+        switch (kind) {
+            case PLAIN -> {
+                for (int slot = 0; slot < slotCount; slot++) {
+                    Entry entry = entries[slot];
+                    if (entry != null && predicate.test(entry.get(columnIndex))) action.accept(slot);
+                }
+            }
+            case DICTIONARY -> {
+                boolean[] matches = this.matchCodes(predicate);
+                for (int slot = 0; slot < slots; slot++) {
+                    int code = codes[slot] & 0xFF;
+                    if (code != EMPTY && matches[code]) action.accept(slot);
+                }
+            }
+            case RUN_LENGTH -> {
+                boolean[] matches = this.matchCodes(predicate);
+                for (int run = 0; run < runStarts.length; run++) {
+                    int code = runCodes[run] & 0xFF;
+                    if (code == EMPTY || !matches[code]) continue;
+                    int end = run + 1 < runStarts.length ? runStarts[run + 1] : slots;
+                    for (int slot = runStarts[run]; slot < end; slot++) action.accept(slot);
+                }
+            }
+        }
+    }
+    private boolean[] matchCodes(Predicate<Object> predicate) {
+        boolean[] matches = new boolean[dictionary.length];
+        for (int code = 0; code < dictionary.length; code++)
+            matches[code] = predicate.test(dictionary[code]);
+        return matches;
+    }
+
+    public Kind getKind() { return this.kind; }
+    public int getDictionarySize() { return this.dictionary == null ? 0 : this.dictionary.length; }
+    public int getRuns() { return this.runStarts == null ? 0 : this.runStarts.length; }
+}
@@ -5,7 +5,6 @@ import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Objects;
 
-import com.database.tttdb.core.index.IndexInit.BlockPointer;
 import com.database.tttdb.core.table.DataType;
 import com.database.tttdb.core.table.Table;
 import com.database.tttdb.core.table.TableSchema;
@@ -13,6 +12,8 @@ import com.database.tttdb.core.table.TableSchema;
 public class Entry {
     private final Object[] values;
     private BitSet nullsBitMap;
+    // Stable row id of a table entry, -1 until the entry is inserted (unused by index entries)
+    private long rowId = -1;
 
     //Constructor
     public Entry(Object[] data, int numOfNullColumns){
@@ -35,6 +36,7 @@ public class Entry {
         BitSet bitmapCopy = (BitSet) this.nullsBitMap.clone();
         Entry copy = new Entry(valuesCopy, bitmapCopy.length());
         copy.nullsBitMap = bitmapCopy;
+        copy.rowId = this.rowId;
         return copy;
     }
 
@@ -47,6 +49,7 @@ public class Entry {
         byte[] bitMapBytesRaw = this.nullsBitMap.toByteArray();
         System.arraycopy(bitMapBytesRaw, 0, bitMapBytes, 0, bitMapBytesRaw.length);
         ByteBuffer buffer = ByteBuffer.allocate(TablePage.sizeOfEntry(table));
+        buffer.putLong(this.rowId);
         buffer.put(bitMapBytes);
         for (int i = 0;i<this.values.length;i++) {
             Object value = this.values[i];
@@ -65,6 +68,7 @@ public class Entry {
         TableSchema schema = table.getSchema();
         Object[] entry = new Object[schema.getNumOfColumns()];
         DataType[] types = schema.getTypes();
+        long rowId = buffer.getLong();
 
         int numOfNullColumns = schema.numNullables();
         int bitmapSize = (numOfNullColumns + 7) / 8;
@@ -84,7 +88,9 @@ public class Entry {
         int bytesRead = buffer.position() - startPos;
         if (bytesRead > expectedSize)
             throw new IllegalStateException("Entry deserialization consumed "+bytesRead+" bytes, expected "+expectedSize);
-        return new Entry(entry, numOfNullColumns).setBitMap(schema.getNotNull());
+        Entry result = new Entry(entry, numOfNullColumns).setBitMap(schema.getNotNull());
+        result.rowId = rowId;
+        return result;
     }
 
     public byte[] toBytes(Table table, int columnIndex) {
@@ -96,7 +102,7 @@ public class Entry {
         System.arraycopy(bitMapBytesRaw, 0, bitMapBytes, 0, copyLen);
         ByteBuffer buffer = ByteBuffer.allocate(IndexPage.sizeOfEntry(table, columnIndex));
         buffer.put(bitMapBytes);
-        buffer.put(((BlockPointer)this.values[0]).toBytes());
+        buffer.putLong((Long)this.values[0]);
         DataType type = schema.getTypes()[columnIndex];
         buffer.put(type.toBytes(this.values[1]));
         return buffer.array();
@@ -119,7 +125,7 @@ public class Entry {
         BitSet nullBitmap = BitSet.valueOf(nullBitmapBytes);
 
         boolean isNotNullable = schema.getNotNull()[columnIndex];
-        values[0] = BlockPointer.fromBytes(buffer);
+        values[0] = buffer.getLong();
         if (!isNotNullable && nullBitmap.get(0)) values[1] = null;
         else values[1] = type.fromBytes(buffer);
         
@@ -193,6 +199,11 @@ public class Entry {
         return Arrays.toString(values);
     }
 
+    public long getRowId(){return this.rowId;}
+    public Entry setRowId(long rowId){
+        this.rowId = rowId;
+        return this;
+    }
     public Object get(int index){return this.values[index];}
     public void set(int index, Object value){this.values[index] = value;}
     public Object[] getValues(){return this.values;}
@@ -2,7 +2,6 @@ package com.database.tttdb.core.page;
 
 import java.nio.ByteBuffer;
 
-import com.database.tttdb.core.index.IndexInit.BlockPointer;
 import com.database.tttdb.core.table.DataType;
 import com.database.tttdb.core.table.Table;
 
@@ -23,28 +22,32 @@ public class IndexPage extends Page{
         DataType type = table.getSchema().getTypes()[columnIndex];
         boolean isNullable = !table.getSchema().getNotNull()[columnIndex];
         int result = isNullable? 1:0;//Allocate 1 byte for the Null bitmap
-        result += BlockPointer.BYTES;
+        result += Long.BYTES;//Row id of the indexed row
         int size = type.getSize();
         result += size==-1? table.getSchema().getSizes()[columnIndex]+2 : size;
         return result;
     }
 
-    public IndexPage deepCopy() {
-        IndexPage clone = new IndexPage(this.getPageID(), this.table, this.getColumnIndex());
-        for (int i = 0; i < this.size(); i++) {
-            clone.add(this.get(i).deepCopy());
-        }
-        clone.setDirty(this.isDirty());
-        return clone;
+    private IndexPage(IndexPage source) {
+        super(source);
+        this.table = source.table;
+        this.columnIndex = source.columnIndex;
+        this.filePath = source.filePath;
+    }
+    /**
+     * @return a copy-on-write copy of this page that shares its entries
+     */
+    public IndexPage copy() {
+        return new IndexPage(this);
     }
 
     public byte[] toBytes() {
         ByteBuffer combinedArray = ByteBuffer.allocate(this.sizeInBytes());
         Page.headerToBytes(this, combinedArray);
         // Add entries
-        for (int i = 0;i<this.size();i++) {
+        for (int i = 0;i<this.slotCount();i++) {
             Entry entry = entryAt(i);
-            if (entry == null) throw new IllegalStateException("null entry at " + i);
+            if (entry == null) continue;
             combinedArray.put(entry.toBytes(table, columnIndex));
         }
         combinedArray.flip();
@@ -60,17 +63,18 @@ public class IndexPage extends Page{
         HeaderValues result = Page.headerFromBytes(buffer, this);
         //Reading The Entries
         int entrySize = IndexPage.sizeOfEntry(table, columnIndex);
-        for(int i = 0; i < result.numOfEntries(); i++){
+        for(int slot = result.occupied().nextSetBit(0); slot >= 0; slot = result.occupied().nextSetBit(slot + 1)){
             ByteBuffer slice = buffer.slice(); // view starting at current position
             slice.limit(entrySize); // limit to just one entry
             Entry newEntry = Entry.fromBytes(slice, table, columnIndex);
             buffer.position(buffer.position() + entrySize);
-            this.add(newEntry);
+            this.add(slot, newEntry);
         }
         if(result.spaceInUse() != getSpaceInUse())
             throw new IllegalArgumentException("spaceInUse mismatch");
         if(result.numOfEntries() != size()) 
             throw new IllegalArgumentException("numOfEntries mismatch");
+        this.setDirty(false);
     }
 
     public int getColumnIndex() { return this.columnIndex; }
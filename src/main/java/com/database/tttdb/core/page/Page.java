@@ -1,72 +1,155 @@
 package com.database.tttdb.core.page;
 
 import java.nio.ByteBuffer;
+import java.util.BitSet;
+
+import com.database.tttdb.api.DatabaseException.StorageFormatException;
 
 public abstract class Page {
 
     protected int pageID;
     private short numOfEntries;
+    private short slots;
     private int spaceInUse;
-    private final Entry[] entries;
+    private Entry[] entries;
     private final int sizeOfEntry;
+    // Set while the entries array is shared with another copy of this page, see #Page(Page)
+    private boolean shared = false;
 
     public static final int BLOCK_SIZE = 4096;
-    public static final int SIZE_OF_HEADER = 2*Integer.BYTES + Short.BYTES;
+    public static final int SIZE_OF_HEADER = 2*Integer.BYTES + 2*Short.BYTES;
+    /**
+     * Version of the page layout, written first in every page header. Version 2 added the slot
+     * bitmap and the hidden row id of table entries; files of older versions are rejected.
+     */
+    public static final short FORMAT_VERSION = 2;
     private boolean dirty = false;
+    private int modCount = 0;
 
     public Page(int PageID, int sizeOfEntry) {
         this.pageID = PageID;
         this.numOfEntries = 0;
+        this.slots = 0;
         this.spaceInUse = 0;
         this.entries = new Entry[Page.getPageCapacity(sizeOfEntry)];
         this.sizeOfEntry = sizeOfEntry;
     }
+    /**
+     * Copy-on-write copy of {@code source}. Both pages share the slot array and the
+     * entries in it until either one is modified, at which point the modified page
+     * takes a private copy of the slot array. Entries are never changed in place once
+     * they are stored in a page, so they stay shared for the lifetime of both pages.
+     */
+    protected Page(Page source) {
+        this.pageID = source.pageID;
+        this.numOfEntries = source.numOfEntries;
+        this.slots = source.slots;
+        this.spaceInUse = source.spaceInUse;
+        this.entries = source.entries;
+        this.sizeOfEntry = source.sizeOfEntry;
+        this.dirty = source.dirty;
+        this.modCount = source.modCount;
+        this.shared = true;
+        source.shared = true;
+    }
+    private void beforeWrite(){
+        if (!this.shared) return;
+        this.entries = this.entries.clone();
+        this.shared = false;
+    }
 
     public void set(int index, Entry entry){
-        assert index >= 0 && index < numOfEntries;
+        assert index >= 0 && index < slots && entries[index] != null;
+        beforeWrite();
         entries[index] = entry;
         dirty = true;
+        modCount++;
     }
 
     // ==========ADDING_ENTRIES==========
+    /**
+     * Adds the entry to the first empty slot, reusing slots freed by {@link #delete(int)}.
+     * @return the slot the entry was stored in
+     */
     public int add(Entry entry){
-        return this.add(this.numOfEntries, entry);
+        return this.add(this.firstFreeSlot(), entry);
     }
     public int add(int index, Entry entry) {
         if (entry == null) throw new IllegalArgumentException("PageID: "+pageID+" Cannot add null Entry.");
         if (index < 0 || index >= this.entries.length) throw new IllegalArgumentException("PageID: "+pageID+" Index out of bounds: " + index);
         if (this.entries[index] != null) throw new IllegalArgumentException("PageID: "+pageID+" Entry already exists at index " + index+" can not add a new one");
+        this.beforeWrite();
         this.numOfEntries++;
         this.entries[index] = entry;
+        if (index >= this.slots) this.slots = (short)(index + 1);
         this.spaceInUse += this.sizeOfEntry;
         this.dirty = true;
+        this.modCount++;
         return index;
     }
+    private int firstFreeSlot(){
+        if (this.numOfEntries == this.slots) return this.slots;
+        for (int i = 0; i < this.slots; i++) {
+            if (this.entries[i] == null) return i;
+        }
+        return this.slots;
+    }
 
     // ===========REMOVING_ENTRIES===============
     public Entry remove(int index) {
-        if (index >= this.numOfEntries || index < 0)
-            throw new IllegalArgumentException("PageID: "+pageID+" Out of bounds Index you gave: " + index+" Maximum: "+this.numOfEntries);
+        if (index >= this.slots || index < 0 || this.entries[index] == null)
+            throw new IllegalArgumentException("PageID: "+pageID+" Out of bounds Index you gave: " + index+" Maximum: "+this.slots);
         Entry result = this.entries[index];
-        this.swap(index,numOfEntries-1);
-        this.entries[this.numOfEntries-1] = null;
+        this.beforeWrite();
+        this.swap(index,slots-1);
+        this.entries[this.slots-1] = null;
         this.spaceInUse -= this.sizeOfEntry;
         this.numOfEntries--;
+        this.trimSlots();
         this.dirty = true;
+        this.modCount++;
         return result;
     }
     public Entry removeLast(){
-        return this.remove(this.numOfEntries-1);
+        return this.remove(this.slots-1);
+    }
+    /**
+     * Removes the entry in place, leaving a tombstoned slot that a later
+     * {@link #add(Entry)} reuses. No other entry changes position.
+     *
+     * @param index slot of the entry to delete
+     * @return the deleted entry
+     */
+    public Entry delete(int index) {
+        if (index >= this.slots || index < 0 || this.entries[index] == null)
+            throw new IllegalArgumentException("PageID: "+pageID+" No entry at slot: " + index+" Slots: "+this.slots);
+        Entry result = this.entries[index];
+        this.beforeWrite();
+        this.entries[index] = null;
+        this.spaceInUse -= this.sizeOfEntry;
+        this.numOfEntries--;
+        this.trimSlots();
+        this.dirty = true;
+        this.modCount++;
+        return result;
+    }
+    private void trimSlots(){
+        while (this.slots > 0 && this.entries[this.slots-1] == null) this.slots--;
     }
     public void swap(int a, int b){
+        this.beforeWrite();
         Entry tmp = this.entries[b];
         this.entries[b] = this.entries[a];
         this.entries[a] = tmp;
+        this.modCount++;
     }
 
     // ===========SEARCHING_ENTRIES===============
+    /**
+     * @return the entry at slot {@code index}, {@code null} if the slot is tombstoned
+     */
     public Entry get(int index) {
-        if (index < 0 || index >= this.numOfEntries) throw new IndexOutOfBoundsException("PageID: "+pageID+" invalid index You gave :" + index+" Size :"+this.numOfEntries);
+        if (index < 0 || index >= this.slots) throw new IndexOutOfBoundsException("PageID: "+pageID+" invalid index You gave :" + index+" Size :"+this.slots);
         return this.entries[index];
     }
     public boolean contains(Entry entry){
@@ -74,14 +157,14 @@ public abstract class Page {
     }
 
     public Entry getLast(){
-        return this.get(this.numOfEntries-1);
+        return this.get(this.slots-1);
     }
 
     public Entry[] getAll() {return this.entries;}
     protected Entry entryAt(int i){ return entries[i]; }
 
     public int indexOf(Entry entry){
-        for (int i = 0;i<this.numOfEntries;i++) {
+        for (int i = 0;i<this.slots;i++) {
             if(entry.equals(this.entries[i])) return i;
         }
         return -1;
@@ -98,24 +181,61 @@ public abstract class Page {
                 "\n\tSpace in Use :            [ " + this.spaceInUse + "/" + this.sizeOfEntries() + " ]";
     }
 
+    /**
+     * Writes the page header followed by the slot bitmap (one bit per slot, set when occupied).
+     * Entries are written densely after the bitmap in slot order.
+     */
     public static void headerToBytes(Page page, ByteBuffer buffer){
         // Add primitive fields
+        buffer.putShort(FORMAT_VERSION); // Serialize the format version as 2 bytes (short)
         buffer.putInt(page.getPageID()); // Serialize pageID as 4 bytes (int)
         buffer.putShort(page.size()); // Serialize numOfEntries as 2 bytes (short)
         buffer.putInt(page.getSpaceInUse()); // Serialize spaceInUse as 4 bytes (int)
+        BitSet occupied = new BitSet(page.getCapacity());
+        for (int i = 0; i < page.slots; i++) {
+            if (page.entries[i] != null) occupied.set(i);
+        }
+        byte[] bitmap = new byte[Page.slotBitmapBytes(page.getCapacity())];
+        byte[] raw = occupied.toByteArray();
+        System.arraycopy(raw, 0, bitmap, 0, raw.length);
+        buffer.put(bitmap);
     }
-    public record HeaderValues(short numOfEntries, int spaceInUse){}
+    public record HeaderValues(short numOfEntries, int spaceInUse, BitSet occupied){}
     public static HeaderValues headerFromBytes(ByteBuffer buffer, Page page){
+        Page.checkFormat(buffer, page.getFilePath(), page.getPageID());
+        buffer.getShort();
         int pageID = buffer.getInt();
         page.setPageID(pageID);
         short numOfEntries = buffer.getShort();
         int spaceInUse = buffer.getInt();
-        return  new HeaderValues(numOfEntries, spaceInUse);
+        byte[] bitmap = new byte[Page.slotBitmapBytes(page.getCapacity())];
+        buffer.get(bitmap);
+        return  new HeaderValues(numOfEntries, spaceInUse, BitSet.valueOf(bitmap));
+    }
+
+    /**
+     * Checks the format version of the page header starting at {@code buffer}'s position.
+     * A header of zeros is a page that was never written and is accepted as empty.
+     *
+     * @throws StorageFormatException if the page was written in another format version
+     */
+    public static void checkFormat(ByteBuffer buffer, String path, int pageID){
+        int start = buffer.position();
+        short version = buffer.getShort(start);
+        if (version == FORMAT_VERSION) return;
+        for (int i = start; i < start + SIZE_OF_HEADER; i++) {
+            if (buffer.get(i) != 0) throw new StorageFormatException("Page " + pageID + " of '" + path + "' has format version "
+                + version + ", expected " + FORMAT_VERSION + ". Files written by older versions must be exported and loaded again.");
+        }
     }
 
     public static short getPageCapacity(int sizeOfEntry){
-        if ((SIZE_OF_HEADER + sizeOfEntry) > BLOCK_SIZE) return 1;
-        return (short) ((BLOCK_SIZE - SIZE_OF_HEADER) / sizeOfEntry);
+        if ((SIZE_OF_HEADER + sizeOfEntry + 1) > BLOCK_SIZE) return 1;
+        // every slot costs its entry plus one bit of the slot bitmap
+        return (short) (((BLOCK_SIZE - SIZE_OF_HEADER) * 8) / (sizeOfEntry * 8 + 1));
+    }
+    public static int slotBitmapBytes(int capacity) {
+        return (capacity + 7) / 8;
     }
     public static int pageSizeOfEntries(int sizeOfEntry) {
         int capacity = Page.getPageCapacity(sizeOfEntry);
@@ -123,7 +243,7 @@ public abstract class Page {
     }
     public static int pageSizeInBytes(int sizeOfEntry) {
         int sizeOfEntries = Page.pageSizeOfEntries(sizeOfEntry);
-        int total = sizeOfEntries + SIZE_OF_HEADER;
+        int total = sizeOfEntries + SIZE_OF_HEADER + Page.slotBitmapBytes(Page.getPageCapacity(sizeOfEntry));
         return ((total + BLOCK_SIZE - 1) / BLOCK_SIZE) * BLOCK_SIZE;
     }
 
@@ -136,14 +256,19 @@ public abstract class Page {
     public int getSpaceInUse() {return this.spaceInUse;}
 
     public short size() {return this.numOfEntries;}
+    /** @return number of slots up to and including the last occupied one; iterate slots with this, not {@link #size()} */
+    public int slotCount() {return this.slots;}
+    public boolean isFull() {return this.numOfEntries >= this.entries.length;}
 
     public int sizeInBytes() {return Page.pageSizeInBytes(sizeOfEntry);}
-    public int sizeOfHeader() {return (2 * (Integer.BYTES)) + Short.BYTES;}
+    public int sizeOfHeader() {return SIZE_OF_HEADER;}
     public int sizeOfEntries() {return (sizeOfEntry * this.entries.length);}
 
     public int getCapacity(){return this.entries.length;}
     public int getPagePos() {return this.pageID * this.sizeInBytes();}
 
     public boolean isDirty() {return dirty;}
+    /** Counts structural changes so derived per-page data (e.g. column encodings) can detect staleness. */
+    public int getModCount() {return modCount;}
     public void setDirty(boolean dirty) {this.dirty = dirty;}
 }
\ No newline at end of file
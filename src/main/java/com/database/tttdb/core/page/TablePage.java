@@ -1,6 +1,9 @@
 package com.database.tttdb.core.page;
 
 import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
 
 import com.database.tttdb.core.table.DataType;
 import com.database.tttdb.core.table.Table;
@@ -9,6 +12,7 @@ public class TablePage extends Page{
 
     private final Table table;
     private final String filePath;
+    private volatile Encodings encodings;
 
     public TablePage(int PageID, Table table) {
         super(PageID, TablePage.sizeOfEntry(table));
@@ -16,8 +20,11 @@ public class TablePage extends Page{
         this.filePath = table.getPath();
     }
 
+    /**
+     * @return serialized size of one row: the hidden row id, the null bitmap and every column
+     */
     public static int sizeOfEntry(Table table){
-        int result = (table.getSchema().numNullables()+7)/8;
+        int result = Long.BYTES + (table.getSchema().numNullables()+7)/8;
         DataType[] columnTypes = table.getSchema().getTypes();
         int[] columnSizes = table.getSchema().getSizes();
         for (int i = 0;i<columnTypes.length;i++) {
@@ -28,23 +35,26 @@ public class TablePage extends Page{
         return result;
     }
 
-    public TablePage deepCopy() {
-        TablePage clone = new TablePage(this.getPageID(), this.table);
-        for (int i = 0; i < this.size(); i++) {
-            clone.add(this.get(i).deepCopy());
-        }
-        // copy bookkeeping fields
-        clone.setDirty(this.isDirty());
-        return clone;
+    private TablePage(TablePage source) {
+        super(source);
+        this.table = source.table;
+        this.filePath = source.filePath;
+        this.encodings = source.encodings;
+    }
+    /**
+     * @return a copy-on-write copy of this page that shares its entries and column encodings
+     */
+    public TablePage copy() {
+        return new TablePage(this);
     }
 
     public byte[] toBytes() {
         ByteBuffer combinedArray = ByteBuffer.allocate(this.sizeInBytes());
         Page.headerToBytes(this,combinedArray);
         // Add entries
-        for (int i = 0;i<this.size();i++) {
+        for (int i = 0;i<this.slotCount();i++) {
             Entry entry = entryAt(i);
-            if (entry == null) throw new IllegalStateException("null entry at " + i);
+            if (entry == null) continue;
             combinedArray.put(entry.toBytes(table));
         }
         combinedArray.flip();
@@ -60,17 +70,59 @@ public class TablePage extends Page{
         HeaderValues result = Page.headerFromBytes(buffer, this);
         //Reading The Entries
         int entrySize = TablePage.sizeOfEntry(table);
-        for(int i = 0; i < result.numOfEntries(); i++){
+        for(int slot = result.occupied().nextSetBit(0); slot >= 0; slot = result.occupied().nextSetBit(slot + 1)){
             ByteBuffer slice = buffer.slice(); // view starting at current position
             slice.limit(entrySize); // limit to just one entry
             Entry newEntry = Entry.fromBytes(slice, table);
             buffer.position(buffer.position() + entrySize);
-            this.add(newEntry);
+            this.add(slot, newEntry);
         }
         if(result.spaceInUse() != getSpaceInUse())
             throw new IllegalArgumentException("spaceInUse mismatch");
         if(result.numOfEntries() != size()) 
             throw new IllegalArgumentException("numOfEntries mismatch");
+        this.setDirty(false);
+    }
+
+    // ==========COLUMN_ENCODING==========
+    // Encodings of the page contents at one modification count. Scans under the shared read
+    // lock may build encodings of the same column concurrently, any of them can be kept.
+    // A column scanned once holds SCANNED_ONCE until its second scan builds the encoding.
+    private record Encodings(int modCount, AtomicReferenceArray<Object> columns) {}
+    private static final Object SCANNED_ONCE = new Object();
+
+    /**
+     * Returns the encoding of one column. The first scan of a column after the page was loaded
+     * or modified reads the entries as-is and the second one builds the encoding, so pages
+     * scanned only once never pay for it. Only scans through {@link #forEachMatch} need it.
+     */
+    public ColumnEncoding getEncoding(int columnIndex) {
+        Encodings current = this.encodings;
+        if (current == null || current.modCount() != this.getModCount()) {
+            current = new Encodings(this.getModCount(), new AtomicReferenceArray<>(table.getSchema().getNumOfColumns()));
+            this.encodings = current;
+        }
+        Object state = current.columns().get(columnIndex);
+        if (state instanceof ColumnEncoding encoding) return encoding;
+        if (state == null && current.columns().compareAndSet(columnIndex, null, SCANNED_ONCE)) return ColumnEncoding.plain();
+        DataType type = table.getSchema().getTypes()[columnIndex];
+        ColumnEncoding encoding = ColumnEncoding.encode(this.getAll(), this.slotCount(), columnIndex, type);
+        if (!current.columns().compareAndSet(columnIndex, SCANNED_ONCE, encoding)) {
+            Object built = current.columns().get(columnIndex);
+            if (built instanceof ColumnEncoding other) return other;
+        }
+        return encoding;
+    }
+    /**
+     * Scans one column of the page, evaluating {@code predicate} against dictionary
+     * values instead of individual rows whenever the column is encoded.
+     *
+     * @param columnIndex column to test
+     * @param predicate value test
+     * @param action receives the row offset of every matching entry
+     */
+    public void forEachMatch(int columnIndex, Predicate<Object> predicate, IntConsumer action) {
+        this.getEncoding(columnIndex).forEachMatch(this.getAll(), this.slotCount(), columnIndex, predicate, action);
     }
 
     public boolean isLastPage() { return (this.getPageID() == table.getPages()-1); }
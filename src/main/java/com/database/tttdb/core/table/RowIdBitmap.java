@@ -0,0 +1,110 @@
+package com.database.tttdb.core.table;
+
+import java.util.Arrays;
+
+/**
+ * Compressed set of row ids, laid out like a Roaring bitmap.
+ * <p>
+ * A row id is split into its high 48 bits, naming a chunk of 65536 ids, and its low 16 bits.
+ * Chunks are kept sorted by their high bits and each one stores its low bits either as a
+ * sorted {@code char} array while it holds at most {@value #ARRAY_LIMIT} ids, or as a bitmap of
+ * 65536 bits past that. Row ids are allocated in increasing order (see {@link RowIdMap}), so the
+ * ids matched by a condition fall in a few dense chunks: adding and looking up an id is a
+ * search among the chunks followed by a bit test, with no object per id.
+ */
+public final class RowIdBitmap {
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int BITMAP_WORDS = 1 << 16 >>> 6;
+
+    private long[] highs = new long[4];
+    private Object[] chunks = new Object[4]; // char[] (sorted, first counts[i] used) or long[BITMAP_WORDS]
+    private int[] counts = new int[4];
+    private int chunkCount;
+    private int last = -1;                   // chunk of the last access, ids often come in order
+    private long size;
+
+    /**
+     * @param rowId row id to add
+     * @return {@code true} if it was not in the set
+     */
+    public boolean add(long rowId) {
+        int chunk = this.chunkOf(rowId >>> 16);
+        if (chunk < 0) chunk = this.insertChunk(-(chunk + 1), rowId >>> 16);
+        char low = (char) rowId;
+        boolean added = this.chunks[chunk] instanceof long[] words
+            ? setBit(words, low)
+            : this.addToArray(chunk, low);
+        if (added) {
+            this.counts[chunk]++;
+            this.size++;
+        }
+        return added;
+    }
+
+    /**
+     * @param rowId row id to look up
+     * @return whether the set holds it
+     */
+    public boolean contains(long rowId) {
+        int chunk = this.chunkOf(rowId >>> 16);
+        if (chunk < 0) return false;
+        char low = (char) rowId;
+        if (this.chunks[chunk] instanceof long[] words) return (words[low >>> 6] & 1L << low) != 0;
+        return Arrays.binarySearch((char[]) this.chunks[chunk], 0, this.counts[chunk], low) >= 0;
+    }
+
+    /** @return number of row ids held */
+    public long size() { return this.size; }
+    public boolean isEmpty() { return this.size == 0; }
+
+    // Position of the chunk with the given high bits, or -(insertion point + 1)
+    private int chunkOf(long high) {
+        if (this.last >= 0 && this.highs[this.last] == high) return this.last;
+        int chunk = Arrays.binarySearch(this.highs, 0, this.chunkCount, high);
+        if (chunk >= 0) this.last = chunk;
+        return chunk;
+    }
+    private int insertChunk(int position, long high) {
+        if (this.chunkCount == this.highs.length) {
+            int capacity = this.chunkCount * 2;
+            this.highs = Arrays.copyOf(this.highs, capacity);
+            this.chunks = Arrays.copyOf(this.chunks, capacity);
+            this.counts = Arrays.copyOf(this.counts, capacity);
+        }
+        int moved = this.chunkCount - position;
+        System.arraycopy(this.highs, position, this.highs, position + 1, moved);
+        System.arraycopy(this.chunks, position, this.chunks, position + 1, moved);
+        System.arraycopy(this.counts, position, this.counts, position + 1, moved);
+        this.highs[position] = high;
+        this.chunks[position] = new char[8];
+        this.counts[position] = 0;
+        this.chunkCount++;
+        this.last = position;
+        return position;
+    }
+    private boolean addToArray(int chunk, char low) {
+        char[] values = (char[]) this.chunks[chunk];
+        int count = this.counts[chunk];
+        int position = count > 0 && values[count - 1] < low ? -(count + 1) : Arrays.binarySearch(values, 0, count, low);
+        if (position >= 0) return false;
+        position = -(position + 1);
+        if (count == ARRAY_LIMIT) {
+            // Past the limit a bitmap takes less room than the array
+            long[] words = new long[BITMAP_WORDS];
+            for (int i = 0; i < count; i++) setBit(words, values[i]);
+            setBit(words, low);
+            this.chunks[chunk] = words;
+            return true;
+        }
+        if (count == values.length) this.chunks[chunk] = values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, count * 2));
+        System.arraycopy(values, position, values, position + 1, count - position);
+        values[position] = low;
+        return true;
+    }
+    private static boolean setBit(long[] words, char low) {
+        long bit = 1L << low;
+        if ((words[low >>> 6] & bit) != 0) return false;
+        words[low >>> 6] |= bit;
+        return true;
+    }
+}
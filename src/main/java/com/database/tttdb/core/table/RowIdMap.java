@@ -0,0 +1,190 @@
+package com.database.tttdb.core.table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.database.tttdb.core.index.IndexInit.BlockPointer;
+
+/**
+ * Maps the stable row id of every live row of a table to its current location.
+ * <p>
+ * Indexes store row ids instead of physical {@link BlockPointer}s, so moving a row
+ * (e.g. during compaction) only rewrites its entry here instead of every index of the table.
+ * Row ids are persisted as a hidden prefix of each table entry and the map is rebuilt
+ * from the table file on start. The next row id is persisted beside the table file, as the
+ * ids of deleted rows are not in it.
+ *
+ * <p>The map is an open-addressing hash table of primitive {@code long}s with linear probing.
+ * It grows and shrinks with the number of live rows, so memory follows the rows the table holds
+ * rather than every row it ever held.</p>
+ *
+ * <p>Invariants:</p>
+ * <ul>
+ *   <li>Row ids are allocated in increasing order and never reused, across restarts too.</li>
+ *   <li>Locations are packed as {@code pageID << 16 | rowOffset}; {@link #ABSENT} marks a free id.</li>
+ *   <li>Every transaction level keeps an undo log of (row id, previous location) pairs.
+ *       Rollback replays it backwards, commit appends it to the enclosing level.</li>
+ * </ul>
+ */
+public class RowIdMap {
+    private static final long ABSENT = -1L;
+    private static final long EMPTY = -1L; // key of a free slot, row ids are never negative
+    private static final int MIN_CAPACITY = 1024;
+
+    private long[] keys = newKeys(MIN_CAPACITY);
+    private long[] locations = new long[MIN_CAPACITY];
+    private long nextRowId = 0;
+    private int size = 0;
+    private final List<UndoLog> levels = new ArrayList<>();
+
+    private static final class UndoLog {
+        private long[] data = new long[32];
+        private int length = 0;
+        private void add(long rowId, long previous) {
+            if (length + 2 > data.length) data = Arrays.copyOf(data, data.length * 2);
+            data[length++] = rowId;
+            data[length++] = previous;
+        }
+        private void addAll(UndoLog other) {
+            for (int i = 0; i < other.length; i += 2) this.add(other.data[i], other.data[i + 1]);
+        }
+    }
+
+    /** @return a new row id, not yet mapped to a location */
+    public long allocate() {
+        return nextRowId++;
+    }
+    public void put(long rowId, BlockPointer location) {
+        this.write(rowId, pack(location));
+    }
+    public void remove(long rowId) {
+        this.write(rowId, ABSENT);
+    }
+    /**
+     * @return the current location of {@code rowId}, or {@code null} if the row does not exist
+     */
+    public BlockPointer get(long rowId) {
+        long packed = this.lookup(rowId);
+        return packed == ABSENT ? null : new BlockPointer((int) (packed >>> 16), (short) packed);
+    }
+    public boolean contains(long rowId) {
+        return this.lookup(rowId) != ABSENT;
+    }
+    public int size() { return this.size; }
+    public long getNextRowId() { return this.nextRowId; }
+
+    /**
+     * Registers a row found while reading the table file on start. Not recorded for rollback.
+     */
+    public void load(long rowId, int pageID, int rowOffset) {
+        this.set(rowId, pack(new BlockPointer(pageID, (short) rowOffset)));
+        if (rowId >= nextRowId) nextRowId = rowId + 1;
+    }
+    /**
+     * Raises the next row id to {@code nextRowId} when it is lower, with the value persisted
+     * before a restart, so the ids of rows deleted before it are not allocated again.
+     */
+    public void reserve(long nextRowId) {
+        if (nextRowId > this.nextRowId) this.nextRowId = nextRowId;
+    }
+    public void clear() {
+        this.keys = newKeys(MIN_CAPACITY);
+        this.locations = new long[MIN_CAPACITY];
+        this.nextRowId = 0;
+        this.size = 0;
+        this.levels.clear();
+    }
+
+    // -- Transaction Management --
+    public void beginTransaction() {
+        this.levels.add(new UndoLog());
+    }
+    public void commit() {
+        if (this.levels.isEmpty()) return;
+        UndoLog committed = this.levels.removeLast();
+        if (!this.levels.isEmpty()) this.levels.getLast().addAll(committed);
+    }
+    public void rollback() {
+        if (this.levels.isEmpty()) return;
+        UndoLog undo = this.levels.removeLast();
+        for (int i = undo.length - 2; i >= 0; i -= 2) this.set(undo.data[i], undo.data[i + 1]);
+    }
+
+    private void write(long rowId, long packed) {
+        if (rowId < 0) throw new IllegalArgumentException("Invalid row id: " + rowId);
+        long previous = this.lookup(rowId);
+        if (!this.levels.isEmpty()) this.levels.getLast().add(rowId, previous);
+        this.set(rowId, packed);
+    }
+
+    // -- Hash Table --
+    private long lookup(long rowId) {
+        if (rowId < 0) return ABSENT;
+        int mask = keys.length - 1;
+        for (int i = slot(rowId, mask); keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == rowId) return locations[i];
+        }
+        return ABSENT;
+    }
+    // Maps rowId to packed, or removes it when packed is ABSENT
+    private void set(long rowId, long packed) {
+        int mask = keys.length - 1;
+        int i = slot(rowId, mask);
+        while (keys[i] != EMPTY && keys[i] != rowId) i = (i + 1) & mask;
+        if (packed == ABSENT) {
+            if (keys[i] == EMPTY) return;
+            this.delete(i);
+            if (--size < keys.length / 8 && keys.length > MIN_CAPACITY) this.resize(keys.length / 2);
+            return;
+        }
+        if (keys[i] == EMPTY) {
+            keys[i] = rowId;
+            size++;
+        }
+        locations[i] = packed;
+        if (size > keys.length / 2) this.resize(keys.length * 2);
+    }
+    // Empties a slot, shifting back the entries after it that are away from their home slot
+    private void delete(int i) {
+        int mask = keys.length - 1;
+        int hole = i;
+        for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = slot(keys[j], mask);
+            // keys[j] may fill the hole when its home is not cyclically in (hole, j]
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                locations[hole] = locations[j];
+                hole = j;
+            }
+        }
+        keys[hole] = EMPTY;
+    }
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldLocations = locations;
+        keys = newKeys(capacity);
+        locations = new long[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) continue;
+            int j = slot(oldKeys[i], mask);
+            while (keys[j] != EMPTY) j = (j + 1) & mask;
+            keys[j] = oldKeys[i];
+            locations[j] = oldLocations[i];
+        }
+    }
+    // Fibonacci hashing spreads the consecutive ids of a table over the slots
+    private static int slot(long rowId, int mask) {
+        long hash = rowId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ hash >>> 32) & mask;
+    }
+    private static long[] newKeys(int capacity) {
+        long[] result = new long[capacity];
+        Arrays.fill(result, EMPTY);
+        return result;
+    }
+    private static long pack(BlockPointer location) {
+        return ((long) location.BlockID() << 16) | (location.RowOffset() & 0xFFFF);
+    }
+}
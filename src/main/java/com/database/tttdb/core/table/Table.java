@@ -1,10 +1,17 @@
 package com.database.tttdb.core.table;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.function.Supplier;
 
 import com.database.tttdb.api.Condition.*;
+import com.database.tttdb.api.ForeignKey.ForeignKeyAction;
+import com.database.tttdb.api.Query.Aggregate;
 import com.database.tttdb.api.Query.SelectType;
 import com.database.tttdb.api.Row;
 import com.database.tttdb.api.Schema;
@@ -12,16 +19,21 @@ import com.database.tttdb.api.UpdateFields;
 import com.database.tttdb.core.Database;
 import com.database.tttdb.core.FileIO;
 import com.database.tttdb.core.Database.TableReference;
+import com.database.tttdb.core.cache.FreeSpaceMap;
 import com.database.tttdb.core.cache.PageKey;
 import com.database.tttdb.core.cache.TableCache;
 import com.database.tttdb.core.cache.TableSnapshot;
+import com.database.tttdb.core.execution.Operator;
 import com.database.tttdb.core.index.Pair;
 import com.database.tttdb.core.index.IndexInit.BlockPointer;
 import com.database.tttdb.core.index.IndexInit.PointerPair;
 import com.database.tttdb.core.manager.EntryManager;
 import com.database.tttdb.core.manager.IndexManager;
 import com.database.tttdb.core.manager.IndexManager.IndexRecord;
+import com.database.tttdb.core.manager.LockManager;
+import com.database.tttdb.core.manager.LockManager.LockMode;
 import com.database.tttdb.core.page.Entry;
+import com.database.tttdb.core.page.Page;
 import com.database.tttdb.core.page.TablePage;
 
 public class Table {
@@ -33,30 +45,41 @@ public class Table {
     private final IndexManager indexManager;
     private AutoIncrementing[] autoIncrementing;
     private final TableSnapshot tableSnapshot;
+    private final RowIdMap rowIdMap;
 
     private TableReference parent;
     private final List<TableReference> children = new ArrayList<>();
 
     private final String tableFilePath;
     private final String indexPathPrefix;
+    private final String rowIdFilePath;
+    private long persistedNextRowId;
 
 
     public Table(Database database, String tableName, Schema tableSchema) {
         this.database = database;
         String path = this.database.getPath();
         this.tableName = tableName;
-        this.schema = new TableSchema(tableName, tableSchema.get(database));
+        this.schema = new TableSchema(tableName, tableSchema.get(database), tableSchema.getIndexes());
         
         this.cache = new TableCache(this, database);
         this.indexManager = new IndexManager(this);
         this.tableSnapshot = new TableSnapshot();
+        this.rowIdMap = new RowIdMap();
 
         this.tableFilePath = path + database.getName() + "." + tableName + ".table";
         this.indexPathPrefix = path + database.getName() + "." + tableName + ".";
+        this.rowIdFilePath = path + database.getName() + "." + tableName + ".rowid";
     }
     public void start(){
-        int numOfPages = FileIO.getNumOfPages(this.getPath(),TablePage.sizeOfEntry(this));
+        int sizeOfEntry = TablePage.sizeOfEntry(this);
+        int numOfPages = FileIO.getNumOfPages(this.getPath(),sizeOfEntry);
         this.tableSnapshot.setNumOfPages(numOfPages);
+        this.tableSnapshot.getFreeSpaceMap().load(FileIO.readEntryCounts(this.getPath(), sizeOfEntry), Page.getPageCapacity(sizeOfEntry));
+        this.rowIdMap.clear();
+        FileIO.readRowIds(this.getPath(), sizeOfEntry, this.rowIdMap::load);
+        this.persistedNextRowId = FileIO.readNextRowId(this.getRowIdPath());
+        this.rowIdMap.reserve(this.persistedNextRowId);
         this.indexManager.initialize();
         this.autoIncrementing = AutoIncrementing.prepareAutoIncrementing(this);
     }
@@ -84,58 +107,117 @@ public class Table {
     // -- Transaction Management -- 
     public void beginTransaction(){
         this.tableSnapshot.beginTransaction();
+        this.rowIdMap.beginTransaction();
         this.indexManager.beginTransaction();
     }
     public void commit() { 
         this.tableSnapshot.commit();
+        this.rowIdMap.commit();
     }
     public void rollback() { 
         this.tableSnapshot.rollback();
+        this.rowIdMap.rollback();
     }
 
     // -- Entry Management -- 
     public List<Entry> select(WhereClause whereClause, int begin, int limit, SelectType type){
-        return EntryManager.selectEntries(this, whereClause, begin, limit, type);
+        return database.readLocked(() -> EntryManager.selectEntries(this, whereClause, begin, limit, type));
+    }
+    public List<Entry> select(WhereClause whereClause, int begin, int limit, SelectType type, String[] columns){
+        return database.readLocked(() -> EntryManager.selectEntries(this, whereClause, begin, limit, type, columns));
+    }
+    /**
+     * Opens a lazily evaluated select, see {@link EntryManager#openEntries}.
+     */
+    public Operator open(WhereClause whereClause, int begin, int limit, SelectType type){
+        return EntryManager.openEntries(this, whereClause, begin, limit, type);
+    }
+    /**
+     * Computes aggregates over the matching entries, see {@link EntryManager#aggregateEntries}.
+     */
+    public List<Object[]> aggregate(WhereClause whereClause, String[] groupBy, List<Aggregate> aggregates){
+        return EntryManager.aggregateEntries(this, whereClause, groupBy, aggregates);
     }
     public int insert(List<Row> rows){
-        return EntryManager.insertEntries(this, rows);
+        return this.exclusive(() -> EntryManager.insertEntries(this, rows));
     }
     public void insertUnsafe(Entry entry){
-        EntryManager.insertEntry(this, entry);
+        this.exclusive(() -> { EntryManager.insertEntry(this, entry); return null; });
     }
     public int delete(WhereClause clause, int limit){
-        return EntryManager.deleteEntry(this, clause, limit);
+        return this.exclusive(this.cascadeTargets(), () -> EntryManager.deleteEntry(this, clause, limit));
     }
     public int update(WhereClause whereClause, int limit, UpdateFields updates){
-        return EntryManager.updateEntry(this, whereClause, limit, updates);
+        return this.exclusive(this.cascadeTargets(), () -> EntryManager.updateEntry(this, whereClause, limit, updates));
+    }
+    private <T> T exclusive(Supplier<T> operation){
+        return this.exclusive(Set.of(this.tableName), operation);
+    }
+    // Waits for session transactions writing the tables before taking the write latch,
+    // so no thread ever waits for a lock while holding the latch. The tables are locked
+    // in name order, so two writers never hold each other's next table
+    private <T> T exclusive(Set<String> tables, Supplier<T> operation){
+        try (LockManager.Handle locks = database.getLockManager().begin("write " + this.tableName)) {
+            for (String table : tables) locks.lock(new LockManager.TableLock(table), LockMode.X);
+            return database.locked(operation);
+        }
+    }
+    // This table and every table a delete or update of it writes through foreign key actions
+    private SortedSet<String> cascadeTargets(){
+        SortedSet<String> tables = new TreeSet<>();
+        Deque<Table> pending = new ArrayDeque<>(List.of(this));
+        while (!pending.isEmpty()) {
+            Table table = pending.pop();
+            if (!tables.add(table.getName())) continue;
+            for (TableReference child : table.getChildren()) {
+                if (child.onDelete() != ForeignKeyAction.RESTRICT || child.onUpdate() != ForeignKeyAction.RESTRICT)
+                    pending.push(database.getTable(child.childTable()));
+            }
+        }
+        return tables;
     }
 
     // -- Index Management -- 
     public <K extends Comparable<? super K>> List<IndexRecord<K>> selectIndex(WhereClause whereClause) {
-        return this.indexManager.findRangeIndex(whereClause);
+        return database.readLocked(() -> this.indexManager.findRangeIndex(whereClause));
     }
     @SuppressWarnings("unchecked")
     public <K extends Comparable<? super K>> boolean containsKey(Object key, int columnIndex){
-        return this.indexManager.isKeyFound((K)key, columnIndex);
+        return database.readLocked(() -> this.indexManager.isKeyFound((K)key, columnIndex));
     }
     @SuppressWarnings("unchecked")
     public <K extends Comparable<? super K>> List<Pair<K, PointerPair>> searchIndex(Object key, int columnIndex){
-        return this.indexManager.findBlock((K)key, columnIndex);
+        return database.readLocked(() -> this.indexManager.findBlock((K)key, columnIndex));
     }
-    public void insertIndex(Entry entry, BlockPointer blockPointer){
-        this.indexManager.insertIndex(entry, blockPointer);
+    public void insertIndex(Entry entry, long rowId){
+        this.indexManager.insertIndex(entry, rowId);
     }
-    public void removeIndex(Entry entry, BlockPointer blockPointer){
-        this.indexManager.removeIndex(entry, blockPointer);
+    public void removeIndex(Entry entry, long rowId){
+        this.indexManager.removeIndex(entry, rowId);
     }
-    public void updateIndex(Entry entry, BlockPointer newValue, BlockPointer oldValue){
-        this.indexManager.updateIndex(entry, newValue, oldValue);
+    public void updateIndex(Entry oldEntry, Entry newEntry, long rowId){
+        this.indexManager.updateIndex(oldEntry, newEntry, rowId);
     }
 
     // -- Snapshot Management -- 
     public int getPages() { return this.tableSnapshot.getNumOfPages(); }
     public void addOnePage() { this.tableSnapshot.addOnePage(); }
     public void removeOnePage() { this.tableSnapshot.removeOnePage(); }
+    public FreeSpaceMap getFreeSpaceMap() { return this.tableSnapshot.getFreeSpaceMap(); }
+    public RowIdMap getRowIdMap() { return this.rowIdMap; }
+    /** @return current location of the row, {@code null} if it does not exist */
+    public BlockPointer locate(long rowId) { return this.rowIdMap.get(rowId); }
+    /**
+     * Writes the next row id beside the table file when it changed since it was last written.
+     * The ids of deleted rows are not in the table file, so without it they would be allocated
+     * again after a restart.
+     */
+    public void persistNextRowId(FileIO fileIO) {
+        long nextRowId = this.rowIdMap.getNextRowId();
+        if (nextRowId == this.persistedNextRowId) return;
+        fileIO.writeNextRowId(this.getRowIdPath(), nextRowId);
+        this.persistedNextRowId = nextRowId;
+    }
 
     public Set<PageKey> getDeletedPagesSet() { return this.tableSnapshot.getDeletedPageIDSet(); }
     public int getDeletedPages() { return this.tableSnapshot.getDeletedPages(); }
@@ -160,4 +242,5 @@ public class Table {
     // Get Index and Table file paths for this Table. 
     public String getPath() { return this.tableFilePath; }
     public String getIndexPath(int columnIndex) { return this.indexPathPrefix + schema.getNames()[columnIndex] + ".index"; }
+    public String getRowIdPath() { return this.rowIdFilePath; }
 }
\ No newline at end of file
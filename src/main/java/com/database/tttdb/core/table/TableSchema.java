@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.Map;
 
 import com.database.tttdb.api.Schema.ColumnInner;
+import com.database.tttdb.api.Schema.IndexInner;
 
 public class TableSchema {
     private final String tableName;
@@ -24,11 +25,24 @@ public class TableSchema {
 
     private final Map<String, Integer> columnIndexMap;
 
+    private final String[] compositeNames;
+    private final int[][] compositeColumns;
+    private final int[][] compositeIncluded;
+    private final List<IndexInner> derivedIndexes;
+
     public final boolean hasPrimaryKey;
     public final boolean hasUnique;
     public final boolean hasIndex;
 
     public TableSchema(String tableName, ColumnInner[] columns) {
+        this(tableName, columns, List.of());
+    }
+    /**
+     * @param tableName table name
+     * @param columns table columns
+     * @param namedIndexes indexes declared with {@link com.database.tttdb.api.Schema#index(String)}, validated by the schema
+     */
+    public TableSchema(String tableName, ColumnInner[] columns, List<IndexInner> namedIndexes) {
         this.tableName = tableName;
         this.columns = Arrays.copyOf(columns, columns.length);
 
@@ -78,6 +92,18 @@ public class TableSchema {
         this.hasPrimaryKey = pkFlag;
         this.hasUnique = uqFlag;
         this.hasIndex = idxFlag;
+
+        List<IndexInner> compositeIndexes = namedIndexes.stream().filter(index -> !index.isDerived()).toList();
+        this.derivedIndexes = namedIndexes.stream().filter(IndexInner::isDerived).toList();
+        this.compositeNames = new String[compositeIndexes.size()];
+        this.compositeColumns = new int[compositeIndexes.size()][];
+        this.compositeIncluded = new int[compositeIndexes.size()][];
+        for (int i = 0; i < compositeNames.length; i++) {
+            IndexInner index = compositeIndexes.get(i);
+            compositeNames[i] = index.name();
+            compositeColumns[i] = index.columns().stream().mapToInt(this::getColumnIndex).toArray();
+            compositeIncluded[i] = index.included().stream().mapToInt(this::getColumnIndex).toArray();
+        }
     }
 
     // direct getters for precomputed arrays
@@ -90,6 +116,10 @@ public class TableSchema {
     public boolean[] getSecondaryIndex() { return secondary; }
     public boolean[] getAutoIncrementIndex() { return autoIncrement; }
     public boolean[] getNotNull() { return notNull; }
+    public String[] getCompositeNames() { return compositeNames; }
+    public int[][] getCompositeColumns() { return compositeColumns; }
+    public int[][] getCompositeIncluded() { return compositeIncluded; }
+    public List<IndexInner> getDerivedIndexes() { return derivedIndexes; }
 
     public List<Constraint>[] getConstraints() {
         @SuppressWarnings("unchecked")
@@ -329,7 +329,7 @@ public class AppTest {
                 .limit(1)   // take only 1 row
                 .fetch();
         Assertions.assertEquals(1, pagedAsc.size());
-        Assertions.assertEquals("Alice", pagedAsc.get(0).get("name"));
+        Assertions.assertEquals("Bob", pagedAsc.get(0).get("name"));
 
         // === Test pagination (skip 1, take 2, ordered DESC by age) ===
         List<Row> pagedDesc = db.select("id,name,age")
@@ -392,8 +392,12 @@ public class AppTest {
     @Order(5)
     void perIndexRangeSelectTest(){
         rangeSelectivity(IndexType.BTREE);
+        rangeSelectivity(IndexType.CONCURRENT_BTREE);
+        rangeSelectivity(IndexType.OFF_HEAP_BTREE);
+        rangeSelectivity(IndexType.ART);
         rangeSelectivity(IndexType.HASH_INDEX);
         rangeSelectivity(IndexType.SKIPLIST);
+        rangeSelectivity(IndexType.CONCURRENT_SKIPLIST);
         rangeSelectivity(IndexType.RED_BLACK_TREE);
     }
     void rangeSelectivity(IndexType indexType) {
@@ -0,0 +1,164 @@
+package com.database.tttdb.CRUD;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.database.tttdb.api.DBMS;
+import com.database.tttdb.api.Query.Select;
+import com.database.tttdb.api.Row;
+import com.database.tttdb.api.Schema;
+import com.database.tttdb.api.Session;
+import com.database.tttdb.core.table.DataType;
+
+class AggregateTest {
+    private static final int ROWS = 3000;
+    private static final String[] TENANTS = {"acme", "globex", "initech", "umbrella", "hooli"};
+
+    @TempDir
+    Path tempDir;
+
+    private DBMS db;
+    private final InsertedRows rows = new InsertedRows("id", "tenant", "amount", "price");
+
+    @BeforeEach
+    void setUp() {
+        db = new DBMS()
+            .addDatabase("aggregateDB", 100)
+            .setPath(tempDir.toString() + "/")
+            .addTable("orders", new Schema()
+                .column("id").type(DataType.INT).primaryKey().endColumn()
+                .column("tenant").type(DataType.VARCHAR).size(16).endColumn()
+                .column("amount").type(DataType.INT).index().endColumn()
+                .column("price").type(DataType.DOUBLE).endColumn())
+            .start();
+        for (int i = 0; i < ROWS; i++) {
+            // amount is null for one order in 41, tenant for one in 250
+            rows.insert(db, "orders", i, i % 250 == 7 ? null : TENANTS[i % TENANTS.length], i % 41 == 0 ? null : (i * 37) % 1000 - 200, (i % 13) * 0.25);
+        }
+        db.commit();
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.dropDatabase();
+        db.close();
+    }
+
+    private Select aggregates(Select select) {
+        return select.count().count("amount").sum("amount").min("amount").max("amount").avg("amount").sum("price").min("tenant");
+    }
+    // Expected aggregates of the rows matching a filter, in the order of aggregates(Select)
+    private List<Object> expected(Predicate<Object[]> filter) {
+        List<Object[]> matching = rows.stream().filter(filter).toList();
+        List<Integer> amounts = matching.stream().map(row -> (Integer) row[2]).filter(Objects::nonNull).toList();
+        long sum = amounts.stream().mapToLong(Integer::longValue).sum();
+        List<Object> result = new ArrayList<>();
+        result.add((long) matching.size());
+        result.add((long) amounts.size());
+        result.add(amounts.isEmpty() ? null : sum);
+        result.add(amounts.stream().min(Comparator.naturalOrder()).orElse(null));
+        result.add(amounts.stream().max(Comparator.naturalOrder()).orElse(null));
+        result.add(amounts.isEmpty() ? null : (double) sum / amounts.size());
+        result.add(matching.isEmpty() ? null : matching.stream().mapToDouble(row -> (Double) row[3]).sum());
+        result.add(matching.stream().map(row -> (String) row[1]).filter(Objects::nonNull).min(Comparator.naturalOrder()).orElse(null));
+        return result;
+    }
+    private static List<Object> values(List<Row> result) {
+        assertEquals(1, result.size());
+        return Arrays.asList(result.getFirst().getValues());
+    }
+    private static void assertAggregates(List<Object> expected, List<Object> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            if (expected.get(i) instanceof Double value) assertEquals(value, (Double) actual.get(i), 1e-6, "aggregate " + i);
+            else assertEquals(expected.get(i), actual.get(i), "aggregate " + i);
+        }
+    }
+
+    @Test
+    void aggregatesMatchTheRowsTheyAreComputedFrom() {
+        List<Row> all = aggregates(db.select("*").from("orders")).fetch();
+        assertArrayEquals(new String[]{"count(*)", "count(amount)", "sum(amount)", "min(amount)", "max(amount)", "avg(amount)", "sum(price)", "min(tenant)"},
+            all.getFirst().getColumns());
+        assertAggregates(expected(row -> true), values(all));
+
+        // Answered from the index alone, also once the extreme keys are deleted
+        db.delete().from("orders").where().column("amount").isSmaller(-150).end().OR().column("amount").isBigger(750).end().endDeleteClause().execute();
+        db.commit();
+        rows.all().removeIf(row -> row[2] != null && ((int) row[2] < -150 || (int) row[2] > 750));
+        List<Row> bounds = db.select("*").from("orders").count().count("amount").min("amount").max("amount").fetch();
+        assertEquals(List.of((long) rows.all().size(), expected(row -> true).get(1), -150, 750), values(bounds));
+
+        // WHERE clauses answered through indexes and by a scan, and matching no row
+        assertAggregates(expected(row -> row[2] != null && (int) row[2] >= 0 && (int) row[2] < 100),
+            values(aggregates(db.select("*").from("orders").where().column("amount").isBiggerOrEqual(0).isSmaller(100).end().endSelectClause()).fetch()));
+        assertAggregates(expected(row -> "acme".equals(row[1])),
+            values(aggregates(db.select("*").from("orders").where().column("tenant").isEqual("acme").end().endSelectClause()).fetch()));
+        assertEquals(List.of(rows.stream().filter(row -> row[2] != null && (int) row[2] == 37).count()),
+            values(db.select("*").from("orders").where().column("amount").isEqual(37).end().endSelectClause().count().fetch()));
+        assertAggregates(expected(row -> false),
+            values(aggregates(db.select("*").from("orders").where().column("amount").isBigger(5000).end().endSelectClause()).fetch()));
+
+        assertThrows(IllegalArgumentException.class, () -> db.select("*").from("orders").sum("tenant").fetch());
+        assertThrows(IllegalArgumentException.class, () -> db.select("*").from("orders").max("missing").fetch());
+    }
+
+    @Test
+    void groupsAreOrderedAndPagedLikeRows() {
+        Map<String, long[]> expected = new LinkedHashMap<>(); // tenant -> count, sum of amount
+        for (Object[] row : rows.all()) {
+            long[] group = expected.computeIfAbsent((String) row[1], tenant -> new long[2]);
+            group[0]++;
+            if (row[2] != null) group[1] += (int) row[2];
+        }
+        List<Row> groups = db.select("tenant").from("orders").groupBy("tenant").count().sum("amount").fetch();
+        assertEquals(expected.size(), groups.size());
+        for (Row group : groups) {
+            assertArrayEquals(new String[]{"tenant", "count(*)", "sum(amount)"}, group.getColumns());
+            long[] values = expected.get((String) group.get("tenant"));
+            assertEquals(values[0], group.get("count(*)"));
+            assertEquals(values[1], group.get("sum(amount)"));
+        }
+
+        // Ordered by an aggregate before the offset and limit apply
+        List<String> bySum = expected.entrySet().stream()
+            .sorted(Comparator.comparingLong((Map.Entry<String, long[]> entry) -> entry.getValue()[1]).reversed())
+            .map(Map.Entry::getKey).skip(1).limit(2).toList();
+        assertEquals(bySum, db.select("tenant").from("orders").groupBy("tenant").sum("amount").DEC("sum(amount)").begin(1).limit(2)
+            .stream().map(row -> row.get("tenant")).toList());
+
+        // Grouping by several columns of a filtered select
+        List<Row> pairs = db.select("*").from("orders").where().column("id").isSmaller(100).end().endSelectClause()
+            .groupBy("tenant", "price").count().fetch();
+        assertEquals(rows.stream().filter(row -> (int) row[0] < 100).map(row -> List.of(Objects.toString(row[1]), row[3])).distinct().count(), pairs.size());
+        assertEquals(100L, pairs.stream().mapToLong(row -> (Long) row.get("count(*)")).sum());
+
+        assertThrows(IllegalArgumentException.class, () -> db.select("id").from("orders").groupBy("tenant").count().fetch());
+    }
+
+    @Test
+    void sessionsAggregateTheirOwnWrites() {
+        try (Session session = db.openSession()) {
+            session.insert("orders", new Row("id,tenant,amount,price", new Object[]{ROWS, "acme", 5000, 1.0}));
+            session.delete().from("orders").where().column("id").isEqual(1).end().endDeleteClause().execute();
+            List<Row> result = session.select("*").from("orders").count().max("amount").fetch();
+            assertEquals(List.of((long) ROWS, 5000), values(result));
+            // Other transactions only see committed rows
+            assertEquals(List.of((long) ROWS), values(db.select("*").from("orders").count().fetch()));
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.database.tttdb.CRUD;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.database.tttdb.api.Condition.WhereClause;
+import com.database.tttdb.api.Query.SelectType;
+import com.database.tttdb.api.Query.SelectionType;
+import com.database.tttdb.api.Schema;
+import com.database.tttdb.core.Compactor;
+import com.database.tttdb.core.Database;
+import com.database.tttdb.core.execution.Operator;
+import com.database.tttdb.core.page.Entry;
+import com.database.tttdb.core.page.IndexPage;
+import com.database.tttdb.core.page.Page;
+import com.database.tttdb.core.page.TablePage;
+import com.database.tttdb.core.table.DataType;
+import com.database.tttdb.core.table.Table;
+
+class CompactionTest {
+    private static final int ROWS = 3000;
+    private static final int KEPT_FROM = 2700;
+
+    @TempDir
+    Path tempDir;
+
+    private Database database;
+    private Table table;
+
+    @BeforeEach
+    void setUp() {
+        database = new Database("compactDB", null, 100);
+        database.setPath(tempDir.toString() + File.separator);
+        database.createTable("items", new Schema()
+            .column("id").type(DataType.INT).primaryKey().endColumn()
+            .column("num").type(DataType.INT).index().endColumn()
+            .column("name").type(DataType.CHAR).size(20).endColumn());
+        database.start();
+        table = database.getTable("items");
+        for (int i = 0; i < ROWS; i++) {
+            Entry entry = Entry.prepareEntry(new String[]{"id", "num", "name"}, new Object[]{i, i % 50, "name" + i}, table);
+            table.insertUnsafe(entry);
+        }
+        // Keep only the rows stored at the tail of the files
+        table.delete(new WhereClause().column("id").isSmaller(KEPT_FROM).end(), -1);
+        database.commit();
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.removeAllTables();
+        database.close();
+    }
+
+    @Test
+    void compactionMovesTailRowsIntoHolesAndTruncates() {
+        int pagesBefore = table.getPages();
+        Compactor compactor = database.getCompactor();
+        while (!compactor.runPass(500)) { }
+
+        int tableCapacity = Page.getPageCapacity(TablePage.sizeOfEntry(table));
+        int kept = ROWS - KEPT_FROM;
+        assertEquals((kept + tableCapacity - 1) / tableCapacity, table.getPages());
+        assertTrue(table.getPages() < pagesBefore);
+        int indexCapacity = Page.getPageCapacity(IndexPage.sizeOfEntry(table, 1));
+        assertEquals((kept + indexCapacity - 1) / indexCapacity, table.getIndexManager().getPages(1));
+
+        Compactor.Metrics metrics = compactor.getMetrics();
+        assertEquals(kept, metrics.rowsMoved());
+        assertTrue(metrics.indexEntriesMoved() > 0);
+        assertTrue(metrics.pagesReleased() > 0);
+        assertTrue(metrics.dense());
+
+        for (int i = KEPT_FROM; i < ROWS; i++) {
+            assertTrue(table.containsKey(i, 0), "missing id " + i);
+        }
+        List<Entry> sevens = table.select(new WhereClause().column("num").isEqual(7).end(), 0, -1, new SelectType(SelectionType.NORMAL, null));
+        assertEquals(kept / 50, sevens.size());
+        sevens.forEach(e -> assertEquals(7, e.get(1)));
+
+        database.commit();
+        database.close();
+        long pageSize = Page.pageSizeInBytes(TablePage.sizeOfEntry(table));
+        assertEquals(table.getPages() * pageSize, new File(table.getPath()).length());
+        database.start();
+    }
+
+    @Test
+    void compactedTableSurvivesRestart() {
+        while (!database.getCompactor().runPass(500)) { }
+        database.commit();
+        database.close();
+
+        Database reopened = new Database("compactDB", null, 100);
+        reopened.setPath(tempDir.toString() + File.separator);
+        reopened.createTable("items", new Schema()
+            .column("id").type(DataType.INT).primaryKey().endColumn()
+            .column("num").type(DataType.INT).index().endColumn()
+            .column("name").type(DataType.CHAR).size(20).endColumn());
+        reopened.start();
+        Table items = reopened.getTable("items");
+        assertEquals(table.getPages(), items.getPages());
+        for (int i = KEPT_FROM; i < ROWS; i++) {
+            assertTrue(items.containsKey(i, 0), "missing id " + i);
+        }
+        assertFalse(items.containsKey(0, 0));
+        reopened.close();
+        database.start();
+    }
+
+    @Test
+    void backgroundThreadCompactsWhenIdle() throws InterruptedException {
+        Compactor compactor = database.getCompactor();
+        compactor.setIdleMillis(0);
+        compactor.setEnabled(true);
+        compactor.pause();
+        compactor.start();
+        Thread.sleep(3 * Compactor.TICK_MILLIS);
+        assertEquals(0, compactor.getMetrics().passes(), "paused compactor must not run");
+        compactor.resume();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!compactor.getMetrics().dense() && System.currentTimeMillis() < deadline) Thread.sleep(Compactor.TICK_MILLIS);
+        compactor.shutdown();
+        assertTrue(compactor.getMetrics().dense());
+        assertEquals(ROWS - KEPT_FROM, compactor.getMetrics().rowsMoved());
+    }
+
+    @Test
+    void passIsSkippedWhileATransactionIsOpen() {
+        database.startTransaction("user");
+        assertFalse(database.getCompactor().runPass(500));
+        assertEquals(1, database.getCompactor().getMetrics().skippedBusy());
+        assertEquals(0, database.getCompactor().getMetrics().rowsMoved());
+        database.rollBack("done");
+    }
+
+    @Test
+    void passIsSkippedWhileATableScanIsOpen() throws InterruptedException {
+        Compactor compactor = database.getCompactor();
+        SelectType storageOrder = new SelectType(SelectionType.NORMAL, null);
+        Operator scan = table.open(null, 0, -1, storageOrder);
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 10; i++) ids.add((Integer) scan.next().get(0));
+        assertFalse(compactor.runPass(500));
+        assertEquals(0, compactor.getMetrics().rowsMoved());
+        scan.stream().forEach(entry -> ids.add((Integer) entry.get(0)));
+        assertEquals(IntStream.range(KEPT_FROM, ROWS).boxed().toList(), ids.stream().sorted().toList());
+
+        // An exhausted scan no longer holds the compactor back, nor does a closed one
+        assertEquals(0, compactor.getMetrics().oldestScanMillis());
+        Operator closed = table.open(null, 0, -1, storageOrder);
+        closed.next();
+        assertFalse(compactor.runPass(500));
+        assertEquals(2, compactor.getMetrics().skippedBusy());
+        assertEquals(2, compactor.getMetrics().skippedScans());
+        // The age of the scan holding the compactor back grows until it is closed
+        long age = compactor.getMetrics().oldestScanMillis();
+        Thread.sleep(20);
+        assertTrue(compactor.getMetrics().oldestScanMillis() >= age + 20);
+        closed.close();
+        assertEquals(0, compactor.getMetrics().oldestScanMillis());
+        while (!compactor.runPass(500)) { }
+        assertEquals(ROWS - KEPT_FROM, compactor.getMetrics().rowsMoved());
+    }
+}
@@ -0,0 +1,202 @@
+package com.database.tttdb.CRUD;
+
+import static com.database.tttdb.CRUD.InsertedRows.ids;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.database.tttdb.api.Condition.WhereClause;
+import com.database.tttdb.api.DBMS;
+import com.database.tttdb.api.DatabaseException.SchemaException;
+import com.database.tttdb.api.Query.SelectType;
+import com.database.tttdb.api.Query.SelectionType;
+import com.database.tttdb.api.Schema;
+import com.database.tttdb.core.Database;
+import com.database.tttdb.core.page.Entry;
+import com.database.tttdb.core.table.DataType;
+import com.database.tttdb.core.table.Table;
+
+class CompositeIndexTest {
+    private static final int ROWS = 2000;
+    private static final LocalDate EPOCH = LocalDate.of(2024, 1, 1);
+
+    @TempDir
+    Path tempDir;
+
+    private DBMS db;
+    private final InsertedRows rows = new InsertedRows("id", "tenant_id", "created_at", "kind");
+
+    private static Schema schema() {
+        return new Schema()
+            .column("id").type(DataType.INT).primaryKey().endColumn()
+            .column("tenant_id").type(DataType.INT).endColumn()
+            .column("created_at").type(DataType.DATE).endColumn()
+            .column("kind").type(DataType.CHAR).size(10).endColumn()
+            .index("tenant_created", "tenant_id", "created_at");
+    }
+
+    @BeforeEach
+    void setUp() {
+        db = new DBMS()
+            .addDatabase("compositeDB", 100)
+            .setPath(tempDir.toString() + "/")
+            .addTable("events", schema())
+            .start();
+        for (int i = 0; i < ROWS; i++) {
+            LocalDate created = i % 97 == 0 ? null : EPOCH.plusDays(i % 60);
+            rows.insert(db, "events", i, i % 7, created, i % 2 == 0 ? "even" : "odd");
+        }
+        db.commit();
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.dropDatabase();
+        db.close();
+    }
+
+    private static boolean between(Object[] row, LocalDate from, LocalDate to) {
+        LocalDate created = (LocalDate) row[2];
+        return created != null && !created.isBefore(from) && created.isBefore(to);
+    }
+
+    @Test
+    void prefixEqualityAndTrailingRange() {
+        LocalDate from = EPOCH.plusDays(10);
+        LocalDate to = EPOCH.plusDays(20);
+        Set<Integer> found = ids(db.select("id").from("events").where()
+            .column("tenant_id").isEqual(3).end()
+            .AND().column("created_at").isBiggerOrEqual(from).isSmaller(to).end()
+            .endSelectClause());
+        assertEquals(rows.ids(row -> (int) row[1] == 3 && between(row, from, to)), found);
+        assertFalse(found.isEmpty());
+
+        // Strict lower bound and inclusive upper bound, conditions given in the opposite order
+        found = ids(db.select("id").from("events").where()
+            .column("created_at").isBigger(from).isSmallerOrEqual(to).end()
+            .AND().column("tenant_id").isEqual(3).end()
+            .endSelectClause());
+        assertEquals(rows.ids(row -> (int) row[1] == 3 && between(row, from.plusDays(1), to.plusDays(1))), found);
+
+        // Open-ended range never matches null dates
+        found = ids(db.select("id").from("events").where()
+            .column("tenant_id").isEqual(0).end()
+            .AND().column("created_at").isSmaller(to).end()
+            .endSelectClause());
+        assertEquals(rows.ids(row -> (int) row[1] == 0 && between(row, LocalDate.MIN, to)), found);
+    }
+
+    @Test
+    void uncoveredConditionsAreStillApplied() {
+        LocalDate day = EPOCH.plusDays(5);
+        Set<Integer> found = ids(db.select("id").from("events").where()
+            .column("tenant_id").isEqual(5).end()
+            .AND().column("kind").isEqual("odd").end()
+            .AND().column("created_at").isEqual(day).end()
+            .OR().column("id").isEqual(1).end()
+            .endSelectClause());
+        assertEquals(rows.ids(row -> (int) row[1] == 5 && (int) row[0] % 2 == 1 && day.equals(row[2]) || (int) row[0] == 1), found);
+
+        // Equality on the first column alone uses the index prefix
+        found = ids(db.select("id").from("events").where().column("tenant_id").isEqual(6).end().endSelectClause());
+        assertEquals(rows.ids(row -> (int) row[1] == 6), found);
+    }
+
+    @Test
+    void indexFollowsWritesAndRollback() {
+        db.delete().from("events").where().column("tenant_id").isEqual(1).end().endDeleteClause().execute();
+        db.update("events").set().selectColumn("tenant_id").set(1).endUpdate()
+            .where().column("tenant_id").isEqual(2).end().endUpdateClause().execute();
+        db.commit();
+        rows.all().removeIf(row -> (int) row[1] == 1);
+        rows.all().forEach(row -> { if ((int) row[1] == 2) row[1] = 1; });
+        assertEquals(rows.ids(row -> (int) row[1] == 1), ids(db.select("id").from("events").where().column("tenant_id").isEqual(1).end().endSelectClause()));
+        assertTrue(ids(db.select("id").from("events").where().column("tenant_id").isEqual(2).end().endSelectClause()).isEmpty());
+
+        db.startTransaction("moveTenant");
+        db.update("events").set().selectColumn("tenant_id").set(2).endUpdate()
+            .where().column("tenant_id").isEqual(1).end().endUpdateClause().execute();
+        db.rollBack("undo");
+        assertEquals(rows.ids(row -> (int) row[1] == 1), ids(db.select("id").from("events").where().column("tenant_id").isEqual(1).end().endSelectClause()));
+
+        // Rebuilt from the table on restart
+        db.close();
+        db = new DBMS()
+            .addDatabase("compositeDB", 100)
+            .setPath(tempDir.toString() + "/")
+            .addTable("events", schema())
+            .start();
+        LocalDate from = EPOCH.plusDays(30);
+        assertEquals(rows.ids(row -> (int) row[1] == 4 && between(row, from, LocalDate.MAX)),
+            ids(db.select("id").from("events").where()
+                .column("tenant_id").isEqual(4).end()
+                .AND().column("created_at").isBiggerOrEqual(from).end()
+                .endSelectClause()));
+    }
+
+    @Test
+    void coveringIndexAnswersSelectsWithoutTablePages() {
+        Database database = new Database("coveringDB", null, 100);
+        database.setPath(tempDir.toString() + "/");
+        database.createTable("users", new Schema()
+            .column("id").type(DataType.INT).primaryKey().endColumn()
+            .column("username").type(DataType.VARCHAR).size(20).endColumn()
+            .column("age").type(DataType.INT).endColumn()
+            .index("id_username", new String[]{"id"}, new String[]{"username"}));
+        database.start();
+        Table users = database.getTable("users");
+        for (int i = 0; i < 500; i++)
+            users.insertUnsafe(Entry.prepareEntry(new String[]{"id", "username", "age"}, new Object[]{i, i % 50 == 0 ? null : "user\0" + i, 20 + i % 30}, users));
+        database.commit();
+
+        // Columns the index does not hold stay null in index-only entries
+        WhereClause byId = new WhereClause().column("id").isBiggerOrEqual(100).isSmaller(110).end();
+        List<Entry> entries = users.select(byId, 0, -1, new SelectType(SelectionType.DESCENDING, "id"), new String[]{"id", "username"});
+        assertEquals(10, entries.size());
+        for (int i = 0; i < 10; i++) {
+            Entry entry = entries.get(i);
+            assertEquals(109 - i, entry.get(0));
+            assertEquals(entry.get(0).equals(100) ? null : "user\0" + entry.get(0), entry.get(1));
+            assertNull(entry.get(2));
+        }
+        // Conditions on included columns are evaluated on the index values
+        entries = users.select(new WhereClause().column("id").isSmaller(200).end().AND().column("username").isEqual("user\0" + 42).end(),
+            0, -1, new SelectType(SelectionType.NORMAL, null), new String[]{"id"});
+        assertEquals(List.of(42), entries.stream().map(e -> e.get(0)).toList());
+        assertEquals(5, users.select(null, 10, 5, new SelectType(SelectionType.NORMAL, null), new String[]{"username"}).size());
+
+        // Reading a column outside the index falls back to table pages
+        entries = users.select(byId, 0, -1, new SelectType(SelectionType.NORMAL, null), new String[]{"id", "age"});
+        assertEquals(10, entries.size());
+        entries.forEach(entry -> assertEquals(20 + (int) entry.get(0) % 30, entry.get(2)));
+        database.removeAllTables();
+        database.close();
+    }
+
+    @Test
+    void invalidIndexesAreRejected() {
+        Database database = new Database("invalidDB", null, 10);
+        assertThrows(SchemaException.class, () -> new Schema().column("a").type(DataType.INT).endColumn()
+            .index("single", "a").get(database));
+        assertThrows(SchemaException.class, () -> new Schema().column("a").type(DataType.INT).endColumn()
+            .index("missing", "a", "nope").get(database));
+        assertThrows(SchemaException.class, () -> new Schema().column("a").type(DataType.INT).endColumn()
+            .index("repeated", "a", "a").get(database));
+        assertThrows(SchemaException.class, () -> new Schema()
+            .column("a").type(DataType.INT).endColumn()
+            .column("b").type(DataType.BYTE).size(4).endColumn()
+            .index("bytes", "a", "b").get(database));
+        assertThrows(SchemaException.class, () -> new Schema()
+            .column("a").type(DataType.INT).endColumn()
+            .column("c").type(DataType.INT).endColumn()
+            .index("twice", "a", "c").index("twice", "c", "a").get(database));
+    }
+}
@@ -0,0 +1,143 @@
+package com.database.tttdb.CRUD;
+
+import static com.database.tttdb.CRUD.InsertedRows.ids;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.database.tttdb.api.Condition.WhereClause;
+import com.database.tttdb.api.DatabaseException.SchemaException;
+import com.database.tttdb.api.Functions;
+import com.database.tttdb.api.Schema;
+import com.database.tttdb.core.Database;
+import com.database.tttdb.core.index.DerivedIndex;
+import com.database.tttdb.core.page.Entry;
+import com.database.tttdb.core.table.DataType;
+import com.database.tttdb.core.table.Table;
+
+class DerivedIndexTest {
+    private static final int ROWS = 1500;
+
+    @TempDir
+    Path tempDir;
+
+    private Database database;
+    private Table users;
+    private final InsertedRows rows = new InsertedRows("id", "username", "active");
+
+    private Database open() {
+        Database db = new Database("derivedDB", null, 100);
+        db.setPath(tempDir.toString() + "/");
+        db.createTable("users", new Schema()
+            .column("id").type(DataType.INT).primaryKey().endColumn()
+            .column("username").type(DataType.VARCHAR).size(20).endColumn()
+            .column("active").type(DataType.BOOLEAN).endColumn()
+            .index("lower_username").column("username").expression(new Functions.lowerCase()).endIndex()
+            .index("active_id").column("id").where(new WhereClause().column("active").isEqual(true).end()).endIndex());
+        db.start();
+        return db;
+    }
+
+    @BeforeEach
+    void setUp() {
+        database = open();
+        users = database.getTable("users");
+        for (int i = 0; i < ROWS; i++) {
+            String username = i % 100 == 0 ? null : (i % 2 == 0 ? "User" : "USER") + (i % 500);
+            rows.insert(users, i, username, i % 10 == 0);
+        }
+        database.commit();
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.removeAllTables();
+        database.close();
+    }
+
+    private DerivedIndex<?> index(String name) {
+        return users.getIndexManager().getDerivedIndexes().stream().filter(i -> i.getName().equals(name)).findFirst().orElseThrow();
+    }
+
+    @Test
+    void expressionIndexAnswersConditionsOnTheSameFunction() {
+        assertEquals(ROWS, index("lower_username").size());
+        Set<Integer> found = ids(users, new WhereClause().column("username").apply(new Functions.lowerCase()).isEqual("user42").end());
+        assertEquals(rows.ids(row -> row[1] != null && ((String) row[1]).equalsIgnoreCase("user42")), found);
+        assertEquals(3, found.size());
+
+        // Range over the expression, combined with a plain condition
+        found = ids(users, new WhereClause().column("username").apply(new Functions.lowerCase()).isBiggerOrEqual("user40").isSmaller("user41").end()
+            .AND().column("id").isSmaller(800).end());
+        assertEquals(rows.ids(row -> row[1] != null && ((String) row[1]).toLowerCase().compareTo("user40") >= 0
+            && ((String) row[1]).toLowerCase().compareTo("user41") < 0 && (int) row[0] < 800), found);
+
+        // A different function is evaluated by scanning
+        found = ids(users, new WhereClause().column("username").apply(new Functions.upperCase()).isEqual("USER42").end());
+        assertEquals(rows.ids(row -> row[1] != null && ((String) row[1]).equalsIgnoreCase("user42")), found);
+    }
+
+    @Test
+    void partialIndexHoldsOnlyMatchingRows() {
+        assertEquals(ROWS / 10, index("active_id").size());
+        Set<Integer> found = ids(users, new WhereClause().column("active").isEqual(true).end()
+            .AND().column("id").isBiggerOrEqual(100).isSmaller(300).end());
+        assertEquals(rows.ids(row -> (boolean) row[2] && (int) row[0] >= 100 && (int) row[0] < 300), found);
+        assertEquals(20, found.size());
+
+        // Without the filter condition the partial index must not be used
+        found = ids(users, new WhereClause().column("id").isBiggerOrEqual(100).isSmaller(110).end()
+            .OR().column("active").isEqual(true).end());
+        assertEquals(rows.ids(row -> (int) row[0] >= 100 && (int) row[0] < 110 || (boolean) row[2]), found);
+    }
+
+    @Test
+    void indexesFollowWritesAndRollback() {
+        DerivedIndex<?> active = index("active_id");
+        Entry old = users.select(new WhereClause().column("id").isEqual(1).end(), 0, -1, InsertedRows.NORMAL).getFirst();
+        database.startTransaction("activate");
+        Entry activated = Entry.prepareEntry(new String[]{"id", "username", "active"}, new Object[]{1, "Renamed", true}, users);
+        users.updateIndex(old, activated, old.getRowId());
+        assertEquals(ROWS / 10 + 1, active.size());
+        assertEquals(ROWS + 0, index("lower_username").size());
+        database.rollBack("undo");
+        assertEquals(ROWS / 10, active.size());
+        assertEquals(rows.ids(row -> "USER1".equals(row[1])), ids(users, new WhereClause().column("username").apply(new Functions.lowerCase()).isEqual("user1").end()));
+
+        users.delete(new WhereClause().column("active").isEqual(true).end().AND().column("id").isSmaller(500).end(), -1);
+        database.commit();
+        rows.all().removeIf(row -> (boolean) row[2] && (int) row[0] < 500);
+        assertEquals(ROWS / 10 - 50, active.size());
+        assertEquals(rows.all().size(), index("lower_username").size());
+
+        // Rebuilt from the table on restart
+        database.close();
+        database = open();
+        users = database.getTable("users");
+        assertEquals(ROWS / 10 - 50, index("active_id").size());
+        assertEquals(rows.ids(row -> (boolean) row[2] && (int) row[0] < 1000),
+            ids(users, new WhereClause().column("id").isSmaller(1000).end().AND().column("active").isEqual(true).end()));
+    }
+
+    @Test
+    void invalidIndexesAreRejected() {
+        Database db = new Database("invalidDB", null, 10);
+        assertThrows(SchemaException.class, () -> new Schema()
+            .column("a").type(DataType.INT).endColumn()
+            .column("b").type(DataType.INT).endColumn()
+            .index("two").columns("a", "b").expression(new Functions.lowerCase()).endIndex().get(db));
+        assertThrows(SchemaException.class, () -> new Schema()
+            .column("a").type(DataType.INT).endColumn()
+            .index("unknown").column("a").where(new WhereClause().column("nope").isEqual(1).end()).endIndex().get(db));
+        assertThrows(SchemaException.class, () -> new Schema()
+            .column("a").type(DataType.INT).endColumn()
+            .column("b").type(DataType.INT).endColumn()
+            .index("or").column("a").where(new WhereClause().column("b").isEqual(1).end().OR().column("b").isEqual(2).end()).endIndex().get(db));
+    }
+}
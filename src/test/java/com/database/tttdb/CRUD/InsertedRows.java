@@ -0,0 +1,64 @@
+package com.database.tttdb.CRUD;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.database.tttdb.api.Condition.WhereClause;
+import com.database.tttdb.api.DBMS;
+import com.database.tttdb.api.Query.Select;
+import com.database.tttdb.api.Query.SelectType;
+import com.database.tttdb.api.Query.SelectionType;
+import com.database.tttdb.api.Row;
+import com.database.tttdb.core.page.Entry;
+import com.database.tttdb.core.table.Table;
+
+/**
+ * Rows a test inserted into one table, kept in insertion order as the oracle query results
+ * are compared with. The first column of the table is an {@code INT} id.
+ */
+final class InsertedRows {
+    static final SelectType NORMAL = new SelectType(SelectionType.NORMAL, null);
+
+    private final String[] columns;
+    private final List<Object[]> rows = new ArrayList<>();
+
+    /**
+     * @param columns names of the inserted columns, the id first; the values of every row
+     *        are given in this order
+     */
+    InsertedRows(String... columns) {
+        this.columns = columns;
+    }
+
+    /** Inserts a row through the table and keeps a copy of its values. */
+    void insert(Table table, Object... values) {
+        this.rows.add(values.clone());
+        table.insertUnsafe(Entry.prepareEntry(this.columns, values, table));
+    }
+    /** Inserts a row through the DBMS API and keeps a copy of its values. */
+    void insert(DBMS db, String table, Object... values) {
+        this.rows.add(values.clone());
+        db.insertUnsafe(table, new Row(this.columns, values));
+    }
+
+    /** @return the kept rows, which a test updates along with the table */
+    List<Object[]> all() { return this.rows; }
+    Stream<Object[]> stream() { return this.rows.stream(); }
+
+    /** @return ids of the kept rows matching {@code filter} */
+    Set<Integer> ids(Predicate<Object[]> filter) {
+        return this.rows.stream().filter(filter).map(row -> (Integer) row[0]).collect(Collectors.toSet());
+    }
+    /** @return ids of the rows of {@code table} matching {@code where} */
+    static Set<Integer> ids(Table table, WhereClause where) {
+        return table.select(where, 0, -1, NORMAL).stream().map(entry -> (Integer) entry.get(0)).collect(Collectors.toSet());
+    }
+    /** @return ids of the rows a select returns, the select reading the {@code id} column */
+    static Set<Integer> ids(Select select) {
+        return select.fetch().stream().map(row -> (Integer) row.get("id")).collect(Collectors.toSet());
+    }
+}
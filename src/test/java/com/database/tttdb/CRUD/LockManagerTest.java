@@ -0,0 +1,134 @@
+package com.database.tttdb.CRUD;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.database.tttdb.api.DatabaseException.DeadlockException;
+import com.database.tttdb.api.DatabaseException.LockTimeoutException;
+import com.database.tttdb.core.manager.LockManager;
+import com.database.tttdb.core.manager.LockManager.KeyRange;
+import com.database.tttdb.core.manager.LockManager.LockMode;
+import com.database.tttdb.core.manager.LockManager.RowLock;
+import com.database.tttdb.core.manager.LockManager.TableLock;
+
+class LockManagerTest {
+
+    private LockManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new LockManager();
+        manager.setTimeoutMillis(100);
+    }
+
+    private void awaitWaiters(long waits) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (manager.getMetrics().waits() < waits && System.nanoTime() < deadline) Thread.sleep(5);
+        Thread.sleep(20);
+    }
+
+    @Test
+    void compatibleModesShareAndUpgradesCombine() {
+        TableLock table = new TableLock("t");
+        try (LockManager.Handle first = manager.begin("first"); LockManager.Handle second = manager.begin("second")) {
+            first.lock(table, LockMode.S);
+            second.lock(table, LockMode.IS);
+            second.lock(new RowLock("t", 1), LockMode.S);
+            first.lock(new RowLock("t", 2), LockMode.X);
+            assertEquals(LockMode.SIX, first.getMode(table), "S combined with the IX of a row lock is SIX");
+            assertThrows(LockTimeoutException.class, () -> second.lock(new RowLock("t", 2), LockMode.S));
+            assertEquals(LockMode.S, second.getMode(new RowLock("t", 1)), "A failed request keeps the other locks");
+        }
+        LockManager.Metrics metrics = manager.getMetrics();
+        assertEquals(1, metrics.timeouts());
+        assertEquals(1, metrics.waits());
+        assertTrue(metrics.waitMillis() >= 100);
+        assertEquals(0, metrics.lockedResources(), "Closing handles releases everything");
+    }
+
+    @Test
+    void waitersAreGrantedOnRelease() throws Exception {
+        manager.setTimeoutMillis(5_000);
+        LockManager.Handle holder = manager.begin("holder");
+        holder.lock(new RowLock("t", 1), LockMode.X);
+        CompletableFuture<LockMode> waiter = CompletableFuture.supplyAsync(() -> {
+            try (LockManager.Handle handle = manager.begin("waiter")) {
+                handle.lock(new RowLock("t", 1), LockMode.X);
+                // The lock granted after the holder released the row is seen by other handles
+                try (LockManager.Handle other = manager.begin("other")) {
+                    manager.setTimeoutMillis(50);
+                    assertThrows(LockTimeoutException.class, () -> other.lock(new RowLock("t", 1), LockMode.S));
+                }
+                assertEquals(2, manager.getMetrics().lockedResources());
+                return handle.getMode(new RowLock("t", 1));
+            }
+        });
+        awaitWaiters(1);
+        assertFalse(waiter.isDone());
+        holder.close();
+        assertEquals(LockMode.X, waiter.get(5, TimeUnit.SECONDS));
+        assertEquals(0, manager.getMetrics().lockedResources());
+    }
+
+    @Test
+    void failedRequestsLeaveNoLockBehind() {
+        try (LockManager.Handle holder = manager.begin("holder"); LockManager.Handle waiter = manager.begin("waiter")) {
+            holder.lock(new RowLock("t", 1), LockMode.X);
+            holder.lockRange(new KeyRange("t", 0, 10, 20), LockMode.S);
+            waiter.lock(new TableLock("u"), LockMode.IS);
+            assertThrows(LockTimeoutException.class, () -> waiter.lock(new RowLock("t", 1), LockMode.S));
+            assertThrows(LockTimeoutException.class, () -> waiter.lockRange(KeyRange.point("t", 0, 15), LockMode.IX));
+            // Tables t and u, row 1 and the range of the holder
+            assertEquals(4, manager.getMetrics().lockedResources());
+            holder.close();
+            assertEquals(2, manager.getMetrics().lockedResources(), "The waiter only holds its table locks");
+        }
+        assertEquals(0, manager.getMetrics().lockedResources());
+    }
+
+    @Test
+    void deadlockIsDetectedInsteadOfTimingOut() throws Exception {
+        manager.setTimeoutMillis(10_000);
+        LockManager.Handle first = manager.begin("first");
+        LockManager.Handle second = manager.begin("second");
+        first.lock(new RowLock("t", 1), LockMode.X);
+        second.lock(new RowLock("t", 2), LockMode.X);
+        CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> second.lock(new RowLock("t", 1), LockMode.X));
+        awaitWaiters(1);
+
+        long start = System.nanoTime();
+        assertThrows(DeadlockException.class, () -> first.lock(new RowLock("t", 2), LockMode.X));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(1, manager.getMetrics().deadlocks());
+        assertEquals(3, manager.getMetrics().lockedResources(), "Table t and rows 1 and 2");
+
+        first.close();
+        blocked.get(5, TimeUnit.SECONDS);
+        assertEquals(LockMode.X, second.getMode(new RowLock("t", 1)));
+        second.close();
+        assertEquals(0, manager.getMetrics().lockedResources());
+    }
+
+    @Test
+    void keyRangesBlockInsertsIntoScannedRanges() {
+        try (LockManager.Handle scanner = manager.begin("scanner");
+             LockManager.Handle inserter = manager.begin("inserter");
+             LockManager.Handle other = manager.begin("other")) {
+            scanner.lockRange(new KeyRange("t", 0, 10, 20), LockMode.S);
+            other.lockRange(new KeyRange("t", 0, 15, 20), LockMode.S);
+
+            inserter.lockRange(KeyRange.point("t", 0, 25), LockMode.IX);
+            inserter.lockRange(KeyRange.point("t", 1, 15), LockMode.IX);
+            other.lockRange(KeyRange.point("t", 0, 5), LockMode.IX);
+            assertThrows(LockTimeoutException.class, () -> inserter.lockRange(KeyRange.point("t", 0, 12), LockMode.IX));
+            assertThrows(LockTimeoutException.class, () -> scanner.lockRange(new KeyRange("t", 0, null, 5), LockMode.S));
+            assertEquals(LockMode.IS, scanner.getMode(new TableLock("t")));
+            assertEquals(LockMode.IX, inserter.getMode(new TableLock("t")));
+        }
+    }
+}
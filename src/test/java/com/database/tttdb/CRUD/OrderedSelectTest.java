@@ -0,0 +1,212 @@
+package com.database.tttdb.CRUD;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.database.tttdb.api.DBMS;
+import com.database.tttdb.api.Query.Select;
+import com.database.tttdb.api.Row;
+import com.database.tttdb.api.Schema;
+import com.database.tttdb.core.Database;
+import com.database.tttdb.core.execution.Limit;
+import com.database.tttdb.core.execution.Operator;
+import com.database.tttdb.core.execution.Sort;
+import com.database.tttdb.core.execution.TableScan;
+import com.database.tttdb.core.page.Entry;
+import com.database.tttdb.core.table.DataType;
+import com.database.tttdb.core.table.Table;
+
+class OrderedSelectTest {
+    private static final int ROWS = 3000;
+    private static final Comparator<Integer> NULLS_FIRST = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    @TempDir
+    Path tempDir;
+
+    private DBMS db;
+    private final InsertedRows rows = new InsertedRows("id", "score", "rank");
+
+    @BeforeEach
+    void setUp() {
+        db = new DBMS()
+            .addDatabase("orderDB", 100)
+            .setPath(tempDir.toString() + "/")
+            .addTable("players", new Schema()
+                .column("id").type(DataType.INT).primaryKey().endColumn()
+                .column("score").type(DataType.INT).index().endColumn()
+                .column("rank").type(DataType.INT).endColumn())
+            .start();
+        for (int i = 0; i < ROWS; i++) {
+            Integer score = i % 41 == 0 ? null : (i * 7919) % 1000;
+            Integer rank = i % 37 == 0 ? null : (i * 104729) % 5000;
+            rows.insert(db, "players", i, score, rank);
+        }
+        db.commit();
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.dropDatabase();
+        db.close();
+    }
+
+    // Expected values of a column, ordered with ties broken arbitrarily, so only the ordered column is compared
+    private List<Integer> expected(int column, boolean descending, Predicate<Object[]> filter, int begin, int limit) {
+        Comparator<Integer> order = descending ? NULLS_FIRST.reversed() : NULLS_FIRST;
+        Stream<Integer> values = rows.stream().filter(filter).map(row -> (Integer) row[column]).sorted(order).skip(begin);
+        return (limit < 0 ? values : values.limit(limit)).toList();
+    }
+    private static List<Integer> column(List<Row> result, String name) {
+        return result.stream().map(row -> (Integer) row.get(name)).toList();
+    }
+
+    @Test
+    void limitAppliesAfterOrdering() {
+        assertEquals(List.of(2999, 2998, 2997, 2996, 2995),
+            column(db.select("id").from("players").DEC("id").limit(5).fetch(), "id"));
+        assertEquals(List.of(10, 11, 12),
+            column(db.select("id").from("players").ASC("id").begin(10).limit(3).fetch(), "id"));
+        // Ordered by a column without an index: top-N with a limit, full sort without
+        assertEquals(expected(2, true, row -> true, 0, 20),
+            column(db.select("rank").from("players").DEC("rank").limit(20).fetch(), "rank"));
+        assertEquals(expected(2, false, row -> true, 100, -1),
+            column(db.select("rank").from("players").ASC("rank").begin(100).fetch(), "rank"));
+    }
+
+    @Test
+    void indexOrderMatchesSortOrder() {
+        // Null scores come first ascending and last descending, like an in-memory sort
+        assertEquals(expected(1, false, row -> true, 0, -1), column(db.select("score").from("players").ASC("score").fetch(), "score"));
+        assertEquals(expected(1, true, row -> true, 0, -1), column(db.select("score").from("players").DEC("score").stream().toList(), "score"));
+        assertEquals(expected(1, true, row -> true, 50, 25), column(db.select("score").from("players").DEC("score").begin(50).limit(25).fetch(), "score"));
+
+        // Conditions on the ordering column bound the index walk, the other ones filter it
+        Select latest = db.select("score").from("players").where()
+            .column("score").isBigger(500).end()
+            .AND().column("rank").isSmaller(2500).end()
+            .endSelectClause().DEC("score").limit(30);
+        assertEquals(expected(1, true, row -> row[1] != null && (int) row[1] > 500 && row[2] != null && (int) row[2] < 2500, 0, 30),
+            column(latest.fetch(), "score"));
+
+        // A selective clause is answered by its index and sorted
+        Select selective = db.select("rank").from("players").where()
+            .column("id").isBiggerOrEqual(1000).isSmaller(1100).end()
+            .OR().column("score").isEqual(7).end()
+            .endSelectClause().ASC("rank").limit(40);
+        assertEquals(expected(2, false, row -> (int) row[0] >= 1000 && (int) row[0] < 1100 || Integer.valueOf(7).equals(row[1]), 0, 40),
+            column(selective.fetch(), "rank"));
+    }
+
+    @Test
+    void keysetPagesResumeTheIndexWalk() {
+        // Each page starts past the last key of the previous one instead of skipping rows
+        List<Integer> paged = new ArrayList<>();
+        Integer last = null;
+        while (true) {
+            Select page = last == null
+                ? db.select("id").from("players").DEC("id").limit(250)
+                : db.select("id").from("players").where().column("id").isSmaller(last).end().endSelectClause().DEC("id").limit(250);
+            List<Integer> ids = column(page.fetch(), "id");
+            if (ids.isEmpty()) break;
+            paged.addAll(ids);
+            last = ids.getLast();
+        }
+        assertEquals(expected(0, true, row -> true, 0, -1), paged);
+
+        // A walk goes on from its last key after writes between pulls
+        Iterator<Row> walk = db.select("id,score").from("players").ASC("score").limit(ROWS).iterator();
+        List<Row> seen = new ArrayList<>();
+        for (int i = 0; i < 200; i++) seen.add(walk.next());
+        db.delete().from("players").where().column("score").isBigger(900).end().endDeleteClause().execute();
+        db.insertUnsafe("players", new Row("id,score,rank").set("id", ROWS).set("score", 950).set("rank", 1));
+        db.insertUnsafe("players", new Row("id,score,rank").set("id", ROWS + 1).set("score", -1).set("rank", 1));
+        db.commit();
+        walk.forEachRemaining(seen::add);
+        List<Integer> ids = seen.stream().map(row -> (Integer) row.get("id")).toList();
+        assertEquals(ids.size(), new HashSet<>(ids).size());
+        assertTrue(ids.contains(ROWS));
+        assertFalse(ids.contains(ROWS + 1));
+        List<Integer> scores = column(seen, "score");
+        assertEquals(scores.stream().sorted(NULLS_FIRST).toList(), scores);
+        assertEquals(1, scores.stream().filter(score -> score != null && score > 900).count());
+        assertEquals(rows.stream().filter(row -> row[1] == null || (int) row[1] <= 900).count() + 1, seen.size());
+    }
+
+    @Test
+    void offsetPagesOverDuplicateKeysAgree() {
+        // rank has no index and is null for many rows: every page is a top-N heap of another size
+        for (boolean descending : new boolean[]{false, true}) {
+            List<Integer> paged = new ArrayList<>();
+            for (int begin = 0; begin < ROWS; begin += 30) {
+                Select page = db.select("id,rank").from("players").begin(begin).limit(30);
+                paged.addAll(column((descending ? page.DEC("rank") : page.ASC("rank")).fetch(), "id"));
+            }
+            Select all = db.select("id,rank").from("players");
+            assertEquals(column((descending ? all.DEC("rank") : all.ASC("rank")).fetch(), "id"), paged);
+            assertEquals(ROWS, new HashSet<>(paged).size());
+        }
+    }
+
+    private static long runFiles(Table table) throws IOException {
+        try (Stream<Path> files = Files.list(Path.of(table.getPath()).toAbsolutePath().getParent())) {
+            return files.filter(file -> file.toString().endsWith(".run")).count();
+        }
+    }
+
+    @Test
+    void largeSortsSpillRunsToTemporaryFiles() throws IOException {
+        Database database = new Database("spillDB", null, 100);
+        database.setPath(tempDir.toString() + "/spill/");
+        Files.createDirectories(tempDir.resolve("spill"));
+        database.createTable("values", new Schema()
+            .column("id").type(DataType.INT).primaryKey().endColumn()
+            .column("value").type(DataType.LONG).endColumn());
+        database.start();
+        Table table = database.getTable("values");
+        for (int i = 0; i < 1000; i++)
+            table.insertUnsafe(Entry.prepareEntry(new String[]{"id", "value"}, new Object[]{i, i % 3 == 0 ? null : (i * 6007L) % 997}, table));
+        database.commit();
+
+        Comparator<Entry> byValue = Comparator.comparing(e -> (Long) e.get(1), Comparator.nullsFirst(Comparator.naturalOrder()));
+        Operator sort = new Sort(new TableScan(table, null), byValue, table, 64);
+        Entry first = sort.next();
+        assertTrue(runFiles(table) > 0);
+        List<Entry> sorted = new ArrayList<>(List.of(first));
+        sort.stream().forEach(sorted::add);
+        assertEquals(1000, sorted.size());
+        for (int i = 1; i < sorted.size(); i++)
+            assertTrue(byValue.compare(sorted.get(i - 1), sorted.get(i)) <= 0);
+        assertEquals(1000, sorted.stream().mapToInt(e -> (Integer) e.get(0)).distinct().count());
+        assertEquals(0, runFiles(table));
+
+        // A consumer that stops early closes the stream, deleting the runs not merged yet
+        Operator partial = new Limit(new Sort(new TableScan(table, null), byValue, table, 64), 0, -1);
+        try (Stream<Entry> stream = partial.stream().onClose(partial::close)) {
+            assertEquals(sorted.subList(0, 5), stream.limit(5).toList());
+            assertTrue(runFiles(table) > 0);
+        }
+        assertEquals(0, runFiles(table));
+        assertNull(partial.next());
+        // A limit closes its input once reached
+        Operator limited = new Limit(new Sort(new TableScan(table, null), byValue, table, 64), 10, 5);
+        assertEquals(sorted.subList(10, 15), limited.stream().toList());
+        assertEquals(0, runFiles(table));
+        database.removeAllTables();
+        database.close();
+    }
+}
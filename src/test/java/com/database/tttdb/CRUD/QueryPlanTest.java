@@ -0,0 +1,199 @@
+package com.database.tttdb.CRUD;
+
+import static com.database.tttdb.CRUD.InsertedRows.ids;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.database.tttdb.api.Condition;
+import com.database.tttdb.api.Condition.WhereClause;
+import com.database.tttdb.api.Schema;
+import com.database.tttdb.core.Database;
+import com.database.tttdb.core.index.IndexInit;
+import com.database.tttdb.core.index.IndexStatistics;
+import com.database.tttdb.core.manager.IndexManager;
+import com.database.tttdb.core.manager.IndexManager.IndexRecord;
+import com.database.tttdb.core.manager.IndexUtils;
+import com.database.tttdb.core.table.DataType;
+import com.database.tttdb.core.table.Table;
+
+class QueryPlanTest {
+    private static final int ROWS = 3000;
+
+    @TempDir
+    Path tempDir;
+
+    private Database database;
+    private Table orders;
+    private final InsertedRows rows = new InsertedRows("id", "customer", "status", "amount");
+
+    @BeforeEach
+    void setUp() {
+        database = new Database("planDB", null, 100);
+        database.setPath(tempDir.toString() + "/");
+        database.createTable("orders", new Schema()
+            .column("id").type(DataType.INT).primaryKey().endColumn()
+            .column("customer").type(DataType.INT).index().endColumn()
+            .column("status").type(DataType.INT).index().endColumn()
+            .column("amount").type(DataType.INT).endColumn());
+        database.start();
+        orders = database.getTable("orders");
+        for (int i = 0; i < ROWS; i++) {
+            // status is skewed: almost every order is 0, a few are 1 to 4
+            rows.insert(orders, i, i % 300, i % 50 == 0 ? 1 + i / 50 % 4 : 0, i % 97 == 0 ? null : (i * 7) % 1000);
+        }
+        database.commit();
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.removeAllTables();
+        database.close();
+    }
+
+    @Test
+    void statisticsEstimateSelectivity() {
+        IndexManager manager = orders.getIndexManager();
+        IndexInit<?> customer = manager.getIndexes()[1];
+        IndexInit<?> status = manager.getIndexes()[2];
+        IndexStatistics stats = manager.getStatistics(customer);
+        assertEquals(ROWS, stats.getEntries());
+        assertEquals(300, stats.getDistinct());
+        assertEquals(0, stats.getMin());
+        assertEquals(299, stats.getMax());
+        assertEquals(10, stats.estimate(new WhereClause().column("customer").isEqual(42)));
+        assertEquals(0, stats.estimate(new WhereClause().column("customer").isEqual(1000)));
+        long range = stats.estimate(new WhereClause().column("customer").isBiggerOrEqual(0).isSmaller(30));
+        assertTrue(range > 200 && range < 450, "estimated " + range);
+
+        // The histogram sees that most rows share one status
+        IndexStatistics skewed = manager.getStatistics(status);
+        assertEquals(5, skewed.getDistinct());
+        assertTrue(skewed.estimate(new WhereClause().column("status").isBiggerOrEqual(0).isSmallerOrEqual(0)) > ROWS * 9 / 10);
+        assertTrue(skewed.estimate(new WhereClause().column("status").isBigger(0)) < ROWS / 10);
+
+        // Statistics are rebuilt once enough rows changed
+        assertSame(stats, manager.getStatistics(customer));
+        orders.delete(new WhereClause().column("customer").isSmaller(100).end(), -1);
+        database.commit();
+        IndexStatistics rebuilt = manager.getStatistics(customer);
+        assertNotSame(stats, rebuilt);
+        assertEquals(ROWS * 2 / 3, rebuilt.getEntries());
+        assertEquals(100, rebuilt.getMin());
+    }
+
+    @Test
+    void plansReturnTheRowsOfTheWholeClause() {
+        Random random = new Random(7);
+        String[] columns = {"id", "customer", "status", "amount"};
+        for (int q = 0; q < 300; q++) {
+            WhereClause where = new WhereClause();
+            Predicate<Object[]> filter = null;
+            int conditions = 1 + random.nextInt(4);
+            for (int c = 0; c < conditions; c++) {
+                boolean or = c > 0 && random.nextInt(3) == 0;
+                int column = random.nextInt(columns.length);
+                Condition<WhereClause> next = c == 0 ? where.column(columns[column])
+                    : or ? where.OR().column(columns[column]) : where.AND().column(columns[column]);
+                int bound = switch (column) {
+                    case 0 -> random.nextInt(ROWS);
+                    case 1 -> random.nextInt(300);
+                    case 2 -> random.nextInt(5);
+                    default -> random.nextInt(1000);
+                };
+                Predicate<Object[]> condition;
+                switch (random.nextInt(4)) {
+                    case 0 -> {
+                        next.isEqual(bound).end();
+                        condition = row -> row[column] != null && (int) row[column] == bound;
+                    }
+                    case 1 -> {
+                        next.isSmaller(bound).end();
+                        condition = row -> row[column] != null && (int) row[column] < bound;
+                    }
+                    case 2 -> {
+                        next.isBiggerOrEqual(bound).end();
+                        condition = row -> row[column] != null && (int) row[column] >= bound;
+                    }
+                    default -> {
+                        next.isNotEqual(bound).end();
+                        condition = row -> row[column] == null || (int) row[column] != bound;
+                    }
+                }
+                Predicate<Object[]> previous = filter;
+                filter = previous == null ? condition : or ? previous.or(condition) : previous.and(condition);
+            }
+            assertEquals(rows.ids(filter), ids(orders, where), "query " + q);
+        }
+    }
+
+    @Test
+    void indexReadsOnlyTheKeysOfACondition() {
+        Random random = new Random(11);
+        IndexInit<?>[] indexes = orders.getIndexManager().getIndexes();
+        for (int q = 0; q < 300; q++) {
+            WhereClause where = new WhereClause();
+            Condition<WhereClause> condition = where.column("customer");
+            Predicate<Integer> filter = value -> true;
+            List<Integer> kinds = new ArrayList<>(List.of(0, 1, 2, 3, 4, 5, 6));
+            Collections.shuffle(kinds, random);
+            for (int kind : kinds.subList(0, 1 + random.nextInt(3))) {
+                int bound = random.nextInt(320) - 10;
+                Predicate<Integer> next;
+                switch (kind) {
+                    case 0 -> { condition.isBigger(bound); next = value -> value > bound; }
+                    case 1 -> { condition.isBiggerOrEqual(bound); next = value -> value >= bound; }
+                    case 2 -> { condition.isSmaller(bound); next = value -> value < bound; }
+                    case 3 -> { condition.isSmallerOrEqual(bound); next = value -> value <= bound; }
+                    case 4 -> { condition.isNotEqual(bound); next = value -> value != bound; }
+                    case 5 -> { condition.isEqual(bound); next = value -> value == bound; }
+                    default -> {
+                        List<Object> values = new ArrayList<>();
+                        for (int i = random.nextInt(6); i >= 0; i--) values.add(random.nextInt(320) - 10);
+                        condition.isIn(values.toArray());
+                        next = values::contains;
+                    }
+                }
+                filter = filter.and(next);
+            }
+            Predicate<Integer> matching = filter;
+            // Every key read from the index matches, in ascending order
+            List<IndexRecord<Integer>> records = IndexUtils.evaluateCondition(orders, indexes, condition);
+            List<Integer> keys = records.stream().map(IndexRecord::key).toList();
+            assertTrue(keys.stream().allMatch(matching), "query " + q);
+            assertEquals(keys.stream().sorted().toList(), keys, "query " + q);
+            assertEquals(rows.ids(row -> matching.test((Integer) row[1])), ids(orders, condition.end()), "query " + q);
+        }
+
+        // IN-lists are seeks on an index and compare null values like isNull() on a scan
+        assertEquals(rows.ids(row -> Set.of(5, 7).contains(row[1])), ids(orders, new WhereClause().column("customer").isIn(7, 5, 400, 7).end()));
+        assertEquals(rows.ids(row -> row[3] == null || (int) row[3] == 7), ids(orders, new WhereClause().column("amount").isIn(null, 7).end()));
+        assertEquals(Set.of(), ids(orders, new WhereClause().column("customer").isBigger(10).isSmaller(5).end()));
+    }
+
+    @Test
+    void selectiveConditionDrivesTheConjunction() {
+        // Only the id range is read from an index, the status and amount conditions filter its rows
+        Set<Integer> found = ids(orders, new WhereClause().column("status").isEqual(0).end()
+            .AND().column("amount").isBigger(500).end()
+            .AND().column("id").isBiggerOrEqual(100).isSmaller(130).end());
+        assertEquals(rows.ids(row -> (int) row[2] == 0 && row[3] != null && (int) row[3] > 500 && (int) row[0] >= 100 && (int) row[0] < 130), found);
+
+        // An OR on a column without an index is answered by one scan of the whole clause
+        found = ids(orders, new WhereClause().column("customer").isEqual(7).end()
+            .OR().column("amount").isEqual(999).end()
+            .AND().column("status").isNotEqual(0).end());
+        assertEquals(rows.ids(row -> ((int) row[1] == 7 || row[3] != null && (int) row[3] == 999) && (int) row[2] != 0), found);
+    }
+}
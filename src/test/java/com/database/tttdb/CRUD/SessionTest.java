@@ -0,0 +1,290 @@
+package com.database.tttdb.CRUD;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.database.tttdb.api.DBMS;
+import com.database.tttdb.api.DatabaseException;
+import com.database.tttdb.api.DatabaseException.LockTimeoutException;
+import com.database.tttdb.api.DatabaseException.TransactionAbortedException;
+import com.database.tttdb.api.DatabaseException.TransactionConflictException;
+import com.database.tttdb.api.ForeignKey;
+import com.database.tttdb.api.Row;
+import com.database.tttdb.api.Schema;
+import com.database.tttdb.api.Session;
+import com.database.tttdb.core.table.DataType;
+
+class SessionTest {
+
+    @TempDir
+    Path tempDir;
+
+    private DBMS db;
+
+    @BeforeEach
+    void setUp() {
+        db = new DBMS()
+            .addDatabase("sessionDB", 100)
+            .setPath(tempDir.toString() + "/")
+            .addTable("accounts", new Schema()
+                .column("id").type(DataType.INT).primaryKey().endColumn()
+                .column("owner").type(DataType.CHAR).size(20).index().endColumn()
+                .column("balance").type(DataType.INT).endColumn())
+            .start();
+        for (int i = 0; i < 10; i++) {
+            db.insertUnsafe("accounts", new Row("id,owner,balance").set("id", i).set("owner", "owner" + i).set("balance", 100));
+        }
+        db.commit();
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.dropDatabase();
+        db.close();
+    }
+
+    private static int balance(Session session, int id) {
+        List<Row> rows = session.select("balance").from("accounts").where().column("id").isEqual(id).end().endSelectClause().fetch();
+        return rows.isEmpty() ? -1 : (int) rows.getFirst().get("balance");
+    }
+    private static void setBalance(Session session, int id, int balance) {
+        session.update("accounts").set().selectColumn("balance").set(balance).endUpdate()
+            .where().column("id").isEqual(id).end().endUpdateClause().execute();
+    }
+
+    @Test
+    void snapshotDoesNotSeeLaterCommits() {
+        try (Session reader = db.openSession(); Session writer = db.openSession()) {
+            assertEquals(100, balance(reader, 1));
+
+            setBalance(writer, 1, 50);
+            writer.update("accounts").set().selectColumn("owner").set("renamed").endUpdate()
+                .where().column("id").isEqual(2).end().endUpdateClause().execute();
+            writer.delete().from("accounts").where().column("id").isEqual(3).end().endDeleteClause().execute();
+            assertEquals(50, balance(writer, 1), "A transaction sees its own writes");
+            assertEquals(100, balance(reader, 1), "Buffered writes are invisible to others");
+            writer.commit();
+
+            assertEquals(100, balance(reader, 1));
+            assertEquals(100, balance(reader, 3), "Deleted rows stay visible to older snapshots");
+            List<Row> byOldOwner = reader.select("id").from("accounts").where().column("owner").isEqual("owner2").end().endSelectClause().fetch();
+            assertEquals(1, byOldOwner.size(), "Index lookups use the snapshot's version of the key");
+            assertEquals(10, reader.select("id").from("accounts").fetch().size());
+
+            reader.commit();
+            assertEquals(50, balance(reader, 1));
+            assertEquals(-1, balance(reader, 3));
+            assertEquals(9, reader.select("id").from("accounts").fetch().size());
+        }
+    }
+
+    @Test
+    void firstCommitterWins() {
+        try (Session first = db.openSession(); Session second = db.openSession()) {
+            setBalance(first, 4, 10);
+            setBalance(second, 5, 20);
+            first.commit();
+            assertThrows(TransactionConflictException.class, () -> setBalance(second, 4, 20),
+                "The row lock is free once the first transaction commits, but the row changed since the snapshot");
+            assertThrows(TransactionAbortedException.class, second::commit);
+            second.rollBack();
+
+            assertEquals(10, balance(second, 4));
+            assertEquals(100, balance(second, 5), "The losing transaction is rolled back as a whole");
+            setBalance(second, 4, 30);
+            second.commit();
+            assertEquals(30, balance(first, 4));
+        }
+    }
+
+    @Test
+    void ownInsertsAreVisibleAndRollbackDiscardsThem() {
+        try (Session session = db.openSession(); Session other = db.openSession()) {
+            session.insert("accounts", new Row("id,owner,balance").set("id", 100).set("owner", "new").set("balance", 1));
+            setBalance(session, 100, 2);
+            assertEquals(2, balance(session, 100));
+            assertEquals(-1, balance(other, 100));
+            session.rollBack();
+            assertEquals(-1, balance(session, 100));
+
+            session.insert("accounts", new Row("id,owner,balance").set("id", 100).set("owner", "new").set("balance", 1));
+            session.commit();
+            other.commit();
+            assertEquals(1, balance(other, 100));
+            assertEquals(1, db.select("id").from("accounts").where().column("id").isEqual(100).end().endSelectClause().fetch().size());
+        }
+    }
+
+    @Test
+    void openDatabaseTransactionsStayInvisible() {
+        db.startTransaction("batch");
+        db.update("accounts").set().selectColumn("balance").set(0).endUpdate()
+            .where().column("id").isEqual(1).end().endUpdateClause().execute();
+        db.update("accounts").set().selectColumn("owner").set("renamed").endUpdate()
+            .where().column("id").isEqual(4).end().endUpdateClause().execute();
+        db.insert("accounts", new Row("id,owner,balance").set("id", 100).set("owner", "new").set("balance", 1));
+        db.delete().from("accounts").where().column("id").isEqual(2).end().endDeleteClause().execute();
+        try (Session session = db.openSession()) {
+            assertEquals(100, balance(session, 1));
+            assertEquals(100, balance(session, 2));
+            assertEquals(-1, balance(session, 100));
+            assertEquals(10, session.select("id").from("accounts").fetch().size());
+            // Through the owner index, which holds the uncommitted keys
+            assertEquals(1, session.select("id").from("accounts").where().column("owner").isEqual("owner4").end().endSelectClause().fetch().size());
+            assertEquals(0, session.select("id").from("accounts").where().column("owner").isIn("renamed", "new").end().endSelectClause().fetch().size());
+
+            db.rollBack("discarded");
+            assertEquals(100, balance(session, 1));
+            assertEquals(10, session.select("id").from("accounts").fetch().size());
+        }
+
+        // A snapshot opened during a transaction does not see its commit either
+        db.startTransaction("batch");
+        db.update("accounts").set().selectColumn("balance").set(0).endUpdate()
+            .where().column("id").isEqual(1).end().endUpdateClause().execute();
+        try (Session session = db.openSession()) {
+            assertEquals(100, balance(session, 1));
+            db.commit();
+            assertEquals(100, balance(session, 1));
+        }
+        try (Session session = db.openSession()) {
+            assertEquals(0, balance(session, 1));
+        }
+    }
+
+    @Test
+    void uniqueViolationsAreReportedAtCommit() {
+        try (Session session = db.openSession()) {
+            session.insert("accounts", new Row("id,owner,balance").set("id", 1).set("owner", "dup").set("balance", 1));
+            assertThrows(DatabaseException.class, session::commit);
+            assertEquals(10, session.select("id").from("accounts").fetch().size());
+        }
+    }
+
+    @Test
+    void writersWaitForRowAndRangeLocks() throws Exception {
+        try (Session deleter = db.openSession()) {
+            assertEquals(5, deleter.delete().from("accounts").where().column("id").isBiggerOrEqual(5).end().endDeleteClause().execute());
+            CompletableFuture<Integer> insert = CompletableFuture.supplyAsync(() -> {
+                try (Session inserter = db.openSession()) {
+                    inserter.insert("accounts", new Row("id,owner,balance").set("id", 50).set("owner", "late").set("balance", 1));
+                    inserter.commit();
+                    return balance(inserter, 50);
+                }
+            });
+            CompletableFuture<Integer> update = CompletableFuture.supplyAsync(() -> {
+                try (Session updater = db.openSession()) {
+                    setBalance(updater, 2, 7);
+                    updater.commit();
+                    return balance(updater, 2);
+                }
+            });
+            assertEquals(7, update.get(10, TimeUnit.SECONDS), "Rows outside the deleted range are not blocked");
+            Thread.sleep(100);
+            assertFalse(insert.isDone(), "An insert into the deleted range waits for the deleting transaction");
+            deleter.commit();
+            assertEquals(1, insert.get(10, TimeUnit.SECONDS));
+        }
+        assertTrue(db.getLockMetrics().waits() >= 1);
+        assertEquals(0, db.getLockMetrics().lockedResources());
+    }
+
+    @Test
+    void failedStatementAbortsTheTransaction() {
+        db.setLockTimeout(100);
+        try (Session holder = db.openSession(); Session session = db.openSession()) {
+            setBalance(holder, 1, 0);
+            session.insert("accounts", new Row("id,owner,balance").set("id", 60).set("owner", "before").set("balance", 1));
+            assertThrows(LockTimeoutException.class, () -> setBalance(session, 1, 50));
+
+            // Later statements and the commit fail instead of committing half the transaction
+            assertThrows(TransactionAbortedException.class,
+                () -> session.insert("accounts", new Row("id,owner,balance").set("id", 61).set("owner", "after").set("balance", 1)));
+            assertThrows(TransactionAbortedException.class, session::commit);
+            assertThrows(TransactionAbortedException.class, () -> balance(session, 60));
+
+            session.rollBack();
+            assertEquals(-1, balance(session, 60));
+            assertEquals(-1, balance(session, 61));
+        }
+        assertEquals(0, db.select("id").from("accounts").where().column("id").isBigger(9).end().endSelectClause().fetch().size());
+        assertEquals(0, db.getLockMetrics().lockedResources());
+    }
+
+    @Test
+    void cascadesLockTheChildTables() {
+        DBMS shop = new DBMS()
+            .addDatabase("cascadeDB", 100)
+            .setPath(tempDir.toString() + "/")
+            .addTable("owners", new Schema()
+                .column("name").type(DataType.CHAR).size(20).primaryKey().endColumn())
+            .addTable("cards", new Schema()
+                .column("id").type(DataType.INT).primaryKey().endColumn()
+                .column("owner").type(DataType.CHAR).size(20).endColumn()
+                .foreignKey("fk_card_owner")
+                    .column("owner")
+                    .reference().table("owners").column("name").end()
+                    .onDelete(ForeignKey.ForeignKeyAction.CASCADE)
+                .endForeignKey())
+            .setLockTimeout(100)
+            .start();
+        try {
+            shop.insertUnsafe("owners", new Row("name").set("name", "alice"));
+            shop.insertUnsafe("cards", new Row("id,owner").set("id", 1).set("owner", "alice"));
+            shop.commit();
+            try (Session session = shop.openSession()) {
+                session.update("cards").set().selectColumn("id").set(2).endUpdate()
+                    .where().column("id").isEqual(1).end().endUpdateClause().execute();
+                // The cascade would delete the card under the open transaction
+                assertThrows(LockTimeoutException.class, () -> shop.delete().from("owners")
+                    .where().column("name").isEqual("alice").end().endDeleteClause().execute());
+                session.commit();
+            }
+            assertEquals(1, shop.delete().from("owners").where().column("name").isEqual("alice").end().endDeleteClause().execute());
+            shop.commit();
+            assertEquals(0, shop.select("id").from("cards").fetch().size());
+            assertEquals(0, shop.getLockMetrics().lockedResources());
+        } finally {
+            shop.dropDatabase();
+            shop.close();
+        }
+    }
+
+    @Test
+    void sessionsRunOnManyThreads() throws Exception {
+        int threads = 4;
+        int perThread = 50;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int base = 1000 + t * perThread;
+            futures.add(pool.submit(() -> {
+                try (Session session = db.openSession()) {
+                    for (int i = 0; i < perThread; i++) {
+                        session.insert("accounts", new Row("id,owner,balance").set("id", base + i).set("owner", "t").set("balance", i));
+                        assertTrue(balance(session, 0) >= 0);
+                        if (i % 10 == 9) session.commit();
+                    }
+                    session.commit();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) future.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+        assertEquals(10 + threads * perThread, db.select("id").from("accounts").fetch().size());
+    }
+}
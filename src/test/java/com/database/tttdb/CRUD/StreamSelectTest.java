@@ -0,0 +1,111 @@
+package com.database.tttdb.CRUD;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.database.tttdb.api.DBMS;
+import com.database.tttdb.api.Query.Select;
+import com.database.tttdb.api.Row;
+import com.database.tttdb.api.Schema;
+import com.database.tttdb.core.table.DataType;
+
+class StreamSelectTest {
+    private static final int ROWS = 5000;
+
+    @TempDir
+    Path tempDir;
+
+    private DBMS db;
+
+    @BeforeEach
+    void setUp() {
+        db = new DBMS()
+            .addDatabase("streamDB", 100)
+            .setPath(tempDir.toString() + "/")
+            .addTable("items", new Schema()
+                .column("id").type(DataType.INT).primaryKey().endColumn()
+                .column("bucket").type(DataType.INT).endColumn()
+                .column("name").type(DataType.VARCHAR).size(16).endColumn())
+            .start();
+        for (int i = 0; i < ROWS; i++)
+            db.insertUnsafe("items", new Row("id,bucket,name").set("id", i).set("bucket", i % 10).set("name", "item" + i));
+        db.commit();
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.dropDatabase();
+        db.close();
+    }
+
+    private static Set<Integer> ids(List<Row> rows) {
+        return rows.stream().map(row -> (Integer) row.get("id")).collect(Collectors.toSet());
+    }
+
+    @Test
+    void streamReturnsTheRowsOfFetch() {
+        List<Select> selects = List.of(
+            db.select("*").from("items"),
+            db.select("id,name").from("items").where().column("id").isBiggerOrEqual(100).isSmaller(200).end().endSelectClause(),
+            db.select("id").from("items").where().column("bucket").isEqual(3).end()
+                .AND().column("id").isSmaller(2000).end().endSelectClause(),
+            db.select("id").from("items").where().column("bucket").isEqual(3).end()
+                .OR().column("name").isEqual("item7").end().endSelectClause());
+        for (Select select : selects) {
+            List<Row> streamed = select.stream().toList();
+            List<Row> fetched = select.fetch();
+            assertEquals(fetched.size(), streamed.size());
+            assertEquals(ids(fetched), ids(streamed));
+        }
+        assertEquals(List.of("item3"), db.select("name").from("items").where().column("id").isEqual(3).end()
+            .endSelectClause().stream().map(row -> row.get("name")).toList());
+    }
+
+    @Test
+    void orderingIsAppliedBeforeTheLimit() {
+        List<Object> latest = db.select("id").from("items").where().column("bucket").isEqual(5).end().endSelectClause()
+            .DEC("id").begin(2).limit(3).stream().map(row -> row.get("id")).toList();
+        assertEquals(List.of(4975, 4965, 4955), latest);
+        List<Object> first = db.select("id").from("items").ASC("id").limit(4).stream().map(row -> row.get("id")).toList();
+        assertEquals(List.of(0, 1, 2, 3), first);
+        assertEquals(ROWS - 10, db.select("id").from("items").begin(10).stream().count());
+    }
+
+    @Test
+    void rowsAreReadAsTheyAreConsumed() {
+        // Rows deleted after the stream was opened are not produced once the stream reaches them
+        Iterator<Row> scan = db.select("id").from("items").iterator();
+        assertTrue(scan.hasNext());
+        scan.next();
+        db.delete().from("items").where().column("id").isBiggerOrEqual(ROWS / 2).end().endDeleteClause().execute();
+        db.commit();
+        int scanned = 1;
+        for (; scan.hasNext(); scan.next()) scanned++;
+        assertEquals(ROWS / 2, scanned);
+
+        Iterator<Row> lookup = db.select("id").from("items").where().column("id").isSmaller(500).end().endSelectClause().iterator();
+        Set<Integer> seen = new HashSet<>();
+        seen.add((Integer) lookup.next().get("id"));
+        db.delete().from("items").where().column("id").isBiggerOrEqual(200).end().endDeleteClause().execute();
+        db.commit();
+        lookup.forEachRemaining(row -> seen.add((Integer) row.get("id")));
+        assertTrue(seen.size() < 500, "produced " + seen.size());
+        assertTrue(seen.containsAll(IntStream.range(0, 200).boxed().toList()));
+
+        // A short-circuiting consumer stops the scan
+        assertEquals(3, db.select("id").from("items").where().column("bucket").isEqual(1).end().endSelectClause()
+            .stream().limit(3).count());
+    }
+}
@@ -0,0 +1,90 @@
+package com.database.tttdb.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.database.tttdb.api.Condition.WhereClause;
+import com.database.tttdb.api.Query.SelectType;
+import com.database.tttdb.api.Query.SelectionType;
+import com.database.tttdb.api.Schema;
+import com.database.tttdb.api.UpdateFields;
+import com.database.tttdb.core.Database;
+import com.database.tttdb.core.cache.PageKey;
+import com.database.tttdb.core.page.Entry;
+import com.database.tttdb.core.page.TablePage;
+import com.database.tttdb.core.table.DataType;
+import com.database.tttdb.core.table.Table;
+
+class TransactionCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Database database;
+    private Table table;
+
+    @BeforeEach
+    void setUp() {
+        database = new Database("cacheDB", null, 100);
+        database.setPath(tempDir.toString() + File.separator);
+        database.createTable("items", new Schema()
+            .column("id").type(DataType.INT).primaryKey().endColumn()
+            .column("name").type(DataType.CHAR).size(20).endColumn());
+        database.start();
+        table = database.getTable("items");
+        for (int i = 0; i < 100; i++) {
+            table.insertUnsafe(Entry.prepareEntry(new String[]{"id", "name"}, new Object[]{i, "name" + i}, table));
+        }
+        database.commit();
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.removeAllTables();
+        database.close();
+    }
+
+    @Test
+    void readsInsideTransactionDoNotCopyPages() {
+        PageKey key = PageKey.table(table.getName(), 0);
+        TablePage committed = database.getCache().readTablePage(key);
+
+        database.startTransaction("outer");
+        database.startTransaction("inner");
+        assertSame(committed, database.getCache().readTablePage(key));
+        List<Entry> rows = table.select(new WhereClause().column("id").isEqual(5).end(), 0, -1, new SelectType(SelectionType.NORMAL, null));
+        assertEquals(1, rows.size());
+        assertSame(committed.get(5), rows.getFirst(), "Selected entries are shared with the committed page");
+        assertSame(committed, database.getCache().readTablePage(key), "A selection must not copy the page");
+        database.commit();
+        database.commit();
+    }
+
+    @Test
+    void writesCopyOnWriteAndRollbackLeavesParentUntouched() {
+        PageKey key = PageKey.table(table.getName(), 0);
+        TablePage committed = database.getCache().readTablePage(key);
+        Entry original = committed.get(5);
+
+        database.startTransaction("update");
+        table.update(new WhereClause().column("id").isEqual(5).end(), -1, new UpdateFields().selectColumn("name").set("changed"));
+        TablePage written = database.getCache().readTablePage(key);
+        assertNotSame(committed, written);
+        assertEquals("changed", written.get(5).get(1));
+        assertSame(original, committed.get(5), "The parent page must keep its entry");
+        assertSame(committed.get(6), written.get(6), "Untouched entries stay shared");
+        database.rollBack("test");
+
+        assertSame(committed, database.getCache().readTablePage(key));
+        assertEquals("name5", table.select(new WhereClause().column("id").isEqual(5).end(), 0, -1,
+            new SelectType(SelectionType.NORMAL, null)).getFirst().get(1));
+    }
+}
@@ -0,0 +1,163 @@
+package com.database.tttdb.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.database.tttdb.core.index.BinaryKeyCodec;
+import com.database.tttdb.core.index.IndexInit.BlockPointer;
+import com.database.tttdb.core.index.IndexInit.PointerPair;
+import com.database.tttdb.core.index.Pair;
+import com.database.tttdb.core.index.art.AdaptiveRadixTree;
+import com.database.tttdb.core.table.DataType;
+
+class AdaptiveRadixTreeTest {
+
+    @SuppressWarnings("unchecked")
+    private static <K extends Comparable<? super K>> AdaptiveRadixTree<K, PointerPair> tree(DataType type) {
+        return new AdaptiveRadixTree<>((BinaryKeyCodec<K>) BinaryKeyCodec.forType(type));
+    }
+
+    private static PointerPair value(long rowId) {
+        return new PointerPair(rowId, new BlockPointer((int) rowId / 7, (short) (rowId % 7)));
+    }
+
+    private static <K> List<K> keys(List<Pair<K, PointerPair>> pairs) {
+        return pairs.stream().map(pair -> pair.key).toList();
+    }
+
+    private static <K extends Comparable<? super K>> void assertMatches(TreeMap<K, TreeSet<Long>> expected, AdaptiveRadixTree<K, PointerPair> tree) {
+        List<K> all = new ArrayList<>();
+        expected.forEach((key, rowIds) -> rowIds.forEach(rowId -> all.add(key)));
+        assertEquals(all, keys(tree.rangeSearch(null, null)));
+        expected.forEach((key, rowIds) -> assertEquals(new TreeSet<>(rowIds),
+            new TreeSet<>(tree.search(key).stream().map(pair -> pair.value.rowId()).toList())));
+        assertEquals(expected.isEmpty() ? null : expected.lastKey(), tree.getMax());
+    }
+
+    @Test
+    void stringKeysMatchSortedMapUnderRandomOperations() {
+        AdaptiveRadixTree<String, PointerPair> tree = tree(DataType.VARCHAR);
+        tree.setUnique(false);
+        TreeMap<String, TreeSet<Long>> expected = new TreeMap<>();
+        // Shared prefixes, keys that are prefixes of others, NUL and non-ASCII chars
+        String[] stems = { "user", "user_", "username", "us", "", "\u0000", "ué", "u世", "zz" };
+        Random random = new Random(11);
+        long count = 0;
+        for (int i = 0; i < 40_000; i++) {
+            String key = stems[random.nextInt(stems.length)] + (random.nextBoolean() ? "" : Integer.toString(random.nextInt(300)));
+            TreeSet<Long> rowIds = expected.computeIfAbsent(key, k -> new TreeSet<>());
+            if (random.nextInt(3) == 0 && !rowIds.isEmpty()) {
+                tree.remove(key, value(rowIds.pollFirst()));
+                count--;
+            } else {
+                rowIds.add((long) i);
+                tree.insert(key, value(i));
+                count++;
+            }
+            if (rowIds.isEmpty()) expected.remove(key);
+        }
+        assertEquals(count, tree.size());
+        assertMatches(expected, tree);
+        for (int i = 0; i < 200; i++) {
+            String from = stems[random.nextInt(stems.length)] + random.nextInt(300);
+            String to = stems[random.nextInt(stems.length)] + random.nextInt(300);
+            if (from.compareTo(to) > 0) continue;
+            List<String> range = new ArrayList<>();
+            expected.subMap(from, true, to, true).forEach((key, rowIds) -> rowIds.forEach(rowId -> range.add(key)));
+            assertEquals(range, keys(tree.rangeSearch(from, to)), from + ".." + to);
+        }
+
+        expected.forEach((key, rowIds) -> rowIds.forEach(rowId -> tree.remove(key, value(rowId))));
+        assertEquals(0, tree.size());
+        assertTrue(tree.rangeSearch(null, null).isEmpty());
+        assertNull(tree.getMax());
+    }
+
+    @Test
+    void intKeysMatchSortedMapIncludingNegatives() {
+        AdaptiveRadixTree<Integer, PointerPair> tree = tree(DataType.INT);
+        TreeMap<Integer, TreeSet<Long>> expected = new TreeMap<>();
+        Random random = new Random(3);
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(4) == 0 ? random.nextInt() : random.nextInt(2_000) - 1_000;
+            if (random.nextInt(4) == 0 && expected.containsKey(key)) {
+                tree.remove(key, value(expected.remove(key).first()));
+            } else if (!expected.containsKey(key)) {
+                expected.put(key, new TreeSet<>(List.of((long) i)));
+                tree.insert(key, value(i));
+            }
+        }
+        tree.insert(expected.firstKey(), value(-1)); // ignored in unique trees
+        assertEquals(expected.size(), tree.size());
+        assertMatches(expected, tree);
+        assertEquals(new ArrayList<>(expected.subMap(-10, true, 10, true).keySet()), keys(tree.rangeSearch(-10, 10)));
+        assertEquals(new ArrayList<>(expected.headMap(0, true).keySet()), keys(tree.rangeSearch(Integer.MIN_VALUE, 0)));
+        for (int key = -1_100; key < 1_100; key++) assertEquals(expected.containsKey(key), tree.isKey(key));
+    }
+
+    @Test
+    void duplicateAndNullKeys() {
+        AdaptiveRadixTree<String, PointerPair> tree = tree(DataType.CHAR);
+        tree.setUnique(false);
+        tree.setNullable(true);
+        tree.insert("alice", value(1));
+        tree.insert("alice", value(2));
+        tree.insert("alice", value(2));
+        tree.insert("alicia", value(3));
+        tree.insert(null, value(4));
+        tree.insert(null, value(5));
+        assertEquals(5, tree.size());
+        assertThrows(IllegalStateException.class, () -> tree.update("alice", value(9)));
+        tree.update("alice", value(9), value(1));
+        assertEquals(rowIds(2L, 9L), rowIds(tree.search("alice")));
+        tree.update(null, value(6), value(4));
+        assertEquals(rowIds(5L, 6L), rowIds(tree.search(null)));
+        assertEquals(List.of("alice", "alice"), keys(tree.rangeSearch("al", "alice")));
+        assertEquals(5, tree.rangeSearch(null, null).size(), "Unbounded scans include null keys");
+        assertNull(tree.rangeSearch(null, null).getFirst().key);
+        tree.remove("alicia", value(3));
+        assertFalse(tree.isKey("alicia"));
+        assertEquals("alice", tree.getMax());
+        assertTrue(tree.isKey(null));
+    }
+
+    @Test
+    void uuidAndTimestampKeysKeepTheirOrder() {
+        AdaptiveRadixTree<UUID, PointerPair> uuids = tree(DataType.UUID);
+        TreeMap<UUID, TreeSet<Long>> expected = new TreeMap<>();
+        Random random = new Random(7);
+        for (long i = 0; i < 2_000; i++) {
+            UUID key = new UUID(random.nextLong(), random.nextLong());
+            expected.put(key, new TreeSet<>(List.of(i)));
+            uuids.insert(key, value(i));
+        }
+        assertMatches(expected, uuids);
+
+        AdaptiveRadixTree<LocalDateTime, PointerPair> times = tree(DataType.TIMESTAMP);
+        TreeMap<LocalDateTime, TreeSet<Long>> timestamps = new TreeMap<>();
+        LocalDateTime base = LocalDateTime.of(1970, 1, 1, 0, 0);
+        for (long i = 0; i < 2_000; i++) {
+            LocalDateTime key = base.plusSeconds(random.nextLong(-3_000_000_000L, 3_000_000_000L)).plusNanos(random.nextInt(1_000));
+            timestamps.put(key, new TreeSet<>(List.of(i)));
+            times.insert(key, value(i));
+        }
+        assertMatches(timestamps, times);
+        assertEquals(new ArrayList<>(timestamps.headMap(base, true).keySet()), keys(times.rangeSearch(LocalDateTime.MIN, base)));
+    }
+
+    private static TreeSet<Long> rowIds(Long... ids) {
+        return new TreeSet<>(List.of(ids));
+    }
+    private static <K> TreeSet<Long> rowIds(List<Pair<K, PointerPair>> pairs) {
+        return new TreeSet<>(pairs.stream().map(pair -> pair.value.rowId()).toList());
+    }
+}
@@ -42,9 +42,9 @@ class BPlusTreeTest {
                 Node<K, V> current = queue.poll();
                 
                 // Validate key order
-                for (int j = 0; j < current.pairs.size() - 1; j++) {
-                    K key1 = current.pairs.get(j).key;
-                    K key2 = current.pairs.get(j + 1).key;
+                for (int j = 0; j < current.size() - 1; j++) {
+                    K key1 = current.getKey(j);
+                    K key2 = current.getKey(j + 1);
                     assertTrue(key1.compareTo(key2) <= 0,
                             "Keys out of order at level " + level + ": " + key1 + " > " + key2);
                 }
@@ -56,23 +56,23 @@ class BPlusTreeTest {
                     // For ORDER=3, this is 1. The original check allows 0.
                     // This suggests the tree's remove() method is not rebalancing correctly.
                     int minKeys = (tree.getOrder() / 2) - 1;
-                    assertTrue(current.pairs.size() >= minKeys,
-                            "Underflow at level " + level + ". Should be at least " + minKeys + " but is: " + current.pairs.size());
+                    assertTrue(current.size() >= minKeys,
+                            "Underflow at level " + level + ". Should be at least " + minKeys + " but is: " + current.size());
                 }
-                assertTrue(current.pairs.size() <= tree.getOrder() - 1,
-                        "Overflow at level " + level + ": " + current.pairs.size());
+                assertTrue(current.size() <= tree.getOrder() - 1,
+                        "Overflow at level " + level + ": " + current.size());
 
                 // Validate children
                 if (!current.isLeaf) {
-                    assertEquals(current.children.size(), current.pairs.size() + 1,
-                            "Children count mismatch");
-                    
-                    for (Node<K, V> child : current.children) {
-                        if (child != null) {
-                           assertSame(child.parent, current, "Parent pointer mismatch");
-                           queue.add(child);
-                        }
+                    for (int j = 0; j <= current.size(); j++) {
+                        Node<K, V> child = current.getChild(j);
+                        assertNotNull(child, "Missing child " + j);
+                        // Separators bound the keys of the children on either side
+                        if (j > 0 && child.size() > 0) assertTrue(current.getKey(j - 1).compareTo(child.getKey(0)) <= 0);
+                        if (j < current.size() && child.size() > 0) assertTrue(child.getKey(child.size() - 1).compareTo(current.getKey(j)) < 0);
+                        queue.add(child);
                     }
+                    assertNull(current.getChild(current.size() + 1), "Children count mismatch");
                 }
             }
             level++;
@@ -98,7 +98,7 @@ class BPlusTreeTest {
             if (node.isLeaf) {
                 allLeaves.add(node);
             } else {
-                queue.addAll(node.children);
+                for (int j = 0; j <= node.size(); j++) queue.add(node.getChild(j));
             }
         }
         // Traverse leaf chain
@@ -106,12 +106,13 @@ class BPlusTreeTest {
             // Verify this leaf is in the BFS set
             assertTrue(allLeaves.contains(current), "Leaf not found in BFS traversal");
             allLeaves.remove(current);
-            for (Pair<K, V> pair : current.pairs) {
+            for (int j = 0; j < current.size(); j++) {
+                K key = current.getKey(j);
                 if (lastKey != null) {
-                    assertTrue(lastKey.compareTo(pair.key) <= 0,
-                            "Leaf keys out of order: " + lastKey + " > " + pair.key);
+                    assertTrue(lastKey.compareTo(key) <= 0,
+                            "Leaf keys out of order: " + lastKey + " > " + key);
                 }
-                lastKey = pair.key;
+                lastKey = key;
             }
             current = current.next;
         }
@@ -291,7 +292,7 @@ class BPlusTreeTest {
         tree.remove(40, "D");
         validateTreeStructure(tree);
         assertTrue(tree.getRoot().isLeaf, "Root should be leaf after deletions");
-        assertTrue(tree.getRoot().pairs.isEmpty(), "Root should be empty");
+        assertEquals(0, tree.getRoot().size(), "Root should be empty");
     }
 
     @Test
@@ -677,4 +678,62 @@ class BPlusTreeTest {
         // Should throw when oldValue is NOT specified for a non-unique tree
         assertThrows(IllegalStateException.class, () -> nonUniqueTree.update(100, "D"));
     }
-}
\ No newline at end of file
+
+    // ================ ARRAY NODE TESTS ================
+    @Test
+    void testPrefixCompressedStringKeys() {
+        BPlusTree<String, Integer> tree = new BPlusTree<>(8);
+        java.util.TreeMap<String, Integer> expected = new java.util.TreeMap<>();
+        String[] prefixes = {"customer-00", "customer-01", "cust", "order-", ""};
+        for (int i = 0; i < 5000; i++) {
+            String key = prefixes[random.nextInt(prefixes.length)] + random.nextInt(2000);
+            if (random.nextInt(4) == 0 && expected.containsKey(key)) {
+                tree.remove(key, expected.remove(key));
+            } else if (!expected.containsKey(key)) {
+                expected.put(key, i);
+                tree.insert(key, i);
+            }
+            if (i % 500 == 0) validateTreeStructure(tree);
+        }
+        validateTreeStructure(tree);
+        assertEquals(new ArrayList<>(expected.keySet()), tree.rangeSearch(null, null).stream().map(p -> p.key).toList());
+        assertEquals(new ArrayList<>(expected.subMap("cust", true, "customer-01", true).keySet()),
+                tree.rangeSearch("cust", "customer-01").stream().map(p -> p.key).toList());
+        expected.forEach((key, value) -> assertEquals(value, tree.search(key).getFirst().value, "Key: " + key));
+        assertEquals(0, tree.search("customer-0").size());
+        assertEquals(expected.lastKey(), tree.getMax());
+    }
+
+    @Test
+    void testPostingListsUnderRandomOperations() {
+        BPlusTree<Integer, Integer> tree = new BPlusTree<>(4);
+        tree.setUnique(false);
+        tree.setNullable(true);
+        java.util.Map<Integer, Set<Integer>> expected = new java.util.HashMap<>();
+        long count = 0;
+        for (int i = 0; i < 20000; i++) {
+            Integer key = random.nextInt(10) == 0 ? null : random.nextInt(50);
+            Set<Integer> values = expected.computeIfAbsent(key, k -> new HashSet<>());
+            int value = random.nextInt(300);
+            if (random.nextBoolean()) {
+                tree.insert(key, value);
+                if (values.add(value)) count++;
+            } else {
+                tree.remove(key, value);
+                if (values.remove(value)) count--;
+            }
+        }
+        assertEquals(count, tree.size(), "Repeated values are not counted twice");
+        expected.forEach((key, values) -> assertEquals(values,
+                new HashSet<>(tree.search(key).stream().map(p -> p.value).toList()), "Key: " + key));
+        validateTreeStructure(tree);
+        Integer key = expected.keySet().stream().filter(k -> k != null && expected.get(k).size() > 1).findFirst().orElseThrow();
+        Integer old = expected.get(key).iterator().next();
+        tree.update(key, -1, old);
+        List<Integer> values = tree.search(key).stream().map(p -> p.value).toList();
+        assertTrue(values.contains(-1) && !values.contains(old));
+        assertEquals(expected.get(key).size(), values.size());
+        assertEquals(32, BPlusTree.orderForCacheLines(2));
+        assertEquals(3, BPlusTree.orderForCacheLines(0), "Order is at least 3");
+    }
+}
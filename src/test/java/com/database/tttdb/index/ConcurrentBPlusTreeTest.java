@@ -0,0 +1,116 @@
+package com.database.tttdb.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.database.tttdb.core.index.Pair;
+import com.database.tttdb.core.index.btree.ConcurrentBPlusTree;
+
+class ConcurrentBPlusTreeTest {
+
+    private static List<Integer> keys(List<Pair<Integer, Integer>> pairs) {
+        return pairs.stream().map(pair -> pair.key).collect(Collectors.toList());
+    }
+
+    @Test
+    void matchesSortedMapUnderRandomOperations() {
+        ConcurrentBPlusTree<Integer, Integer> tree = new ConcurrentBPlusTree<>(4);
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                Integer value = expected.remove(key);
+                if (value != null) tree.remove(key, value);
+            } else if (!expected.containsKey(key)) {
+                expected.put(key, key * 10);
+                tree.insert(key, key * 10);
+            }
+        }
+        assertEquals(expected.size(), tree.size());
+        assertEquals(new ArrayList<>(expected.keySet()), keys(tree.rangeSearch(null, null)));
+        assertEquals(new ArrayList<>(expected.subMap(500, true, 900, true).keySet()), keys(tree.rangeSearch(500, 900)));
+        assertEquals(expected.lastKey(), tree.getMax());
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), tree.search(entry.getKey()).getFirst().value);
+        }
+        assertTrue(tree.getHeight() > 2);
+
+        tree.update(expected.firstKey(), -1);
+        assertEquals(-1, tree.search(expected.firstKey()).getFirst().value);
+        tree.clear();
+        assertEquals(0, tree.size());
+        assertTrue(tree.rangeSearch(null, null).isEmpty());
+    }
+
+    @Test
+    void duplicateAndNullKeys() {
+        ConcurrentBPlusTree<String, Integer> tree = new ConcurrentBPlusTree<>(3);
+        tree.setUnique(false);
+        tree.setNullable(true);
+        for (int i = 0; i < 30; i++) {
+            tree.insert("k" + (i % 5), i);
+        }
+        tree.insert(null, 100);
+        tree.insert(null, 101);
+        assertEquals(32, tree.size());
+        assertEquals(6, tree.search("k3").size());
+        tree.remove("k3", 8);
+        tree.update("k3", 99, 13);
+        List<Integer> values = tree.search("k3").stream().map(pair -> pair.value).sorted().toList();
+        assertEquals(List.of(3, 18, 23, 28, 99), values);
+        assertEquals(2, tree.search(null).size());
+        assertEquals(32 - 1, tree.rangeSearch(null, null).size(), "Unbounded scans include null keys");
+        assertEquals("k4", tree.getMax());
+    }
+
+    @Test
+    void concurrentWritersAndReaders() throws Exception {
+        ConcurrentBPlusTree<Integer, Integer> tree = new ConcurrentBPlusTree<>(8);
+        int threads = 4;
+        int perThread = 20_000;
+        for (int i = 0; i < perThread; i += 2) tree.insert(-i - 1, i);
+        ExecutorService pool = Executors.newFixedThreadPool(threads * 2);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(pool.submit(() -> {
+                // Interleaved keys make writers of different threads split the same leaves
+                for (int i = 0; i < perThread; i++) tree.insert(i * threads + thread, i);
+                for (int i = 0; i < perThread; i += 2) tree.remove(i * threads + thread, i);
+            }));
+            futures.add(pool.submit(() -> {
+                Random random = new Random(thread);
+                for (int i = 0; i < perThread; i++) {
+                    int key = -random.nextInt(perThread) - 1;
+                    List<Pair<Integer, Integer>> found = tree.search(key);
+                    if ((-key - 1) % 2 == 0) assertEquals(1, found.size(), "Untouched keys stay visible: " + key);
+                    List<Integer> range = keys(tree.rangeSearch(key, key + 100));
+                    for (int j = 1; j < range.size(); j++) assertTrue(range.get(j - 1) < range.get(j), "Scans stay ordered");
+                }
+            }));
+        }
+        for (Future<?> future : futures) future.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        List<Integer> expected = new ArrayList<>();
+        for (int i = perThread - 2; i >= 0; i -= 2) expected.add(-i - 1);
+        for (int i = 1; i < perThread; i += 2) {
+            for (int t = 0; t < threads; t++) expected.add(i * threads + t);
+        }
+        assertEquals(expected, keys(tree.rangeSearch(null, null)));
+        assertEquals(expected.size(), tree.size());
+    }
+}
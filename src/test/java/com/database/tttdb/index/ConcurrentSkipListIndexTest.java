@@ -0,0 +1,108 @@
+package com.database.tttdb.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.database.tttdb.core.index.Pair;
+import com.database.tttdb.core.index.skiplist.ConcurrentSkipListIndex;
+
+class ConcurrentSkipListIndexTest {
+
+    private static List<Integer> keys(List<Pair<Integer, Integer>> pairs) {
+        return pairs.stream().map(pair -> pair.key).toList();
+    }
+
+    @Test
+    void matchesSortedMapUnderRandomOperations() {
+        ConcurrentSkipListIndex<Integer, Integer> index = new ConcurrentSkipListIndex<>();
+        index.setUnique(true);
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                Integer value = expected.remove(key);
+                if (value != null) index.remove(key, value);
+            } else {
+                expected.put(key, i);
+                index.insert(key, i);
+            }
+        }
+        assertEquals(expected.size(), index.size());
+        assertEquals(new ArrayList<>(expected.keySet()), keys(index.rangeSearch(null, null)));
+        assertEquals(new ArrayList<>(expected.subMap(100, true, 300, true).keySet()), keys(index.rangeSearch(100, 300)));
+        assertEquals(expected.lastKey(), index.getMax());
+        expected.forEach((key, value) -> assertEquals(value, index.search(key).getFirst().value));
+
+        index.update(expected.firstKey(), -1);
+        assertEquals(-1, index.search(expected.firstKey()).getFirst().value);
+        assertThrows(NoSuchElementException.class, () -> index.update(-5, 1));
+    }
+
+    @Test
+    void duplicateAndNullKeys() {
+        ConcurrentSkipListIndex<String, Integer> index = new ConcurrentSkipListIndex<>();
+        index.setNullable(true);
+        for (int i = 0; i < 20; i++) index.insert("k" + (i % 4), i);
+        index.insert(null, 1);
+        index.insert(null, 2);
+        index.insert(null, 2);
+        assertEquals(22, index.size());
+        index.remove("k1", 5);
+        index.update("k1", 50, 9);
+        assertEquals(List.of(1, 13, 17, 50), index.search("k1").stream().map(pair -> pair.value).sorted().toList());
+        index.remove(null, 1);
+        assertEquals(List.of(2), index.search(null).stream().map(pair -> pair.value).toList());
+        for (int i = 0; i < 20; i += 4) index.remove("k0", i);
+        assertFalse(index.isKey("k0"));
+        assertEquals(15, index.rangeSearch(null, null).size(), "Unbounded scans include null keys");
+        assertEquals("k3", index.getMax());
+    }
+
+    @Test
+    void concurrentWritersAndReaders() throws Exception {
+        ConcurrentSkipListIndex<Integer, Integer> index = new ConcurrentSkipListIndex<>();
+        int threads = 4;
+        int perThread = 20_000;
+        for (int i = 0; i < perThread; i += 2) index.insert(-i - 1, i);
+        ExecutorService pool = Executors.newFixedThreadPool(threads * 2);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < perThread; i++) index.insert(i * threads + thread, i);
+                for (int i = 0; i < perThread; i += 2) index.remove(i * threads + thread, i);
+            }));
+            futures.add(pool.submit(() -> {
+                Random random = new Random(thread);
+                for (int i = 0; i < perThread; i++) {
+                    int key = -2 * random.nextInt(perThread / 2) - 1;
+                    assertEquals(1, index.search(key).size(), "Untouched keys stay visible: " + key);
+                    List<Integer> range = keys(index.rangeSearch(key, key + 100));
+                    for (int j = 1; j < range.size(); j++) assertTrue(range.get(j - 1) < range.get(j), "Scans stay ordered");
+                }
+            }));
+        }
+        for (Future<?> future : futures) future.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        List<Integer> expected = new ArrayList<>();
+        for (int i = perThread - 2; i >= 0; i -= 2) expected.add(-i - 1);
+        for (int i = 1; i < perThread; i += 2) {
+            for (int t = 0; t < threads; t++) expected.add(i * threads + t);
+        }
+        assertEquals(expected, keys(index.rangeSearch(null, null)));
+        assertEquals(expected.size(), index.size());
+    }
+}
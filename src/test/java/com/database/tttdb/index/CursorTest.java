@@ -0,0 +1,148 @@
+package com.database.tttdb.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import com.database.tttdb.core.index.Cursor;
+import com.database.tttdb.core.index.Index;
+import com.database.tttdb.core.index.IndexInit.BlockPointer;
+import com.database.tttdb.core.index.IndexInit.PointerPair;
+import com.database.tttdb.core.index.KeyCodec;
+import com.database.tttdb.core.index.Pair;
+import com.database.tttdb.core.index.btree.BPlusTree;
+import com.database.tttdb.core.index.btree.LongKeyBPlusTree;
+import com.database.tttdb.core.index.hashmap.HashIndex;
+import com.database.tttdb.core.index.redBlackTreeIndex.RedBlackTreeIndex;
+import com.database.tttdb.core.index.skiplist.SkipListIndex;
+import com.database.tttdb.core.table.DataType;
+
+class CursorTest {
+    private static final Comparator<Integer> ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    @SuppressWarnings("unchecked")
+    private static List<Supplier<Index<Integer, PointerPair>>> indexes() {
+        return List.of(
+            () -> new BPlusTree<>(4),
+            () -> new LongKeyBPlusTree<>(4, (KeyCodec<Integer>) KeyCodec.forType(DataType.INT)),
+            SkipListIndex::new,
+            RedBlackTreeIndex::new,
+            HashIndex::new);
+    }
+
+    private static PointerPair value(long rowId) {
+        return new PointerPair(rowId, new BlockPointer((int) rowId, (short) 0));
+    }
+
+    // Index with duplicate and null keys after random inserts and removals, and its pairs in key order
+    private static Index<Integer, PointerPair> fill(Index<Integer, PointerPair> index, List<Pair<Integer, PointerPair>> pairs) {
+        index.setUnique(false);
+        index.setNullable(true);
+        Random random = new Random(5);
+        for (int i = 0; i < 3000; i++) {
+            Integer key = random.nextInt(20) == 0 ? null : random.nextInt(400);
+            pairs.add(new Pair<>(key, value(i)));
+            index.insert(key, value(i));
+        }
+        for (int i = 0; i < 1500; i++) {
+            Pair<Integer, PointerPair> removed = pairs.remove(random.nextInt(pairs.size()));
+            index.remove(removed.key, removed.value);
+        }
+        pairs.sort(Comparator.comparing(pair -> pair.key, ORDER));
+        return index;
+    }
+
+    private static List<Pair<Integer, PointerPair>> drain(Cursor<Integer, PointerPair> cursor, boolean backward) {
+        List<Pair<Integer, PointerPair>> result = new ArrayList<>();
+        for (Pair<Integer, PointerPair> pair; (pair = backward ? cursor.prev() : cursor.next()) != null; ) result.add(pair);
+        return result;
+    }
+    // Same keys in the same order and the same pairs, duplicates of a key coming in any order
+    private static void assertSamePairs(List<Pair<Integer, PointerPair>> expected, List<Pair<Integer, PointerPair>> actual) {
+        assertEquals(expected.stream().map(pair -> pair.key).toList(), actual.stream().map(pair -> pair.key).toList());
+        assertEquals(new HashSet<>(expected), new HashSet<>(actual));
+    }
+
+    @Test
+    void cursorsWalkEveryPairInBothDirections() {
+        for (Supplier<Index<Integer, PointerPair>> supplier : indexes()) {
+            List<Pair<Integer, PointerPair>> pairs = new ArrayList<>();
+            Index<Integer, PointerPair> index = fill(supplier.get(), pairs);
+            Cursor<Integer, PointerPair> cursor = index.cursor();
+            assertSamePairs(pairs, drain(cursor, false));
+            assertNull(cursor.next());
+            assertSamePairs(pairs.reversed(), drain(cursor, true));
+            cursor.last();
+            assertSamePairs(pairs.reversed(), drain(cursor, true));
+
+            // A step back returns the pair of the step forward
+            cursor.first();
+            for (int i = 0; i < 50; i++) {
+                Pair<Integer, PointerPair> next = cursor.next();
+                assertEquals(next, cursor.prev());
+                assertEquals(next, cursor.next());
+            }
+        }
+    }
+
+    @Test
+    void seekPlacesTheCursorNextToAKey() {
+        Random random = new Random(9);
+        for (Supplier<Index<Integer, PointerPair>> supplier : indexes()) {
+            List<Pair<Integer, PointerPair>> pairs = new ArrayList<>();
+            Cursor<Integer, PointerPair> cursor = fill(supplier.get(), pairs).cursor();
+            for (int i = 0; i < 200; i++) {
+                Integer key = random.nextInt(10) == 0 ? null : random.nextInt(420) - 10;
+                boolean inclusive = random.nextBoolean();
+                Predicate<Integer> before = k -> inclusive ? ORDER.compare(k, key) < 0 : ORDER.compare(k, key) <= 0;
+                List<Integer> below = pairs.stream().map(pair -> pair.key).filter(before).toList();
+                List<Integer> above = pairs.stream().map(pair -> pair.key).filter(before.negate()).toList();
+                cursor.seek(key, inclusive);
+                Pair<Integer, PointerPair> next = cursor.next();
+                assertEquals(above.isEmpty() ? null : above.getFirst(), next == null ? null : next.key, "seek " + key);
+                if (next != null) cursor.prev();
+                Pair<Integer, PointerPair> prev = cursor.prev();
+                if (below.isEmpty()) assertNull(prev);
+                else assertEquals(below.getLast(), prev.key);
+            }
+        }
+    }
+
+    @Test
+    void boundedCursorsStayInTheirRange() {
+        Random random = new Random(13);
+        for (Supplier<Index<Integer, PointerPair>> supplier : indexes()) {
+            List<Pair<Integer, PointerPair>> pairs = new ArrayList<>();
+            Index<Integer, PointerPair> index = fill(supplier.get(), pairs);
+            for (int i = 0; i < 100; i++) {
+                Integer from = random.nextInt(4) == 0 ? null : random.nextInt(420) - 10;
+                Integer to = random.nextInt(4) == 0 ? null : random.nextInt(420) - 10;
+                boolean fromInclusive = random.nextBoolean(), toInclusive = random.nextBoolean();
+                List<Pair<Integer, PointerPair>> expected = pairs.stream().filter(pair -> {
+                    if (from == null ? !fromInclusive && pair.key == null : pair.key == null || pair.key < from || !fromInclusive && pair.key.equals(from)) return false;
+                    return to == null || pair.key == null || pair.key < to || toInclusive && pair.key.equals(to);
+                }).toList();
+                Cursor<Integer, PointerPair> cursor = index.cursor(from, fromInclusive, to, toInclusive);
+                assertSamePairs(expected, drain(cursor, false));
+                assertSamePairs(expected.reversed(), drain(cursor, true));
+                cursor.last();
+                assertSamePairs(expected.reversed(), drain(cursor, true));
+                // Seeking outside of the range stops at its bounds
+                if (from != null) {
+                    cursor.seek(-100, true);
+                    assertSamePairs(expected, drain(cursor, false));
+                }
+                cursor.seek(1000, true);
+                assertSamePairs(expected.reversed(), drain(cursor, true));
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.database.tttdb.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+import com.database.tttdb.core.index.KeyCodec;
+import com.database.tttdb.core.index.Pair;
+import com.database.tttdb.core.index.hashmap.HashIndex;
+import com.database.tttdb.core.table.DataType;
+
+class HashIndexTest {
+
+    private static <K> Set<Long> values(List<Pair<K, Long>> pairs) {
+        Set<Long> values = new HashSet<>();
+        pairs.forEach(pair -> values.add(pair.value));
+        return values;
+    }
+
+    private static <K extends Comparable<? super K>> void matchesMapUnderRandomOperations(HashIndex<K, Long> index, List<K> keys) {
+        index.setUnique(false);
+        Map<K, Set<Long>> expected = new HashMap<>();
+        Random random = new Random(9);
+        long count = 0;
+        boolean sawResize = false;
+        for (long i = 0; i < 60_000; i++) {
+            K key = keys.get(random.nextInt(keys.size()));
+            Set<Long> values = expected.computeIfAbsent(key, k -> new HashSet<>());
+            if (random.nextInt(3) == 0 && !values.isEmpty()) {
+                Long value = values.iterator().next();
+                values.remove(value);
+                index.remove(key, value);
+                count--;
+            } else {
+                values.add(i);
+                index.insert(key, i);
+                count++;
+            }
+            if (values.isEmpty()) expected.remove(key);
+            sawResize |= index.isResizing();
+            // Lookups see every key, including those still in the table being resized
+            if (i % 97 == 0) {
+                for (K k : keys) assertEquals(expected.getOrDefault(k, Set.of()), values(index.search(k)));
+            }
+        }
+        assertTrue(sawResize);
+        assertEquals(count, index.size());
+        assertEquals(count, index.rangeSearch(null, null).size());
+        expected.forEach((key, values) -> assertTrue(index.isKey(key)));
+        assertEquals(new TreeSet<>(expected.keySet()).last(), index.getMax());
+
+        expected.forEach((key, values) -> values.forEach(value -> index.remove(key, value)));
+        assertEquals(0, index.size());
+        for (K k : keys) assertFalse(index.isKey(k));
+    }
+
+    @Test
+    void objectKeysMatchMapUnderRandomOperations() {
+        List<String> keys = new Random(1).ints(5_000, 0, 1_000_000).mapToObj(i -> "session-" + i).toList();
+        matchesMapUnderRandomOperations(new HashIndex<>(), keys);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void primitiveKeysMatchMapUnderRandomOperations() {
+        List<Long> keys = new Random(2).longs(5_000).boxed().toList();
+        matchesMapUnderRandomOperations(new HashIndex<>((KeyCodec<Long>) KeyCodec.forType(DataType.LONG)), keys);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void resizesIncrementally() {
+        HashIndex<Integer, Long> index = new HashIndex<>((KeyCodec<Integer>) KeyCodec.forType(DataType.INT));
+        int capacity = index.getCapacity();
+        int i = 0;
+        while (!index.isResizing()) index.insert(i, (long) i++);
+        while (capacity < 1 << 14) {
+            capacity = index.getCapacity();
+            while (index.getCapacity() == capacity) index.insert(i, (long) i++);
+            // A resize completes within the writes that follow, not in the one that started it
+            assertTrue(index.isResizing());
+            index.insert(i, (long) i++);
+            assertTrue(index.isResizing());
+        }
+        for (int k = 0; k < i; k++) assertEquals(List.of((long) k), index.search(k).stream().map(pair -> pair.value).toList());
+        assertEquals(List.of(10, 11, 12), index.rangeSearch(10, 12).stream().map(pair -> pair.key).sorted().toList());
+    }
+
+    @Test
+    void uniqueAndNullKeys() {
+        HashIndex<String, Long> index = new HashIndex<>();
+        assertThrows(IllegalArgumentException.class, () -> index.insert(null, 1L));
+        index.setNullable(true);
+        index.insert("a", 1L);
+        index.insert("a", 2L); // replaces the value in unique indexes
+        index.insert(null, 3L);
+        assertEquals(2, index.size());
+        assertEquals(List.of(2L), index.search("a").stream().map(pair -> pair.value).toList());
+        index.update("a", 4L);
+        assertThrows(NoSuchElementException.class, () -> index.update("b", 1L));
+        assertThrows(IllegalStateException.class, () -> index.update("a", 1L, 4L));
+        assertEquals(Set.of(3L, 4L), values(index.rangeSearch(null, null)));
+        assertEquals(Set.of(4L), values(index.rangeSearch("a", "z")));
+        index.remove(null, 3L);
+        assertFalse(index.isKey(null));
+
+        index.clear();
+        index.setUnique(false);
+        index.insert("a", 1L);
+        index.insert("a", 2L);
+        index.update("a", 5L, 1L);
+        assertEquals(Set.of(2L, 5L), values(index.search("a")));
+        assertThrows(NoSuchElementException.class, () -> index.update("a", 6L, 1L));
+    }
+}
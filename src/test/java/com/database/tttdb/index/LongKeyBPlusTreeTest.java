@@ -0,0 +1,103 @@
+package com.database.tttdb.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+import com.database.tttdb.core.index.IndexInit.BlockPointer;
+import com.database.tttdb.core.index.IndexInit.PointerPair;
+import com.database.tttdb.core.index.KeyCodec;
+import com.database.tttdb.core.index.Pair;
+import com.database.tttdb.core.index.btree.LongKeyBPlusTree;
+import com.database.tttdb.core.table.DataType;
+
+class LongKeyBPlusTreeTest {
+
+    @SuppressWarnings("unchecked")
+    private static <K extends Comparable<? super K>> LongKeyBPlusTree<K> tree(int order, DataType type) {
+        return new LongKeyBPlusTree<>(order, (KeyCodec<K>) KeyCodec.forType(type));
+    }
+
+    private static PointerPair value(long rowId) {
+        return new PointerPair(rowId, new BlockPointer((int) rowId / 7, (short) (rowId % 7)));
+    }
+
+    private static <K> List<K> keys(List<Pair<K, PointerPair>> pairs) {
+        return pairs.stream().map(pair -> pair.key).toList();
+    }
+
+    @Test
+    void matchesSortedMapUnderRandomOperations() {
+        LongKeyBPlusTree<Long> tree = tree(4, DataType.LONG);
+        TreeMap<Long, Long> expected = new TreeMap<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 20_000; i++) {
+            long key = random.nextInt(2_000) - 1_000L;
+            if (random.nextInt(3) == 0) {
+                Long rowId = expected.remove(key);
+                if (rowId != null) tree.remove(key, value(rowId));
+            } else if (!expected.containsKey(key)) {
+                expected.put(key, (long) i);
+                tree.insert(key, value(i));
+            }
+        }
+        assertEquals(expected.size(), tree.size());
+        assertEquals(new ArrayList<>(expected.keySet()), keys(tree.rangeSearch(null, null)));
+        assertEquals(new ArrayList<>(expected.subMap(-100L, true, 300L, true).keySet()), keys(tree.rangeSearch(-100L, 300L)));
+        assertEquals(expected.lastKey(), tree.getMax());
+        expected.forEach((key, rowId) -> assertEquals(value(rowId), tree.search(key).getFirst().value));
+
+        tree.update(expected.firstKey(), value(-1));
+        assertEquals(value(-1), tree.search(expected.firstKey()).getFirst().value);
+        assertThrows(IllegalStateException.class, () -> tree.update(expected.firstKey(), value(2), value(-1)));
+        expected.keySet().forEach(key -> tree.remove(key, tree.search(key).getFirst().value));
+        assertEquals(0, tree.size());
+        assertNull(tree.getMax());
+    }
+
+    @Test
+    void duplicateAndNullKeys() {
+        LongKeyBPlusTree<Integer> tree = tree(3, DataType.INT);
+        tree.setUnique(false);
+        tree.setNullable(true);
+        for (int i = 0; i < 30; i++) tree.insert(i % 5, value(i));
+        tree.insert(null, value(100));
+        tree.insert(null, new PointerPair(101, null));
+        assertEquals(32, tree.size());
+        assertEquals(6, tree.search(3).size());
+        tree.remove(3, value(8));
+        tree.update(3, value(99), value(13));
+        assertEquals(List.of(3L, 18L, 23L, 28L, 99L), tree.search(3).stream().map(pair -> pair.value.rowId()).toList());
+        assertEquals(2, tree.search(null).size());
+        assertNull(tree.search(null).get(1).value.indexPointer());
+        assertEquals(32 - 1, tree.rangeSearch(null, null).size(), "Unbounded scans include null keys");
+        for (int i = 0; i < 30; i += 5) tree.remove(0, value(i));
+        assertFalse(tree.isKey(0));
+        assertEquals(List.of(1, 1, 1, 1, 1, 1), keys(tree.rangeSearch(0, 1)));
+        assertEquals(4, tree.getMax());
+    }
+
+    @Test
+    void dateAndTimeKeysKeepTheirOrder() {
+        LongKeyBPlusTree<LocalDate> dates = tree(4, DataType.DATE);
+        LongKeyBPlusTree<LocalTime> times = tree(4, DataType.TIME);
+        LocalDate day = LocalDate.of(1969, 12, 25);
+        LocalTime time = LocalTime.of(23, 59, 30);
+        for (int i = 0; i < 40; i++) {
+            dates.insert(day.plusDays(i), value(i));
+            times.insert(time.minusSeconds(i), value(i));
+        }
+        assertEquals(List.of(day.plusDays(6), day.plusDays(7), day.plusDays(8)), keys(dates.rangeSearch(day.plusDays(6), day.plusDays(8))));
+        assertEquals(day.plusDays(39), dates.getMax());
+        assertEquals(time, times.getMax());
+        assertEquals(value(3), times.search(time.minusSeconds(3)).getFirst().value);
+        assertNull(KeyCodec.forType(DataType.CHAR));
+    }
+}
@@ -0,0 +1,113 @@
+package com.database.tttdb.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+import com.database.tttdb.core.index.IndexInit.BlockPointer;
+import com.database.tttdb.core.index.IndexInit.PointerPair;
+import com.database.tttdb.core.index.KeyCodec;
+import com.database.tttdb.core.index.Pair;
+import com.database.tttdb.core.index.btree.OffHeapBPlusTree;
+import com.database.tttdb.core.table.DataType;
+
+class OffHeapBPlusTreeTest {
+
+    @SuppressWarnings("unchecked")
+    private static <K extends Comparable<? super K>> OffHeapBPlusTree<K> tree(int order, DataType type) {
+        return new OffHeapBPlusTree<>(order, (KeyCodec<K>) KeyCodec.forType(type));
+    }
+
+    private static PointerPair value(long rowId) {
+        return new PointerPair(rowId, new BlockPointer((int) rowId / 7, (short) (rowId % 7)));
+    }
+
+    private static <K> List<K> keys(List<Pair<K, PointerPair>> pairs) {
+        return pairs.stream().map(pair -> pair.key).toList();
+    }
+
+    @Test
+    void matchesSortedMapUnderRandomOperations() {
+        OffHeapBPlusTree<Integer> tree = tree(4, DataType.INT);
+        tree.setUnique(false);
+        TreeMap<Integer, TreeSet<Long>> expected = new TreeMap<>();
+        Random random = new Random(5);
+        long count = 0;
+        for (int i = 0; i < 30_000; i++) {
+            int key = random.nextInt(1_000) - 500;
+            TreeSet<Long> rowIds = expected.computeIfAbsent(key, k -> new TreeSet<>());
+            if (random.nextInt(3) == 0 && !rowIds.isEmpty()) {
+                long rowId = rowIds.pollFirst();
+                tree.remove(key, value(rowId));
+                count--;
+            } else {
+                rowIds.add((long) i);
+                tree.insert(key, value(i));
+                count++;
+            }
+            if (rowIds.isEmpty()) expected.remove(key);
+        }
+        assertEquals(count, tree.size());
+        List<Integer> all = new ArrayList<>();
+        expected.forEach((key, rowIds) -> rowIds.forEach(rowId -> all.add(key)));
+        assertEquals(all, keys(tree.rangeSearch(null, null)));
+        expected.forEach((key, rowIds) ->
+            assertEquals(new ArrayList<>(rowIds), tree.search(key).stream().map(pair -> pair.value.rowId()).toList()));
+        assertEquals(expected.lastKey(), tree.getMax());
+
+        long bytes = tree.getOffHeapBytes();
+        expected.forEach((key, rowIds) -> rowIds.forEach(rowId -> tree.remove(key, value(rowId))));
+        assertEquals(0, tree.size());
+        assertEquals(2, tree.getNodeCount(), "Merged nodes go back to the free list");
+        for (int i = 0; i < 1_000; i++) tree.insert(i, value(i));
+        assertEquals(bytes, tree.getOffHeapBytes(), "Freed nodes are reused before new chunks are reserved");
+        tree.clear();
+        assertTrue(tree.rangeSearch(null, null).isEmpty());
+    }
+
+    @Test
+    void uniqueAndNullKeys() {
+        OffHeapBPlusTree<Long> tree = tree(3, DataType.LONG);
+        tree.setNullable(true);
+        for (long i = 0; i < 50; i++) tree.insert(i * 2, value(i));
+        tree.insert(10L, value(99));
+        tree.insert(null, value(100));
+        tree.insert(null, new PointerPair(101, null));
+        assertEquals(52, tree.size());
+        assertEquals(value(5), tree.search(10L).getFirst().value);
+        tree.update(10L, value(98));
+        assertEquals(List.of(value(98)), tree.search(10L).stream().map(pair -> pair.value).toList());
+        assertThrows(IllegalStateException.class, () -> tree.update(10L, value(1), value(98)));
+        tree.update(null, value(102), value(100));
+        assertEquals(List.of(101L, 102L), tree.search(null).stream().map(pair -> pair.value.rowId()).toList());
+        assertNull(tree.search(null).getFirst().value.indexPointer());
+        assertEquals(List.of(20L, 22L), keys(tree.rangeSearch(19L, 23L)));
+        assertEquals(52, tree.rangeSearch(null, null).size(), "Unbounded scans include null keys");
+        assertTrue(tree.isKey(null));
+        assertFalse(tree.isKey(11L));
+        assertEquals(98L, tree.getMax());
+    }
+
+    @Test
+    void floatingPointKeysKeepTheirOrder() {
+        OffHeapBPlusTree<Double> tree = tree(4, DataType.DOUBLE);
+        double[] values = { -1e300, -2.5, -0.0, 0.0, Double.MIN_VALUE, 1.5, 3e10, Double.POSITIVE_INFINITY };
+        for (int i = values.length - 1; i >= 0; i--) tree.insert(values[i], value(i));
+        List<Double> expected = new ArrayList<>();
+        for (double v : values) expected.add(v);
+        assertEquals(expected, keys(tree.rangeSearch(null, null)));
+        assertEquals(List.of(-0.0, 0.0, Double.MIN_VALUE, 1.5), keys(tree.rangeSearch(-0.0, 2.0)));
+
+        @SuppressWarnings("unchecked")
+        KeyCodec<Float> floats = (KeyCodec<Float>) KeyCodec.forType(DataType.FLOAT);
+        assertTrue(floats.encode(-3f) < floats.encode(-2f));
+        assertTrue(floats.encode(-2f) < floats.encode(1f));
+        assertEquals(-2.75f, floats.decode(floats.encode(-2.75f)));
+    }
+}
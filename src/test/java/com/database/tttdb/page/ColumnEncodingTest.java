@@ -0,0 +1,86 @@
+package com.database.tttdb.page;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.database.tttdb.core.page.ColumnEncoding;
+import com.database.tttdb.core.page.ColumnEncoding.Kind;
+import com.database.tttdb.core.page.Entry;
+import com.database.tttdb.core.table.DataType;
+
+class ColumnEncodingTest {
+
+    private static Entry[] entries(Object... values) {
+        Entry[] result = new Entry[values.length];
+        for (int i = 0; i < values.length; i++)
+            result[i] = new Entry(new Object[]{values[i]}, 1);
+        return result;
+    }
+    private static List<Integer> matches(ColumnEncoding encoding, Entry[] entries, java.util.function.Predicate<Object> predicate) {
+        List<Integer> result = new ArrayList<>();
+        encoding.forEachMatch(entries, entries.length, 0, predicate, result::add);
+        return result;
+    }
+
+    @Test
+    void longRunsAreRunLengthEncoded() {
+        Entry[] page = entries((short)18, (short)18, (short)18, (short)18, (short)19, (short)19, (short)19, (short)19);
+        ColumnEncoding encoding = ColumnEncoding.encode(page, page.length, 0, DataType.SHORT);
+        assertEquals(Kind.RUN_LENGTH, encoding.getKind());
+        assertEquals(2, encoding.getRuns());
+        assertEquals(List.of(4, 5, 6, 7), matches(encoding, page, v -> v.equals((short)19)));
+    }
+
+    @Test
+    void repeatedValuesAreDictionaryEncodedWithoutTouchingEntries() {
+        String hello = new String("_HELLO_");
+        Entry[] page = entries(new String("_HELLO_"), "A", hello, "A", new String("_HELLO_"), null);
+        ColumnEncoding encoding = ColumnEncoding.encode(page, page.length, 0, DataType.CHAR);
+        assertEquals(Kind.DICTIONARY, encoding.getKind());
+        assertEquals(3, encoding.getDictionarySize());
+        assertSame(hello, page[2].get(0));
+        assertEquals(List.of(0, 2, 4), matches(encoding, page, v -> "_HELLO_".equals(v)));
+        assertEquals(List.of(5), matches(encoding, page, v -> v == null));
+    }
+
+    @Test
+    void predicateIsEvaluatedOncePerDistinctValue() {
+        Object[] values = new Object[100];
+        for (int i = 0; i < values.length; i++) values[i] = i % 5;
+        Entry[] page = entries(values);
+        ColumnEncoding encoding = ColumnEncoding.encode(page, page.length, 0, DataType.INT);
+        AtomicInteger calls = new AtomicInteger();
+        List<Integer> result = matches(encoding, page, v -> { calls.incrementAndGet(); return (int) v == 3; });
+        assertEquals(5, calls.get());
+        assertEquals(20, result.size());
+        result.forEach(slot -> assertEquals(3, page[slot].get(0)));
+    }
+
+    @Test
+    void distinctValuesStayPlain() {
+        Entry[] page = entries(1, 2, 3, 4, 5, 6);
+        ColumnEncoding encoding = ColumnEncoding.encode(page, page.length, 0, DataType.INT);
+        assertEquals(Kind.PLAIN, encoding.getKind());
+        assertEquals(List.of(1, 3, 5), matches(encoding, page, v -> (int) v % 2 == 0));
+    }
+
+    @Test
+    void unsupportedTypesStayPlain() {
+        Entry[] page = entries(1L, 1L, 1L, 1L);
+        assertEquals(Kind.PLAIN, ColumnEncoding.encode(page, page.length, 0, DataType.LONG).getKind());
+    }
+
+    @Test
+    void emptySlotsNeverMatch() {
+        Entry[] page = entries(true, true, true, true, true, true, true, true);
+        page[3] = null;
+        ColumnEncoding encoding = ColumnEncoding.encode(page, page.length, 0, DataType.BOOLEAN);
+        assertNotEquals(Kind.PLAIN, encoding.getKind());
+        assertEquals(List.of(0, 1, 2, 4, 5, 6, 7), matches(encoding, page, v -> true));
+    }
+}
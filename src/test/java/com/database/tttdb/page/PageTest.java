@@ -174,6 +174,53 @@ class PageTest {
         assertEquals(0, page.indexOf(entry1));
     }
 
+    @Test
+    void testDeleteLeavesSlotForReuse() {
+        page.add(entry1);
+        page.add(entry2);
+        page.add(entry3);
+
+        assertSame(entry2, page.delete(1));
+        assertEquals(2, page.size());
+        assertEquals(3, page.slotCount());
+        assertNull(page.get(1), "Deleted slot should be tombstoned.");
+        assertSame(entry3, page.get(2), "Other entries should keep their slot.");
+
+        assertEquals(1, page.add(entry2), "Add should reuse the tombstoned slot.");
+        assertSame(entry2, page.get(1));
+
+        page.delete(2);
+        assertEquals(2, page.slotCount(), "Trailing tombstones should be trimmed.");
+    }
+
+    @Test
+    void testCopyIsCopyOnWrite() {
+        TablePage original = new TablePage(PAGE_ID, mockTable);
+        original.add(entry1);
+        original.add(entry2);
+        original.setDirty(false);
+
+        TablePage copy = original.copy();
+        assertSame(original.getAll(), copy.getAll(), "Unmodified copies should share their slots.");
+        assertFalse(copy.isDirty());
+
+        copy.delete(0);
+        copy.add(entry3);
+        copy.set(1, entry1);
+        assertNotSame(original.getAll(), copy.getAll());
+        assertTrue(copy.isDirty());
+        assertSame(entry3, copy.get(0));
+        assertSame(entry1, copy.get(1));
+
+        assertFalse(original.isDirty(), "The original page must not see the copy's writes.");
+        assertSame(entry1, original.get(0));
+        assertSame(entry2, original.get(1));
+
+        original.add(entry3);
+        assertEquals(2, copy.size());
+        assertEquals(3, original.size());
+    }
+
     @Test
     void testRemove_ThrowsExceptionForInvalidIndex() {
         page.add(entry1);
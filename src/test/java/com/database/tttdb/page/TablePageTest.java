@@ -8,6 +8,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import com.database.tttdb.api.Schema;
 import com.database.tttdb.core.Database;
 import com.database.tttdb.core.FileIOThread;
+import com.database.tttdb.core.page.ColumnEncoding.Kind;
 import com.database.tttdb.core.page.Entry;
 import com.database.tttdb.core.page.Page;
 import com.database.tttdb.core.page.TablePage;
@@ -16,6 +17,8 @@ import com.database.tttdb.core.table.Table;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
 
 class TablePageTest {
     private FileIOThread fileIOThread;
@@ -190,6 +193,28 @@ class TablePageTest {
         assertTrue(stats.contains("Space in Use :            [ " + TablePage.sizeOfEntry(table)));
     }
 
+    @Test
+    void columnEncoding_IsBuiltOnTheSecondScan() {
+        emptyPage();
+        for (int i = 0; i < 20; i++) page.add(createEntry("user" + i, i, i < 10 ? "low" : "high", new byte[10]));
+        assertEquals(Kind.PLAIN, page.getEncoding(2).getKind(), "A page scanned once is not encoded");
+        assertEquals(Kind.RUN_LENGTH, page.getEncoding(2).getKind());
+        assertEquals(Kind.PLAIN, page.getEncoding(1).getKind(), "Every column counts its own scans");
+
+        // Both ways of scanning produce the same rows
+        List<Integer> first = new ArrayList<>();
+        page.forEachMatch(1, value -> (int) value >= 10, first::add);
+        List<Integer> second = new ArrayList<>();
+        page.forEachMatch(2, "high"::equals, second::add);
+        assertEquals(first, second);
+        assertEquals(IntStream.range(10, 20).boxed().toList(), second);
+
+        // A modification discards the encoding, the next scan reads the entries again
+        page.add(createEntry("user20", 20, "high", new byte[10]));
+        assertEquals(Kind.PLAIN, page.getEncoding(2).getKind());
+        assertEquals(Kind.RUN_LENGTH, page.getEncoding(2).getKind());
+    }
+
     // Helper method
     private void fillPage() {
         for (int i = this.page.size(); i < Page.getPageCapacity(TablePage.sizeOfEntry(table)); i++) {
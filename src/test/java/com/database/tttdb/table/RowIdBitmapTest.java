@@ -0,0 +1,72 @@
+package com.database.tttdb.table;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.database.tttdb.core.index.IndexInit.BlockPointer;
+import com.database.tttdb.core.index.IndexInit.PointerPair;
+import com.database.tttdb.core.manager.IndexManager.IndexRecord;
+import com.database.tttdb.core.manager.IndexUtils;
+import com.database.tttdb.core.table.RowIdBitmap;
+
+class RowIdBitmapTest {
+
+    @Test
+    void bitmapHoldsTheSameIdsAsASet() {
+        Random random = new Random(3);
+        RowIdBitmap bitmap = new RowIdBitmap();
+        Set<Long> expected = new HashSet<>();
+        assertTrue(bitmap.isEmpty());
+        // A dense run that turns its chunk into a bitmap, sparse ids, then ids far apart
+        for (long id = 0; id < 70_000; id += 1 + random.nextInt(3)) assertEquals(expected.add(id), bitmap.add(id));
+        for (int i = 0; i < 20_000; i++) {
+            long id = random.nextInt(1_000_000);
+            assertEquals(expected.add(id), bitmap.add(id));
+        }
+        for (int i = 0; i < 1000; i++) {
+            long id = random.nextLong() >>> 1;
+            assertEquals(expected.add(id), bitmap.add(id));
+        }
+        assertFalse(bitmap.add(0));
+        assertEquals(expected.size(), bitmap.size());
+        for (long id : expected) assertTrue(bitmap.contains(id));
+        for (int i = 0; i < 20_000; i++) {
+            long id = random.nextInt(2_000_000);
+            assertEquals(expected.contains(id), bitmap.contains(id), "row " + id);
+        }
+    }
+
+    private static List<IndexRecord<Integer>> records(Random random, int count, int range) {
+        List<IndexRecord<Integer>> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            long rowId = random.nextInt(range);
+            records.add(new IndexRecord<>(i, new PointerPair(rowId, new BlockPointer((int) rowId, (short) 0)), 0));
+        }
+        return records;
+    }
+
+    @Test
+    void mergesMatchRecordsByRowId() {
+        Random random = new Random(7);
+        List<IndexRecord<Integer>> a = records(random, 30_000, 100_000);
+        List<IndexRecord<Integer>> b = records(random, 30_000, 100_000);
+
+        List<IndexRecord<Integer>> union = IndexUtils.mergeOr(a, b);
+        Set<IndexRecord<Integer>> expectedUnion = new HashSet<>(a);
+        List<IndexRecord<Integer>> added = b.stream().filter(expectedUnion::add).toList();
+        assertEquals(a, union.subList(0, a.size()));
+        assertEquals(added, union.subList(a.size(), union.size()));
+
+        List<IndexRecord<Integer>> expectedIntersection = new ArrayList<>(a);
+        expectedIntersection.retainAll(new HashSet<>(b));
+        assertEquals(expectedIntersection, IndexUtils.mergeAnd(a, b));
+        assertEquals(List.of(), IndexUtils.mergeAnd(a, List.of()));
+    }
+}
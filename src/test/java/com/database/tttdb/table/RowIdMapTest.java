@@ -0,0 +1,169 @@
+package com.database.tttdb.table;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.database.tttdb.api.Condition.WhereClause;
+import com.database.tttdb.api.Query.SelectType;
+import com.database.tttdb.api.Query.SelectionType;
+import com.database.tttdb.api.Schema;
+import com.database.tttdb.api.UpdateFields;
+import com.database.tttdb.core.Database;
+import com.database.tttdb.core.index.IndexInit.BlockPointer;
+import com.database.tttdb.core.page.Entry;
+import com.database.tttdb.core.table.DataType;
+import com.database.tttdb.core.table.RowIdMap;
+import com.database.tttdb.core.table.Table;
+
+class RowIdMapTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void rowIdsAreMonotonicAndResolveToTheirLocation() {
+        RowIdMap map = new RowIdMap();
+        long first = map.allocate();
+        long second = map.allocate();
+        assertTrue(second > first);
+        map.put(first, new BlockPointer(3, (short) 7));
+        map.put(second, new BlockPointer(70000, (short) 200));
+        assertEquals(new BlockPointer(3, (short) 7), map.get(first));
+        assertEquals(new BlockPointer(70000, (short) 200), map.get(second));
+        map.remove(first);
+        assertNull(map.get(first));
+        assertEquals(1, map.size());
+        assertTrue(map.allocate() > second, "row ids are never reused");
+    }
+
+    @Test
+    void rollbackRestoresLocationsAndCommitMergesIntoEnclosingLevel() {
+        RowIdMap map = new RowIdMap();
+        long row = map.allocate();
+        map.put(row, new BlockPointer(0, (short) 0));
+
+        map.beginTransaction();
+        map.beginTransaction();
+        map.put(row, new BlockPointer(1, (short) 1));
+        long added = map.allocate();
+        map.put(added, new BlockPointer(1, (short) 2));
+        map.commit();
+        assertEquals(new BlockPointer(1, (short) 1), map.get(row));
+        map.rollback();
+
+        assertEquals(new BlockPointer(0, (short) 0), map.get(row));
+        assertNull(map.get(added));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void rowIdsPastTheIntRangeSurviveChurnAndRollback() {
+        RowIdMap map = new RowIdMap();
+        map.reserve(1L << 40);
+        long kept = map.allocate();
+        assertTrue(kept >= 1L << 40);
+        map.put(kept, new BlockPointer(1, (short) 1));
+        for (int i = 0; i < 100_000; i++) {
+            long row = map.allocate();
+            map.put(row, new BlockPointer(i, (short) 2));
+            map.remove(row);
+        }
+        assertEquals(1, map.size());
+        assertEquals(new BlockPointer(1, (short) 1), map.get(kept));
+
+        List<Long> rows = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            rows.add(map.allocate());
+            map.put(rows.getLast(), new BlockPointer(i, (short) 3));
+        }
+        map.beginTransaction();
+        rows.forEach(map::remove);
+        map.remove(kept);
+        assertEquals(0, map.size());
+        map.rollback();
+        assertEquals(10_001, map.size());
+        for (int i = 0; i < rows.size(); i++) assertEquals(new BlockPointer(i, (short) 3), map.get(rows.get(i)));
+        assertEquals(new BlockPointer(1, (short) 1), map.get(kept));
+    }
+
+    @Test
+    void deletedRowIdsAreNotReusedAfterRestart() {
+        Schema schema = new Schema()
+            .column("id").type(DataType.INT).primaryKey().endColumn();
+        Database database = new Database("rowIdDB", null, 10);
+        database.setPath(tempDir.toString() + File.separator);
+        database.createTable("rows", schema);
+        database.start();
+        Table table = database.getTable("rows");
+        for (int i = 0; i < 100; i++) table.insertUnsafe(Entry.prepareEntry(new String[]{"id"}, new Object[]{i}, table));
+        database.commit();
+        long next = table.getRowIdMap().getNextRowId();
+        assertEquals(10, table.delete(new WhereClause().column("id").isBiggerOrEqual(90).end(), -1));
+        database.commit();
+        database.close();
+
+        Database reopened = new Database("rowIdDB", null, 10);
+        reopened.setPath(tempDir.toString() + File.separator);
+        reopened.createTable("rows", schema);
+        reopened.start();
+        Table restarted = reopened.getTable("rows");
+        assertEquals(90, restarted.getRowIdMap().size());
+        assertTrue(restarted.getRowIdMap().allocate() >= next, "ids of deleted rows are not allocated again");
+        reopened.removeAllTables();
+        reopened.close();
+    }
+
+    @Test
+    void indexesFollowRowsThroughUpdatesAndRestart() {
+        Schema schema = new Schema()
+            .column("id").type(DataType.INT).primaryKey().endColumn()
+            .column("num").type(DataType.INT).index().endColumn()
+            .column("tag").type(DataType.INT).index().endColumn()
+            .column("note").type(DataType.CHAR).size(10).endColumn();
+        Database database = new Database("rowIdDB", null, 10);
+        database.setPath(tempDir.toString() + File.separator);
+        database.createTable("rows", schema);
+        database.start();
+        Table table = database.getTable("rows");
+        for (int i = 0; i < 500; i++) {
+            table.insertUnsafe(Entry.prepareEntry(new String[]{"id", "num", "tag", "note"}, new Object[]{i, i % 10, i % 7, "n"}, table));
+        }
+
+        // Conditions on two different indexes are intersected by row
+        List<Entry> both = table.select(new WhereClause().column("num").isEqual(3).end().AND().column("tag").isEqual(2).end(),
+            0, -1, new SelectType(SelectionType.NORMAL, null));
+        assertFalse(both.isEmpty());
+        both.forEach(e -> { assertEquals(3, e.get(1)); assertEquals(2, e.get(2)); });
+
+        // Updating an indexed column keeps the row id, unique keys stay valid
+        table.update(new WhereClause().column("id").isEqual(42).end(), -1, new UpdateFields().selectColumn("num").set(99).selectColumn("note").set("x"));
+        List<Entry> updated = table.select(new WhereClause().column("num").isEqual(99).end(), 0, -1, new SelectType(SelectionType.NORMAL, null));
+        assertEquals(1, updated.size());
+        assertEquals(42, updated.getFirst().get(0));
+        long rowId = updated.getFirst().getRowId();
+        assertNotNull(table.locate(rowId));
+        database.commit();
+        database.close();
+
+        Database reopened = new Database("rowIdDB", null, 10);
+        reopened.setPath(tempDir.toString() + File.separator);
+        reopened.createTable("rows", schema);
+        reopened.start();
+        Table restarted = reopened.getTable("rows");
+        assertEquals(500, restarted.getRowIdMap().size());
+        assertEquals(table.locate(rowId), restarted.locate(rowId));
+        List<Entry> again = restarted.select(new WhereClause().column("num").isEqual(99).end(), 0, -1, new SelectType(SelectionType.NORMAL, null));
+        assertEquals(1, again.size());
+        assertEquals(rowId, again.getFirst().getRowId());
+        assertTrue(restarted.getRowIdMap().allocate() >= 500);
+        reopened.removeAllTables();
+        reopened.close();
+    }
+}
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import com.database.tttdb.api.Schema;
+import com.database.tttdb.api.DatabaseException.StorageFormatException;
 import com.database.tttdb.core.Database;
 import com.database.tttdb.core.FileIOThread;
 import com.database.tttdb.core.page.Entry;
@@ -17,6 +18,7 @@ import com.database.tttdb.core.table.Table;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
@@ -62,13 +64,15 @@ public class TableTest {
     @Test
     void getPageCapacity_CalculatesCorrectly() {
         // Expected calculation:
-        // BLOCK_SIZE = 4096, SIZE_OF_HEADER = 2*4 + 2 = 10 bytes
+        // BLOCK_SIZE = 4096, SIZE_OF_HEADER = 2*4 + 2*2 = 12 bytes
+        // Hidden row id = 8 bytes
         // Null bitmap size = (schema.numNullables()+7)/8 = (0+7)/8 = 1
         // Size of username: VARCHAR(10) = 10 + 2 = 12 bytes
         // Size of num: INT = 4 bytes
-        // Total entry size = 1 + 12 + 4 = 17 bytes
-        // Capacity = (4096 - 10) / 17 = 240
-        assertEquals(240, Page.getPageCapacity(TablePage.sizeOfEntry(table)));
+        // Total entry size = 8 + 1 + 12 + 4 = 25 bytes
+        // Each slot also takes one bit of the slot bitmap
+        // Capacity = ((4096 - 12) * 8) / (25 * 8 + 1) = 162
+        assertEquals(162, Page.getPageCapacity(TablePage.sizeOfEntry(table)));
     }
 
     @Test
@@ -95,6 +99,22 @@ public class TableTest {
         file.shutdown();
     }
     
+    @Test
+    void fileOperations_RejectOlderPageFormat() throws Exception {
+        // Header of the previous format: pageID, numOfEntries, spaceInUse, without a version
+        Path tablePath = tempDir.resolve("testDB.oldTable.table");
+        ByteBuffer page = ByteBuffer.allocate(Page.pageSizeInBytes(TablePage.sizeOfEntry(table)));
+        page.putInt(0).putShort((short) 2).putInt(2 * 17);
+        Files.write(tablePath, page.array());
+        Database db = new Database("testDB",null,10);
+        db.setPath(testPath);
+        db.createTable("oldTable", new Schema()
+            .column("username").type(DataType.CHAR).size(10).primaryKey().endColumn()
+            .column("num").type(DataType.INT).index().endColumn());
+        assertThrows(StorageFormatException.class, db::start);
+        db.close();
+    }
+
     @Test
     void pageSizeCalculations_AreConsistent() {
         int calculatedPageSize = Page.pageSizeInBytes(TablePage.sizeOfEntry(table));